@@ -41,6 +41,8 @@ abstract class BaseRowSet implements Comparable<RowSet>, RowSet {
   protected volatile String remoteSlaveServerName;
   private ReadWriteLock lock;
 
+  private volatile RowSetSignal readerSignal;
+
   public BaseRowSet() {
     // not done putting data into this RowSet
     done = new AtomicBoolean( false );
@@ -76,6 +78,22 @@ abstract class BaseRowSet implements Comparable<RowSet>, RowSet {
     return compareTo( rowSet ) == 0;
   }
 
+  @Override
+  public boolean setReaderSignal( RowSetSignal signal ) {
+    this.readerSignal = signal;
+    return true;
+  }
+
+  /**
+   * Wakes up the reader of this row set if it's waiting for rows. Call this after the rows are visible to the reader.
+   */
+  protected void signalReader() {
+    RowSetSignal signal = readerSignal;
+    if ( signal != null ) {
+      signal.signal();
+    }
+  }
+
   /*
    * (non-Javadoc)
    *
@@ -127,6 +145,7 @@ abstract class BaseRowSet implements Comparable<RowSet>, RowSet {
   @Override
   public void setDone() {
     done.set( true );
+    signalReader();
   }
 
   /*
@@ -97,6 +97,7 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<Row
       try {
         getArray.offer( inputBuffer, time, tu );
         inputBuffer = null;
+        signalReader();
       } catch ( InterruptedException e ) {
         return false;
       }
@@ -168,6 +169,7 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<Row
         inputBuffer[i] = null;
       }
       getArray.offer( inputBuffer );
+      signalReader();
     }
     putArray.clear();
   }
@@ -1050,6 +1050,40 @@ public class Const {
    */
   public static final String KETTLE_BATCHING_ROWSET = "KETTLE_BATCHING_ROWSET";
 
+  /**
+   * Set this variable to N to disable the lock-free ring buffer row set for hops between single step copies and fall
+   * back to the classic blocking row set. (default = Y)
+   */
+  public static final String KETTLE_RING_BUFFER_ROWSET = "KETTLE_RING_BUFFER_ROWSET";
+
+  /**
+   * Set this variable to Y to run the step threads of a transformation on virtual threads when the Java runtime
+   * supports them (Java 21 and up). Otherwise every step copy gets its own platform thread. (default = N)
+   */
+  public static final String KETTLE_VIRTUAL_STEP_THREADS = "KETTLE_VIRTUAL_STEP_THREADS";
+
+  /**
+   * Set this variable to Y to schedule the steps of a transformation on a shared work-stealing pool instead of running
+   * every step copy on a thread of its own. (default = N)
+   */
+  public static final String KETTLE_WORK_STEALING_SCHEDULER = "KETTLE_WORK_STEALING_SCHEDULER";
+
+  /**
+   * The number of threads of the shared work-stealing step scheduler pool. (default = the number of processors)
+   */
+  public static final String KETTLE_WORK_STEALING_PARALLELISM = "KETTLE_WORK_STEALING_PARALLELISM";
+
+  /**
+   * The maximum number of sorted temporary files the Sort Rows step merges at once. When there are more, they are first
+   * merged into fewer, larger, files. (default = 128)
+   */
+  public static final String KETTLE_SORT_MERGE_FAN_IN = "KETTLE_SORT_MERGE_FAN_IN";
+
+  /**
+   * The default maximum number of sorted temporary files the Sort Rows step merges at once.
+   */
+  public static final int KETTLE_SORT_MERGE_FAN_IN_DEFAULT = 128;
+
   /**
    * Set this variable to limit max number of files the Text File Output step can have open at one time.
    */
@@ -1726,6 +1760,11 @@ public class Const {
    */
   public static final String KETTLE_IGNORE_OUT_OF_RANGE_EXCEPTION = "KETTLE_IGNORE_OUT_OF_RANGE_EXCEPTION";
 
+  /**
+   * The provider of the database connection pools: DBCP2 (the default) or HIKARI.
+   */
+  public static final String KETTLE_CONNECTION_POOL_PROVIDER = "KETTLE_CONNECTION_POOL_PROVIDER";
+
   /**
    Value that overrides gather performance metrics checkbox value in scheduler dialog
    */
@@ -0,0 +1,133 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A blocking row set for steps that are scheduled on a fork/join pool instead of running on a thread of their own.
+ * <br>
+ * <br>
+ * When a pool thread has to wait for room or for rows, the pool is told about it through
+ * {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}. That way it can compensate with a spare thread and
+ * the other steps keep running, even when all pool threads are blocked.
+ *
+ * @since 11.1
+ */
+public class ManagedBlockingRowSet extends BlockingRowSet implements Comparable<RowSet>, RowSet {
+
+  private volatile Runnable rowsAddedListener;
+
+  public ManagedBlockingRowSet( int maxSize ) {
+    super( maxSize );
+  }
+
+  /**
+   * @param listener
+   *          called after a row is added and when the row set is done, for a reader nobody else wakes up
+   */
+  public void setRowsAddedListener( Runnable listener ) {
+    this.rowsAddedListener = listener;
+  }
+
+  @Override
+  public boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu ) {
+    boolean put = putRowWaitManaged( rowMeta, rowData, time, tu );
+    Runnable listener = rowsAddedListener;
+    if ( put && listener != null ) {
+      listener.run();
+    }
+    return put;
+  }
+
+  @Override
+  public void setDone() {
+    super.setDone();
+    Runnable listener = rowsAddedListener;
+    if ( listener != null ) {
+      listener.run();
+    }
+  }
+
+  private boolean putRowWaitManaged( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu ) {
+    if ( time <= 0 || !isPoolThread() ) {
+      return super.putRowWait( rowMeta, rowData, time, tu );
+    }
+    // Most of the time there is room, only involve the pool when we really have to wait
+    //
+    if ( super.putRowWait( rowMeta, rowData, 0, tu ) ) {
+      return true;
+    }
+    Boolean put = managedBlock( () -> super.putRowWait( rowMeta, rowData, time, tu ) );
+    return put != null && put.booleanValue();
+  }
+
+  @Override
+  public Object[] getRowWait( long timeout, TimeUnit tu ) {
+    if ( timeout <= 0 || !isPoolThread() ) {
+      return super.getRowWait( timeout, tu );
+    }
+    Object[] row = getRowImmediate();
+    if ( row != null ) {
+      return row;
+    }
+    return managedBlock( () -> super.getRowWait( timeout, tu ) );
+  }
+
+  private static boolean isPoolThread() {
+    return Thread.currentThread() instanceof ForkJoinWorkerThread;
+  }
+
+  /**
+   * Runs a blocking call, telling the fork/join pool of the current thread that we might block.
+   *
+   * @return the result of the call or null if we were interrupted
+   */
+  static <T> T managedBlock( Supplier<T> call ) {
+    Blocker<T> blocker = new Blocker<>( call );
+    try {
+      ForkJoinPool.managedBlock( blocker );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    return blocker.result;
+  }
+
+  private static final class Blocker<T> implements ForkJoinPool.ManagedBlocker {
+    private final Supplier<T> call;
+    private boolean done;
+    private T result;
+
+    Blocker( Supplier<T> call ) {
+      this.call = call;
+    }
+
+    @Override
+    public boolean block() {
+      result = call.get();
+      done = true;
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return done;
+    }
+  }
+}
@@ -59,6 +59,14 @@ public class QueueRowSet extends BaseRowSet implements Comparable<RowSet>, RowSe
     return putRow( rowMeta, rowData );
   }
 
+  /**
+   * This row set is only used within a single thread so there is never a reader to wake up.
+   */
+  @Override
+  public boolean setReaderSignal( RowSetSignal signal ) {
+    return false;
+  }
+
   @Override
   public int size() {
     return buffer.size();
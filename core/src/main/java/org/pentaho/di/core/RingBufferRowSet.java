@@ -0,0 +1,350 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A lock-free buffer of rows for a hop between exactly one writing thread and exactly one reading thread (single
+ * producer, single consumer). Rows are stored in a fixed ring of slots, the read and write positions live on separate
+ * cache lines and neither side ever takes a lock.<br>
+ * <br>
+ * When the buffer is empty (reader) or full (writer) the waiting thread first spins, then yields and finally parks
+ * until the other side signals it or the timeout expires.<br>
+ * <br>
+ * Do NOT share an instance of this row set between multiple writing or multiple reading threads.
+ *
+ * @since 11.1
+ */
+public class RingBufferRowSet extends BaseRowSet implements Comparable<RowSet>, RowSet {
+
+  /**
+   * Number of busy spins before we start yielding the CPU.
+   */
+  private static final int SPIN_TRIES = 128;
+
+  /**
+   * Number of yields before we start parking the thread.
+   */
+  private static final int YIELD_TRIES = 64;
+
+  private final Object[][] buffer;
+  private final int mask;
+  private final int capacity;
+
+  /**
+   * The next slot to read, only ever written by the reading thread. Its cached value is the last seen write position.
+   */
+  private final Sequence head;
+
+  /**
+   * The next slot to write, only ever written by the writing thread. Its cached value is the last seen read position.
+   */
+  private final Sequence tail;
+
+  private volatile Thread waitingReader;
+  private volatile Thread waitingWriter;
+
+  private int timeoutPut;
+  private int timeoutGet;
+
+  /**
+   * Create a new ring buffer row set with maxSize capacity.
+   *
+   * @param maxSize
+   *          the maximum number of rows that can be buffered
+   */
+  public RingBufferRowSet( int maxSize ) {
+    super();
+
+    capacity = Math.max( 1, maxSize );
+    int slots = Integer.highestOneBit( capacity );
+    if ( slots < capacity ) {
+      slots <<= 1;
+    }
+    buffer = new Object[ slots ][];
+    mask = slots - 1;
+
+    head = new Sequence();
+    tail = new Sequence();
+
+    timeoutGet = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_GET_TIMEOUT ), Const.TIMEOUT_GET_MILLIS );
+    timeoutPut = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_PUT_TIMEOUT ), Const.TIMEOUT_PUT_MILLIS );
+  }
+
+  @Override
+  public boolean putRow( RowMetaInterface rowMeta, Object[] rowData ) {
+    return putRowWait( rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu ) {
+    this.rowMeta = rowMeta;
+    if ( rowData == null ) {
+      return false;
+    }
+
+    long position = tail.get();
+    if ( position - tail.cached >= capacity ) {
+      tail.cached = head.get();
+      if ( position - tail.cached >= capacity && !awaitFreeSlot( position, tu.toNanos( time ) ) ) {
+        return false;
+      }
+    }
+
+    buffer[ (int) position & mask ] = rowData;
+    tail.set( position + 1 );
+
+    Thread reader = waitingReader;
+    if ( reader != null ) {
+      LockSupport.unpark( reader );
+    }
+    signalReader();
+    return true;
+  }
+
+  /**
+   * Publishes as many rows of the batch as there are free slots in one go. We only wait if the buffer is completely
+   * full.
+   */
+  @Override
+  public int putRows( RowMetaInterface rowMeta, Object[][] rows, int offset, int count ) {
+    this.rowMeta = rowMeta;
+    if ( count <= 0 ) {
+      return 0;
+    }
+
+    long position = tail.get();
+    if ( position - tail.cached + count > capacity ) {
+      tail.cached = head.get();
+      if ( position - tail.cached >= capacity
+        && !awaitFreeSlot( position, TimeUnit.MILLISECONDS.toNanos( timeoutPut ) ) ) {
+        return 0;
+      }
+    }
+
+    int nr = (int) Math.min( count, capacity - ( position - tail.cached ) );
+    for ( int i = 0; i < nr; i++ ) {
+      Object[] row = rows[ offset + i ];
+      if ( row == null ) {
+        nr = i;
+        break;
+      }
+      buffer[ (int) ( position + i ) & mask ] = row;
+    }
+    if ( nr == 0 ) {
+      return 0;
+    }
+    tail.set( position + nr );
+
+    Thread reader = waitingReader;
+    if ( reader != null ) {
+      LockSupport.unpark( reader );
+    }
+    signalReader();
+    return nr;
+  }
+
+  /**
+   * Takes all the available rows (up to max) and frees their slots in one go.
+   */
+  @Override
+  public int getRowsImmediate( Object[][] target, int offset, int max ) {
+    long position = head.get();
+    if ( position + max > head.cached ) {
+      head.cached = tail.get();
+    }
+    int nr = (int) Math.min( max, head.cached - position );
+    if ( nr <= 0 ) {
+      return 0;
+    }
+    for ( int i = 0; i < nr; i++ ) {
+      int index = (int) ( position + i ) & mask;
+      target[ offset + i ] = buffer[ index ];
+      buffer[ index ] = null; // prevent any hold-up to GC
+    }
+    head.set( position + nr );
+
+    Thread writer = waitingWriter;
+    if ( writer != null ) {
+      LockSupport.unpark( writer );
+    }
+    return nr;
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait( timeoutGet, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    long position = head.get();
+    if ( position >= head.cached ) {
+      head.cached = tail.get();
+      if ( position >= head.cached ) {
+        return null;
+      }
+    }
+    return take( position );
+  }
+
+  @Override
+  public Object[] getRowWait( long timeout, TimeUnit tu ) {
+    long position = head.get();
+    if ( position >= head.cached ) {
+      head.cached = tail.get();
+      if ( position >= head.cached && !awaitAvailableRow( position, tu.toNanos( timeout ) ) ) {
+        return null;
+      }
+    }
+    return take( position );
+  }
+
+  private Object[] take( long position ) {
+    int index = (int) position & mask;
+    Object[] row = buffer[ index ];
+    buffer[ index ] = null; // prevent any hold-up to GC
+    head.set( position + 1 );
+
+    Thread writer = waitingWriter;
+    if ( writer != null ) {
+      LockSupport.unpark( writer );
+    }
+    return row;
+  }
+
+  /**
+   * Wait until the reader frees up a slot for the given write position.
+   *
+   * @return true if a slot became available, false on timeout or interruption.
+   */
+  private boolean awaitFreeSlot( long position, long timeoutNanos ) {
+    long deadline = System.nanoTime() + timeoutNanos;
+    int tries = 0;
+    while ( true ) {
+      tail.cached = head.get();
+      if ( position - tail.cached < capacity ) {
+        return true;
+      }
+      long remaining = deadline - System.nanoTime();
+      if ( remaining <= 0 ) {
+        return false;
+      }
+      if ( tries < SPIN_TRIES ) {
+        Thread.onSpinWait();
+      } else if ( tries < SPIN_TRIES + YIELD_TRIES ) {
+        Thread.yield();
+      } else {
+        waitingWriter = Thread.currentThread();
+        tail.cached = head.get();
+        if ( position - tail.cached >= capacity ) {
+          LockSupport.parkNanos( this, remaining );
+        }
+        waitingWriter = null;
+        if ( Thread.interrupted() ) {
+          return false;
+        }
+      }
+      tries++;
+    }
+  }
+
+  /**
+   * Wait until the writer publishes a row for the given read position.
+   *
+   * @return true if a row became available, false on timeout, interruption or when the row set is done.
+   */
+  private boolean awaitAvailableRow( long position, long timeoutNanos ) {
+    long deadline = System.nanoTime() + timeoutNanos;
+    int tries = 0;
+    while ( true ) {
+      head.cached = tail.get();
+      if ( position < head.cached ) {
+        return true;
+      }
+      if ( isDone() ) {
+        // One more look: the writer might have published its last row right before signalling done.
+        head.cached = tail.get();
+        return position < head.cached;
+      }
+      long remaining = deadline - System.nanoTime();
+      if ( remaining <= 0 ) {
+        return false;
+      }
+      if ( tries < SPIN_TRIES ) {
+        Thread.onSpinWait();
+      } else if ( tries < SPIN_TRIES + YIELD_TRIES ) {
+        Thread.yield();
+      } else {
+        waitingReader = Thread.currentThread();
+        head.cached = tail.get();
+        if ( position >= head.cached && !isDone() ) {
+          LockSupport.parkNanos( this, remaining );
+        }
+        waitingReader = null;
+        if ( Thread.interrupted() ) {
+          return false;
+        }
+      }
+      tries++;
+    }
+  }
+
+  @Override
+  public void setDone() {
+    super.setDone();
+
+    Thread reader = waitingReader;
+    if ( reader != null ) {
+      LockSupport.unpark( reader );
+    }
+  }
+
+  @Override
+  public int size() {
+    return (int) ( tail.get() - head.get() );
+  }
+
+  /**
+   * Clears the buffer. Only call this when neither the reading nor the writing thread is active on this row set.
+   */
+  @Override
+  public void clear() {
+    Arrays.fill( buffer, null );
+    head.set( 0L );
+    head.cached = 0L;
+    tail.set( 0L );
+    tail.cached = 0L;
+    done.set( false );
+  }
+
+  /**
+   * A read or write position, padded so that the reader and the writer never share a cache line. The cached value is
+   * only ever touched by the thread owning the sequence.
+   */
+  @SuppressWarnings( { "unused", "serial" } )
+  private static final class Sequence extends AtomicLong {
+    private long p1, p2, p3, p4, p5, p6, p7;
+
+    private long cached;
+
+    private long q1, q2, q3, q4, q5, q6, q7;
+  }
+}
@@ -47,6 +47,49 @@ public interface RowSet {
    */
   boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu );
 
+  /**
+   * Offer a batch of rows to this rowset. For every row that doesn't fit in the buffer we wait (block) for a small
+   * period of time, just like {@link #putRow(RowMetaInterface, Object[])}. Implementations can override this to
+   * publish the whole batch at once.
+   *
+   * @param rowMeta
+   *          The description of the row data
+   * @param rows
+   *          the buffer holding the rows
+   * @param offset
+   *          the index of the first row to add in the buffer
+   * @param count
+   *          the number of rows to add
+   * @return the number of rows that were added, starting at offset. This is less than count if the buffer was full.
+   */
+  default int putRows( RowMetaInterface rowMeta, Object[][] rows, int offset, int count ) {
+    int nr = 0;
+    while ( nr < count && putRow( rowMeta, rows[ offset + nr ] ) ) {
+      nr++;
+    }
+    return nr;
+  }
+
+  /**
+   * Get the rows that are immediately available, without waiting.
+   *
+   * @param target
+   *          the buffer to store the rows in
+   * @param offset
+   *          the index in the target buffer to store the first row at
+   * @param max
+   *          the maximum number of rows to get
+   * @return the number of rows stored in the target buffer
+   */
+  default int getRowsImmediate( Object[][] target, int offset, int max ) {
+    int nr = 0;
+    Object[] row;
+    while ( nr < max && ( row = getRowImmediate() ) != null ) {
+      target[ offset + nr++ ] = row;
+    }
+    return nr;
+  }
+
   /**
    * Get a row from the input buffer, it blocks for a short period until a new row becomes available. Otherwise, it
    * returns null.
@@ -145,4 +188,16 @@ public interface RowSet {
    * Clear this rowset: remove all rows and remove the "done" flag.
    */
   void clear();
+
+  /**
+   * Sets the signal to raise when rows are added to this row set or when it is marked as done. This allows a reader to
+   * park until any of its input row sets has something to offer instead of polling them in turn.
+   *
+   * @param signal
+   *          the signal to raise or null to stop signalling
+   * @return true if this row set raises the signal, false if the reader has to keep polling it
+   */
+  default boolean setReaderSignal( RowSetSignal signal ) {
+    return false;
+  }
 }
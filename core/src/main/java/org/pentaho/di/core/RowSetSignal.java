@@ -0,0 +1,75 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core;
+
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lets a reading thread park until one of the row sets it reads from receives rows or is marked as done.<br>
+ * <br>
+ * The reader calls {@link #startWaiting()}, checks its row sets once more and only then calls {@link #await(long,
+ * TimeUnit)}. Row sets call {@link #signal()} after publishing rows, so a row that arrives in between is never
+ * missed. Finally the reader calls {@link #stopWaiting()}.
+ *
+ * @since 11.1
+ */
+public class RowSetSignal {
+
+  private volatile Thread waiter;
+
+  /**
+   * Registers the calling thread as the one to wake up on the next signal.
+   */
+  public void startWaiting() {
+    waiter = Thread.currentThread();
+  }
+
+  /**
+   * Parks the calling thread until it is signalled, interrupted or the timeout expires.
+   *
+   * @param timeout the maximum time to wait
+   * @param tu      the time unit of the timeout
+   */
+  public void await( long timeout, TimeUnit tu ) {
+    if ( Thread.currentThread() instanceof ForkJoinWorkerThread ) {
+      // Let the fork/join pool compensate for the thread we're parking
+      //
+      ManagedBlockingRowSet.managedBlock( () -> {
+        LockSupport.parkNanos( this, tu.toNanos( timeout ) );
+        return Boolean.TRUE;
+      } );
+    } else {
+      LockSupport.parkNanos( this, tu.toNanos( timeout ) );
+    }
+  }
+
+  /**
+   * The calling thread is no longer interested in signals.
+   */
+  public void stopWaiting() {
+    waiter = null;
+  }
+
+  /**
+   * Wakes up the waiting thread, if any.
+   */
+  public void signal() {
+    Thread thread = waiter;
+    if ( thread != null ) {
+      LockSupport.unpark( thread );
+    }
+  }
+}
@@ -55,6 +55,14 @@ public class SingleRowRowSet extends BaseRowSet implements Comparable<RowSet>, R
     return putRow( rowMeta, rowData );
   }
 
+  /**
+   * This row set is only used within a single thread so there is never a reader to wake up.
+   */
+  @Override
+  public boolean setReaderSignal( RowSetSignal signal ) {
+    return false;
+  }
+
   @Override
   public int size() {
     return row == null ? 0 : 1;
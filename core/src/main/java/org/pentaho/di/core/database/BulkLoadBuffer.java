@@ -0,0 +1,203 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
+
+/**
+ * Buffers rows as CSV and loads them into a table at once with the bulk load API of the JDBC driver, see
+ * {@link DatabaseInterface#bulkLoadFromStream(java.sql.Connection, String, String[], InputStream)}. The values are
+ * written the way a prepared statement would pass them: dates as local time, booleans as 1/0 or Y/N depending on
+ * {@link DatabaseMeta#supportsBooleanDataType()}.<br>
+ * <br>
+ * The rows are loaded on the connection of the step, in its transaction: committing them is up to the caller.
+ *
+ * @since 11.1
+ */
+public class BulkLoadBuffer {
+
+  private static final String NULL = "NULL";
+
+  private final Database db;
+  private final DatabaseMeta databaseMeta;
+  private final String tableName;
+  private final RowMetaInterface rowMeta;
+  private final String[] columns;
+
+  private final Buffer buffer = new Buffer();
+  private final Writer writer = new OutputStreamWriter( buffer, StandardCharsets.UTF_8 );
+  private final SimpleDateFormat dateFormat = new SimpleDateFormat( "yyyy-MM-dd HH:mm:ss.SSS" );
+
+  private int size;
+
+  /**
+   * @param db
+   *          the connected database of the table
+   * @param tableName
+   *          the quoted schema and name of the table
+   * @param rowMeta
+   *          the layout of the rows to load, the names are the columns of the table
+   */
+  public BulkLoadBuffer( Database db, String tableName, RowMetaInterface rowMeta ) throws KettleDatabaseException {
+    this.db = db;
+    this.databaseMeta = db.getDatabaseMeta();
+    this.tableName = tableName;
+    this.rowMeta = rowMeta;
+
+    columns = new String[ rowMeta.size() ];
+    for ( int i = 0; i < rowMeta.size(); i++ ) {
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( i );
+      if ( valueMeta.isBinary() || valueMeta.getType() == ValueMetaInterface.TYPE_SERIALIZABLE ) {
+        throw new KettleDatabaseException( "Field [" + valueMeta.getName() + "] of type " + valueMeta.getTypeDesc()
+          + " can't be bulk loaded" );
+      }
+      columns[ i ] = databaseMeta.quoteField( valueMeta.getName() );
+    }
+  }
+
+  /**
+   * Add a row to the next load.
+   *
+   * @param row
+   *          the row in the layout of the loaded rows
+   */
+  public void addRow( Object[] row ) throws KettleDatabaseException {
+    try {
+      for ( int i = 0; i < columns.length; i++ ) {
+        if ( i > 0 ) {
+          writer.write( ',' );
+        }
+        ValueMetaInterface valueMeta = rowMeta.getValueMeta( i );
+        if ( valueMeta.isNull( row[ i ] ) ) {
+          writer.write( NULL );
+        } else {
+          writeQuoted( getText( valueMeta, row[ i ] ) );
+        }
+      }
+      writer.write( '\n' );
+      size++;
+    } catch ( KettleValueException | IOException e ) {
+      throw new KettleDatabaseException( "Unable to buffer a row to load into table " + tableName, e );
+    }
+  }
+
+  private String getText( ValueMetaInterface valueMeta, Object value ) throws KettleValueException {
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        return Long.toString( valueMeta.getInteger( value ) );
+      case ValueMetaInterface.TYPE_NUMBER:
+        return Double.toString( valueMeta.getNumber( value ) );
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        return valueMeta.getBigNumber( value ).toPlainString();
+      case ValueMetaInterface.TYPE_BOOLEAN:
+        boolean bool = valueMeta.getBoolean( value );
+        if ( databaseMeta.supportsBooleanDataType() ) {
+          return bool ? "1" : "0";
+        }
+        return bool ? "Y" : "N";
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        if ( valueMeta instanceof ValueMetaTimestamp ) {
+          return ( (ValueMetaTimestamp) valueMeta ).getTimestamp( value ).toString();
+        }
+        return dateFormat.format( valueMeta.getDate( value ) );
+      case ValueMetaInterface.TYPE_DATE:
+        return dateFormat.format( valueMeta.getDate( value ) );
+      default:
+        return valueMeta.getString( value );
+    }
+  }
+
+  private void writeQuoted( String text ) throws IOException {
+    writer.write( '"' );
+    int start = 0;
+    int quote = text.indexOf( '"' );
+    while ( quote >= 0 ) {
+      writer.write( text, start, quote + 1 - start );
+      writer.write( '"' );
+      start = quote + 1;
+      quote = text.indexOf( '"', start );
+    }
+    writer.write( text, start, text.length() - start );
+    writer.write( '"' );
+  }
+
+  /**
+   * @return the number of buffered rows
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Load the buffered rows into the table.
+   *
+   * @return the number of rows the database reports as loaded
+   */
+  public long load() throws KettleDatabaseException {
+    if ( size == 0 ) {
+      return 0;
+    }
+    try {
+      writer.flush();
+    } catch ( IOException e ) {
+      throw new KettleDatabaseException( "Unable to buffer the rows to load into table " + tableName, e );
+    }
+    try {
+      return databaseMeta.getDatabaseInterface().bulkLoadFromStream( db.getConnection(), tableName, columns,
+        buffer.getInputStream() );
+    } finally {
+      clear();
+    }
+  }
+
+  /**
+   * Discard the buffered rows.
+   */
+  public void clear() {
+    try {
+      // Drop what the writer still holds of a partly written row as well
+      writer.flush();
+    } catch ( IOException e ) {
+      // Can't happen writing to memory
+    }
+    buffer.reset();
+    size = 0;
+  }
+
+  /**
+   * Reads the buffered bytes without copying them.
+   */
+  private static class Buffer extends ByteArrayOutputStream {
+    Buffer() {
+      super( 64 * 1024 );
+    }
+
+    InputStream getInputStream() {
+      return new ByteArrayInputStream( buf, 0, count );
+    }
+  }
+}
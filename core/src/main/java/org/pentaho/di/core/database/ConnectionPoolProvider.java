@@ -0,0 +1,72 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.di.core.database;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.pentaho.di.core.exception.KettleDatabaseException;
+
+/**
+ * Creates the connection pools of {@link ConnectionPoolUtil}. The provider is chosen with the variable
+ * {@link org.pentaho.di.core.Const#KETTLE_CONNECTION_POOL_PROVIDER}, other providers can be added with
+ * {@link ConnectionPoolUtil#registerPoolProvider(ConnectionPoolProvider)}.
+ *
+ * @since 11.1
+ */
+public interface ConnectionPoolProvider {
+
+  /**
+   * @return the name used to choose this provider, for example DBCP2
+   */
+  String getName();
+
+  /**
+   * Creates a new pool for the connection. The pooling parameters of the connection are the ones of DBCP, see the
+   * constants of {@link ConnectionPoolUtil}, a provider maps those it knows and ignores the others.
+   *
+   * @param databaseMeta
+   *          the connection to pool
+   * @param partitionId
+   *          the partition to connect to, or null
+   * @param initialSize
+   *          the initial number of connections
+   * @param maximumSize
+   *          the maximum number of connections
+   * @return the pool, not connected yet
+   */
+  DataSource createDataSource( DatabaseMeta databaseMeta, String partitionId, int initialSize, int maximumSize )
+    throws KettleDatabaseException;
+
+  /**
+   * @param dataSource
+   *          a pool created by this provider
+   * @return the number of connections in use, or -1 if unknown
+   */
+  int getActiveConnections( DataSource dataSource );
+
+  /**
+   * @param dataSource
+   *          a pool created by this provider
+   * @return the number of connections waiting to be used, or -1 if unknown
+   */
+  int getIdleConnections( DataSource dataSource );
+
+  /**
+   * @param e
+   *          the error getting a connection from a pool of this provider
+   * @return true if no connection became available in time
+   */
+  boolean isTimeout( SQLException e );
+}
@@ -21,13 +21,17 @@ import org.pentaho.di.core.database.util.DatabaseUtil;
 import org.pentaho.di.core.encryption.Encr;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.core.util.EnvUtil;
 import org.pentaho.di.i18n.BaseMessages;
 
 import javax.sql.DataSource;
 
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
@@ -58,8 +62,15 @@ public class ConnectionPoolUtil {
   public static final String LOG_ABANDONED = "logAbandoned";
   private static Class<?> PKG = Database.class; // for i18n purposes, needed by Translator2!!
 
-  private static ConcurrentMap<String, BasicDataSource> dataSources = new ConcurrentHashMap<String, BasicDataSource>();
-  private static Map<String, Properties> dataSourcesAttributesMap = new HashMap<>();
+  private static ConcurrentMap<String, MonitoredDataSource> dataSources = new ConcurrentHashMap<>();
+  private static Map<String, Properties> dataSourcesAttributesMap = Collections.synchronizedMap( new HashMap<>() );
+
+  private static final ConcurrentMap<String, ConnectionPoolProvider> poolProviders = new ConcurrentHashMap<>();
+
+  static {
+    registerPoolProvider( new DbcpConnectionPoolProvider() );
+    registerPoolProvider( new HikariConnectionPoolProvider() );
+  }
 
   // PDI-12947
   private static final ReentrantLock lock = new ReentrantLock();
@@ -82,21 +93,62 @@ public class ConnectionPoolUtil {
     int initialSize = dbMeta.getInitialPoolSize();
     int maximumSize = dbMeta.getMaximumPoolSize();
 
-    lock.lock();
-    try {
-      if ( !isDataSourceRegistered( dbMeta, partitionId ) ) {
-        addPoolableDataSource( log, dbMeta, partitionId, initialSize, maximumSize );
+    // Only creating a pool needs the lock, many steps connecting at once would otherwise wait for each other
+    if ( !isDataSourceRegistered( dbMeta, partitionId ) ) {
+      lock.lock();
+      try {
+        if ( !isDataSourceRegistered( dbMeta, partitionId ) ) {
+          addPoolableDataSource( log, dbMeta, partitionId, initialSize, maximumSize );
+        }
+      } finally {
+        lock.unlock();
       }
-    } finally {
-      lock.unlock();
     }
     return dataSources.get( getDataSourceName( dbMeta, partitionId ) );
   }
 
+  /**
+   * Removes a connection pool from the cache. The pool is not closed.
+   *
+   * @param name
+   *          the name of the pool, see {@link #getDataSourceName(DatabaseMeta, String)}
+   * @return the removed pool or null. It is the {@link MonitoredDataSource} wrapper of the pool of the provider, use
+   *         {@link DataSource#unwrap(Class)} to get hold of that pool, for example to close it.
+   */
   public static DataSource removeDataSource( String name ) {
     return dataSources.remove( name );
   }
 
+  /**
+   * @return the connection pools in use, with their metrics
+   */
+  public static List<MonitoredDataSource> getDataSources() {
+    return new ArrayList<>( dataSources.values() );
+  }
+
+  /**
+   * Makes a pool provider available, replacing the provider with the same name.
+   *
+   * @param provider
+   *          the provider to add
+   */
+  public static void registerPoolProvider( ConnectionPoolProvider provider ) {
+    poolProviders.put( provider.getName().toUpperCase(), provider );
+  }
+
+  /**
+   * @return the provider chosen with {@link Const#KETTLE_CONNECTION_POOL_PROVIDER}, DBCP2 by default
+   */
+  public static ConnectionPoolProvider getPoolProvider() throws KettleDatabaseException {
+    String name = EnvUtil.getSystemProperty( Const.KETTLE_CONNECTION_POOL_PROVIDER, DbcpConnectionPoolProvider.NAME );
+    ConnectionPoolProvider provider = poolProviders.get( name.trim().toUpperCase() );
+    if ( provider == null ) {
+      throw new KettleDatabaseException( BaseMessages.getString( PKG,
+          "Database.UnknownConnectionPoolProvider.Exception", name, poolProviders.keySet() ) );
+    }
+    return provider;
+  }
+
   /**
    * @deprecated (Please use {@getDataSource(LogChannelInterface, DatabaseMeta, String) getDataSource} on init the step and then just get the connection when needed)
    */
@@ -129,7 +181,7 @@ public class ConnectionPoolUtil {
    * @param databaseMeta
    * @return new object of type Properties with resolved variables/parameters
    */
-  private static Properties environmentSubstitute( Properties properties, DatabaseMeta databaseMeta ) {
+  static Properties environmentSubstitute( Properties properties, DatabaseMeta databaseMeta ) {
     Iterator<Object> iterator = properties.keySet().iterator();
     while ( iterator.hasNext() ) {
       String key = (String) iterator.next();
@@ -156,7 +208,6 @@ public class ConnectionPoolUtil {
       ds.setDriverClassLoader( databaseMeta.getDatabaseInterface().getClass().getClassLoader() );
     }
     ds.setDriverClassName( clazz );
-    dataSourcesAttributesMap.put( getDataSourceName( databaseMeta, partitionId ), databaseMeta.getAttributes() );
   }
 
   private static void setCredentials( BasicDataSource ds, DatabaseMeta databaseMeta, String partitionId )
@@ -307,16 +358,32 @@ public class ConnectionPoolUtil {
    */
   private static void addPoolableDataSource( LogChannelInterface log, DatabaseMeta databaseMeta, String partitionId,
       int initialSize, int maximumSize ) throws KettleDatabaseException {
+    ConnectionPoolProvider provider = getPoolProvider();
     if ( log.isBasic() ) {
       log.logBasic( BaseMessages.getString( PKG, "Database.CreatingConnectionPool", databaseMeta.getName() ) );
     }
 
-    BasicDataSource ds = new BasicDataSource();
-    configureDataSource( ds, databaseMeta, partitionId, initialSize, maximumSize );
+    String name = getDataSourceName( databaseMeta, partitionId );
+    DataSource pool = provider.createDataSource( databaseMeta, partitionId, initialSize, maximumSize );
+    dataSourcesAttributesMap.put( name, databaseMeta.getAttributes() );
+    MonitoredDataSource ds = new MonitoredDataSource( databaseMeta.getName(), provider, pool );
     // check if datasource is valid
-    testDataSource( ds );
+    try {
+      testDataSource( ds );
+    } catch ( KettleDatabaseException e ) {
+      dataSourcesAttributesMap.remove( name );
+      // Don't leave the threads and connections of the pool behind
+      if ( pool instanceof AutoCloseable ) {
+        try {
+          ( (AutoCloseable) pool ).close();
+        } catch ( Exception closeException ) {
+          e.addSuppressed( closeException );
+        }
+      }
+      throw e;
+    }
     // register data source
-    dataSources.put( getDataSourceName( databaseMeta, partitionId ), ds );
+    dataSources.put( name, ds );
 
     if ( log.isBasic() ) {
       log.logBasic( BaseMessages.getString( PKG, "Database.CreatedConnectionPool", databaseMeta.getName() ) );
@@ -130,6 +130,8 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
   private static final String DATA_SERVICES_PLUGIN_ID = "KettleThin";
 
   private int rowlimit;
+
+  private int fetchSize;
   private int commitsize;
 
   private Connection connection;
@@ -317,6 +319,17 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
     rowlimit = rows;
   }
 
+  /**
+   * Set the number of rows to fetch per round trip in the queries that are opened next. This overrides the fetch size
+   * Kettle would otherwise pick, it is ignored if the database doesn't support setting it.
+   *
+   * @param fetchSize
+   *          the number of rows, 0 to let Kettle pick the fetch size
+   */
+  public void setFetchSize( int fetchSize ) {
+    this.fetchSize = fetchSize;
+  }
+
   /**
    * @return Returns the prepStatementInsert.
    */
@@ -445,7 +458,13 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
       if ( databaseMeta.getAccessType() == DatabaseMeta.TYPE_ACCESS_JNDI ) {
         this.connection = getDataSource( partitionId ).getConnection();
       } else if ( databaseMeta.isUsingConnectionPool() ) {
-        this.connection = getDataSource( partitionId ).getConnection();
+        DataSource pool = getDataSource( partitionId );
+        log.snap( Metrics.METRIC_DATABASE_POOL_ACQUIRE_START, databaseMeta.getName() );
+        try {
+          this.connection = pool.getConnection();
+        } finally {
+          log.snap( Metrics.METRIC_DATABASE_POOL_ACQUIRE_STOP, databaseMeta.getName() );
+        }
         if ( getConnection().getAutoCommit() != isAutoCommit() ) {
           setAutoCommit( isAutoCommit() );
         }
@@ -1733,6 +1752,7 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
 
           pstmt.setFetchDirection( fetchMode );
         }
+        applyFetchSize( pstmt );
 
         if ( rowlimit > 0 && databaseMeta.supportsSetMaxRows() ) {
           pstmt.setMaxRows( rowlimit );
@@ -1755,6 +1775,7 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
           }
           selStmt.setFetchDirection( fetchMode );
         }
+        applyFetchSize( selStmt );
         if ( rowlimit > 0 && databaseMeta.supportsSetMaxRows() ) {
           selStmt.setMaxRows( rowlimit );
         }
@@ -1779,6 +1800,12 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
     return res;
   }
 
+  private void applyFetchSize( Statement statement ) throws SQLException {
+    if ( fetchSize > 0 && databaseMeta.isFetchSizeSupported() ) {
+      statement.setFetchSize( fetchSize );
+    }
+  }
+
   private boolean canWeSetFetchSize( Statement statement ) throws SQLException {
     return databaseMeta.isFetchSizeSupported()
       && ( statement.getMaxRows() > 0
@@ -1811,6 +1838,7 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
 
         ps.setFetchDirection( ResultSet.FETCH_FORWARD );
       }
+      applyFetchSize( ps );
 
       if ( rowlimit > 0 && databaseMeta.supportsSetMaxRows() ) {
         ps.setMaxRows( rowlimit );
@@ -13,6 +13,8 @@
 
 package org.pentaho.di.core.database;
 
+import java.io.InputStream;
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -21,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -1239,6 +1242,169 @@ public interface DatabaseInterface extends Cloneable {
     return new SqlScriptParser( true );
   }
 
+  /**
+   * @return true if the database can compare a list of columns with a list of rows in one condition, for example
+   *         <code>(a, b) IN ((?, ?), (?, ?))</code>. The default is false: the rows are compared one by one.
+   */
+  default boolean supportsRowValueInList() {
+    return false;
+  }
+
+  /**
+   * @return true if the database can stage rows in a temporary table and insert or update them all at once in a target
+   *         table, see {@link #getCreateTemporaryTableStatement(String, String)} and
+   *         {@link #getSQLUpsertFromTable(String, String, String[], String[], String[])}. The default is false.
+   */
+  default boolean supportsUpsertFromTable() {
+    return false;
+  }
+
+  /**
+   * @param tableName
+   *          the (quoted) name of the table
+   * @param columnDefinitions
+   *          the column definitions, separated by commas
+   * @return the statement to create a temporary table to stage rows in, or null if the database has no such tables. The
+   *         default is null.
+   */
+  default String getCreateTemporaryTableStatement( String tableName, String columnDefinitions ) {
+    return null;
+  }
+
+  /**
+   * @param tableName
+   *          the (quoted) name of the table
+   * @return the statement to drop a temporary table that was created with
+   *         {@link #getCreateTemporaryTableStatement(String, String)}. The default is a plain DROP TABLE.
+   */
+  default String getDropTemporaryTableStatement( String tableName ) {
+    return "DROP TABLE " + tableName;
+  }
+
+  /**
+   * Get the statement that applies all the rows of a staging table to a target table at once: the rows with a key that
+   * is not in the target table are inserted, the others are updated.
+   *
+   * @param targetTable
+   *          the (quoted) target table
+   * @param sourceTable
+   *          the (quoted) staging table, its columns have the same names as those of the target table
+   * @param keyColumns
+   *          the (quoted) columns to match the rows on, with "="
+   * @param insertColumns
+   *          the (quoted) columns to insert, including the key columns
+   * @param updateColumns
+   *          the (quoted) columns to update, empty to only insert the missing rows
+   * @return the SQL or null if the database has no such statement. The default is null.
+   */
+  default String getSQLUpsertFromTable( String targetTable, String sourceTable, String[] keyColumns,
+    String[] insertColumns, String[] updateColumns ) {
+    return null;
+  }
+
+  /**
+   * Get the statement that updates the rows of a target table with the matching rows of a staging table. The default
+   * uses a correlated sub-query per column.
+   *
+   * @param targetTable
+   *          the (quoted) target table
+   * @param sourceTable
+   *          the (quoted) staging table, its columns have the same names as those of the target table
+   * @param keyColumns
+   *          the (quoted) columns to match the rows on, with "="
+   * @param updateColumns
+   *          the (quoted) columns to update
+   * @return the SQL
+   */
+  default String getSQLUpdateFromTable( String targetTable, String sourceTable, String[] keyColumns,
+    String[] updateColumns ) {
+    String match = " WHERE " + getStagingJoinCondition( keyColumns );
+    StringBuilder sql = new StringBuilder( "UPDATE " ).append( targetTable ).append( " tgt SET " );
+    for ( int i = 0; i < updateColumns.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( updateColumns[ i ] ).append( " = ( SELECT src." ).append( updateColumns[ i ] )
+        .append( " FROM " ).append( sourceTable ).append( " src" ).append( match ).append( " )" );
+    }
+    sql.append( " WHERE EXISTS ( SELECT 1 FROM " ).append( sourceTable ).append( " src" ).append( match )
+      .append( " )" );
+    return sql.toString();
+  }
+
+  /**
+   * Get the statement that deletes the rows of a target table that have a matching row in a staging table.
+   *
+   * @param targetTable
+   *          the (quoted) target table
+   * @param sourceTable
+   *          the (quoted) staging table
+   * @param keyColumns
+   *          the (quoted) columns to match the rows on, with "="
+   * @return the SQL
+   */
+  default String getSQLDeleteFromTable( String targetTable, String sourceTable, String[] keyColumns ) {
+    return "DELETE FROM " + targetTable + " tgt WHERE EXISTS ( SELECT 1 FROM " + sourceTable + " src WHERE "
+      + getStagingJoinCondition( keyColumns ) + " )";
+  }
+
+  /**
+   * @return the condition matching the target table (alias tgt) with the staging table (alias src) on the key columns
+   */
+  default String getStagingJoinCondition( String[] keyColumns ) {
+    StringBuilder condition = new StringBuilder();
+    for ( int i = 0; i < keyColumns.length; i++ ) {
+      if ( i > 0 ) {
+        condition.append( " AND " );
+      }
+      condition.append( "tgt." ).append( keyColumns[ i ] ).append( " = src." ).append( keyColumns[ i ] );
+    }
+    return condition.toString();
+  }
+
+  /**
+   * @return true if rows can be streamed into a table with the copy API of the driver, see
+   *         {@link #bulkLoadFromStream(Connection, String, String[], InputStream)}. The default is false.
+   */
+  default boolean supportsBulkLoadFromStream() {
+    return false;
+  }
+
+  /**
+   * Stream rows into a table with the bulk load API of the JDBC driver, on the connection and in the transaction of the
+   * caller. The rows are CSV in UTF-8, see {@link BulkLoadBuffer}:
+   * <ul>
+   * <li>the values are separated by a comma and the rows end with a line feed</li>
+   * <li>every value is enclosed in double quotes, a double quote in a value is doubled</li>
+   * <li>a null value is the word NULL without quotes</li>
+   * </ul>
+   *
+   * @param connection
+   *          the connection of the driver
+   * @param tableName
+   *          the (quoted) schema and name of the table
+   * @param columns
+   *          the (quoted) columns, in the order of the values of a row
+   * @param csv
+   *          the rows
+   * @return the number of loaded rows
+   * @throws KettleDatabaseException
+   *           if the driver can't load the rows
+   */
+  default long bulkLoadFromStream( Connection connection, String tableName, String[] columns, InputStream csv )
+    throws KettleDatabaseException {
+    throw new KettleDatabaseException( "Database type " + getPluginName() + " has no bulk load API" );
+  }
+
+  /**
+   * @return the number of rows to fetch per round trip when the rows of a query are read ahead on another thread, see
+   *         {@link Database#setFetchSize(int)}. 0 leaves the fetch size to the driver. The default is
+   *         {@link Const#FETCH_SIZE}.
+   */
+  default int getPrefetchFetchSize() {
+    return Const.FETCH_SIZE;
+  }
+
   /**
    * @return true if database supports the standard table output step
    */
@@ -2399,6 +2399,36 @@ public class DatabaseMeta extends SharedObjectBase implements Cloneable, XMLInte
     databaseInterface.setConnectSQL( sql );
   }
 
+  /**
+   * @return true if the database can compare a list of columns with a list of rows in one condition, for example
+   *         <code>(a, b) IN ((?, ?), (?, ?))</code>
+   */
+  public boolean supportsRowValueInList() {
+    return databaseInterface.supportsRowValueInList();
+  }
+
+  /**
+   * @return true if rows can be inserted or updated in sets through a temporary staging table
+   */
+  public boolean supportsUpsertFromTable() {
+    return databaseInterface.supportsUpsertFromTable();
+  }
+
+  /**
+   * @return the number of rows to fetch per round trip when the rows of a query are read ahead, 0 for the default of
+   *         the driver
+   */
+  public int getPrefetchFetchSize() {
+    return databaseInterface.getPrefetchFetchSize();
+  }
+
+  /**
+   * @return true if rows can be streamed into a table with the bulk load API of the driver
+   */
+  public boolean supportsBulkLoadFromStream() {
+    return databaseInterface.supportsBulkLoadFromStream();
+  }
+
   /**
    * @return true if the database supports setting the maximum number of return rows in a resultset.
    */
@@ -0,0 +1,60 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.di.core.database;
+
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+
+/**
+ * The default pools, commons-dbcp2.
+ *
+ * @since 11.1
+ */
+public class DbcpConnectionPoolProvider implements ConnectionPoolProvider {
+
+  public static final String NAME = "DBCP2";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public DataSource createDataSource( DatabaseMeta databaseMeta, String partitionId, int initialSize,
+    int maximumSize ) throws KettleDatabaseException {
+    BasicDataSource ds = new BasicDataSource();
+    ConnectionPoolUtil.configureDataSource( ds, databaseMeta, partitionId, initialSize, maximumSize );
+    return ds;
+  }
+
+  @Override
+  public int getActiveConnections( DataSource dataSource ) {
+    return ( (BasicDataSource) dataSource ).getNumActive();
+  }
+
+  @Override
+  public int getIdleConnections( DataSource dataSource ) {
+    return ( (BasicDataSource) dataSource ).getNumIdle();
+  }
+
+  @Override
+  public boolean isTimeout( SQLException e ) {
+    // The pool reports that it waited maxWait in vain as an exhausted pool
+    return e.getCause() instanceof NoSuchElementException;
+  }
+}
@@ -37,4 +37,14 @@ public class GreenplumDatabaseMeta extends PostgreSQLDatabaseMeta implements Dat
   public boolean supportsErrorHandlingOnBatchUpdates() {
     return false;
   }
+
+  /**
+   * Greenplum has no INSERT ... ON CONFLICT
+   *
+   * @return false
+   */
+  @Override
+  public boolean supportsUpsertFromTable() {
+    return false;
+  }
 }
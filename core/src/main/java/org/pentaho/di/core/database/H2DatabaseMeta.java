@@ -85,6 +85,49 @@ public class H2DatabaseMeta extends BaseDatabaseMeta implements DatabaseInterfac
     return getBackwardsCompatibleSchemaTableCombination( schemaName, tablePart );
   }
 
+  /**
+   * @return true because the database can compare a list of columns with a list of rows, e.g. (a, b) IN ((?, ?))
+   */
+  @Override
+  public boolean supportsRowValueInList() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsUpsertFromTable() {
+    return true;
+  }
+
+  @Override
+  public String getCreateTemporaryTableStatement( String tableName, String columnDefinitions ) {
+    return "CREATE LOCAL TEMPORARY TABLE " + tableName + " ( " + columnDefinitions + " )";
+  }
+
+  @Override
+  public String getSQLUpsertFromTable( String targetTable, String sourceTable, String[] keyColumns,
+    String[] insertColumns, String[] updateColumns ) {
+    StringBuilder sql = new StringBuilder( "MERGE INTO " ).append( targetTable ).append( " tgt USING " )
+      .append( sourceTable ).append( " src ON ( " ).append( getStagingJoinCondition( keyColumns ) ).append( " )" );
+    if ( updateColumns.length > 0 ) {
+      sql.append( " WHEN MATCHED THEN UPDATE SET " );
+      for ( int i = 0; i < updateColumns.length; i++ ) {
+        if ( i > 0 ) {
+          sql.append( ", " );
+        }
+        sql.append( "tgt." ).append( updateColumns[ i ] ).append( " = src." ).append( updateColumns[ i ] );
+      }
+    }
+    sql.append( " WHEN NOT MATCHED THEN INSERT ( " ).append( String.join( ", ", insertColumns ) )
+      .append( " ) VALUES ( " );
+    for ( int i = 0; i < insertColumns.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( "src." ).append( insertColumns[ i ] );
+    }
+    return sql.append( " )" ).toString();
+  }
+
   /**
    * @return true if the database supports bitmap indexes
    */
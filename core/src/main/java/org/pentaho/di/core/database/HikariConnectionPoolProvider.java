@@ -0,0 +1,156 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.di.core.database;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.encryption.Encr;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.util.Utils;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Pools of HikariCP. These are chosen with {@link org.pentaho.di.core.Const#KETTLE_CONNECTION_POOL_PROVIDER}=HIKARI.
+ * <br>
+ * The pooling parameters of DBCP that have a HikariCP counterpart are used: {@link ConnectionPoolUtil#MAX_ACTIVE} is
+ * the maximum pool size, {@link ConnectionPoolUtil#MIN_IDLE} (or else the initial pool size) the minimum number of
+ * idle connections, {@link ConnectionPoolUtil#MAX_WAIT} the connection timeout and
+ * {@link ConnectionPoolUtil#VALIDATION_QUERY} the connection test query. The defaults of the connection are passed
+ * on as well.
+ *
+ * @since 11.1
+ */
+public class HikariConnectionPoolProvider implements ConnectionPoolProvider {
+
+  public static final String NAME = "HIKARI";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public DataSource createDataSource( DatabaseMeta databaseMeta, String partitionId, int initialSize,
+    int maximumSize ) throws KettleDatabaseException {
+    HikariConfig config = createConfig( databaseMeta, partitionId, initialSize, maximumSize );
+    try {
+      return new HikariDataSource( config );
+    } catch ( RuntimeException e ) {
+      throw new KettleDatabaseException( "Unable to create a HikariCP connection pool for " + databaseMeta.getName(),
+        e );
+    }
+  }
+
+  @VisibleForTesting
+  static HikariConfig createConfig( DatabaseMeta databaseMeta, String partitionId, int initialSize,
+    int maximumSize ) throws KettleDatabaseException {
+    Properties properties = new Properties( databaseMeta.getConnectionPoolingProperties() );
+    properties = ConnectionPoolUtil.environmentSubstitute( properties, databaseMeta );
+
+    HikariConfig config = new HikariConfig();
+    config.setPoolName( ConnectionPoolUtil.buildPoolName( databaseMeta, partitionId ) );
+    config.setJdbcUrl( databaseMeta.environmentSubstitute( databaseMeta.getURL( partitionId ) ) );
+
+    String userName = databaseMeta.environmentSubstitute( databaseMeta.getUsername() );
+    String password = databaseMeta.environmentSubstitute( databaseMeta.getPassword() );
+    config.setUsername( Const.NVL( userName, "" ) );
+    config.setPassword( Const.NVL( Encr.decryptPasswordOptionallyEncrypted( password ), "" ) );
+
+    setDriverClassName( config, databaseMeta );
+
+    int maxSize = getInt( properties, ConnectionPoolUtil.MAX_ACTIVE, maximumSize );
+    config.setMaximumPoolSize( maxSize );
+    config.setMinimumIdle( Math.min( maxSize, getInt( properties, ConnectionPoolUtil.MIN_IDLE,
+      getInt( properties, ConnectionPoolUtil.INITIAL_SIZE, initialSize ) ) ) );
+
+    // DBCP waits forever with a negative maxWait, HikariCP has no such option: keep its default then
+    long maxWait = getInt( properties, ConnectionPoolUtil.MAX_WAIT, -1 );
+    if ( maxWait > 0 ) {
+      config.setConnectionTimeout( maxWait );
+    }
+
+    String value = properties.getProperty( ConnectionPoolUtil.DEFAULT_AUTO_COMMIT );
+    if ( !Utils.isEmpty( value ) ) {
+      config.setAutoCommit( Boolean.valueOf( value ) );
+    }
+    value = properties.getProperty( ConnectionPoolUtil.DEFAULT_READ_ONLY );
+    if ( !Utils.isEmpty( value ) ) {
+      config.setReadOnly( Boolean.valueOf( value ) );
+    }
+    value = properties.getProperty( ConnectionPoolUtil.DEFAULT_TRANSACTION_ISOLATION );
+    if ( !Utils.isEmpty( value ) ) {
+      // HikariCP takes the level of java.sql.Connection as a number too
+      config.setTransactionIsolation( value );
+    }
+    value = properties.getProperty( ConnectionPoolUtil.DEFAULT_CATALOG );
+    if ( !Utils.isEmpty( value ) ) {
+      config.setCatalog( value );
+    }
+    value = properties.getProperty( ConnectionPoolUtil.VALIDATION_QUERY );
+    if ( !Utils.isEmpty( value ) ) {
+      config.setConnectionTestQuery( value );
+    }
+
+    // Don't connect while creating the pool, ConnectionPoolUtil tests the pool itself
+    config.setInitializationFailTimeout( -1 );
+    return config;
+  }
+
+  /**
+   * The driver usually lives in the class loader of the database plugin, HikariCP looks in the context class loader
+   * if it can't find the driver itself.
+   */
+  private static void setDriverClassName( HikariConfig config, DatabaseMeta databaseMeta ) {
+    Thread thread = Thread.currentThread();
+    ClassLoader contextClassLoader = thread.getContextClassLoader();
+    try {
+      if ( databaseMeta.getDatabaseInterface() != null ) {
+        thread.setContextClassLoader( databaseMeta.getDatabaseInterface().getClass().getClassLoader() );
+      }
+      config.setDriverClassName( databaseMeta.getDriverClass() );
+    } finally {
+      thread.setContextClassLoader( contextClassLoader );
+    }
+  }
+
+  private static int getInt( Properties properties, String key, int defaultValue ) {
+    String value = properties.getProperty( key );
+    return Utils.isEmpty( value ) ? defaultValue : Integer.parseInt( value );
+  }
+
+  @Override
+  public int getActiveConnections( DataSource dataSource ) {
+    HikariPoolMXBean pool = ( (HikariDataSource) dataSource ).getHikariPoolMXBean();
+    return pool == null ? -1 : pool.getActiveConnections();
+  }
+
+  @Override
+  public int getIdleConnections( DataSource dataSource ) {
+    HikariPoolMXBean pool = ( (HikariDataSource) dataSource ).getHikariPoolMXBean();
+    return pool == null ? -1 : pool.getIdleConnections();
+  }
+
+  @Override
+  public boolean isTimeout( SQLException e ) {
+    return e instanceof SQLTransientConnectionException;
+  }
+}
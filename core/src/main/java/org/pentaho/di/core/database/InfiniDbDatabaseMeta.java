@@ -17,4 +17,13 @@ public class InfiniDbDatabaseMeta extends MySQLDatabaseMeta implements DatabaseI
 
   // Only has a different ID to catch exceptions here and there.
 
+  /**
+   * InfiniDB has no unique indexes for INSERT ... ON DUPLICATE KEY UPDATE to match the rows on
+   *
+   * @return false
+   */
+  @Override
+  public boolean supportsUpsertFromTable() {
+    return false;
+  }
 }
@@ -28,4 +28,14 @@ public class InfobrightDatabaseMeta extends MySQLDatabaseMeta implements Databas
     addExtraOption( getPluginId(), "characterEncoding", "UTF-8" );
   }
 
+  /**
+   * Infobright has no unique indexes for INSERT ... ON DUPLICATE KEY UPDATE to match the rows on
+   *
+   * @return false
+   */
+  @Override
+  public boolean supportsUpsertFromTable() {
+    return false;
+  }
+
 }
@@ -0,0 +1,221 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.di.core.database;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * A connection pool of {@link ConnectionPoolUtil} that keeps track of how long getting a connection takes. Next to the
+ * connections in use and idle it counts the threads waiting for a connection, the connections handed out, the time
+ * spent waiting for them and the requests that timed out.
+ *
+ * @since 11.1
+ */
+public class MonitoredDataSource implements DataSource {
+
+  private final String name;
+  private final ConnectionPoolProvider provider;
+  private final DataSource pool;
+
+  private final AtomicInteger pending = new AtomicInteger();
+  private final LongAdder acquired = new LongAdder();
+  private final LongAdder timeouts = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder acquireNanos = new LongAdder();
+  private final AtomicLong maxAcquireNanos = new AtomicLong();
+
+  /**
+   * @param name
+   *          the name of the connection the pool belongs to
+   * @param provider
+   *          the provider that created the pool
+   * @param pool
+   *          the pool
+   */
+  public MonitoredDataSource( String name, ConnectionPoolProvider provider, DataSource pool ) {
+    this.name = name;
+    this.provider = provider;
+    this.pool = pool;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    pending.incrementAndGet();
+    long start = System.nanoTime();
+    try {
+      Connection connection = pool.getConnection();
+      acquired( System.nanoTime() - start );
+      return connection;
+    } catch ( SQLException e ) {
+      failed( e );
+      throw e;
+    } finally {
+      pending.decrementAndGet();
+    }
+  }
+
+  @Override
+  public Connection getConnection( String username, String password ) throws SQLException {
+    pending.incrementAndGet();
+    long start = System.nanoTime();
+    try {
+      Connection connection = pool.getConnection( username, password );
+      acquired( System.nanoTime() - start );
+      return connection;
+    } catch ( SQLException e ) {
+      failed( e );
+      throw e;
+    } finally {
+      pending.decrementAndGet();
+    }
+  }
+
+  private void acquired( long nanos ) {
+    acquired.increment();
+    acquireNanos.add( nanos );
+    maxAcquireNanos.accumulateAndGet( nanos, Math::max );
+  }
+
+  private void failed( SQLException e ) {
+    if ( provider.isTimeout( e ) ) {
+      timeouts.increment();
+    } else {
+      failures.increment();
+    }
+  }
+
+  /**
+   * @return the name of the connection the pool belongs to
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the provider that created the pool
+   */
+  public ConnectionPoolProvider getProvider() {
+    return provider;
+  }
+
+  /**
+   * @return the pool of the provider
+   */
+  public DataSource getPool() {
+    return pool;
+  }
+
+  /**
+   * @return the number of connections in use, or -1 if the provider doesn't know
+   */
+  public int getActiveConnections() {
+    return provider.getActiveConnections( pool );
+  }
+
+  /**
+   * @return the number of idle connections, or -1 if the provider doesn't know
+   */
+  public int getIdleConnections() {
+    return provider.getIdleConnections( pool );
+  }
+
+  /**
+   * @return the number of threads waiting for a connection right now
+   */
+  public int getPendingConnections() {
+    return pending.get();
+  }
+
+  /**
+   * @return the number of connections handed out
+   */
+  public long getAcquiredConnections() {
+    return acquired.sum();
+  }
+
+  /**
+   * @return the number of requests for a connection that timed out
+   */
+  public long getTimeouts() {
+    return timeouts.sum();
+  }
+
+  /**
+   * @return the number of requests for a connection that failed for another reason than a timeout
+   */
+  public long getFailures() {
+    return failures.sum();
+  }
+
+  /**
+   * @return the average time it took to get a connection, in milliseconds
+   */
+  public double getAverageAcquireMillis() {
+    long count = acquired.sum();
+    return count == 0 ? 0 : acquireNanos.sum() / ( count * 1000000.0 );
+  }
+
+  /**
+   * @return the longest time it took to get a connection, in milliseconds
+   */
+  public double getMaxAcquireMillis() {
+    return maxAcquireNanos.get() / 1000000.0;
+  }
+
+  @Override
+  public PrintWriter getLogWriter() throws SQLException {
+    return pool.getLogWriter();
+  }
+
+  @Override
+  public void setLogWriter( PrintWriter out ) throws SQLException {
+    pool.setLogWriter( out );
+  }
+
+  @Override
+  public void setLoginTimeout( int seconds ) throws SQLException {
+    pool.setLoginTimeout( seconds );
+  }
+
+  @Override
+  public int getLoginTimeout() throws SQLException {
+    return pool.getLoginTimeout();
+  }
+
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    return pool.getParentLogger();
+  }
+
+  @Override
+  public <T> T unwrap( Class<T> iface ) throws SQLException {
+    if ( iface.isInstance( pool ) ) {
+      return iface.cast( pool );
+    }
+    return pool.unwrap( iface );
+  }
+
+  @Override
+  public boolean isWrapperFor( Class<?> iface ) throws SQLException {
+    return iface.isInstance( pool ) || pool.isWrapperFor( iface );
+  }
+}
@@ -21,8 +21,12 @@ import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
 
+import java.io.InputStream;
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -48,6 +52,10 @@ public class MySQLDatabaseMeta extends BaseDatabaseMeta implements DatabaseInter
       "com.mysql.cj.jdbc.exceptions.PacketTooBigException",
       "com.mysql.cj.jdbc.exceptions.MysqlDataTruncation" );
 
+  /** The statements of the MySQL (8 and 5) and MariaDB drivers that can read LOAD DATA LOCAL INFILE from a stream */
+  private static final String[] LOCAL_INFILE_STATEMENT_CLASSES = { "com.mysql.cj.jdbc.JdbcStatement",
+    "com.mysql.jdbc.Statement", "org.mariadb.jdbc.MariaDbStatement" };
+
   public MySQLDatabaseMeta() {
     determineDriverClass();
   }
@@ -164,6 +172,120 @@ public class MySQLDatabaseMeta extends BaseDatabaseMeta implements DatabaseInter
     return true;
   }
 
+  /**
+   * @return true because the database can compare a list of columns with a list of rows, e.g. (a, b) IN ((?, ?))
+   */
+  @Override public boolean supportsRowValueInList() {
+    return true;
+  }
+
+  /**
+   * @return true, the rows are upserted with INSERT ... ON DUPLICATE KEY UPDATE which needs a unique index on the key
+   *         columns
+   */
+  @Override public boolean supportsUpsertFromTable() {
+    return true;
+  }
+
+  @Override public String getCreateTemporaryTableStatement( String tableName, String columnDefinitions ) {
+    return "CREATE TEMPORARY TABLE " + tableName + " ( " + columnDefinitions + " )";
+  }
+
+  /**
+   * DROP TEMPORARY TABLE can't drop a permanent table with the same name by mistake, nor commit the transaction.
+   */
+  @Override public String getDropTemporaryTableStatement( String tableName ) {
+    return "DROP TEMPORARY TABLE " + tableName;
+  }
+
+  @Override public String getSQLUpsertFromTable( String targetTable, String sourceTable, String[] keyColumns,
+    String[] insertColumns, String[] updateColumns ) {
+    String columns = String.join( ", ", insertColumns );
+    StringBuilder sql = new StringBuilder( "INSERT INTO " ).append( targetTable ).append( " ( " ).append( columns )
+      .append( " ) SELECT " ).append( columns ).append( " FROM " ).append( sourceTable )
+      .append( " ON DUPLICATE KEY UPDATE " );
+    if ( updateColumns.length == 0 ) {
+      // Only insert the missing rows: leave the existing ones as they are
+      return sql.append( keyColumns[ 0 ] ).append( " = " ).append( keyColumns[ 0 ] ).toString();
+    }
+    for ( int i = 0; i < updateColumns.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( updateColumns[ i ] ).append( " = VALUES( " ).append( updateColumns[ i ] ).append( " )" );
+    }
+    return sql.toString();
+  }
+
+  /**
+   * A temporary table can't be used twice in the same statement, so the tables are joined instead.
+   */
+  @Override public String getSQLUpdateFromTable( String targetTable, String sourceTable, String[] keyColumns,
+    String[] updateColumns ) {
+    StringBuilder sql = new StringBuilder( "UPDATE " ).append( targetTable ).append( " tgt JOIN " )
+      .append( sourceTable ).append( " src ON " ).append( getStagingJoinCondition( keyColumns ) ).append( " SET " );
+    for ( int i = 0; i < updateColumns.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( "tgt." ).append( updateColumns[ i ] ).append( " = src." ).append( updateColumns[ i ] );
+    }
+    return sql.toString();
+  }
+
+  @Override public String getSQLDeleteFromTable( String targetTable, String sourceTable, String[] keyColumns ) {
+    return "DELETE tgt FROM " + targetTable + " tgt JOIN " + sourceTable + " src ON "
+      + getStagingJoinCondition( keyColumns );
+  }
+
+  /**
+   * @return 0, the driver either reads all rows at once or streams them one by one, depending on the connection options
+   */
+  @Override public int getPrefetchFetchSize() {
+    return 0;
+  }
+
+  /**
+   * @return true, the rows are streamed with LOAD DATA LOCAL INFILE. The connection needs the option
+   *         allowLoadLocalInfile=true.
+   */
+  @Override public boolean supportsBulkLoadFromStream() {
+    return true;
+  }
+
+  @Override public long bulkLoadFromStream( Connection connection, String tableName, String[] columns,
+    InputStream csv ) throws KettleDatabaseException {
+    // The file name is ignored: the statement reads the stream that is set on it
+    String sql = "LOAD DATA LOCAL INFILE 'kettle.csv' INTO TABLE " + tableName + " CHARACTER SET utf8mb4"
+      + " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '' LINES TERMINATED BY '\\n'"
+      + " ( " + String.join( ", ", columns ) + " )";
+    try ( Statement statement = connection.createStatement() ) {
+      setLocalInfileInputStream( statement, csv );
+      return statement.executeUpdate( sql );
+    } catch ( SQLException e ) {
+      throw new KettleDatabaseException( "Unable to load rows into table " + tableName, e );
+    }
+  }
+
+  private void setLocalInfileInputStream( Statement statement, InputStream csv ) throws KettleDatabaseException {
+    ClassLoader classLoader = statement.getClass().getClassLoader();
+    for ( String className : LOCAL_INFILE_STATEMENT_CLASSES ) {
+      try {
+        Class<?> statementClass = Class.forName( className, true, classLoader );
+        if ( statement.isWrapperFor( statementClass ) ) {
+          statementClass.getMethod( "setLocalInfileInputStream", InputStream.class )
+            .invoke( statement.unwrap( statementClass ), csv );
+          return;
+        }
+      } catch ( ClassNotFoundException e ) {
+        // Another version of the driver
+      } catch ( ReflectiveOperationException | SQLException e ) {
+        throw new KettleDatabaseException( "Unable to pass the rows to the statement of the driver", e );
+      }
+    }
+    throw new KettleDatabaseException( "The driver of the connection can't load rows from a stream" );
+  }
+
   /**
    * @return true if the database supports synonyms
    */
@@ -13,7 +13,14 @@
 
 package org.pentaho.di.core.database;
 
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.row.ValueMetaInterface;
 
 /**
@@ -83,6 +90,89 @@ public class PostgreSQLDatabaseMeta extends BaseDatabaseMeta implements Database
     return false;
   }
 
+  /**
+   * @return true because the database can compare a list of columns with a list of rows, e.g. (a, b) IN ((?, ?))
+   */
+  @Override
+  public boolean supportsRowValueInList() {
+    return true;
+  }
+
+  /**
+   * @return true, the rows are upserted with INSERT ... ON CONFLICT which needs a unique index on the key columns
+   */
+  @Override
+  public boolean supportsUpsertFromTable() {
+    return true;
+  }
+
+  @Override
+  public String getCreateTemporaryTableStatement( String tableName, String columnDefinitions ) {
+    return "CREATE TEMPORARY TABLE " + tableName + " ( " + columnDefinitions + " )";
+  }
+
+  @Override
+  public String getSQLUpsertFromTable( String targetTable, String sourceTable, String[] keyColumns,
+    String[] insertColumns, String[] updateColumns ) {
+    String columns = String.join( ", ", insertColumns );
+    StringBuilder sql = new StringBuilder( "INSERT INTO " ).append( targetTable ).append( " ( " ).append( columns )
+      .append( " ) SELECT " ).append( columns ).append( " FROM " ).append( sourceTable )
+      .append( " ON CONFLICT ( " ).append( String.join( ", ", keyColumns ) ).append( " ) DO " );
+    if ( updateColumns.length == 0 ) {
+      return sql.append( "NOTHING" ).toString();
+    }
+    sql.append( "UPDATE SET " );
+    for ( int i = 0; i < updateColumns.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( updateColumns[ i ] ).append( " = EXCLUDED." ).append( updateColumns[ i ] );
+    }
+    return sql.toString();
+  }
+
+  @Override
+  public String getSQLUpdateFromTable( String targetTable, String sourceTable, String[] keyColumns,
+    String[] updateColumns ) {
+    StringBuilder sql = new StringBuilder( "UPDATE " ).append( targetTable ).append( " tgt SET " );
+    for ( int i = 0; i < updateColumns.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( updateColumns[ i ] ).append( " = src." ).append( updateColumns[ i ] );
+    }
+    return sql.append( " FROM " ).append( sourceTable ).append( " src WHERE " )
+      .append( getStagingJoinCondition( keyColumns ) ).toString();
+  }
+
+  /**
+   * @return true, the rows are streamed with COPY ... FROM STDIN through the CopyManager of the driver
+   */
+  @Override
+  public boolean supportsBulkLoadFromStream() {
+    return true;
+  }
+
+  @Override
+  public long bulkLoadFromStream( Connection connection, String tableName, String[] columns, InputStream csv )
+    throws KettleDatabaseException {
+    String sql = "COPY " + tableName + " ( " + String.join( ", ", columns )
+      + " ) FROM STDIN WITH ( FORMAT csv, NULL 'NULL', ENCODING 'UTF8' )";
+    try {
+      // The driver is only known at runtime, it comes with the plugin of the connection
+      Class<?> pgConnectionClass =
+        Class.forName( "org.postgresql.PGConnection", true, connection.getClass().getClassLoader() );
+      Object pgConnection = connection.unwrap( pgConnectionClass );
+      Object copyManager = pgConnectionClass.getMethod( "getCopyAPI" ).invoke( pgConnection );
+      Method copyIn = copyManager.getClass().getMethod( "copyIn", String.class, InputStream.class );
+      return (Long) copyIn.invoke( copyManager, sql, csv );
+    } catch ( InvocationTargetException e ) {
+      throw new KettleDatabaseException( "Unable to copy rows into table " + tableName, e.getCause() );
+    } catch ( ReflectiveOperationException | SQLException e ) {
+      throw new KettleDatabaseException( "The driver of the connection has no CopyManager to copy rows with", e );
+    }
+  }
+
   /**
    * @return true if the database supports synonyms
    */
@@ -106,6 +106,26 @@ public class RedshiftDatabaseMeta extends PostgreSQLDatabaseMeta {
     return false;
   }
 
+  /**
+   * Redshift only copies from S3 and other AWS sources, not from the client (COPY ... FROM STDIN)
+   *
+   * @return false
+   */
+  @Override
+  public boolean supportsBulkLoadFromStream() {
+    return false;
+  }
+
+  /**
+   * Redshift has no INSERT ... ON CONFLICT
+   *
+   * @return false
+   */
+  @Override
+  public boolean supportsUpsertFromTable() {
+    return false;
+  }
+
   @Override
   public String[] getUsedLibraries() {
     return new String[] { "RedshiftJDBC4_1.0.10.1010.jar" };
@@ -0,0 +1,272 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A temporary table to apply rows to a target table in sets instead of one by one. The rows are buffered, written to
+ * the staging table with a JDBC batch insert and then applied to the target table with a single statement:
+ * <ul>
+ * <li>upsert: insert the rows with a key that is not in the target table yet and update the others</li>
+ * <li>update: update the rows of the target table that have a matching key</li>
+ * <li>delete: delete the rows of the target table that have a matching key</li>
+ * </ul>
+ * The keys are compared with "=". The rows with the same key are merged into one, with the values of the first row for
+ * the columns that are only inserted and the values of the last row for the updated columns. That is also what remains
+ * after applying the rows one by one: the first row is inserted, the next ones only update. The statements are taken
+ * from the {@link DatabaseInterface}, see {@link DatabaseMeta#supportsUpsertFromTable()}.<br>
+ * <br>
+ * The staging table is created on the connection of the step when the first rows are applied and dropped by
+ * {@link #close()}.
+ *
+ * @since 11.1
+ */
+public class StagingTable {
+
+  private final Database db;
+  private final DatabaseMeta databaseMeta;
+  private final String targetTable;
+  private final RowMetaInterface rowMeta;
+  private final RowMetaInterface keyRowMeta;
+  private final int[] keyIndexes;
+
+  private final String name;
+  private final String tableName;
+  private final String[] columns;
+  private final String[] keyColumns;
+  private final String[] updateColumns;
+  private final boolean[] updated;
+
+  private final Map<RowMetaAndData, Object[]> rows = new LinkedHashMap<>();
+
+  private PreparedStatement insertStatement;
+  private boolean created;
+
+  /**
+   * @param db
+   *          the connected database of the target table
+   * @param targetTable
+   *          the quoted schema and name of the target table
+   * @param rowMeta
+   *          the layout of the rows to stage, the names are the columns of the target table
+   * @param keyColumns
+   *          the columns to match the rows on, they need to be in rowMeta
+   * @param updateColumns
+   *          the columns to update in the target table
+   */
+  public StagingTable( Database db, String targetTable, RowMetaInterface rowMeta, String[] keyColumns,
+    String[] updateColumns ) throws KettleDatabaseException {
+    this.db = db;
+    this.databaseMeta = db.getDatabaseMeta();
+    this.targetTable = targetTable;
+    this.rowMeta = rowMeta;
+
+    keyRowMeta = new RowMeta();
+    keyIndexes = new int[keyColumns.length];
+    for ( int i = 0; i < keyColumns.length; i++ ) {
+      keyIndexes[i] = rowMeta.indexOfValue( keyColumns[i] );
+      if ( keyIndexes[i] < 0 ) {
+        throw new KettleDatabaseException( "Key column [" + keyColumns[i] + "] is not part of the staged rows" );
+      }
+      keyRowMeta.addValueMeta( rowMeta.getValueMeta( keyIndexes[i] ) );
+    }
+
+    // Unique per step copy, short enough for databases that limit names to 30 characters
+    //
+    name = "KTL_STG_" + Long.toHexString( UUID.randomUUID().getMostSignificantBits() ).toUpperCase();
+    tableName = databaseMeta.getQuotedSchemaTableCombination( null, name );
+    columns = quoteFields( rowMeta.getFieldNames() );
+    this.keyColumns = quoteFields( keyColumns );
+    // The key columns keep their values, some databases don't allow to update the columns they match on
+    //
+    List<String> updatedColumns = new ArrayList<>();
+    for ( String updateColumn : updateColumns ) {
+      if ( Const.indexOfString( updateColumn, keyColumns ) < 0 ) {
+        updatedColumns.add( updateColumn );
+      }
+    }
+    this.updateColumns = quoteFields( updatedColumns.toArray( new String[0] ) );
+    updated = new boolean[rowMeta.size()];
+    for ( int i = 0; i < updated.length; i++ ) {
+      updated[i] = updatedColumns.contains( rowMeta.getValueMeta( i ).getName() );
+    }
+  }
+
+  /**
+   * Add a row to the next set. A row with the same key as a row that is already buffered is merged into it: its values
+   * replace those of the updated columns, the other columns keep the values of the first row. Null keys are merged
+   * like any other value, while "=" never matches them: apply the rows with a null key one by one instead.
+   *
+   * @param row
+   *          the row in the layout of the staged rows
+   */
+  public void addRow( Object[] row ) {
+    Object[] key = new Object[keyIndexes.length];
+    for ( int i = 0; i < keyIndexes.length; i++ ) {
+      key[i] = row[keyIndexes[i]];
+    }
+    RowMetaAndData rowKey = new RowMetaAndData( keyRowMeta, key );
+    // Remove first so that the row takes the position of the latest one
+    Object[] first = rows.remove( rowKey );
+    if ( first != null ) {
+      Object[] merged = first.clone();
+      for ( int i = 0; i < updated.length; i++ ) {
+        if ( updated[i] ) {
+          merged[i] = row[i];
+        }
+      }
+      row = merged;
+    }
+    rows.put( rowKey, row );
+  }
+
+  /**
+   * @return the number of buffered (distinct) rows
+   */
+  public int size() {
+    return rows.size();
+  }
+
+  /**
+   * Insert the buffered rows with a new key into the target table, update the others.
+   *
+   * @return the number of rows the database reports as affected
+   */
+  public int upsert() throws KettleDatabaseException {
+    return apply( databaseMeta.getDatabaseInterface().getSQLUpsertFromTable( targetTable, tableName, keyColumns,
+      columns, updateColumns ) );
+  }
+
+  /**
+   * Update the rows of the target table that match a buffered row.
+   *
+   * @return the number of updated rows
+   */
+  public int update() throws KettleDatabaseException {
+    return apply( databaseMeta.getDatabaseInterface().getSQLUpdateFromTable( targetTable, tableName, keyColumns,
+      updateColumns ) );
+  }
+
+  /**
+   * Delete the rows of the target table that match a buffered row.
+   *
+   * @return the number of deleted rows
+   */
+  public int delete() throws KettleDatabaseException {
+    return apply( databaseMeta.getDatabaseInterface().getSQLDeleteFromTable( targetTable, tableName, keyColumns ) );
+  }
+
+  private int apply( String sql ) throws KettleDatabaseException {
+    if ( rows.isEmpty() ) {
+      return 0;
+    }
+    if ( !created ) {
+      create();
+    }
+    try {
+      for ( Object[] row : rows.values() ) {
+        db.setValues( rowMeta, row, insertStatement );
+        insertStatement.addBatch();
+      }
+      insertStatement.executeBatch();
+      insertStatement.clearBatch();
+      rows.clear();
+
+      int count = executeUpdate( sql );
+      // Not a truncate: it commits on some databases
+      executeUpdate( "DELETE FROM " + tableName );
+      return count;
+    } catch ( SQLException e ) {
+      throw new KettleDatabaseException( "Unable to apply the staged rows to table " + targetTable, e );
+    }
+  }
+
+  private void create() throws KettleDatabaseException {
+    StringBuilder definitions = new StringBuilder();
+    for ( int i = 0; i < rowMeta.size(); i++ ) {
+      if ( i > 0 ) {
+        definitions.append( ", " );
+      }
+      definitions.append( databaseMeta.getFieldDefinition( rowMeta.getValueMeta( i ), null, null, false, true,
+        false ) );
+    }
+    String sql =
+      databaseMeta.getDatabaseInterface().getCreateTemporaryTableStatement( tableName, definitions.toString() );
+    if ( sql == null ) {
+      throw new KettleDatabaseException( "Database " + databaseMeta.getName() + " has no temporary tables" );
+    }
+    try {
+      executeUpdate( sql );
+    } catch ( SQLException e ) {
+      throw new KettleDatabaseException( "Unable to create staging table " + tableName, e );
+    }
+    created = true;
+    insertStatement = db.prepareSQL( db.getInsertStatement( name, rowMeta ) );
+  }
+
+  private int executeUpdate( String sql ) throws SQLException {
+    try ( Statement statement = db.getConnection().createStatement() ) {
+      return statement.executeUpdate( databaseMeta.stripCR( sql ) );
+    }
+  }
+
+  /**
+   * Drop the staging table. The rows that were not applied yet are discarded.
+   */
+  public void close() throws KettleDatabaseException {
+    rows.clear();
+    if ( !created ) {
+      return;
+    }
+    created = false;
+    db.closePreparedStatement( insertStatement );
+    insertStatement = null;
+    try {
+      // Some databases can only drop a temporary table that has no rows left in the session
+      executeUpdate( databaseMeta.getTruncateTableStatement( null, name ) );
+      executeUpdate( databaseMeta.getDatabaseInterface().getDropTemporaryTableStatement( tableName ) );
+    } catch ( SQLException e ) {
+      throw new KettleDatabaseException( "Unable to drop staging table " + tableName, e );
+    }
+  }
+
+  /**
+   * @return the (quoted) name of the staging table
+   */
+  public String getTableName() {
+    return tableName;
+  }
+
+  private String[] quoteFields( String[] fields ) {
+    String[] quoted = new String[fields.length];
+    for ( int i = 0; i < fields.length; i++ ) {
+      quoted[i] = databaseMeta.quoteField( fields[i] );
+    }
+    return quoted;
+  }
+}
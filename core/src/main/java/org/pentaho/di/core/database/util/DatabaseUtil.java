@@ -191,6 +191,11 @@ public class DatabaseUtil implements DataSourceProviderInterface {
     throw new IllegalArgumentException( "Unsupported data source type: " + type );
   }
 
+  /**
+   * Removes a data source from the cache. For {@link DatasourceType#POOLED} the returned data source is the
+   * {@link org.pentaho.di.core.database.MonitoredDataSource} wrapper of the connection pool, use
+   * {@link DataSource#unwrap(Class)} to get hold of the pool itself, for example to close it.
+   */
   @Override public DataSource invalidateNamedDataSource( String datasourceName, DatasourceType type )
     throws DataSourceNamingException {
 
@@ -0,0 +1,305 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.hash;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hash index of serialized keys and values that keeps its entries outside of the Java heap.<br>
+ * <br>
+ * The keys and values are appended to pages of direct memory. The index itself is an open addressing table (linear
+ * probing) made of two primitive arrays: the address of the entry and its hash code. There is no object per entry, so
+ * millions of entries cost the garbage collector next to nothing. Looking up a key compares it with the stored bytes in
+ * place and doesn't allocate anything until a value is found.<br>
+ * <br>
+ * Two keys are the same if their serialized bytes are the same, like in {@link ByteArrayHashIndex}. Putting a key that
+ * is already in the index replaces its value. The memory of replaced values is only recovered when the index is
+ * cleared.
+ *
+ * @since 11.1
+ */
+public class OffHeapHashIndex {
+
+  private static final int STANDARD_INDEX_SIZE = 512;
+  private static final float STANDARD_LOAD_FACTOR = 0.75f;
+  private static final int MAXIMUM_INDEX_SIZE = 1 << 30;
+
+  /** The default size of a page of direct memory: 4MB */
+  public static final int DEFAULT_PAGE_SIZE = 4 * 1024 * 1024;
+
+  /** Every entry starts with the length of the key and the length of the value */
+  private static final int ENTRY_HEADER_SIZE = 8;
+
+  private final int pageSize;
+  private final List<ByteBuffer> pages;
+  private ByteBuffer currentPage;
+
+  /** The page (plus one) in the upper 32 bits, the offset in the page in the lower 32 bits. 0 is an empty slot. */
+  private long[] addresses;
+  private int[] hashCodes;
+  private int size;
+  private int resizeThresHold;
+  private long memoryUsed;
+
+  /**
+   * Create an off-heap hash index.
+   *
+   * @param expectedSize
+   *          the number of entries the index should hold without having to grow
+   * @param pageSize
+   *          the size of the pages of direct memory in bytes
+   */
+  public OffHeapHashIndex( int expectedSize, int pageSize ) {
+    if ( pageSize <= ENTRY_HEADER_SIZE ) {
+      throw new IllegalArgumentException( "The page size needs to be larger than " + ENTRY_HEADER_SIZE + " bytes" );
+    }
+    this.pageSize = pageSize;
+    this.pages = new ArrayList<>();
+
+    // Find a suitable capacity being a factor of 2 and large enough to stay below the load factor:
+    //
+    int factor2Size = STANDARD_INDEX_SIZE;
+    while ( factor2Size < MAXIMUM_INDEX_SIZE && factor2Size * STANDARD_LOAD_FACTOR <= expectedSize ) {
+      factor2Size <<= 1; // Multiply by 2
+    }
+    allocateIndex( factor2Size );
+  }
+
+  public OffHeapHashIndex( int expectedSize ) {
+    this( expectedSize, DEFAULT_PAGE_SIZE );
+  }
+
+  public OffHeapHashIndex() {
+    this( 0 );
+  }
+
+  /**
+   * @return the number of entries in the index
+   */
+  public int getSize() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return the number of slots in the index
+   */
+  public int getCapacity() {
+    return addresses.length;
+  }
+
+  /**
+   * @return the number of bytes of direct memory allocated for the keys and values
+   */
+  public long getMemoryAllocated() {
+    return memoryUsed;
+  }
+
+  public byte[] get( byte[] key ) {
+    return get( key, 0, key.length );
+  }
+
+  /**
+   * Look up the value of a key.
+   *
+   * @param key
+   *          the buffer holding the serialized key
+   * @param offset
+   *          the start of the key in the buffer
+   * @param length
+   *          the length of the key
+   * @return a copy of the serialized value or null if the key is not in the index
+   */
+  public byte[] get( byte[] key, int offset, int length ) {
+    int slot = findSlot( key, offset, length, hashCode( key, offset, length ) );
+    long address = addresses[slot];
+    if ( address == 0L ) {
+      return null;
+    }
+    ByteBuffer page = getPage( address );
+    int position = getOffset( address );
+    int valueLength = page.getInt( position + 4 );
+    return read( page, position + ENTRY_HEADER_SIZE + length, valueLength );
+  }
+
+  public boolean containsKey( byte[] key ) {
+    return addresses[findSlot( key, 0, key.length, hashCode( key, 0, key.length ) )] != 0L;
+  }
+
+  public void put( byte[] key, byte[] value ) {
+    int hashCode = hashCode( key, 0, key.length );
+    int slot = findSlot( key, 0, key.length, hashCode );
+    long address = addresses[slot];
+
+    if ( address != 0L ) {
+      // Replace the value. If it's just as long we can simply overwrite it in place.
+      //
+      ByteBuffer page = getPage( address );
+      int position = getOffset( address );
+      if ( page.getInt( position + 4 ) == value.length ) {
+        write( page, position + ENTRY_HEADER_SIZE + key.length, value );
+      } else {
+        addresses[slot] = append( key, value );
+      }
+      return;
+    }
+
+    // If required, grow the index before adding the new entry...
+    //
+    if ( size + 1 >= resizeThresHold ) {
+      resize();
+      slot = findSlot( key, 0, key.length, hashCode );
+    }
+
+    addresses[slot] = append( key, value );
+    hashCodes[slot] = hashCode;
+    size++;
+  }
+
+  /**
+   * Remove all the entries and release the direct memory. The index can be re-used afterwards.
+   */
+  public void clear() {
+    pages.clear();
+    currentPage = null;
+    memoryUsed = 0L;
+    size = 0;
+    allocateIndex( STANDARD_INDEX_SIZE );
+  }
+
+  /**
+   * Find the slot holding the given key or the empty slot where it should go.
+   */
+  private int findSlot( byte[] key, int offset, int length, int hashCode ) {
+    int mask = addresses.length - 1;
+    int slot = hashCode & mask;
+    while ( true ) {
+      long address = addresses[slot];
+      if ( address == 0L || ( hashCodes[slot] == hashCode && equalsKey( address, key, offset, length ) ) ) {
+        return slot;
+      }
+      slot = ( slot + 1 ) & mask;
+    }
+  }
+
+  private boolean equalsKey( long address, byte[] key, int offset, int length ) {
+    ByteBuffer page = getPage( address );
+    int position = getOffset( address );
+    if ( page.getInt( position ) != length ) {
+      return false;
+    }
+    position += ENTRY_HEADER_SIZE;
+    for ( int i = 0; i < length; i++ ) {
+      if ( page.get( position + i ) != key[offset + i] ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long append( byte[] key, byte[] value ) {
+    int entrySize = ENTRY_HEADER_SIZE + key.length + value.length;
+    if ( currentPage == null || currentPage.remaining() < entrySize ) {
+      // Entries larger than a page get a page of their own
+      //
+      currentPage = ByteBuffer.allocateDirect( Math.max( pageSize, entrySize ) );
+      pages.add( currentPage );
+      memoryUsed += currentPage.capacity();
+    }
+    int position = currentPage.position();
+    currentPage.putInt( key.length );
+    currentPage.putInt( value.length );
+    currentPage.put( key );
+    currentPage.put( value );
+
+    return ( (long) pages.size() << 32 ) | position;
+  }
+
+  private ByteBuffer getPage( long address ) {
+    return pages.get( (int) ( address >>> 32 ) - 1 );
+  }
+
+  private static int getOffset( long address ) {
+    return (int) address;
+  }
+
+  private static byte[] read( ByteBuffer page, int position, int length ) {
+    byte[] bytes = new byte[length];
+    for ( int i = 0; i < length; i++ ) {
+      bytes[i] = page.get( position + i );
+    }
+    return bytes;
+  }
+
+  private static void write( ByteBuffer page, int position, byte[] bytes ) {
+    for ( int i = 0; i < bytes.length; i++ ) {
+      page.put( position + i, bytes[i] );
+    }
+  }
+
+  private void allocateIndex( int capacity ) {
+    addresses = new long[capacity];
+    hashCodes = new int[capacity];
+    // At the maximum size we keep at least one empty slot so that probing for a missing key always ends
+    //
+    resizeThresHold = capacity >= MAXIMUM_INDEX_SIZE ? capacity - 1 : (int) ( capacity * STANDARD_LOAD_FACTOR );
+  }
+
+  /**
+   * Double the size of the index. Only the slots move, the keys and values stay where they are in direct memory.
+   */
+  private void resize() {
+    if ( addresses.length >= MAXIMUM_INDEX_SIZE ) {
+      throw new IllegalStateException( "The off-heap hash index is full: it can't hold more than "
+        + resizeThresHold + " entries" );
+    }
+    long[] oldAddresses = addresses;
+    int[] oldHashCodes = hashCodes;
+    allocateIndex( oldAddresses.length * 2 );
+
+    int mask = addresses.length - 1;
+    for ( int i = 0; i < oldAddresses.length; i++ ) {
+      if ( oldAddresses[i] != 0L ) {
+        int slot = oldHashCodes[i] & mask;
+        while ( addresses[slot] != 0L ) {
+          slot = ( slot + 1 ) & mask;
+        }
+        addresses[slot] = oldAddresses[i];
+        hashCodes[slot] = oldHashCodes[i];
+      }
+    }
+  }
+
+  /**
+   * Calculates the hash code of a serialized key. The bits are mixed well because the slot is taken from the lowest
+   * bits of the hash code.
+   */
+  public static int hashCode( byte[] key, int offset, int length ) {
+    int hash = 1;
+    for ( int i = offset; i < offset + length; i++ ) {
+      hash = 31 * hash + key[i];
+    }
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+}
@@ -27,6 +27,10 @@ public class Metrics implements MetricsInterface {
     MetricsSnapshotType.START, "METRIC_DATABASE_CONNECT", "Connect to database" );
   public static Metrics METRIC_DATABASE_CONNECT_STOP = new Metrics(
     MetricsSnapshotType.STOP, "METRIC_DATABASE_CONNECT", "Connect to database" );
+  public static Metrics METRIC_DATABASE_POOL_ACQUIRE_START = new Metrics(
+    MetricsSnapshotType.START, "METRIC_DATABASE_POOL_ACQUIRE", "Get a connection from the connection pool" );
+  public static Metrics METRIC_DATABASE_POOL_ACQUIRE_STOP = new Metrics(
+    MetricsSnapshotType.STOP, "METRIC_DATABASE_POOL_ACQUIRE", "Get a connection from the connection pool" );
   public static Metrics METRIC_DATABASE_PREPARE_SQL_START = new Metrics(
     MetricsSnapshotType.START, "METRIC_DATABASE_PREPARE_SQL", "Prepare SQL statement" );
   public static Metrics METRIC_DATABASE_PREPARE_SQL_STOP = new Metrics(
@@ -125,6 +129,18 @@ public class Metrics implements MetricsInterface {
   public static Metrics METRIC_STEP_INIT_STOP = new Metrics(
     MetricsSnapshotType.STOP, "METRIC_STEP_INIT", "Initialize a step" );
 
+  // Step caches
+  //
+  public static Metrics METRIC_STEP_CACHE_HIT_COUNT = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_CACHE_HIT_COUNT", "Number of lookups found in the step cache" );
+  public static Metrics METRIC_STEP_CACHE_MISS_COUNT = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_CACHE_MISS_COUNT", "Number of lookups not found in the step cache" );
+  public static Metrics METRIC_STEP_CACHE_EVICTION_COUNT = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_CACHE_EVICTION_COUNT",
+    "Number of entries removed from the full step cache" );
+  public static Metrics METRIC_STEP_CACHE_LOAD_TIME = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_CACHE_LOAD_TIME", "Time consumed loading the step cache (ms)" );
+
   // Logging back-end
   //
   public static Metrics METRIC_CENTRAL_LOG_STORE_TIMEOUT_CLEAN_TIME = new Metrics(
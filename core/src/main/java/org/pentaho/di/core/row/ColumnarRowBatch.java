@@ -0,0 +1,435 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+/**
+ * A batch of rows stored column by column instead of row by row.<br>
+ * <br>
+ * Integer fields are kept in a long[], Number fields in a double[] and String fields as int codes into a dictionary of
+ * the distinct values in the batch. Every column has a null bitmap. All other fields (and fields with binary string
+ * storage) are kept as plain objects. Steps can run tight loops over the primitive arrays instead of unboxing a Long
+ * or a Double for every row.<br>
+ * <br>
+ * A batch is meant to be re-used: {@link #load(Object[][], int, int...)} converts rows at the boundary with the
+ * classic Object[] API and {@link #getRow(int)} converts them back.
+ *
+ * @since 11.1
+ */
+public class ColumnarRowBatch {
+
+  /** The column holds plain objects */
+  public static final int COLUMN_OBJECT = 0;
+
+  /** The column holds the values of an Integer field in a long[] */
+  public static final int COLUMN_LONG = 1;
+
+  /** The column holds the values of a Number field in a double[] */
+  public static final int COLUMN_DOUBLE = 2;
+
+  /** The column holds the values of a String field as codes into a dictionary */
+  public static final int COLUMN_STRING = 3;
+
+  private final RowMetaInterface rowMeta;
+  private final int capacity;
+  private final int[] columnTypes;
+  private final boolean[] loaded;
+  private final long[][] nulls;
+  private final long[][] longs;
+  private final double[][] doubles;
+  private final int[][] codes;
+  private final Dictionary[] dictionaries;
+  private final Object[][] objects;
+
+  private int size;
+
+  /**
+   * Create a new, empty, batch.
+   *
+   * @param rowMeta
+   *          the layout of the rows in the batch
+   * @param capacity
+   *          the maximum number of rows in the batch
+   */
+  public ColumnarRowBatch( RowMetaInterface rowMeta, int capacity ) {
+    this.rowMeta = rowMeta;
+    this.capacity = capacity;
+
+    int nrColumns = rowMeta.size();
+    columnTypes = new int[ nrColumns ];
+    loaded = new boolean[ nrColumns ];
+    nulls = new long[ nrColumns ][];
+    longs = new long[ nrColumns ][];
+    doubles = new double[ nrColumns ][];
+    codes = new int[ nrColumns ][];
+    dictionaries = new Dictionary[ nrColumns ];
+    objects = new Object[ nrColumns ][];
+
+    for ( int i = 0; i < nrColumns; i++ ) {
+      columnTypes[ i ] = getColumnType( rowMeta.getValueMeta( i ) );
+      nulls[ i ] = new long[ ( capacity + 63 ) >>> 6 ];
+      Arrays.fill( nulls[ i ], -1L );
+      switch ( columnTypes[ i ] ) {
+        case COLUMN_LONG:
+          longs[ i ] = new long[ capacity ];
+          break;
+        case COLUMN_DOUBLE:
+          doubles[ i ] = new double[ capacity ];
+          break;
+        case COLUMN_STRING:
+          codes[ i ] = new int[ capacity ];
+          dictionaries[ i ] = new Dictionary();
+          break;
+        default:
+          objects[ i ] = new Object[ capacity ];
+          break;
+      }
+    }
+  }
+
+  /**
+   * @param valueMeta
+   *          the metadata of a field
+   * @return the way the values of the field are stored in a batch: one of the COLUMN_ constants
+   */
+  public static int getColumnType( ValueMetaInterface valueMeta ) {
+    // Subclasses and other storage types can compare or convert values differently, keep them as they are
+    //
+    if ( valueMeta == null || valueMeta.getStorageType() != ValueMetaInterface.STORAGE_TYPE_NORMAL ) {
+      return COLUMN_OBJECT;
+    }
+    if ( valueMeta.getClass() == ValueMetaInteger.class ) {
+      return COLUMN_LONG;
+    }
+    if ( valueMeta.getClass() == ValueMetaNumber.class ) {
+      return COLUMN_DOUBLE;
+    }
+    if ( valueMeta.getClass() == ValueMetaString.class ) {
+      return COLUMN_STRING;
+    }
+    return COLUMN_OBJECT;
+  }
+
+  /**
+   * Replaces the content of the batch with the given rows.
+   *
+   * @param rows
+   *          the rows to load
+   * @param count
+   *          the number of rows to load, at most the capacity of the batch
+   * @param fieldIndexes
+   *          the indexes of the fields to load. When none are given all fields are loaded.
+   */
+  public void load( Object[][] rows, int count, int... fieldIndexes ) {
+    if ( count > capacity ) {
+      throw new IllegalArgumentException( "Unable to load " + count + " rows in a batch of " + capacity + " rows" );
+    }
+    clear();
+    size = count;
+
+    if ( fieldIndexes == null || fieldIndexes.length == 0 ) {
+      for ( int i = 0; i < columnTypes.length; i++ ) {
+        loadColumn( i, rows );
+      }
+    } else {
+      for ( int index : fieldIndexes ) {
+        loadColumn( index, rows );
+      }
+    }
+  }
+
+  private void loadColumn( int column, Object[][] rows ) {
+    // The loaded rows start as not null, the rows after them stay null
+    //
+    long[] columnNulls = nulls[ column ];
+    Arrays.fill( columnNulls, 0, size >>> 6, 0L );
+    if ( ( size & 63 ) != 0 ) {
+      columnNulls[ size >>> 6 ] &= -1L << size;
+    }
+    switch ( columnTypes[ column ] ) {
+      case COLUMN_LONG:
+        long[] columnLongs = longs[ column ];
+        for ( int r = 0; r < size; r++ ) {
+          Object value = rows[ r ][ column ];
+          if ( value == null ) {
+            columnNulls[ r >>> 6 ] |= 1L << r;
+          } else {
+            columnLongs[ r ] = ( (Long) value ).longValue();
+          }
+        }
+        break;
+      case COLUMN_DOUBLE:
+        double[] columnDoubles = doubles[ column ];
+        for ( int r = 0; r < size; r++ ) {
+          Object value = rows[ r ][ column ];
+          if ( value == null ) {
+            columnNulls[ r >>> 6 ] |= 1L << r;
+          } else {
+            columnDoubles[ r ] = ( (Double) value ).doubleValue();
+          }
+        }
+        break;
+      case COLUMN_STRING:
+        int[] columnCodes = codes[ column ];
+        Dictionary dictionary = dictionaries[ column ];
+        for ( int r = 0; r < size; r++ ) {
+          Object value = rows[ r ][ column ];
+          if ( value == null ) {
+            columnNulls[ r >>> 6 ] |= 1L << r;
+          } else {
+            columnCodes[ r ] = dictionary.encode( (String) value );
+          }
+        }
+        break;
+      default:
+        Object[] columnObjects = objects[ column ];
+        for ( int r = 0; r < size; r++ ) {
+          Object value = rows[ r ][ column ];
+          if ( value == null ) {
+            columnNulls[ r >>> 6 ] |= 1L << r;
+          }
+          columnObjects[ r ] = value;
+        }
+        break;
+    }
+    loaded[ column ] = true;
+  }
+
+  /**
+   * Empties the batch. The arrays are kept for the next rows, all values are null again.
+   */
+  public void clear() {
+    for ( int i = 0; i < columnTypes.length; i++ ) {
+      Arrays.fill( nulls[ i ], -1L );
+      if ( loaded[ i ] ) {
+        if ( objects[ i ] != null ) {
+          Arrays.fill( objects[ i ], 0, size, null ); // prevent any hold-up to GC
+        }
+        if ( dictionaries[ i ] != null ) {
+          dictionaries[ i ].clear();
+        }
+        loaded[ i ] = false;
+      }
+    }
+    size = 0;
+  }
+
+  /**
+   * Sets the number of rows in the batch when the batch is filled with the set methods instead of
+   * {@link #load(Object[][], int, int...)}. All columns are considered loaded. A value that was not set since the
+   * batch was created or cleared is null.
+   *
+   * @param size
+   *          the number of rows in the batch
+   */
+  public void setSize( int size ) {
+    if ( size > capacity ) {
+      throw new IllegalArgumentException( "Unable to store " + size + " rows in a batch of " + capacity + " rows" );
+    }
+    this.size = size;
+    Arrays.fill( loaded, true );
+  }
+
+  /**
+   * Converts a row of the batch back to a classic row.
+   *
+   * @param row
+   *          the index of the row in the batch
+   * @return a new row, over-allocated with {@link RowDataUtil#allocateRowData(int)}
+   */
+  public Object[] getRow( int row ) {
+    Object[] data = RowDataUtil.allocateRowData( columnTypes.length );
+    for ( int i = 0; i < columnTypes.length; i++ ) {
+      if ( !loaded[ i ] ) {
+        throw new IllegalStateException( "Field '" + rowMeta.getValueMeta( i ).getName() + "' is not loaded" );
+      }
+      data[ i ] = getValue( i, row );
+    }
+    return data;
+  }
+
+  /**
+   * @return the value in the given column and row, boxed as the classic row would hold it
+   */
+  public Object getValue( int column, int row ) {
+    if ( isNull( column, row ) ) {
+      return null;
+    }
+    switch ( columnTypes[ column ] ) {
+      case COLUMN_LONG:
+        return Long.valueOf( longs[ column ][ row ] );
+      case COLUMN_DOUBLE:
+        return Double.valueOf( doubles[ column ][ row ] );
+      case COLUMN_STRING:
+        return dictionaries[ column ].decode( codes[ column ][ row ] );
+      default:
+        return objects[ column ][ row ];
+    }
+  }
+
+  public boolean isNull( int column, int row ) {
+    return ( nulls[ column ][ row >>> 6 ] & ( 1L << row ) ) != 0;
+  }
+
+  public void setNull( int column, int row ) {
+    nulls[ column ][ row >>> 6 ] |= 1L << row;
+    if ( objects[ column ] != null ) {
+      objects[ column ][ row ] = null;
+    }
+  }
+
+  private void setNotNull( int column, int row ) {
+    nulls[ column ][ row >>> 6 ] &= ~( 1L << row );
+  }
+
+  public void setLong( int column, int row, long value ) {
+    longs[ column ][ row ] = value;
+    setNotNull( column, row );
+  }
+
+  public void setDouble( int column, int row, double value ) {
+    doubles[ column ][ row ] = value;
+    setNotNull( column, row );
+  }
+
+  public void setString( int column, int row, String value ) {
+    if ( value == null ) {
+      setNull( column, row );
+    } else {
+      codes[ column ][ row ] = dictionaries[ column ].encode( value );
+      setNotNull( column, row );
+    }
+  }
+
+  public void setObject( int column, int row, Object value ) {
+    if ( value == null ) {
+      setNull( column, row );
+    } else {
+      objects[ column ][ row ] = value;
+      setNotNull( column, row );
+    }
+  }
+
+  /**
+   * @return the null bitmap of a column: bit (row % 64) of word (row / 64) is set when the value is null
+   */
+  public long[] getNulls( int column ) {
+    return nulls[ column ];
+  }
+
+  /**
+   * @return the values of a COLUMN_LONG column. The values of null rows are undefined.
+   */
+  public long[] getLongs( int column ) {
+    return longs[ column ];
+  }
+
+  /**
+   * @return the values of a COLUMN_DOUBLE column. The values of null rows are undefined.
+   */
+  public double[] getDoubles( int column ) {
+    return doubles[ column ];
+  }
+
+  /**
+   * @return the dictionary codes of a COLUMN_STRING column. The codes of null rows are undefined.
+   */
+  public int[] getCodes( int column ) {
+    return codes[ column ];
+  }
+
+  /**
+   * @return the string with the given code in the dictionary of a COLUMN_STRING column
+   */
+  public String getDictionaryValue( int column, int code ) {
+    return dictionaries[ column ].decode( code );
+  }
+
+  /**
+   * @return the number of distinct strings in a COLUMN_STRING column
+   */
+  public int getDictionarySize( int column ) {
+    return dictionaries[ column ].size();
+  }
+
+  /**
+   * @return the values of a COLUMN_OBJECT column
+   */
+  public Object[] getObjects( int column ) {
+    return objects[ column ];
+  }
+
+  public int getColumnType( int column ) {
+    return columnTypes[ column ];
+  }
+
+  public boolean isLoaded( int column ) {
+    return loaded[ column ];
+  }
+
+  public RowMetaInterface getRowMeta() {
+    return rowMeta;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * The distinct strings of a column. Codes are handed out in order of appearance.
+   */
+  private static final class Dictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[ 16 ];
+    private int size;
+
+    int encode( String value ) {
+      Integer code = codes.get( value );
+      if ( code == null ) {
+        if ( size == values.length ) {
+          values = Arrays.copyOf( values, size * 2 );
+        }
+        values[ size ] = value;
+        code = size++;
+        codes.put( value, code );
+      }
+      return code;
+    }
+
+    String decode( int code ) {
+      return values[ code ];
+    }
+
+    int size() {
+      return size;
+    }
+
+    void clear() {
+      codes.clear();
+      Arrays.fill( values, 0, size, null );
+      size = 0;
+    }
+  }
+}
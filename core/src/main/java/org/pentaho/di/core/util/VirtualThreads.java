@@ -0,0 +1,60 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads when the Java runtime supports them (Java 21 and up). We look up the API through reflection
+ * so that this class also loads on older runtimes, where {@link #isSupported()} simply returns false.<br>
+ * <br>
+ * Virtual threads are scheduled by the JVM on a small pool of carrier threads. Its size can be bounded with the
+ * jdk.virtualThreadScheduler.parallelism and jdk.virtualThreadScheduler.maxPoolSize system properties.
+ */
+public class VirtualThreads {
+  private static final ThreadFactory factory = init();
+
+  private static ThreadFactory init() {
+    try {
+      Method ofVirtual = Thread.class.getMethod( "ofVirtual" );
+      Object builder = ofVirtual.invoke( null );
+      Method factoryMethod = Class.forName( "java.lang.Thread$Builder" ).getMethod( "factory" );
+      return (ThreadFactory) factoryMethod.invoke( builder );
+    } catch ( Exception e ) {
+      // Not available in this Java version
+      return null;
+    }
+  }
+
+  /**
+   * @return true if the Java runtime can create virtual threads
+   */
+  public static boolean isSupported() {
+    return factory != null;
+  }
+
+  /**
+   * Creates a new, unstarted, virtual thread. Note that virtual threads are always daemon threads.
+   *
+   * @param runnable the code to run
+   * @return the new virtual thread or null if the Java runtime doesn't support virtual threads
+   */
+  public static Thread newThread( Runnable runnable ) {
+    if ( factory == null ) {
+      return null;
+    }
+    return factory.newThread( runnable );
+  }
+}
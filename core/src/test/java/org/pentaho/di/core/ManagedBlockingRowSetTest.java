@@ -0,0 +1,103 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.junit.rules.RestorePDIEnvironment;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ManagedBlockingRowSetTest {
+  @ClassRule public static RestorePDIEnvironment env = new RestorePDIEnvironment();
+
+  private RowMetaInterface createRowMetaInterface() {
+    RowMetaInterface rm = new RowMeta();
+    rm.addValueMeta( new ValueMetaInteger( "ROWNR" ) );
+    return rm;
+  }
+
+  @Test
+  public void testBehavesLikeABlockingRowSetOutsideOfAPool() {
+    RowSet set = new ManagedBlockingRowSet( 2 );
+    RowMetaInterface rm = createRowMetaInterface();
+
+    assertTrue( set.putRowWait( rm, new Object[] { 1L }, 1, TimeUnit.MILLISECONDS ) );
+    assertTrue( set.putRowWait( rm, new Object[] { 2L }, 1, TimeUnit.MILLISECONDS ) );
+    assertFalse( set.putRowWait( rm, new Object[] { 3L }, 1, TimeUnit.MILLISECONDS ) );
+    assertEquals( 2, set.size() );
+
+    assertArrayEquals( new Object[] { 1L }, set.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+    assertArrayEquals( new Object[] { 2L }, set.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+    assertNull( set.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+  }
+
+  @Test
+  public void testListenerHearsAboutRowsAndDone() {
+    ManagedBlockingRowSet set = new ManagedBlockingRowSet( 1 );
+    RowMetaInterface rm = createRowMetaInterface();
+    AtomicInteger calls = new AtomicInteger();
+    set.setRowsAddedListener( calls::incrementAndGet );
+
+    assertTrue( set.putRow( rm, new Object[] { 1L } ) );
+    assertEquals( 1, calls.get() );
+    // Not added, nothing to hear about
+    assertFalse( set.putRowWait( rm, new Object[] { 2L }, 1, TimeUnit.MILLISECONDS ) );
+    assertEquals( 1, calls.get() );
+
+    set.setDone();
+    assertEquals( 2, calls.get() );
+  }
+
+  /**
+   * A single pool thread blocks on a full row set. The pool has to compensate with a spare thread, otherwise the reader
+   * never gets to run.
+   */
+  @Test
+  public void testPoolKeepsRunningWhileAWriterBlocks() throws Exception {
+    final ManagedBlockingRowSet set = new ManagedBlockingRowSet( 1 );
+    final RowMetaInterface rm = createRowMetaInterface();
+    final CountDownLatch writerStarted = new CountDownLatch( 1 );
+    ForkJoinPool pool = new ForkJoinPool( 1 );
+    try {
+      Future<Boolean> writer = pool.submit( () -> {
+        set.putRow( rm, new Object[] { 1L } );
+        writerStarted.countDown();
+        return set.putRowWait( rm, new Object[] { 2L }, 1, TimeUnit.MINUTES );
+      } );
+      assertTrue( writerStarted.await( 10, TimeUnit.SECONDS ) );
+
+      Future<Object[]> reader = pool.submit( () -> set.getRowWait( 1, TimeUnit.MINUTES ) );
+
+      assertArrayEquals( new Object[] { 1L }, reader.get( 10, TimeUnit.SECONDS ) );
+      assertTrue( writer.get( 10, TimeUnit.SECONDS ) );
+      assertArrayEquals( new Object[] { 2L }, set.getRowImmediate() );
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
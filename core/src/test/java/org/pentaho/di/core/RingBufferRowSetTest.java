@@ -0,0 +1,186 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.junit.rules.RestorePDIEnvironment;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferRowSetTest {
+  @ClassRule public static RestorePDIEnvironment env = new RestorePDIEnvironment();
+
+  private RowMetaInterface createRowMetaInterface() {
+    RowMetaInterface rm = new RowMeta();
+    rm.addValueMeta( new ValueMetaInteger( "ROWNR" ) );
+    return rm;
+  }
+
+  @Test
+  public void testBasicCreation() {
+    RowSet set = new RingBufferRowSet( 10 );
+
+    assertFalse( set.isDone() );
+    assertEquals( 0, set.size() );
+    assertNull( set.getRowImmediate() );
+  }
+
+  @Test
+  public void testFifoOrderAndCapacity() {
+    RingBufferRowSet set = new RingBufferRowSet( 3 );
+    RowMetaInterface rm = createRowMetaInterface();
+
+    for ( long i = 0; i < 3; i++ ) {
+      assertTrue( set.putRowWait( rm, new Object[] { i }, 1, TimeUnit.MILLISECONDS ) );
+    }
+    assertEquals( 3, set.size() );
+
+    // The capacity is 3 even though the ring itself is sized to a power of 2
+    //
+    assertFalse( set.putRowWait( rm, new Object[] { 3L }, 1, TimeUnit.MILLISECONDS ) );
+    assertEquals( 3, set.size() );
+
+    assertArrayEquals( new Object[] { 0L }, set.getRowImmediate() );
+    assertTrue( set.putRowWait( rm, new Object[] { 3L }, 1, TimeUnit.MILLISECONDS ) );
+
+    for ( long i = 1; i < 4; i++ ) {
+      assertArrayEquals( new Object[] { i }, set.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+    }
+    assertNull( set.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+    assertEquals( 0, set.size() );
+    assertEquals( rm, set.getRowMeta() );
+  }
+
+  @Test
+  public void testNullRowIsRejected() {
+    RingBufferRowSet set = new RingBufferRowSet( 3 );
+    assertFalse( set.putRow( createRowMetaInterface(), null ) );
+    assertEquals( 0, set.size() );
+  }
+
+  @Test
+  public void testDoneWakesUpWaitingReader() throws Exception {
+    final RingBufferRowSet set = new RingBufferRowSet( 10 );
+    final AtomicReference<Object[]> result = new AtomicReference<>( new Object[0] );
+
+    Thread reader = new Thread( () -> result.set( set.getRowWait( 1, TimeUnit.MINUTES ) ) );
+    reader.start();
+    Thread.sleep( 50 );
+    set.setDone();
+    reader.join( TimeUnit.SECONDS.toMillis( 10 ) );
+
+    assertFalse( reader.isAlive() );
+    assertNull( result.get() );
+  }
+
+  @Test
+  public void testReaderSignalIsRaisedOnPutAndDone() throws Exception {
+    final RingBufferRowSet set = new RingBufferRowSet( 10 );
+    final RowSetSignal signal = new RowSetSignal();
+    assertTrue( set.setReaderSignal( signal ) );
+
+    Thread reader = new Thread( () -> {
+      signal.startWaiting();
+      if ( set.size() == 0 ) {
+        signal.await( 1, TimeUnit.MINUTES );
+      }
+      signal.stopWaiting();
+    } );
+    reader.start();
+    Thread.sleep( 50 );
+    set.putRow( createRowMetaInterface(), new Object[] { 1L } );
+    reader.join( TimeUnit.SECONDS.toMillis( 10 ) );
+    assertFalse( reader.isAlive() );
+
+    reader = new Thread( () -> {
+      signal.startWaiting();
+      if ( !set.isDone() ) {
+        signal.await( 1, TimeUnit.MINUTES );
+      }
+      signal.stopWaiting();
+    } );
+    reader.start();
+    Thread.sleep( 50 );
+    set.setDone();
+    reader.join( TimeUnit.SECONDS.toMillis( 10 ) );
+    assertFalse( reader.isAlive() );
+  }
+
+  @Test
+  public void testClear() {
+    RingBufferRowSet set = new RingBufferRowSet( 2 );
+    RowMetaInterface rm = createRowMetaInterface();
+    set.putRow( rm, new Object[] { 1L } );
+    set.putRow( rm, new Object[] { 2L } );
+    set.setDone();
+
+    set.clear();
+
+    assertFalse( set.isDone() );
+    assertEquals( 0, set.size() );
+    assertNull( set.getRowImmediate() );
+    assertTrue( set.putRow( rm, new Object[] { 3L } ) );
+    assertArrayEquals( new Object[] { 3L }, set.getRowImmediate() );
+  }
+
+  @Test
+  public void testSingleProducerSingleConsumer() throws Exception {
+    final int nrRows = 100000;
+    final RingBufferRowSet set = new RingBufferRowSet( 16 );
+    final RowMetaInterface rm = createRowMetaInterface();
+
+    Thread producer = new Thread( () -> {
+      for ( long i = 0; i < nrRows; i++ ) {
+        Object[] row = new Object[] { i };
+        while ( !set.putRow( rm, row ) ) {
+          // retry, just like BaseStep does
+        }
+      }
+      set.setDone();
+    } );
+    producer.start();
+
+    long expected = 0;
+    while ( true ) {
+      Object[] row = set.getRow();
+      if ( row == null ) {
+        if ( set.isDone() ) {
+          row = set.getRowImmediate();
+          if ( row == null ) {
+            break;
+          }
+        } else {
+          continue;
+        }
+      }
+      assertNotNull( row[0] );
+      assertEquals( expected++, ( (Long) row[0] ).longValue() );
+    }
+    producer.join();
+
+    assertEquals( nrRows, expected );
+  }
+}
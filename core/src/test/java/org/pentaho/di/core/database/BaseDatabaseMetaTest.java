@@ -354,4 +354,21 @@ public class BaseDatabaseMetaTest {
     Mockito.when(  db.getDatabaseMeta() ).thenReturn( dm );
   }
 
+  @Test
+  public void testUpsertFromTableDefaults() {
+    String[] keys = new String[] { "id", "day" };
+    assertFalse( nativeMeta.supportsUpsertFromTable() );
+    assertNull( nativeMeta.getCreateTemporaryTableStatement( "STG", "id INT" ) );
+    assertNull( nativeMeta.getSQLUpsertFromTable( "T", "STG", keys, keys, new String[0] ) );
+    assertEquals( "DROP TABLE STG", nativeMeta.getDropTemporaryTableStatement( "STG" ) );
+    assertEquals( "tgt.id = src.id AND tgt.day = src.day", nativeMeta.getStagingJoinCondition( keys ) );
+    assertEquals( "UPDATE T tgt SET qty = ( SELECT src.qty FROM STG src WHERE tgt.id = src.id AND tgt.day = src.day ), "
+      + "name = ( SELECT src.name FROM STG src WHERE tgt.id = src.id AND tgt.day = src.day ) "
+      + "WHERE EXISTS ( SELECT 1 FROM STG src WHERE tgt.id = src.id AND tgt.day = src.day )",
+      nativeMeta.getSQLUpdateFromTable( "T", "STG", keys, new String[] { "qty", "name" } ) );
+    assertEquals( "DELETE FROM T tgt WHERE EXISTS ( SELECT 1 FROM STG src "
+      + "WHERE tgt.id = src.id AND tgt.day = src.day )",
+      nativeMeta.getSQLDeleteFromTable( "T", "STG", keys ) );
+  }
+
 }
@@ -0,0 +1,114 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class BulkLoadBufferTest {
+
+  private Database db;
+  private DatabaseInterface databaseInterface;
+  private List<String> loaded;
+
+  @Before
+  public void setUp() throws Exception {
+    DatabaseMeta databaseMeta = mock( DatabaseMeta.class );
+    databaseInterface = mock( DatabaseInterface.class );
+    when( databaseMeta.getDatabaseInterface() ).thenReturn( databaseInterface );
+    when( databaseMeta.quoteField( anyString() ) )
+      .thenAnswer( invocation -> "\"" + invocation.getArgument( 0 ) + "\"" );
+    when( databaseMeta.supportsBooleanDataType() ).thenReturn( true );
+    db = mock( Database.class );
+    when( db.getDatabaseMeta() ).thenReturn( databaseMeta );
+
+    loaded = new ArrayList<>();
+    when( databaseInterface.bulkLoadFromStream( any( Connection.class ), eq( "target" ), any( String[].class ),
+      any( InputStream.class ) ) ).thenAnswer( invocation -> {
+        loaded.add( IOUtils.toString( (InputStream) invocation.getArgument( 3 ), StandardCharsets.UTF_8 ) );
+        return 2L;
+      } );
+  }
+
+  @Test
+  public void testRowsAreQuotedCsv() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "flag" ) );
+
+    BulkLoadBuffer buffer = new BulkLoadBuffer( db, "target", rowMeta );
+    buffer.addRow( new Object[] { 1L, "say \"hi\", bye", new BigDecimal( "1E+3" ), true } );
+    buffer.addRow( new Object[] { 2L, null, null, false } );
+    assertEquals( 2, buffer.size() );
+
+    assertEquals( 2L, buffer.load() );
+    assertEquals( 0, buffer.size() );
+    assertEquals( "\"1\",\"say \"\"hi\"\", bye\",\"1000\",\"1\"\n\"2\",NULL,NULL,\"0\"\n", loaded.get( 0 ) );
+
+    // The buffer is empty after a load
+    buffer.addRow( new Object[] { 3L, "x", BigDecimal.ONE, null } );
+    buffer.load();
+    assertEquals( "\"3\",\"x\",\"1\",NULL\n", loaded.get( 1 ) );
+  }
+
+  @Test
+  public void testColumnsAreQuoted() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    BulkLoadBuffer buffer = new BulkLoadBuffer( db, "target", rowMeta );
+    buffer.addRow( new Object[] { 1L, "a" } );
+    buffer.load();
+    verify( databaseInterface ).bulkLoadFromStream( any(), eq( "target" ), argThat( columns -> {
+      assertArrayEquals( new String[] { "\"id\"", "\"name\"" }, columns );
+      return true;
+    } ), any() );
+  }
+
+  @Test( expected = KettleDatabaseException.class )
+  public void testBinaryIsRejected() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaBinary( "data" ) );
+    new BulkLoadBuffer( db, "target", rowMeta );
+  }
+}
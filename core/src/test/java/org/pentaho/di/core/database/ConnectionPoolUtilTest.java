@@ -21,6 +21,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.KettleClientEnvironment;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
@@ -39,6 +40,9 @@ import java.util.logging.Logger;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
@@ -47,6 +51,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 /**
  * User: Dzmitry Stsiapanau Date: 12/11/13 Time: 1:59 PM
@@ -101,6 +106,19 @@ public class ConnectionPoolUtilTest implements Driver {
     assertNotNull( conn );
   }
 
+  @Test
+  public void testGetConnectionIsMonitored() throws Exception {
+    when( dbMeta.getName() ).thenReturn( "CP4" );
+    when( dbMeta.getPassword() ).thenReturn( PASSWORD );
+    when( dbMeta.getInitialPoolSize() ).thenReturn( 1 );
+    when( dbMeta.getMaximumPoolSize() ).thenReturn( 2 );
+    MonitoredDataSource ds = (MonitoredDataSource) ConnectionPoolUtil.getDataSource( logChannelInterface, dbMeta, "" );
+    assertEquals( DbcpConnectionPoolProvider.NAME, ds.getProvider().getName() );
+    // The test of the new pool got a connection
+    assertEquals( 1, ds.getAcquiredConnections() );
+    assertTrue( ConnectionPoolUtil.getDataSources().contains( ds ) );
+  }
+
   @Test
   public void testGetConnectionEncrypted() throws Exception {
     when( dbMeta.getName() ).thenReturn( "CP2" );
@@ -208,6 +226,30 @@ public class ConnectionPoolUtilTest implements Driver {
     verify( dataSource, never() ).setDriverClassLoader( any( ClassLoader.class ) );
   }
 
+  @Test
+  public void testPoolIsClosedWhenItCannotConnect() throws Exception {
+    ConnectionPoolProvider provider = mock( ConnectionPoolProvider.class );
+    when( provider.getName() ).thenReturn( "UNREACHABLE" );
+    DataSource pool = mock( DataSource.class, withSettings().extraInterfaces( AutoCloseable.class ) );
+    when( pool.getConnection() ).thenThrow( new SQLException( "Connection refused" ) );
+    when( provider.createDataSource( dbMeta, "", 1, 2 ) ).thenReturn( pool );
+    when( dbMeta.getName() ).thenReturn( "CP5" );
+    when( dbMeta.getInitialPoolSize() ).thenReturn( 1 );
+    when( dbMeta.getMaximumPoolSize() ).thenReturn( 2 );
+    ConnectionPoolUtil.registerPoolProvider( provider );
+    System.setProperty( Const.KETTLE_CONNECTION_POOL_PROVIDER, "UNREACHABLE" );
+    try {
+      ConnectionPoolUtil.getDataSource( logChannelInterface, dbMeta, "" );
+      fail( "The pool can't connect" );
+    } catch ( KettleDatabaseException e ) {
+      // expected
+    } finally {
+      System.clearProperty( Const.KETTLE_CONNECTION_POOL_PROVIDER );
+    }
+    verify( (AutoCloseable) pool ).close();
+    assertNull( ConnectionPoolUtil.removeDataSource( ConnectionPoolUtil.getDataSourceName( dbMeta, "" ) ) );
+  }
+
   @Override
   public Connection connect( String url, Properties info ) throws SQLException {
     String password = info.getProperty( "password" );
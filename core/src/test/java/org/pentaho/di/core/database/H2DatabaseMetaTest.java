@@ -169,4 +169,20 @@ public class H2DatabaseMetaTest {
     assertEquals( "insert into FOO(FOOKEY, FOOVERSION) values (0, 1)", nativeMeta.getSQLInsertAutoIncUnknownDimensionRow( "FOO", "FOOKEY", "FOOVERSION" ) );
   }
 
+  @Test
+  public void testUpsertFromTable() {
+    String[] keys = new String[] { "ID" };
+    assertTrue( nativeMeta.supportsUpsertFromTable() );
+    assertEquals( "CREATE LOCAL TEMPORARY TABLE STG ( ID INT )",
+      nativeMeta.getCreateTemporaryTableStatement( "STG", "ID INT" ) );
+    assertEquals( "MERGE INTO T tgt USING STG src ON ( tgt.ID = src.ID ) "
+      + "WHEN MATCHED THEN UPDATE SET tgt.NAME = src.NAME "
+      + "WHEN NOT MATCHED THEN INSERT ( ID, NAME ) VALUES ( src.ID, src.NAME )",
+      nativeMeta.getSQLUpsertFromTable( "T", "STG", keys, new String[] { "ID", "NAME" }, new String[] { "NAME" } ) );
+    // Only the missing rows are inserted
+    assertEquals( "MERGE INTO T tgt USING STG src ON ( tgt.ID = src.ID ) "
+      + "WHEN NOT MATCHED THEN INSERT ( ID, NAME ) VALUES ( src.ID, src.NAME )",
+      nativeMeta.getSQLUpsertFromTable( "T", "STG", keys, new String[] { "ID", "NAME" }, new String[0] ) );
+  }
+
 }
@@ -0,0 +1,86 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.di.core.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.zaxxer.hikari.HikariConfig;
+
+public class HikariConnectionPoolProviderTest {
+
+  private DatabaseMeta dbMeta;
+  private Properties poolProperties;
+
+  @Before
+  public void setUp() {
+    dbMeta = mock( DatabaseMeta.class );
+    poolProperties = new Properties();
+    when( dbMeta.getName() ).thenReturn( "dwh" );
+    when( dbMeta.getURL( "p1" ) ).thenReturn( "jdbc:foo://server:111" );
+    when( dbMeta.getUsername() ).thenReturn( "suzy" );
+    when( dbMeta.getPassword() ).thenReturn( "password" );
+    when( dbMeta.getConnectionPoolingProperties() ).thenReturn( poolProperties );
+    when( dbMeta.environmentSubstitute( anyString() ) ).thenAnswer( invocation -> invocation.getArguments()[0] );
+  }
+
+  @Test
+  public void testConfigFromConnection() throws Exception {
+    HikariConfig config = HikariConnectionPoolProvider.createConfig( dbMeta, "p1", 5, 10 );
+
+    assertEquals( "jdbc:foo://server:111", config.getJdbcUrl() );
+    assertEquals( "suzy", config.getUsername() );
+    assertEquals( "password", config.getPassword() );
+    assertEquals( 10, config.getMaximumPoolSize() );
+    assertEquals( 5, config.getMinimumIdle() );
+    assertEquals( -1, config.getInitializationFailTimeout() );
+  }
+
+  @Test
+  public void testConfigFromPoolingParameters() throws Exception {
+    poolProperties.setProperty( ConnectionPoolUtil.MAX_ACTIVE, "20" );
+    poolProperties.setProperty( ConnectionPoolUtil.MIN_IDLE, "30" );
+    poolProperties.setProperty( ConnectionPoolUtil.MAX_WAIT, "5000" );
+    poolProperties.setProperty( ConnectionPoolUtil.DEFAULT_AUTO_COMMIT, "false" );
+    poolProperties.setProperty( ConnectionPoolUtil.DEFAULT_TRANSACTION_ISOLATION, "2" );
+    poolProperties.setProperty( ConnectionPoolUtil.VALIDATION_QUERY, "SELECT 1" );
+
+    HikariConfig config = HikariConnectionPoolProvider.createConfig( dbMeta, "p1", 5, 10 );
+
+    assertEquals( 20, config.getMaximumPoolSize() );
+    // The minimum idle connections can't be more than the maximum
+    assertEquals( 20, config.getMinimumIdle() );
+    assertEquals( 5000, config.getConnectionTimeout() );
+    assertFalse( config.isAutoCommit() );
+    assertEquals( "2", config.getTransactionIsolation() );
+    assertEquals( "SELECT 1", config.getConnectionTestQuery() );
+  }
+
+  @Test
+  public void testTimeout() {
+    HikariConnectionPoolProvider provider = new HikariConnectionPoolProvider();
+    assertTrue( provider.isTimeout( new SQLTransientConnectionException( "timeout" ) ) );
+    assertFalse( provider.isTimeout( new SQLException( "refused" ) ) );
+  }
+}
@@ -93,6 +93,7 @@ public class InfiniDbDatabaseMetaTest extends MySQLDatabaseMetaTest {
     assertTrue( nativeMeta.isMySQLVariant() );
     assertFalse( nativeMeta.releaseSavepoint() );
     assertTrue( nativeMeta.supportsErrorHandlingOnBatchUpdates() );
+    assertFalse( nativeMeta.supportsUpsertFromTable() );
     assertFalse( nativeMeta.isRequiringTransactionsOnQueries() );
     assertTrue( nativeMeta.supportsRepository() );
   }
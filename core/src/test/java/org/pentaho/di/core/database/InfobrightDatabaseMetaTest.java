@@ -13,6 +13,7 @@
 package org.pentaho.di.core.database;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import org.junit.Test;
 
@@ -23,6 +24,7 @@ public class InfobrightDatabaseMetaTest extends MySQLDatabaseMetaTest {
     InfobrightDatabaseMeta idm = new InfobrightDatabaseMeta();
     idm.setAccessType( DatabaseMeta.TYPE_ACCESS_NATIVE );
     assertEquals( 5029, idm.getDefaultDatabasePort() );
+    assertFalse( idm.supportsUpsertFromTable() );
   }
 
 }
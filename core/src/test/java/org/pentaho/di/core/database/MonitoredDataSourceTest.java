@@ -0,0 +1,67 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.di.core.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+
+public class MonitoredDataSourceTest {
+
+  @Test
+  public void testAcquisitionsAreCounted() throws Exception {
+    DataSource pool = mock( DataSource.class );
+    Connection connection = mock( Connection.class );
+    SQLException timeout = new SQLException( "timeout" );
+    SQLException refused = new SQLException( "refused" );
+    when( pool.getConnection() ).thenReturn( connection ).thenThrow( timeout ).thenThrow( refused );
+
+    ConnectionPoolProvider provider = mock( ConnectionPoolProvider.class );
+    when( provider.isTimeout( timeout ) ).thenReturn( true );
+    when( provider.getActiveConnections( any() ) ).thenReturn( 3 );
+
+    MonitoredDataSource ds = new MonitoredDataSource( "dwh", provider, pool );
+    assertSame( connection, ds.getConnection() );
+    for ( int i = 0; i < 2; i++ ) {
+      try {
+        ds.getConnection();
+        fail();
+      } catch ( SQLException e ) {
+        // expected
+      }
+    }
+
+    assertEquals( 1, ds.getAcquiredConnections() );
+    assertEquals( 1, ds.getTimeouts() );
+    assertEquals( 1, ds.getFailures() );
+    assertEquals( 0, ds.getPendingConnections() );
+    assertEquals( 3, ds.getActiveConnections() );
+  }
+
+  @Test
+  public void testUnwrapToPool() throws Exception {
+    DataSource pool = mock( DataSource.class );
+    MonitoredDataSource ds = new MonitoredDataSource( "dwh", mock( ConnectionPoolProvider.class ), pool );
+    assertSame( pool, ds.unwrap( DataSource.class ) );
+  }
+}
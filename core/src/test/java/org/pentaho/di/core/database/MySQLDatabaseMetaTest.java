@@ -396,4 +396,23 @@ public class MySQLDatabaseMetaTest {
       assert( key.startsWith( "foobar." ) );
     }
   }
+
+  @Test
+  public void testUpsertFromTable() {
+    MySQLDatabaseMeta meta = new MySQLDatabaseMeta();
+    String[] keys = new String[] { "id" };
+    String[] columns = new String[] { "id", "name", "qty" };
+    assertTrue( meta.supportsUpsertFromTable() );
+    assertEquals( "CREATE TEMPORARY TABLE STG ( id INT )", meta.getCreateTemporaryTableStatement( "STG", "id INT" ) );
+    assertEquals( "DROP TEMPORARY TABLE STG", meta.getDropTemporaryTableStatement( "STG" ) );
+    assertEquals( "INSERT INTO T ( id, name, qty ) SELECT id, name, qty FROM STG "
+      + "ON DUPLICATE KEY UPDATE name = VALUES( name ), qty = VALUES( qty )",
+      meta.getSQLUpsertFromTable( "T", "STG", keys, columns, new String[] { "name", "qty" } ) );
+    assertEquals( "INSERT INTO T ( id, name, qty ) SELECT id, name, qty FROM STG ON DUPLICATE KEY UPDATE id = id",
+      meta.getSQLUpsertFromTable( "T", "STG", keys, columns, new String[0] ) );
+    assertEquals( "UPDATE T tgt JOIN STG src ON tgt.id = src.id SET tgt.name = src.name, tgt.qty = src.qty",
+      meta.getSQLUpdateFromTable( "T", "STG", keys, new String[] { "name", "qty" } ) );
+    assertEquals( "DELETE tgt FROM T tgt JOIN STG src ON tgt.id = src.id",
+      meta.getSQLDeleteFromTable( "T", "STG", keys ) );
+  }
 }
@@ -315,4 +315,21 @@ public class OracleDatabaseMetaTest {
 
     assertTrue( dbMeta.strictBigNumberInterpretation() );
   }
+
+  @Test
+  public void testUpsertFromTable() {
+    OracleDatabaseMeta meta = new OracleDatabaseMeta();
+    String[] keys = new String[] { "ID", "DAY" };
+    assertTrue( meta.supportsUpsertFromTable() );
+    assertEquals( "CREATE GLOBAL TEMPORARY TABLE STG ( ID INTEGER ) ON COMMIT PRESERVE ROWS",
+      meta.getCreateTemporaryTableStatement( "STG", "ID INTEGER" ) );
+    assertEquals( "DROP TABLE STG", meta.getDropTemporaryTableStatement( "STG" ) );
+    assertEquals( "MERGE INTO T tgt USING STG src ON ( tgt.ID = src.ID AND tgt.DAY = src.DAY ) "
+      + "WHEN MATCHED THEN UPDATE SET tgt.QTY = src.QTY "
+      + "WHEN NOT MATCHED THEN INSERT ( ID, DAY, QTY ) VALUES ( src.ID, src.DAY, src.QTY )",
+      meta.getSQLUpsertFromTable( "T", "STG", keys, new String[] { "ID", "DAY", "QTY" }, new String[] { "QTY" } ) );
+    assertEquals( "UPDATE T tgt SET QTY = ( SELECT src.QTY FROM STG src WHERE tgt.ID = src.ID AND tgt.DAY = src.DAY )"
+      + " WHERE EXISTS ( SELECT 1 FROM STG src WHERE tgt.ID = src.ID AND tgt.DAY = src.DAY )",
+      meta.getSQLUpdateFromTable( "T", "STG", keys, new String[] { "QTY" } ) );
+  }
 }
@@ -232,4 +232,24 @@ public class PostgreSQLDatabaseMetaTest {
     assertNull( nativeMeta.getSQLUnlockTables(  new String[] { "FOO" } ) );
   }
 
+  @Test
+  public void testUpsertFromTable() {
+    PostgreSQLDatabaseMeta meta = new PostgreSQLDatabaseMeta();
+    String[] keys = new String[] { "id" };
+    String[] columns = new String[] { "id", "name", "qty" };
+    assertTrue( meta.supportsUpsertFromTable() );
+    assertEquals( "CREATE TEMPORARY TABLE STG ( id INTEGER )",
+      meta.getCreateTemporaryTableStatement( "STG", "id INTEGER" ) );
+    assertEquals( "DROP TABLE STG", meta.getDropTemporaryTableStatement( "STG" ) );
+    assertEquals( "INSERT INTO T ( id, name, qty ) SELECT id, name, qty FROM STG ON CONFLICT ( id ) "
+      + "DO UPDATE SET name = EXCLUDED.name, qty = EXCLUDED.qty",
+      meta.getSQLUpsertFromTable( "T", "STG", keys, columns, new String[] { "name", "qty" } ) );
+    assertEquals( "INSERT INTO T ( id, name, qty ) SELECT id, name, qty FROM STG ON CONFLICT ( id ) DO NOTHING",
+      meta.getSQLUpsertFromTable( "T", "STG", keys, columns, new String[0] ) );
+    assertEquals( "UPDATE T tgt SET name = src.name, qty = src.qty FROM STG src WHERE tgt.id = src.id",
+      meta.getSQLUpdateFromTable( "T", "STG", keys, new String[] { "name", "qty" } ) );
+    assertEquals( "DELETE FROM T tgt WHERE EXISTS ( SELECT 1 FROM STG src WHERE tgt.id = src.id )",
+      meta.getSQLDeleteFromTable( "T", "STG", keys ) );
+  }
+
 }
@@ -146,4 +146,9 @@ public class RedshiftDatabaseMetaTest {
     assertEquals( "testAwsAccessKey", dbMeta.getAttributes().getProperty( RedshiftDatabaseMeta.AWS_ACCESS_KEY ) );
     assertEquals( "testAwsAccessKeyId", dbMeta.getAttributes().getProperty( RedshiftDatabaseMeta.AWS_ACCESS_KEY_ID ) );
   }
+
+  @Test
+  public void testNoUpsertFromTable() {
+    assertFalse( dbMeta.supportsUpsertFromTable() );
+  }
 }
@@ -0,0 +1,173 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.database;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class StagingTableTest {
+
+  private Database db;
+  private DatabaseMeta databaseMeta;
+  private Statement statement;
+  private RowMetaInterface rowMeta;
+  private List<Object[]> staged;
+
+  @Before
+  public void setUp() throws Exception {
+    databaseMeta = mock( DatabaseMeta.class );
+    when( databaseMeta.getDatabaseInterface() ).thenReturn( new PostgreSQLDatabaseMeta() );
+    when( databaseMeta.quoteField( anyString() ) ).thenAnswer( invocation -> invocation.getArgument( 0 ) );
+    when( databaseMeta.getQuotedSchemaTableCombination( isNull(), anyString() ) )
+      .thenAnswer( invocation -> invocation.getArgument( 1 ) );
+    when( databaseMeta.stripCR( anyString() ) ).thenAnswer( invocation -> invocation.getArgument( 0 ) );
+    when( databaseMeta.getFieldDefinition( any( ValueMetaInterface.class ), isNull(), isNull(), anyBoolean(),
+      anyBoolean(), anyBoolean() ) ).thenAnswer( invocation -> ( (ValueMetaInterface) invocation.getArgument( 0 ) )
+        .getName() + " VARCHAR" );
+    when( databaseMeta.getTruncateTableStatement( isNull(), anyString() ) )
+      .thenAnswer( invocation -> "TRUNCATE TABLE " + invocation.getArgument( 1 ) );
+
+    Connection connection = mock( Connection.class );
+    statement = mock( Statement.class );
+    when( connection.createStatement() ).thenReturn( statement );
+    db = mock( Database.class );
+    when( db.getDatabaseMeta() ).thenReturn( databaseMeta );
+    when( db.getConnection() ).thenReturn( connection );
+    when( db.prepareSQL( any() ) ).thenReturn( mock( PreparedStatement.class ) );
+
+    staged = new ArrayList<>();
+    doAnswer( invocation -> staged.add( invocation.getArgument( 1 ) ) ).when( db )
+      .setValues( any( RowMetaInterface.class ), any( Object[].class ), any( PreparedStatement.class ) );
+
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "qty" ) );
+  }
+
+  @Test
+  public void testRowsWithTheSameKeyAreMerged() throws Exception {
+    // name is only inserted, qty is updated as well
+    StagingTable stagingTable = new StagingTable( db, "target", rowMeta, new String[] { "id" },
+      new String[] { "id", "qty" } );
+    stagingTable.addRow( new Object[] { 1L, "a", 10L } );
+    stagingTable.addRow( new Object[] { 2L, "b", 20L } );
+    stagingTable.addRow( new Object[] { 1L, "c", 30L } );
+    assertEquals( 2, stagingTable.size() );
+
+    stagingTable.upsert();
+
+    // The first row inserts name "a", the last one updates qty to 30
+    assertEquals( 2, staged.size() );
+    assertArrayEquals( new Object[] { 2L, "b", 20L }, staged.get( 0 ) );
+    assertArrayEquals( new Object[] { 1L, "a", 30L }, staged.get( 1 ) );
+    String tableName = stagingTable.getTableName();
+    verify( statement ).executeUpdate( "CREATE TEMPORARY TABLE " + tableName
+      + " ( id VARCHAR, name VARCHAR, qty VARCHAR )" );
+    verify( statement ).executeUpdate( "INSERT INTO target ( id, name, qty ) SELECT id, name, qty FROM " + tableName
+      + " ON CONFLICT ( id ) DO UPDATE SET qty = EXCLUDED.qty" );
+    verify( statement ).executeUpdate( "DELETE FROM " + tableName );
+    assertEquals( 0, stagingTable.size() );
+  }
+
+  @Test
+  public void testFirstRowIsKeptWhenNothingIsUpdated() throws Exception {
+    StagingTable stagingTable = new StagingTable( db, "target", rowMeta, new String[] { "id" }, new String[0] );
+    stagingTable.addRow( new Object[] { 1L, "a", 10L } );
+    stagingTable.addRow( new Object[] { 1L, "c", 30L } );
+
+    stagingTable.upsert();
+
+    assertEquals( 1, staged.size() );
+    assertArrayEquals( new Object[] { 1L, "a", 10L }, staged.get( 0 ) );
+    verify( statement ).executeUpdate( "INSERT INTO target ( id, name, qty ) SELECT id, name, qty FROM "
+      + stagingTable.getTableName() + " ON CONFLICT ( id ) DO NOTHING" );
+  }
+
+  @Test
+  public void testUpdateAndDelete() throws Exception {
+    StagingTable stagingTable = new StagingTable( db, "target", rowMeta, new String[] { "id" },
+      new String[] { "name", "qty" } );
+    String tableName = stagingTable.getTableName();
+    stagingTable.addRow( new Object[] { 1L, "a", 10L } );
+    stagingTable.update();
+    verify( statement ).executeUpdate( "UPDATE target tgt SET name = src.name, qty = src.qty FROM " + tableName
+      + " src WHERE tgt.id = src.id" );
+
+    stagingTable.addRow( new Object[] { 2L, "b", 20L } );
+    stagingTable.delete();
+    verify( statement ).executeUpdate( "DELETE FROM target tgt WHERE EXISTS ( SELECT 1 FROM " + tableName
+      + " src WHERE tgt.id = src.id )" );
+  }
+
+  @Test
+  public void testCloseDropsTheTable() throws Exception {
+    StagingTable stagingTable = new StagingTable( db, "target", rowMeta, new String[] { "id" },
+      new String[] { "qty" } );
+    stagingTable.addRow( new Object[] { 1L, "a", 10L } );
+    stagingTable.upsert();
+    stagingTable.close();
+
+    String tableName = stagingTable.getTableName();
+    verify( statement ).executeUpdate( "TRUNCATE TABLE " + tableName );
+    verify( statement ).executeUpdate( "DROP TABLE " + tableName );
+  }
+
+  @Test
+  public void testCloseDropsATemporaryTableOnMySQL() throws Exception {
+    when( databaseMeta.getDatabaseInterface() ).thenReturn( new MySQLDatabaseMeta() );
+    StagingTable stagingTable = new StagingTable( db, "target", rowMeta, new String[] { "id" },
+      new String[] { "qty" } );
+    stagingTable.addRow( new Object[] { 1L, "a", 10L } );
+    stagingTable.upsert();
+    stagingTable.close();
+
+    verify( statement ).executeUpdate( "DROP TEMPORARY TABLE " + stagingTable.getTableName() );
+  }
+
+  @Test
+  public void testNothingIsCreatedWithoutRows() throws Exception {
+    StagingTable stagingTable = new StagingTable( db, "target", rowMeta, new String[] { "id" },
+      new String[] { "qty" } );
+    assertEquals( 0, stagingTable.upsert() );
+    stagingTable.close();
+
+    verify( db, never() ).prepareSQL( any() );
+    verify( statement, never() ).executeUpdate( anyString() );
+  }
+}
@@ -0,0 +1,110 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.hash;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class OffHeapHashIndexTest {
+
+  @Test
+  public void testExpectedSizeConstructor() {
+    assertEquals( 512, new OffHeapHashIndex( 0 ).getCapacity() );
+    assertEquals( 1024, new OffHeapHashIndex( 500 ).getCapacity() );
+    assertEquals( 2048, new OffHeapHashIndex( 1000 ).getCapacity() );
+  }
+
+  @Test
+  public void testGetAndPut() {
+    OffHeapHashIndex obj = new OffHeapHashIndex();
+    assertTrue( obj.isEmpty() );
+    assertNull( obj.get( new byte[]{ 10 } ) );
+
+    obj.put( new byte[]{ 10 }, new byte[]{ 53, 12 } );
+    assertFalse( obj.isEmpty() );
+    assertTrue( obj.containsKey( new byte[]{ 10 } ) );
+    assertArrayEquals( new byte[]{ 53, 12 }, obj.get( new byte[]{ 10 } ) );
+    assertNull( obj.get( new byte[]{ 10, 0 } ) );
+
+    // Same length: replaced in place, other length: appended
+    obj.put( new byte[]{ 10 }, new byte[]{ 1, 2 } );
+    assertArrayEquals( new byte[]{ 1, 2 }, obj.get( new byte[]{ 10 } ) );
+    obj.put( new byte[]{ 10 }, new byte[]{ 3, 4, 5 } );
+    assertArrayEquals( new byte[]{ 3, 4, 5 }, obj.get( new byte[]{ 10 } ) );
+    assertEquals( 1, obj.getSize() );
+
+    // Keys can be looked up in a larger buffer
+    assertArrayEquals( new byte[]{ 3, 4, 5 }, obj.get( new byte[]{ 7, 10, 7 }, 1, 1 ) );
+  }
+
+  @Test
+  public void testGrowAcrossPages() {
+    OffHeapHashIndex obj = new OffHeapHashIndex( 0, 64 );
+    Map<String, String> expected = new HashMap<>();
+    Random random = new Random( 42 );
+    for ( int i = 0; i < 20000; i++ ) {
+      String key = "key" + random.nextInt( 10000 );
+      String value = "value" + random.nextInt( 100 ) + ( random.nextBoolean() ? "-long" : "" );
+      obj.put( bytes( key ), bytes( value ) );
+      expected.put( key, value );
+    }
+    assertEquals( expected.size(), obj.getSize() );
+    assertTrue( obj.getCapacity() * 0.75 > obj.getSize() );
+
+    for ( int i = 0; i < 12000; i++ ) {
+      String key = "key" + i;
+      String value = expected.get( key );
+      if ( value == null ) {
+        assertNull( obj.get( bytes( key ) ) );
+      } else {
+        assertArrayEquals( bytes( value ), obj.get( bytes( key ) ) );
+      }
+    }
+
+    // An entry larger than a page gets a page of its own
+    byte[] large = new byte[ 1000 ];
+    large[ 999 ] = 1;
+    obj.put( bytes( "large" ), large );
+    assertArrayEquals( large, obj.get( bytes( "large" ) ) );
+  }
+
+  @Test
+  public void testClear() {
+    OffHeapHashIndex obj = new OffHeapHashIndex( 10000 );
+    obj.put( bytes( "key" ), bytes( "value" ) );
+    assertTrue( obj.getMemoryAllocated() > 0 );
+
+    obj.clear();
+    assertEquals( 0, obj.getSize() );
+    assertEquals( 0, obj.getMemoryAllocated() );
+    assertNull( obj.get( bytes( "key" ) ) );
+
+    obj.put( bytes( "key" ), bytes( "other" ) );
+    assertArrayEquals( bytes( "other" ), obj.get( bytes( "key" ) ) );
+  }
+
+  private static byte[] bytes( String string ) {
+    return string.getBytes( StandardCharsets.UTF_8 );
+  }
+}
@@ -0,0 +1,169 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row;
+
+import java.util.Date;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnarRowBatchTest {
+
+  private RowMetaInterface createRowMeta() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "country" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date" ) );
+    return rowMeta;
+  }
+
+  @Test
+  public void testColumnTypes() {
+    ColumnarRowBatch batch = new ColumnarRowBatch( createRowMeta(), 10 );
+    assertEquals( ColumnarRowBatch.COLUMN_LONG, batch.getColumnType( 0 ) );
+    assertEquals( ColumnarRowBatch.COLUMN_DOUBLE, batch.getColumnType( 1 ) );
+    assertEquals( ColumnarRowBatch.COLUMN_STRING, batch.getColumnType( 2 ) );
+    assertEquals( ColumnarRowBatch.COLUMN_OBJECT, batch.getColumnType( 3 ) );
+
+    ValueMetaInterface lazy = new ValueMetaInteger( "lazy" );
+    lazy.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+    assertEquals( ColumnarRowBatch.COLUMN_OBJECT, ColumnarRowBatch.getColumnType( lazy ) );
+  }
+
+  @Test
+  public void testLoadAndConvertBack() {
+    Date date = new Date();
+    Object[][] rows = new Object[][] {
+      { 1L, 1.5, "BE", date },
+      { null, null, null, null },
+      { 3L, -2.0, "BE", date },
+      { 4L, 0.0, "NL", null },
+    };
+
+    ColumnarRowBatch batch = new ColumnarRowBatch( createRowMeta(), 100 );
+    batch.load( rows, rows.length );
+
+    assertEquals( 4, batch.size() );
+    assertEquals( 3L, batch.getLongs( 0 )[ 2 ] );
+    assertEquals( -2.0, batch.getDoubles( 1 )[ 2 ], 0.0 );
+    assertTrue( batch.isNull( 0, 1 ) );
+    assertFalse( batch.isNull( 0, 2 ) );
+    assertTrue( batch.isNull( 3, 3 ) );
+
+    // Strings are dictionary encoded
+    assertEquals( 2, batch.getDictionarySize( 2 ) );
+    assertEquals( batch.getCodes( 2 )[ 0 ], batch.getCodes( 2 )[ 2 ] );
+    assertEquals( "NL", batch.getDictionaryValue( 2, batch.getCodes( 2 )[ 3 ] ) );
+
+    for ( int r = 0; r < rows.length; r++ ) {
+      Object[] row = batch.getRow( r );
+      assertTrue( row.length >= rows[ r ].length );
+      for ( int c = 0; c < rows[ r ].length; c++ ) {
+        assertEquals( rows[ r ][ c ], row[ c ] );
+      }
+    }
+  }
+
+  @Test
+  public void testNullBitmapSpansWords() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    Object[][] rows = new Object[ 130 ][];
+    for ( int r = 0; r < rows.length; r++ ) {
+      rows[ r ] = new Object[] { r % 3 == 0 ? null : Long.valueOf( r ) };
+    }
+
+    ColumnarRowBatch batch = new ColumnarRowBatch( rowMeta, rows.length );
+    batch.load( rows, rows.length );
+    for ( int r = 0; r < rows.length; r++ ) {
+      assertEquals( r % 3 == 0, batch.isNull( 0, r ) );
+    }
+
+    // Loading a second batch clears the nulls of the first one
+    for ( int r = 0; r < rows.length; r++ ) {
+      rows[ r ] = new Object[] { Long.valueOf( r ) };
+    }
+    batch.load( rows, 65 );
+    for ( int r = 0; r < 65; r++ ) {
+      assertFalse( batch.isNull( 0, r ) );
+    }
+  }
+
+  @Test
+  public void testLoadSomeFields() {
+    Object[][] rows = new Object[][] { { 1L, 1.5, "BE", null } };
+    ColumnarRowBatch batch = new ColumnarRowBatch( createRowMeta(), 10 );
+    batch.load( rows, 1, 1 );
+
+    assertFalse( batch.isLoaded( 0 ) );
+    assertTrue( batch.isLoaded( 1 ) );
+    assertEquals( 1.5, batch.getDoubles( 1 )[ 0 ], 0.0 );
+  }
+
+  @Test( expected = IllegalStateException.class )
+  public void testRowOfPartiallyLoadedBatchIsRejected() {
+    ColumnarRowBatch batch = new ColumnarRowBatch( createRowMeta(), 10 );
+    batch.load( new Object[][] { { 1L, 1.5, "BE", null } }, 1, 0 );
+    batch.getRow( 0 );
+  }
+
+  @Test
+  public void testBuildBatchWithSetters() {
+    ColumnarRowBatch batch = new ColumnarRowBatch( createRowMeta(), 10 );
+    batch.clear();
+    batch.setLong( 0, 0, 7L );
+    batch.setDouble( 1, 0, 2.5 );
+    batch.setString( 2, 0, "FR" );
+    batch.setNull( 3, 0 );
+    batch.setNull( 0, 1 );
+    batch.setDouble( 1, 1, 1.0 );
+    batch.setString( 2, 1, null );
+    batch.setObject( 3, 1, new Date( 0L ) );
+    batch.setSize( 2 );
+
+    assertArrayEquals( new Object[] { 7L, 2.5, "FR", null }, trim( batch.getRow( 0 ), 4 ) );
+    assertArrayEquals( new Object[] { null, 1.0, null, new Date( 0L ) }, trim( batch.getRow( 1 ), 4 ) );
+  }
+
+  @Test
+  public void testValuesNotSetAfterLoadAreNull() {
+    ColumnarRowBatch batch = new ColumnarRowBatch( createRowMeta(), 10 );
+    Date date = new Date();
+    batch.load( new Object[][] { { 1L, 1.5, "BE", date }, { 2L, 2.5, "NL", date } }, 2 );
+    batch.clear();
+
+    // Only some of the values of the rows are set, the others read back as null
+    batch.setLong( 0, 0, 7L );
+    batch.setString( 2, 1, "FR" );
+    batch.setSize( 2 );
+
+    assertArrayEquals( new Object[] { 7L, null, null, null }, trim( batch.getRow( 0 ), 4 ) );
+    assertArrayEquals( new Object[] { null, null, "FR", null }, trim( batch.getRow( 1 ), 4 ) );
+  }
+
+  private Object[] trim( Object[] row, int size ) {
+    Object[] trimmed = new Object[ size ];
+    System.arraycopy( row, 0, trimmed, 0, size );
+    return trimmed;
+  }
+}
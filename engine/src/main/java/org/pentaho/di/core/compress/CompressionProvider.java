@@ -58,6 +58,16 @@ public interface CompressionProvider {
    */
   boolean supportsOutput();
 
+  /**
+   * Whether the output streams of this provider can be written one after the other into a file that reads back as one
+   * stream. The data can then be compressed in independent blocks, in parallel.
+   *
+   * @return true if concatenated output streams read back as a single stream, false otherwise
+   */
+  default boolean supportsConcatenatedOutput() {
+    return false;
+  }
+
   /**
    * Gets the name of this provider. Used for display and as a reference in saved artifacts (transformations, e.g.)
    *
@@ -41,6 +41,16 @@ public class GZIPCompressionProvider implements CompressionProvider {
     return true;
   }
 
+  /**
+   * Gzip members can follow each other in a file
+   *
+   * @return true
+   */
+  @Override
+  public boolean supportsConcatenatedOutput() {
+    return true;
+  }
+
   @Override
   public String getDescription() {
     return "GZIP compression";
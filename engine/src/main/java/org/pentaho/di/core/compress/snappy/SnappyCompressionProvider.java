@@ -41,6 +41,16 @@ public class SnappyCompressionProvider implements CompressionProvider {
     return true;
   }
 
+  /**
+   * Snappy streams can follow each other in a file
+   *
+   * @return true
+   */
+  @Override
+  public boolean supportsConcatenatedOutput() {
+    return true;
+  }
+
   @Override
   public String getDescription() {
     return "Snappy compression";
@@ -24,10 +24,12 @@ import org.pentaho.di.core.Counter;
 import org.pentaho.di.core.ExecutorInterface;
 import org.pentaho.di.core.ExtensionDataInterface;
 import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.ManagedBlockingRowSet;
 import org.pentaho.di.core.QueueRowSet;
 import org.pentaho.di.core.Result;
 import org.pentaho.di.core.ResultFile;
 import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.RingBufferRowSet;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.SingleRowRowSet;
 import org.pentaho.di.core.bowl.Bowl;
@@ -73,6 +75,7 @@ import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.core.util.ConnectionUtil;
 import org.pentaho.di.core.util.EnvUtil;
 import org.pentaho.di.core.util.Utils;
+import org.pentaho.di.core.util.VirtualThreads;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.core.variables.Variables;
 import org.pentaho.di.core.vfs.KettleVFS;
@@ -95,6 +98,7 @@ import org.pentaho.di.trans.step.RunThread;
 import org.pentaho.di.trans.step.StepAdapter;
 import org.pentaho.di.trans.step.StepDataInterface;
 import org.pentaho.di.trans.step.StepInitThread;
+import org.pentaho.di.trans.step.WorkStealingStepScheduler;
 import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepListener;
 import org.pentaho.di.trans.step.StepMeta;
@@ -140,6 +144,8 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
@@ -396,6 +402,12 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
    */
   private AtomicInteger status;
 
+  /**
+   * Signalled whenever the running, paused or stopped status changes so that steps don't have to poll it.
+   */
+  private final ReentrantLock statusLock = new ReentrantLock();
+  private final Condition statusChanged = statusLock.newCondition();
+
   /**
    * <p>This enum stores bit masks which are used to manipulate with
    * statuses over field {@link Trans#status}
@@ -979,8 +991,17 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
                 //
                 Boolean batchingRowSet =
                   ValueMetaString.convertStringToBoolean( System.getProperty( Const.KETTLE_BATCHING_ROWSET ) );
-                if ( batchingRowSet != null && batchingRowSet.booleanValue() ) {
+                if ( isUsingWorkStealingScheduler() ) {
+                  // Pool threads have to tell the pool when they block on a row set
+                  //
+                  rowSet = new ManagedBlockingRowSet( transMeta.getSizeRowset() );
+                } else if ( batchingRowSet != null && batchingRowSet.booleanValue() ) {
                   rowSet = new BlockingBatchingRowSet( transMeta.getSizeRowset() );
+                } else if ( isUsingRingBufferRowSets() ) {
+                  // Every row set allocated here links exactly one source copy to one target copy.
+                  // That means only one thread writes and only one thread reads: no locking needed.
+                  //
+                  rowSet = new RingBufferRowSet( transMeta.getSizeRowset() );
                 } else {
                   rowSet = new BlockingRowSet( transMeta.getSizeRowset() );
                 }
@@ -1028,7 +1049,8 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
           // distribution...
           for ( int s = 0; s < thisCopies; s++ ) {
             for ( int t = 0; t < nextCopies; t++ ) {
-              BlockingRowSet rowSet = new BlockingRowSet( transMeta.getSizeRowset() );
+              BlockingRowSet rowSet = isUsingWorkStealingScheduler()
+                ? new ManagedBlockingRowSet( transMeta.getSizeRowset() ) : new BlockingRowSet( transMeta.getSizeRowset() );
               rowSet.setThreadNameFromToCopy( thisStep.getName(), s, nextStep.getName(), t );
               rowsets.add( rowSet );
               if ( log.isDetailed() ) {
@@ -1235,6 +1257,7 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
 
     StepInitThread[] initThreads = new StepInitThread[ steps.size() ];
     Thread[] threads = new Thread[ steps.size() ];
+    boolean virtualThreads = isUsingVirtualStepThreads();
 
     // Initialize all the threads...
     //
@@ -1250,7 +1273,7 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
 
         // Put it in a separate thread!
         //
-        threads[ i ] = new Thread( initThreads[ i ] );
+        threads[ i ] = newStepThread( initThreads[ i ], virtualThreads );
         threads[ i ].setName( "init of " + sid.stepname + "." + sid.copy + " (" + threads[ i ].getName() + ")" );
 
         ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepBeforeInitialize.id, initThreads[ i ] );
@@ -1348,6 +1371,64 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     setReadyToStart( true );
   }
 
+  /**
+   * The lock-free ring buffer row sets are used unless they are explicitly switched off with the
+   * KETTLE_RING_BUFFER_ROWSET variable.
+   *
+   * @return true if hops between single step copies should use a {@link RingBufferRowSet}
+   */
+  protected boolean isUsingRingBufferRowSets() {
+    Boolean ringBuffer = ValueMetaString.convertStringToBoolean( getVariable( Const.KETTLE_RING_BUFFER_ROWSET ) );
+    return ringBuffer == null || ringBuffer.booleanValue();
+  }
+
+  /**
+   * Steps run on virtual threads if this is asked for with the KETTLE_VIRTUAL_STEP_THREADS variable and the Java
+   * runtime supports it.
+   *
+   * @return true if the step (initialization) threads should be virtual threads
+   */
+  protected boolean isUsingVirtualStepThreads() {
+    Boolean virtual = ValueMetaString.convertStringToBoolean( getVariable( Const.KETTLE_VIRTUAL_STEP_THREADS ) );
+    if ( virtual == null || !virtual.booleanValue() ) {
+      return false;
+    }
+    if ( !VirtualThreads.isSupported() ) {
+      log.logBasic( BaseMessages.getString( PKG, "Trans.Log.VirtualThreadsNotSupported" ) );
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * The steps are scheduled on a shared work-stealing pool if this is asked for with the
+   * KETTLE_WORK_STEALING_SCHEDULER variable.
+   *
+   * @return true if the steps of this (normal) transformation are run by a {@link WorkStealingStepScheduler}
+   */
+  protected boolean isUsingWorkStealingScheduler() {
+    Boolean workStealing =
+      ValueMetaString.convertStringToBoolean( getVariable( Const.KETTLE_WORK_STEALING_SCHEDULER ) );
+    return workStealing != null && workStealing.booleanValue();
+  }
+
+  /**
+   * Creates the thread to run or initialize a step copy on.
+   *
+   * @param runnable the step runnable
+   * @param virtual  true if we should create a virtual thread
+   * @return the new, unstarted, thread
+   */
+  private Thread newStepThread( Runnable runnable, boolean virtual ) {
+    if ( virtual ) {
+      Thread thread = VirtualThreads.newThread( runnable );
+      if ( thread != null ) {
+        return thread;
+      }
+    }
+    return new Thread( runnable );
+  }
+
   @SuppressWarnings ( "deprecation" )
   private void checkCompatibility() {
     // If we don't have a previous result and transMeta does have one, someone has been using a deprecated method.
@@ -1548,13 +1629,19 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     switch ( transMeta.getTransformationType() ) {
       case Normal:
 
-        // Now start all the threads...
+        // Now start all the threads, or hand the steps over to the scheduler...
         //
+        WorkStealingStepScheduler stepScheduler =
+          isUsingWorkStealingScheduler() ? new WorkStealingStepScheduler( this, steps ) : null;
+        boolean virtualThreads = stepScheduler == null && isUsingVirtualStepThreads();
         for ( int i = 0; i < steps.size(); i++ ) {
           final StepMetaDataCombi combi = steps.get( i );
-          RunThread runThread = new RunThread( combi );
-          Thread thread = new Thread( runThread );
-          thread.setName( getName() + " - " + combi.stepname );
+          Thread thread = null;
+          if ( stepScheduler == null ) {
+            RunThread runThread = new RunThread( combi );
+            thread = newStepThread( runThread, virtualThreads );
+            thread.setName( getName() + " - " + combi.stepname );
+          }
           ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepBeforeStart.id, combi );
           // Call an extension point at the end of the step
           //
@@ -1571,7 +1658,12 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
 
           } );
 
-          thread.start();
+          if ( thread != null ) {
+            thread.start();
+          }
+        }
+        if ( stepScheduler != null ) {
+          stepScheduler.start();
         }
         break;
 
@@ -3460,7 +3552,9 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     RowSet rowSet;
     switch ( transMeta.getTransformationType() ) {
       case Normal:
-        rowSet = new BlockingRowSet( transMeta.getSizeRowset() );
+        // The scheduler needs to hear about the rows to wake up the step
+        rowSet = isUsingWorkStealingScheduler()
+          ? new ManagedBlockingRowSet( transMeta.getSizeRowset() ) : new BlockingRowSet( transMeta.getSizeRowset() );
         break;
       case SerialSingleThreaded:
         rowSet = new SingleRowRowSet();
@@ -3727,6 +3821,41 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
    */
   public void setRunning( boolean running ) {
     status.updateAndGet( v -> running ? v | RUNNING.mask : ( BIT_STATUS_SUM ^ RUNNING.mask ) & v );
+    signalStatusChanged();
+  }
+
+  /**
+   * Waits until the transformation is running or stopped, or until the timeout expires. Steps call this instead of
+   * polling {@link #isRunning()} while all step threads are being started.
+   *
+   * @param timeout the maximum time to wait
+   * @param tu      the time unit of the timeout
+   * @return true if the transformation is running, false otherwise
+   * @throws InterruptedException when the waiting thread is interrupted
+   */
+  public boolean waitUntilRunning( long timeout, TimeUnit tu ) throws InterruptedException {
+    if ( isRunning() ) {
+      return true;
+    }
+    long nanos = tu.toNanos( timeout );
+    statusLock.lock();
+    try {
+      while ( !isRunning() && !isStopped() && nanos > 0 ) {
+        nanos = statusChanged.awaitNanos( nanos );
+      }
+    } finally {
+      statusLock.unlock();
+    }
+    return isRunning();
+  }
+
+  private void signalStatusChanged() {
+    statusLock.lock();
+    try {
+      statusChanged.signalAll();
+    } finally {
+      statusLock.unlock();
+    }
   }
 
   /**
@@ -4836,6 +4965,7 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
 
   public void setPaused( boolean paused ) {
     status.updateAndGet( v -> paused ? v | PAUSED.mask : ( BIT_STATUS_SUM ^ PAUSED.mask ) & v );
+    signalStatusChanged();
   }
 
   /**
@@ -4850,6 +4980,7 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
 
   public void setStopped( boolean stopped ) {
     status.updateAndGet( v -> stopped ? v | STOPPED.mask : ( BIT_STATUS_SUM ^ STOPPED.mask ) & v );
+    signalStatusChanged();
   }
 
   /**
@@ -32,7 +32,9 @@ import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -45,6 +47,7 @@ import org.pentaho.di.core.ExtensionDataInterface;
 import org.pentaho.di.core.ResultFile;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.RowSetSignal;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleRowException;
 import org.pentaho.di.core.exception.KettleStepException;
@@ -158,7 +161,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
   private Trans trans;
 
-  private final Object statusCountersLock = new Object();
+  private final ReentrantLock statusCountersLock = new ReentrantLock();
 
   /**
    * nr of lines read from previous step(s)
@@ -267,6 +270,17 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
   private AtomicBoolean paused;
 
+  /**
+   * Signalled when the step is paused, resumed or stopped.
+   */
+  private final ReentrantLock stateLock = new ReentrantLock();
+  private final Condition stateChanged = stateLock.newCondition();
+
+  /**
+   * Raised by the input row sets when rows arrive or when they are done.
+   */
+  private final RowSetSignal inputSignal = new RowSetSignal();
+
   private boolean init;
 
   /**
@@ -366,8 +380,29 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
   private static int NR_OF_ROWS_IN_BLOCK = 500;
 
+  /**
+   * The maximum time we park waiting for a change in state. Waiting threads are signalled, this is only a safety net.
+   */
+  private static final long STATE_WAIT_MILLIS = 100L;
+
+  /**
+   * The maximum time we park waiting for rows when all input row sets signal us when rows arrive.
+   */
+  private static final long INPUT_WAIT_MILLIS = 1000L;
+
+  /**
+   * The number of rows steps ask for or hand over at once when they use {@link #getRows(int)} and
+   * {@link #putRows(RowMetaInterface, Object[][], int)}
+   */
+  protected static final int ROW_BATCH_SIZE = 500;
+
   private int blockPointer;
 
+  /**
+   * Re-used buffer to collect the rows of a batch in {@link #getRows(int)}
+   */
+  private Object[][] rowBatchBuffer;
+
   /**
    * A flag to indicate that clustered partitioning was not yet initialized
    */
@@ -479,7 +514,8 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
     init = false;
 
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       linesRead = 0L; // new AtomicLong(0L); // Keep some statistics!
       linesWritten = 0L; // new AtomicLong(0L);
       linesUpdated = 0L; // new AtomicLong(0L);
@@ -487,6 +523,8 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       linesRejected = 0L; // new AtomicLong(0L);
       linesInput = 0L; // new AtomicLong(0L);
       linesOutput = 0L; // new AtomicLong(0L);
+    } finally {
+      statusCountersLock.unlock();
     }
 
     inputRowSets = null;
@@ -905,8 +943,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public long getLinesRead() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return linesRead;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -916,8 +957,20 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return Returns the new value
    */
   public long incrementLinesRead() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return ++linesRead;
+    } finally {
+      statusCountersLock.unlock();
+    }
+  }
+
+  private void addLinesRead( long nrLines ) {
+    statusCountersLock.lock();
+    try {
+      linesRead += nrLines;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -927,8 +980,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return Returns the new value
    */
   public long decrementLinesRead() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return --linesRead;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -936,8 +992,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @param newLinesReadValue the new number of lines read from previous steps
    */
   public void setLinesRead( long newLinesReadValue ) {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       linesRead = newLinesReadValue;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -946,8 +1005,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public long getLinesInput() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return linesInput;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -957,8 +1019,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return the new incremented value
    */
   public long incrementLinesInput() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return ++linesInput;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -966,8 +1031,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @param newLinesInputValue the new number of lines read from an input source: database, file, socket, etc.
    */
   public void setLinesInput( long newLinesInputValue ) {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       linesInput = newLinesInputValue;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -976,8 +1044,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public long getLinesOutput() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return linesOutput;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -987,8 +1058,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return the new incremented value
    */
   public long incrementLinesOutput() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return ++linesOutput;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -996,8 +1070,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @param newLinesOutputValue the new number of lines written to an output target: database, file, socket, etc.
    */
   public void setLinesOutput( long newLinesOutputValue ) {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       linesOutput = newLinesOutputValue;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1006,8 +1083,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public long getLinesWritten() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return linesWritten;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1017,8 +1097,20 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return Returns the new value
    */
   public long incrementLinesWritten() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return ++linesWritten;
+    } finally {
+      statusCountersLock.unlock();
+    }
+  }
+
+  private void addLinesWritten( long nrLines ) {
+    statusCountersLock.lock();
+    try {
+      linesWritten += nrLines;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1028,8 +1120,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return Returns the new value
    */
   public long decrementLinesWritten() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return --linesWritten;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1037,8 +1132,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @param newLinesWrittenValue the new number of lines written to next steps
    */
   public void setLinesWritten( long newLinesWrittenValue ) {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       linesWritten = newLinesWrittenValue;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1047,8 +1145,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public long getLinesUpdated() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return linesUpdated;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1058,8 +1159,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return the new incremented value
    */
   public long incrementLinesUpdated() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return ++linesUpdated;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1067,8 +1171,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @param newLinesUpdatedValue the new number of lines updated in an output target: database, file, socket, etc.
    */
   public void setLinesUpdated( long newLinesUpdatedValue ) {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       linesUpdated = newLinesUpdatedValue;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1077,8 +1184,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public long getLinesRejected() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return linesRejected;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1088,8 +1198,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return the new incremented value
    */
   public long incrementLinesRejected() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return ++linesRejected;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1098,8 +1211,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public void setLinesRejected( long newLinesRejectedValue ) {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       linesRejected = newLinesRejectedValue;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1107,8 +1223,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return the number of lines skipped
    */
   public long getLinesSkipped() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return linesSkipped;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1118,8 +1237,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return the new incremented value
    */
   public long incrementLinesSkipped() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       return ++linesSkipped;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1127,8 +1249,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @param newLinesSkippedValue lines number of lines skipped
    */
   public void setLinesSkipped( long newLinesSkippedValue ) {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       linesSkipped = newLinesSkippedValue;
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -1245,6 +1370,34 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public void putRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
+    verifyFieldNamesAndTypes( rowMeta );
+    getRowHandler().putRow( rowMeta, row );
+  }
+
+  /**
+   * putRows is the batch variant of {@link #putRow(RowMetaInterface, Object[])}. The pause and stop checks, the row
+   * set locking and the bookkeeping are done once per batch instead of once per row. A batch of one row is simply
+   * passed to putRow().
+   *
+   * @param rowMeta The row meta-data of all the rows in the batch
+   * @param rows    The buffer holding the rows to put to the destination rowset(s).
+   * @param count   The number of rows in the buffer to put
+   * @throws KettleStepException
+   */
+  @Override
+  public void putRows( RowMetaInterface rowMeta, Object[][] rows, int count ) throws KettleStepException {
+    if ( count <= 0 ) {
+      return;
+    }
+    if ( count == 1 ) {
+      putRow( rowMeta, rows[ 0 ] );
+      return;
+    }
+    verifyFieldNamesAndTypes( rowMeta );
+    getRowHandler().putRows( rowMeta, rows, count );
+  }
+
+  private void verifyFieldNamesAndTypes( RowMetaInterface rowMeta ) throws KettleStepException {
     if ( rowMeta != null ) {
       if ( !allowEmptyFieldNamesAndTypes ) {
         // check row meta for empty field name (BACKLOG-18004)
@@ -1258,19 +1411,12 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
         }
       }
     }
-    getRowHandler().putRow( rowMeta, row );
   }
 
   private void handlePutRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
     // Are we pausing the step? If so, stall forever...
     //
-    while ( paused.get() && !stopped.get() ) {
-      try {
-        Thread.sleep( 1 );
-      } catch ( InterruptedException e ) {
-        throw new KettleStepException( e );
-      }
-    }
+    waitWhilePaused();
 
     // Right after the pause loop we have to check if this thread is stopped or
     // not.
@@ -1287,16 +1433,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     // Are we running yet? If not, wait a bit until all threads have been
     // started.
     //
-    if ( this.checkTransRunning == false ) {
-      while ( !trans.isRunning() && !stopped.get() ) {
-        try {
-          Thread.sleep( 1 );
-        } catch ( InterruptedException e ) {
-          // Ignore
-        }
-      }
-      this.checkTransRunning = true;
-    }
+    waitUntilTransformationIsStarted();
 
     // call all row listeners...
     //
@@ -1325,23 +1462,109 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
         return; // we're done here!
       }
 
-      // Repartitioning happens when the current step is not partitioned, but the next one is.
-      // That means we need to look up the partitioning information in the next step..
-      // If there are multiple steps, we need to look at the first (they should be all the same)
-      //
-      switch ( repartitioning ) {
-        case StepPartitioningMeta.PARTITIONING_METHOD_NONE:
-          noPartitioning( rowMeta, row );
-          break;
+      dispatchRow( rowMeta, row );
+    } finally {
+      outputRowSetsLock.readLock().unlock();
+    }
+  }
 
-        case StepPartitioningMeta.PARTITIONING_METHOD_SPECIAL:
-          specialPartitioning( rowMeta, row );
-          break;
-        case StepPartitioningMeta.PARTITIONING_METHOD_MIRROR:
-          mirrorPartitioning( rowMeta, row );
-          break;
-        default:
-          throw new KettleStepException( "Internal error: invalid repartitioning type: " + repartitioning );
+  private void dispatchRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
+    // Repartitioning happens when the current step is not partitioned, but the next one is.
+    // That means we need to look up the partitioning information in the next step..
+    // If there are multiple steps, we need to look at the first (they should be all the same)
+    //
+    switch ( repartitioning ) {
+      case StepPartitioningMeta.PARTITIONING_METHOD_NONE:
+        noPartitioning( rowMeta, row );
+        break;
+
+      case StepPartitioningMeta.PARTITIONING_METHOD_SPECIAL:
+        specialPartitioning( rowMeta, row );
+        break;
+      case StepPartitioningMeta.PARTITIONING_METHOD_MIRROR:
+        mirrorPartitioning( rowMeta, row );
+        break;
+      default:
+        throw new KettleStepException( "Internal error: invalid repartitioning type: " + repartitioning );
+    }
+  }
+
+  private void handlePutRows( RowMetaInterface rowMeta, Object[][] rows, int count ) throws KettleStepException {
+    // Are we pausing the step? If so, stall forever...
+    //
+    waitWhilePaused();
+
+    if ( stopped.get() && !safeStopped.get() ) {
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "BaseStep.Log.StopPuttingARow" ) );
+      }
+      stopAll();
+      return;
+    }
+
+    waitUntilTransformationIsStarted();
+
+    // call all row listeners...
+    //
+    if ( !rowListeners.isEmpty() ) {
+      for ( RowListener listener : rowListeners ) {
+        for ( int i = 0; i < count; i++ ) {
+          listener.rowWrittenEvent( rowMeta, rows[ i ] );
+        }
+      }
+    }
+
+    // Keep adding to terminator_rows buffer...
+    //
+    if ( terminator && terminator_rows != null ) {
+      try {
+        for ( int i = 0; i < count; i++ ) {
+          terminator_rows.add( rowMeta.cloneRow( rows[ i ] ) );
+        }
+      } catch ( KettleValueException e ) {
+        throw new KettleStepException( "Unable to clone row while adding rows to the terminator rows.", e );
+      }
+    }
+
+    outputRowSetsLock.readLock().lock();
+    try {
+      if ( outputRowSets.isEmpty() ) {
+        // No more output rowsets!
+        // Still update the nr of lines written.
+        //
+        addLinesWritten( count );
+        return;
+      }
+
+      if ( repartitioning == StepPartitioningMeta.PARTITIONING_METHOD_NONE && !distributed ) {
+        // Copy the batch to all output rowsets, the first one gets the original rows
+        //
+        for ( int r = 1; r < outputRowSets.size(); r++ ) {
+          Object[][] copies = new Object[ count ][];
+          try {
+            for ( int i = 0; i < count; i++ ) {
+              copies[ i ] = rowMeta.cloneRow( rows[ i ] );
+            }
+          } catch ( KettleValueException e ) {
+            throw new KettleStepException( "Unable to clone row while copying rows to multiple target steps", e );
+          }
+          putRowsToRowSet( outputRowSets.get( r ), rowMeta, copies, count );
+          addLinesWritten( count );
+        }
+        putRowsToRowSet( outputRowSets.get( 0 ), rowMeta, rows, count );
+        addLinesWritten( count );
+      } else if ( repartitioning == StepPartitioningMeta.PARTITIONING_METHOD_NONE && rowDistribution == null
+        && outputRowSets.size() == 1 ) {
+        // Distributing to a single target is the same as copying to it
+        //
+        putRowsToRowSet( outputRowSets.get( 0 ), rowMeta, rows, count );
+        addLinesWritten( count );
+      } else {
+        // Row by row distribution or partitioning
+        //
+        for ( int i = 0; i < count; i++ ) {
+          dispatchRow( rowMeta, rows[ i ] );
+        }
       }
     } finally {
       outputRowSetsLock.readLock().unlock();
@@ -1518,11 +1741,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
         // the buffer to grow to its full capacity.
         //
         if ( isUsingThreadPriorityManagment() && !rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped() ) {
-          try {
-            Thread.sleep( 0, 1 );
-          } catch ( InterruptedException e ) {
-            // Ignore sleep interruption exception
-          }
+          Thread.yield();
         }
 
         // Loop until we find room in the target rowset
@@ -1554,11 +1773,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
         // the buffer to grow to its full capacity.
         //
         if ( isUsingThreadPriorityManagment() && !rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped() ) {
-          try {
-            Thread.sleep( 0, 1 );
-          } catch ( InterruptedException e ) {
-            // Ignore sleep interruption exception
-          }
+          Thread.yield();
         }
 
         try {
@@ -1597,6 +1812,26 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     }
   }
 
+  private void putRowsToRowSet( RowSet rs, RowMetaInterface rowMeta, Object[][] rows, int count ) {
+    RowMetaInterface toBeSent;
+    RowMetaInterface metaFromRs = rs.getRowMeta();
+    if ( metaFromRs == null ) {
+      // RowSet is not initialised so far
+      toBeSent = rowMeta.clone();
+    } else {
+      // use the existing
+      toBeSent = metaFromRs;
+    }
+
+    int offset = 0;
+    while ( offset < count ) {
+      offset += rs.putRows( toBeSent, rows, offset, count - offset );
+      if ( offset < count && isStopped() && !safeStopped.get() ) {
+        return;
+      }
+    }
+  }
+
   /**
    * putRowTo is used to put a row in a certain specific RowSet.
    *
@@ -1613,13 +1848,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
     // Are we pausing the step? If so, stall forever...
     //
-    while ( paused.get() && !stopped.get() ) {
-      try {
-        Thread.sleep( 1 );
-      } catch ( InterruptedException e ) {
-        throw new KettleStepException( e );
-      }
-    }
+    waitWhilePaused();
 
     // call all row listeners...
     //
@@ -1799,15 +2028,82 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     if ( this.checkTransRunning == false ) {
       while ( !trans.isRunning() && !stopped.get() ) {
         try {
-          Thread.sleep( 1 );
+          // The transformation signals us as soon as it's running or stopped
+          trans.waitUntilRunning( STATE_WAIT_MILLIS, TimeUnit.MILLISECONDS );
         } catch ( InterruptedException e ) {
-          // Ignore sleep interruption exception
+          // Ignore interruption exception
         }
       }
       this.checkTransRunning = true;
     }
   }
 
+  /**
+   * Parks the calling thread for as long as the step is paused. Resuming or stopping the step wakes it up again.
+   *
+   * @throws KettleStepException when the thread is interrupted while paused
+   */
+  private void waitWhilePaused() throws KettleStepException {
+    if ( !paused.get() || stopped.get() ) {
+      return;
+    }
+    stateLock.lock();
+    try {
+      while ( paused.get() && !stopped.get() ) {
+        // The paused flag can be replaced through setPaused(AtomicBoolean) so we don't rely on the signal alone
+        stateChanged.await( STATE_WAIT_MILLIS, TimeUnit.MILLISECONDS );
+      }
+    } catch ( InterruptedException e ) {
+      throw new KettleStepException( e );
+    } finally {
+      stateLock.unlock();
+    }
+  }
+
+  /**
+   * Wakes up the threads waiting while the step is paused as well as a step thread waiting for input.
+   */
+  private void signalStateChanged() {
+    stateLock.lock();
+    try {
+      stateChanged.signalAll();
+    } finally {
+      stateLock.unlock();
+    }
+    inputSignal.signal();
+  }
+
+  /**
+   * Parks the step thread until one of the input row sets receives rows or is done. Row sets that can't signal us are
+   * polled again after a millisecond, just like before.<br>
+   * The caller holds the read lock on the input row sets, we release it while we're parked.
+   */
+  private void waitForInputRows() {
+    boolean signalled = true;
+    inputSignal.startWaiting();
+    try {
+      for ( RowSet rowSet : inputRowSets ) {
+        signalled &= rowSet.setReaderSignal( inputSignal );
+        if ( rowSet.size() > 0 || rowSet.isDone() ) {
+          return;
+        }
+      }
+      if ( stopped.get() ) {
+        return;
+      }
+
+      inputRowSetsLock.readLock().unlock();
+      try {
+        inputSignal.await( signalled ? INPUT_WAIT_MILLIS : 1L, TimeUnit.MILLISECONDS );
+      } finally {
+        inputRowSetsLock.readLock().lock();
+      }
+      Thread.interrupted(); // like an interrupted getRowWait(), an interruption just ends the wait
+    } finally {
+      inputSignal.stopWaiting();
+    }
+  }
+
 
   /**
    * In case of getRow, we receive data from previous steps through the input rowset. In case we split the stream, we
@@ -1818,18 +2114,71 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     return getRowHandler().getRow();
   }
 
+  /**
+   * getRows is the batch variant of {@link #getRow()}. The first row of the batch is obtained through getRow() which
+   * takes care of pausing, stopping and waiting for input. The rest of the batch holds the rows that are immediately
+   * available on the same input rowset.
+   *
+   * @param max the maximum number of rows to return
+   * @return a batch of at least one and at most max rows or null if there is no more input
+   */
+  @Override
+  public Object[][] getRows( int max ) throws KettleException {
+    return getRowHandler().getRows( max );
+  }
+
+  private Object[][] handleGetRows( int max ) throws KettleException {
+    Object[] row = getRow();
+    if ( row == null ) {
+      return null;
+    }
+    if ( max <= 1 ) {
+      return new Object[][] { row };
+    }
+
+    if ( rowBatchBuffer == null || rowBatchBuffer.length < max ) {
+      rowBatchBuffer = new Object[ max ][];
+    }
+    rowBatchBuffer[ 0 ] = row;
+    int count = 1;
+
+    inputRowSetsLock.readLock().lock();
+    try {
+      if ( !inputRowSets.isEmpty() && !stopped.get() && !paused.get() ) {
+        // Only take rows from the rowset that delivered the first row.
+        // When reading from different steps the layout of the rows might be different.
+        //
+        RowSet inputRowSet = currentInputStream();
+        if ( prevSteps == null || prevSteps.length <= 1 || inputRowSet.getRowMeta() == inputRowMeta ) {
+          int extra = inputRowSet.getRowsImmediate( rowBatchBuffer, 1, max - 1 );
+          if ( extra > 0 ) {
+            count += extra;
+            blockPointer += extra;
+            addLinesRead( extra );
+
+            for ( RowListener listener : rowListeners ) {
+              for ( int i = 1; i < count; i++ ) {
+                listener.rowReadEvent( inputRowMeta, rowBatchBuffer[ i ] );
+              }
+            }
+          }
+        }
+      }
+    } finally {
+      inputRowSetsLock.readLock().unlock();
+    }
+
+    Object[][] rows = Arrays.copyOf( rowBatchBuffer, count );
+    Arrays.fill( rowBatchBuffer, 0, count, null ); // prevent any hold-up to GC
+    return rows;
+  }
+
 
   private Object[] handleGetRow() throws KettleException {
 
     // Are we pausing the step? If so, stall forever...
     //
-    while ( paused.get() && !stopped.get() ) {
-      try {
-        Thread.sleep( 100 );
-      } catch ( InterruptedException e ) {
-        throw new KettleStepException( e );
-      }
-    }
+    waitWhilePaused();
 
     if ( stopped.get() ) {
       if ( log.isDebug() ) {
@@ -1885,11 +2234,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       //
       if ( isUsingThreadPriorityManagment()
         && !inputRowSet.isDone() && inputRowSet.size() <= lowerBufferBoundary && !isStopped() ) {
-        try {
-          Thread.sleep( 0, 1 );
-        } catch ( InterruptedException e ) {
-          // Ignore sleep interruption exception
-        }
+        Thread.yield();
       }
 
       // See if this step is receiving partitioned data...
@@ -1904,12 +2249,13 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       // rowset, then switch to another etc.
       // We can use timeouts to switch from one to another...
       //
+      int emptyRowSets = 0;
       while ( row == null && !isStopped() ) {
         // Get a row from the input in row set ...
         // Timeout immediately if nothing is there to read.
         // We will then switch to the next row set to read from...
         //
-        row = inputRowSet.getRowWait( 1, TimeUnit.MILLISECONDS );
+        row = inputRowSet.getRowWait( 0, TimeUnit.MILLISECONDS );
         if ( row != null ) {
           incrementLinesRead();
           blockPointer++;
@@ -1945,6 +2291,16 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
               incrementLinesRead();
             }
           }
+
+          // None of the input row sets had anything to offer: park until one of them signals us.
+          //
+          if ( row == null && ++emptyRowSets >= inputRowSets.size() ) {
+            waitForInputRows();
+            emptyRowSets = 0;
+            if ( inputRowSets.isEmpty() ) {
+              return null;
+            }
+          }
           nextInputStream();
           inputRowSet = currentInputStream();
         }
@@ -2212,27 +2568,12 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
   public Object[] handleGetRowFrom( RowSet rowSet ) throws KettleStepException {
     // Are we pausing the step? If so, stall forever...
     //
-    while ( paused.get() && !stopped.get() ) {
-      try {
-        Thread.sleep( 10 );
-      } catch ( InterruptedException e ) {
-        throw new KettleStepException( e );
-      }
-    }
+    waitWhilePaused();
 
     // Have all threads started?
     // Are we running yet? If not, wait a bit until all threads have been
     // started.
-    if ( this.checkTransRunning == false ) {
-      while ( !trans.isRunning() && !stopped.get() ) {
-        try {
-          Thread.sleep( 1 );
-        } catch ( InterruptedException e ) {
-          // Ignore sleep interruption exception
-        }
-      }
-      this.checkTransRunning = true;
-    }
+    waitUntilTransformationIsStarted();
     Object[] rowData = null;
 
     // To reduce stress on the locking system we are going to allow
@@ -2241,11 +2582,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     //
     if ( isUsingThreadPriorityManagment()
       && !rowSet.isDone() && rowSet.size() <= lowerBufferBoundary && !isStopped() ) {
-      try {
-        Thread.sleep( 0, 1 );
-      } catch ( InterruptedException e ) {
-        // Ignore sleep interruption exception
-      }
+      Thread.yield();
     }
 
     // Grab a row... If nothing received after a timeout, try again.
@@ -3001,6 +3338,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
   @Override
   public void stopAll() {
     stopped.set( true );
+    signalStateChanged();
     trans.stopAll();
   }
 
@@ -3042,6 +3380,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
   @Override
   public void setStopped( boolean stopped ) {
     this.stopped.set( stopped );
+    signalStateChanged();
   }
 
   @Override
@@ -3091,6 +3430,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   public void setPaused( boolean paused ) {
     this.paused.set( paused );
+    signalStateChanged();
   }
 
   /**
@@ -3380,7 +3720,8 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * Log summary.
    */
   public void logSummary() {
-    synchronized ( statusCountersLock ) {
+    statusCountersLock.lock();
+    try {
       long li = getLinesInput();
       long lo = getLinesOutput();
       long lr = getLinesRead();
@@ -3396,6 +3737,8 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
           .valueOf( lo ), String.valueOf( lr ), String.valueOf( lw ), String.valueOf( lw ), String
           .valueOf( errors + lj ) ) );
       }
+    } finally {
+      statusCountersLock.unlock();
     }
   }
 
@@ -3730,6 +4073,19 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       && ( lines % getTransMeta().getFeedbackSize() ) == 0;
   }
 
+  /**
+   * Batch variant of {@link #checkFeedback(long)}
+   *
+   * @param lines   the number of lines after processing the batch
+   * @param nrLines the number of lines in the batch
+   * @return true if feedback needs to be shown for one of the lines in the batch
+   */
+  protected boolean checkFeedback( long lines, long nrLines ) {
+    return getTransMeta().isFeedbackShown()
+      && ( lines > 0 ) && ( getTransMeta().getFeedbackSize() > 0 )
+      && ( lines / getTransMeta().getFeedbackSize() ) != ( ( lines - nrLines ) / getTransMeta().getFeedbackSize() );
+  }
+
   /**
    * @return the rowMeta
    */
@@ -4398,6 +4754,14 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       handlePutRow( rowMeta, row );
     }
 
+    @Override public Object[][] getRows( int max ) throws KettleException {
+      return handleGetRows( max );
+    }
+
+    @Override public void putRows( RowMetaInterface rowMeta, Object[][] rows, int count ) throws KettleStepException {
+      handlePutRows( rowMeta, rows, count );
+    }
+
     @Override public void putError( RowMetaInterface rowMeta, Object[] row, long nrErrors, String errorDescriptions,
                                     String fieldNames, String errorCodes ) throws KettleStepException {
       handlePutError( rowMeta, row, nrErrors, errorDescriptions, fieldNames, errorCodes );
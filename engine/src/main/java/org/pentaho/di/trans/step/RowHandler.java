@@ -41,6 +41,30 @@ public interface RowHandler {
   void putError( RowMetaInterface rowMeta, Object[] row, long nrErrors, String errorDescriptions,
                  String fieldNames, String errorCodes ) throws KettleStepException;
 
+  /**
+   * Gets a batch of rows. By default this is a batch of exactly one row obtained through {@link #getRow()}.
+   *
+   * @param max the maximum number of rows to return
+   * @return the rows or null if there are no more rows
+   */
+  default Object[][] getRows( int max ) throws KettleException {
+    Object[] row = getRow();
+    return row == null ? null : new Object[][] { row };
+  }
+
+  /**
+   * Puts a batch of rows. By default every row is passed to {@link #putRow(RowMetaInterface, Object[])}.
+   *
+   * @param rowMeta the row metadata of all the rows in the batch
+   * @param rows the buffer holding the rows
+   * @param count the number of rows in the buffer to put
+   */
+  default void putRows( RowMetaInterface rowMeta, Object[][] rows, int count ) throws KettleStepException {
+    for ( int i = 0; i < count; i++ ) {
+      putRow( rowMeta, rows[ i ] );
+    }
+  }
+
   default void putRowTo( RowMetaInterface rowMeta, Object[] row, RowSet rowSet )
     throws KettleStepException {
     throw new UnsupportedOperationException(
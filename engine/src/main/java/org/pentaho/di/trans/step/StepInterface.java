@@ -292,6 +292,32 @@ public interface StepInterface extends VariableSpace, HasLogChannelInterface {
    */
   Object[] getRow() throws KettleException;
 
+  /**
+   * Put a batch of rows on the destination rowsets.
+   *
+   * @param rowMeta
+   *          The metadata of all the rows in the batch
+   * @param rows
+   *          The buffer holding the rows to send to the destination steps
+   * @param count
+   *          The number of rows in the buffer to send
+   */
+  default void putRows( RowMetaInterface rowMeta, Object[][] rows, int count ) throws KettleException {
+    for ( int i = 0; i < count; i++ ) {
+      putRow( rowMeta, rows[ i ] );
+    }
+  }
+
+  /**
+   * @param max
+   *          the maximum number of rows to return
+   * @return a batch of at least one and at most max rows from the source step(s) or null if there are no more rows.
+   */
+  default Object[][] getRows( int max ) throws KettleException {
+    Object[] row = getRow();
+    return row == null ? null : new Object[][] { row };
+  }
+
   /**
    * Signal output done to destination steps
    */
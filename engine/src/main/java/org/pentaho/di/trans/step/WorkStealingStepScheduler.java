@@ -0,0 +1,303 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.step;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.ManagedBlockingRowSet;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.util.EnvUtil;
+import org.pentaho.di.trans.Trans;
+
+/**
+ * Runs the steps of a transformation on a shared fork/join (work-stealing) pool instead of giving every step copy a
+ * thread of its own.<br>
+ * <br>
+ * A step copy is scheduled as soon as it can make progress: there are rows (or the end of the input) waiting on its
+ * input row sets and there is room on all of its output row sets. It then calls processRow() until it can't make
+ * progress anymore or until it has had its turn, after which the pool thread moves on to the next step. Whenever a step
+ * reads or writes rows its neighbours are woken up.<br>
+ * <br>
+ * Steps still block when they have to, for example when a single processRow() call writes more rows than there is room
+ * for. The {@link ManagedBlockingRowSet} used in this mode tells the pool about it so that it can compensate with a
+ * spare thread. Steps that use a database connection block in JDBC calls the pool knows nothing about, so their turns
+ * run as a {@link ForkJoinPool.ManagedBlocker} as a whole: the pool adds a spare thread while they run.<br>
+ * <br>
+ * Rows written from outside the transformation, by a {@link org.pentaho.di.trans.RowProducer}, wake up the step that
+ * reads them. Steps that get row sets attached while they are running, like the Mapping Input of a sub-transformation,
+ * are not woken up by them and wait for their rows on a pool thread: keep those on step threads.<br>
+ * <br>
+ * The pool is shared by all transformations in the JVM. Its size defaults to the number of processors and can be set
+ * with the KETTLE_WORK_STEALING_PARALLELISM system property.
+ *
+ * @since 11.1
+ */
+public class WorkStealingStepScheduler {
+
+  /**
+   * The maximum number of processRow() calls a step gets before it has to give up its pool thread.
+   */
+  private static final int MAX_CALLS_PER_TURN = 1000;
+
+  /**
+   * Wake up the neighbours every so many processRow() calls so that they don't have to wait for the end of the turn.
+   */
+  private static final int WAKE_UP_INTERVAL = 64;
+
+  private static volatile ForkJoinPool pool;
+
+  private final Trans trans;
+  private final List<StepUnit> units;
+  private final int rowSetSize;
+
+  public WorkStealingStepScheduler( Trans trans, List<StepMetaDataCombi> steps ) {
+    this.trans = trans;
+    this.rowSetSize = trans.getTransMeta().getSizeRowset();
+
+    units = new ArrayList<>( steps.size() );
+    Map<RowSet, StepUnit> readers = new IdentityHashMap<>();
+    Map<RowSet, StepUnit> writers = new IdentityHashMap<>();
+    for ( StepMetaDataCombi combi : steps ) {
+      StepUnit unit = new StepUnit( combi );
+      units.add( unit );
+      for ( RowSet rowSet : unit.inputs ) {
+        readers.put( rowSet, unit );
+      }
+      for ( RowSet rowSet : unit.outputs ) {
+        writers.put( rowSet, unit );
+      }
+    }
+
+    // Reading rows makes room for the previous steps, writing rows gives the next steps something to do.
+    //
+    for ( StepUnit unit : units ) {
+      Set<StepUnit> neighbours = new LinkedHashSet<>();
+      for ( RowSet rowSet : unit.inputs ) {
+        StepUnit writer = writers.get( rowSet );
+        if ( writer == null ) {
+          // Written from outside the transformation: the row set has to wake us up itself
+          if ( rowSet instanceof ManagedBlockingRowSet ) {
+            ( (ManagedBlockingRowSet) rowSet ).setRowsAddedListener( unit::schedule );
+          }
+        } else if ( writer != unit ) {
+          neighbours.add( writer );
+        }
+      }
+      for ( RowSet rowSet : unit.outputs ) {
+        StepUnit reader = readers.get( rowSet );
+        if ( reader != null && reader != unit ) {
+          neighbours.add( reader );
+        }
+      }
+      unit.neighbours = neighbours.toArray( new StepUnit[ neighbours.size() ] );
+    }
+  }
+
+  /**
+   * Schedules all the steps. Call this once, when the transformation is marked as running.
+   */
+  public void start() {
+    // Stopped steps need to get a turn to finish, even when they are waiting for rows or room.
+    //
+    trans.addTransStoppedListener( t -> wakeUpAll() );
+    wakeUpAll();
+  }
+
+  private void wakeUpAll() {
+    for ( StepUnit unit : units ) {
+      unit.schedule();
+    }
+  }
+
+  static ForkJoinPool getPool() {
+    if ( pool == null ) {
+      synchronized ( WorkStealingStepScheduler.class ) {
+        if ( pool == null ) {
+          int parallelism = Const.toInt( EnvUtil.getSystemProperty( Const.KETTLE_WORK_STEALING_PARALLELISM ),
+            Runtime.getRuntime().availableProcessors() );
+          pool = new ForkJoinPool( Math.max( 1, parallelism ), p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread( p );
+            thread.setName( "Step scheduler worker " + thread.getPoolIndex() );
+            return thread;
+          }, null, true );
+        }
+      }
+    }
+    return pool;
+  }
+
+  /**
+   * A step copy with its scheduling state. Only one pool thread at a time runs a unit.
+   */
+  private final class StepUnit implements Runnable {
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+    private static final int FINISHED = 2;
+
+    private final AtomicInteger state = new AtomicInteger( IDLE );
+    private final StepInterface step;
+    private final StepMetaInterface meta;
+    private final StepDataInterface data;
+    private final RunThread runner;
+    private final RowSet[] inputs;
+    private final RowSet[] outputs;
+    private final boolean blocking;
+    private StepUnit[] neighbours;
+    private boolean started;
+
+    StepUnit( StepMetaDataCombi combi ) {
+      step = combi.step;
+      meta = combi.meta;
+      data = combi.data;
+      runner = new RunThread( combi );
+      inputs = step.getInputRowSets().toArray( new RowSet[ 0 ] );
+      outputs = step.getOutputRowSets().toArray( new RowSet[ 0 ] );
+      DatabaseMeta[] databases = meta.getUsedDatabaseConnections();
+      blocking = databases != null && databases.length > 0;
+    }
+
+    void schedule() {
+      if ( state.compareAndSet( IDLE, SCHEDULED ) ) {
+        getPool().execute( this );
+      }
+    }
+
+    @Override
+    public void run() {
+      boolean finished = false;
+      try {
+        if ( !started ) {
+          started = true;
+          runner.beforeStart();
+        }
+        finished = blocking ? runBlockingTurn() : runTurn();
+      } catch ( Throwable t ) {
+        runner.handleError( t );
+        finished = true;
+      }
+
+      if ( finished ) {
+        state.set( FINISHED );
+        try {
+          runner.finish();
+        } finally {
+          wakeUpNeighbours();
+        }
+        return;
+      }
+
+      state.set( IDLE );
+      wakeUpNeighbours();
+
+      // Rows or room might have arrived after our last look, while nobody could schedule us.
+      //
+      if ( canProcess() ) {
+        schedule();
+      }
+    }
+
+    /**
+     * @return true if the step is finished
+     */
+    private boolean runTurn() throws KettleException {
+      for ( int calls = 1; calls <= MAX_CALLS_PER_TURN && canProcess(); calls++ ) {
+        if ( !step.processRow( meta, data ) || step.isStopped() ) {
+          return true;
+        }
+        if ( calls % WAKE_UP_INTERVAL == 0 ) {
+          wakeUpNeighbours();
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Runs a turn, telling the pool that the thread might block for a long time.
+     *
+     * @return true if the step is finished
+     */
+    private boolean runBlockingTurn() throws Throwable {
+      TurnBlocker blocker = new TurnBlocker();
+      ForkJoinPool.managedBlock( blocker );
+      if ( blocker.error != null ) {
+        throw blocker.error;
+      }
+      return blocker.finished;
+    }
+
+    private void wakeUpNeighbours() {
+      for ( StepUnit neighbour : neighbours ) {
+        neighbour.schedule();
+      }
+    }
+
+    /**
+     * @return true if the step can call processRow() without waiting for other steps
+     */
+    private boolean canProcess() {
+      if ( step.isStopped() ) {
+        return true;
+      }
+      for ( RowSet rowSet : outputs ) {
+        if ( rowSet.size() >= rowSetSize ) {
+          return false;
+        }
+      }
+      if ( inputs.length == 0 ) {
+        return true;
+      }
+      boolean allDone = true;
+      for ( RowSet rowSet : inputs ) {
+        if ( rowSet.size() > 0 ) {
+          return true;
+        }
+        allDone &= rowSet.isDone();
+      }
+      return allDone;
+    }
+
+    private final class TurnBlocker implements ForkJoinPool.ManagedBlocker {
+      private boolean done;
+      private boolean finished;
+      private Throwable error;
+
+      @Override
+      public boolean block() {
+        try {
+          finished = runTurn();
+        } catch ( Throwable t ) {
+          error = t;
+        }
+        done = true;
+        return true;
+      }
+
+      @Override
+      public boolean isReleasable() {
+        return done;
+      }
+    }
+  }
+}
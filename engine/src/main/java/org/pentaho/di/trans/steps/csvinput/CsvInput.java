@@ -20,6 +20,7 @@ import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.ByteOrderMark;
@@ -124,6 +125,13 @@ public class CsvInput extends BaseStep implements StepInterface {
         prepareToRunInParallel();
       }
 
+      // Scan memory-mapped files if the format allows it
+      //
+      data.memoryMapped = meta.isMemoryMapped() && canScanMemoryMapped();
+      if ( meta.isMemoryMapped() && !data.memoryMapped ) {
+        logBasic( BaseMessages.getString( PKG, "CsvInput.Log.MemoryMappedNotPossible" ) );
+      }
+
       // Open the next file...
       //
       if ( !openNextFile() ) {
@@ -132,59 +140,87 @@ public class CsvInput extends BaseStep implements StepInterface {
       }
     }
 
-    // If we are running in parallel, make sure we don't read too much in this step copy...
-    //
-    if ( data.parallel ) {
-      if ( data.totalBytesRead >= data.blockToRead ) {
-        setOutputDone(); // stop reading
-        return false;
-      }
+    if ( data.outputRows == null ) {
+      data.outputRows = new Object[ ROW_BATCH_SIZE ][];
     }
+    int nrRows = 0;
 
-    try {
-      Object[] outputRowData = readOneRow( false, false ); // get row, set busy!
-      // no more input to be expected...
-      if ( outputRowData == null ) {
-        if ( openNextFile() ) {
-          return true; // try again on the next loop...
-        } else {
-          setOutputDone(); // last file, end here
+    while ( nrRows < ROW_BATCH_SIZE ) {
+      // If we are running in parallel, make sure we don't read too much in this step copy...
+      //
+      if ( data.parallel ) {
+        if ( data.totalBytesRead >= data.blockToRead ) {
+          putOutputRows( nrRows );
+          setOutputDone(); // stop reading
           return false;
         }
-      } else {
-        putRow( data.outputRowMeta, outputRowData ); // copy row to possible alternate rowset(s).
-        if ( checkFeedback( getLinesInput() ) ) {
-          if ( log.isBasic() ) {
-            logBasic( BaseMessages.getString( PKG, "CsvInput.Log.LineNumber", Long.toString( getLinesInput() ) ) );
-          }
-        }
       }
-    } catch ( KettleConversionException e ) {
-      if ( getStepMeta().isDoingErrorHandling() ) {
-        StringBuilder errorDescriptions = new StringBuilder( 100 );
-        StringBuilder errorFields = new StringBuilder( 50 );
-        for ( int i = 0; i < e.getCauses().size(); i++ ) {
-          if ( i > 0 ) {
-            errorDescriptions.append( ", " );
-            errorFields.append( ", " );
+
+      try {
+        Object[] outputRowData = readOneRow( false, false ); // get row, set busy!
+        // no more input to be expected...
+        if ( outputRowData == null ) {
+          putOutputRows( nrRows );
+          if ( openNextFile() ) {
+            return true; // try again on the next loop...
+          } else {
+            setOutputDone(); // last file, end here
+            return false;
           }
-          errorDescriptions.append( e.getCauses().get( i ).getMessage() );
-          errorFields.append( e.getFields().get( i ).toStringMeta() );
+        } else {
+          data.outputRows[ nrRows++ ] = outputRowData; // copy row to possible alternate rowset(s) with the batch.
         }
-
-        putError(
-          data.outputRowMeta, e.getRowData(), e.getCauses().size(), errorDescriptions.toString(), errorFields
-            .toString(), "CSVINPUT001" );
-      } else {
-        // Only forward the first cause.
+      } catch ( KettleConversionException e ) {
+        // Keep the rows in the order they were read
         //
-        throw new KettleException( e.getMessage(), e.getCauses().get( 0 ) );
+        putOutputRows( nrRows );
+        nrRows = 0;
+
+        if ( getStepMeta().isDoingErrorHandling() ) {
+          StringBuilder errorDescriptions = new StringBuilder( 100 );
+          StringBuilder errorFields = new StringBuilder( 50 );
+          for ( int i = 0; i < e.getCauses().size(); i++ ) {
+            if ( i > 0 ) {
+              errorDescriptions.append( ", " );
+              errorFields.append( ", " );
+            }
+            errorDescriptions.append( e.getCauses().get( i ).getMessage() );
+            errorFields.append( e.getFields().get( i ).toStringMeta() );
+          }
+
+          putError(
+            data.outputRowMeta, e.getRowData(), e.getCauses().size(), errorDescriptions.toString(), errorFields
+              .toString(), "CSVINPUT001" );
+        } else {
+          // Only forward the first cause.
+          //
+          throw new KettleException( e.getMessage(), e.getCauses().get( 0 ) );
+        }
       }
     }
 
+    putOutputRows( nrRows );
+
     return true;
   }
 
+  /**
+   * Sends the rows collected in data.outputRows to the next steps in one batch.
+   */
+  private void putOutputRows( int nrRows ) throws KettleException {
+    if ( nrRows == 0 ) {
+      return;
+    }
+    putRows( data.outputRowMeta, data.outputRows, nrRows );
+    Arrays.fill( data.outputRows, 0, nrRows, null );
+
+    if ( checkFeedback( getLinesInput(), nrRows ) ) {
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "CsvInput.Log.LineNumber", Long.toString( getLinesInput() ) ) );
+      }
+    }
+  }
+
   private void prepareToRunInParallel() throws KettleException {
     try {
       // At this point it doesn't matter if we have 1 or more files.
@@ -347,18 +383,40 @@ public class CsvInput extends BaseStep implements StepInterface {
       }
 
       data.fc = data.fis.getChannel();
-      data.bb = ByteBuffer.allocateDirect( data.preferredBufferSize );
+
+      if ( data.memoryMapped ) {
+        boolean skipping = data.parallel && data.bytesToSkipInFirstFile > 0;
+        data.scanner = new MappedCsvScanner( data.fc, skipping ? data.bytesToSkipInFirstFile : bomSize,
+          data.delimiter[ 0 ], data.enclosure, isMixedFileFormat() );
+        if ( skipping ) {
+          data.totalBytesRead += data.scanner.skipPartialRow();
+        }
+      } else {
+        data.bb = ByteBuffer.allocateDirect( data.preferredBufferSize );
+      }
 
       // If we are running in parallel and we need to skip bytes in the first file, let's do so here.
       //
-      if ( data.parallel ) {
+      if ( data.parallel && !data.memoryMapped ) {
         if ( data.bytesToSkipInFirstFile > 0 ) {
           data.fc.position( data.bytesToSkipInFirstFile );
 
-          // evaluate whether there is a need to skip a row
-          if ( needToSkipRow() ) {
+          if ( isQuoteAwareSplit() ) {
+            // New lines can be enclosed in fields: skip to the first line end outside of an enclosure.
+            //
+            long bytesToSkip = new CsvRowBoundary( data.fc, bomSize, data.delimiter[ 0 ], data.enclosure[ 0 ] )
+              .getBytesToSkip( data.bytesToSkipInFirstFile );
+            if ( log.isDetailed() ) {
+              logDetailed( BaseMessages.getString( PKG, "CsvInput.Log.SkippedToRowStart",
+                Long.toString( bytesToSkip ) ) );
+            }
+            data.resizeBufferIfNeeded();
+            data.moveEndBufferPointerXTimes( (int) bytesToSkip );
+          } else if ( needToSkipRow() ) {
+            // evaluate whether there is a need to skip a row
+            //
             // PDI-16589 - when reading in parallel, the previous code would introduce additional rows and / or invalid data in the output.
-            // in parallel mode we don't support new lines inside field data so it's safe to fast forward until we find a new line.
+            // without new lines inside field data it's safe to fast forward until we find a new line.
             // when a newline is found we need to check for an additional new line character, while in unix systems it's just a single '\n',
             // on windows systems, it's a sequence of '\r' and '\n'. finally we set the start of the buffer to the end buffer position.
             while ( !data.newLineFound() ) {
@@ -559,6 +617,9 @@ public class CsvInput extends BaseStep implements StepInterface {
    * @throws KettleException
    */
   private Object[] readOneRow( boolean skipRow, boolean ignoreEnclosures ) throws KettleException {
+    if ( data.scanner != null ) {
+      return readOneMappedRow( skipRow );
+    }
 
     try {
 
@@ -861,6 +922,106 @@ public class CsvInput extends BaseStep implements StepInterface {
   }
 
 
+  /**
+   * The memory-mapped scanner handles single byte encodings with a single byte delimiter and enclosure, without new
+   * lines in unenclosed fields. DOS files are left to the NIO reader, which checks the line ends.
+   */
+  private boolean canScanMemoryMapped() {
+    return data.encodingType.getLength() == 1
+      && data.delimiter.length == 1
+      && ( data.enclosure == null || data.enclosure.length == 1 )
+      && !meta.isNewlinePossibleInFields()
+      && ( isMixedFileFormat() || meta.getFileFormatTypeNr() == TextFileInputMeta.FILE_FORMAT_UNIX );
+  }
+
+  /**
+   * When new lines are possible in fields, a copy running in parallel looks for the first row start outside of an
+   * enclosure, see {@link CsvRowBoundary}.
+   */
+  private boolean isQuoteAwareSplit() {
+    return meta.isNewlinePossibleInFields()
+      && data.encodingType.getLength() == 1
+      && data.delimiter.length == 1
+      && data.enclosure != null && data.enclosure.length == 1;
+  }
+
+  private boolean isMixedFileFormat() {
+    return StringUtils.isBlank( meta.getFileFormat() )
+      || meta.getFileFormatTypeNr() == TextFileInputMeta.FILE_FORMAT_MIXED;
+  }
+
+  /**
+   * Read a single row of data with the memory-mapped scanner.
+   *
+   * @param skipRow
+   *          if the row should be skipped: the header row
+   * @return a row of data or null if there are no more rows in the file
+   */
+  private Object[] readOneMappedRow( boolean skipRow ) throws KettleException {
+    try {
+      long position = data.scanner.getPosition();
+      if ( !data.scanner.nextRow( data.fieldsMapping.size() ) ) {
+        return null;
+      }
+      data.totalBytesRead += data.scanner.getPosition() - position;
+
+      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+      List<Exception> conversionExceptions = null;
+      List<ValueMetaInterface> exceptionFields = null;
+
+      for ( int i = 0; i < data.scanner.getNrFields() && !skipRow; i++ ) {
+        int actualFieldIndex = data.fieldsMapping.fieldMetaIndex( i );
+        if ( actualFieldIndex == FieldsMapping.FIELD_DOES_NOT_EXIST ) {
+          continue;
+        }
+        byte[] field = data.scanner.getField( i );
+        int escapedEnclosures = data.scanner.getEscapedEnclosures( i );
+        if ( escapedEnclosures > 0 ) {
+          field = data.removeEscapedEnclosures( field, escapedEnclosures );
+        }
+        if ( meta.isLazyConversionActive() ) {
+          outputRowData[ actualFieldIndex ] = field;
+        } else {
+          ValueMetaInterface sourceValueMeta = data.convertRowMeta.getValueMeta( actualFieldIndex );
+          try {
+            outputRowData[ actualFieldIndex ] = sourceValueMeta.convertBinaryStringToNativeType( field );
+          } catch ( KettleValueException e ) {
+            if ( conversionExceptions == null ) {
+              conversionExceptions = new ArrayList<Exception>();
+              exceptionFields = new ArrayList<ValueMetaInterface>();
+            }
+            conversionExceptions.add( e );
+            exceptionFields.add( sourceValueMeta );
+          }
+        }
+      }
+
+      if ( meta.isIncludingFilename() && !Utils.isEmpty( meta.getFilenameField() ) ) {
+        if ( meta.isLazyConversionActive() ) {
+          outputRowData[ data.filenameFieldIndex ] = data.binaryFilename;
+        } else {
+          outputRowData[ data.filenameFieldIndex ] = data.filenames[ data.filenr - 1 ];
+        }
+      }
+
+      if ( data.isAddingRowNumber ) {
+        outputRowData[ data.rownumFieldIndex ] = data.rowNumber++;
+      }
+
+      incrementLinesInput();
+
+      if ( conversionExceptions != null ) {
+        throw new KettleConversionException(
+          "There were " + conversionExceptions.size() + " conversion errors on line " + getLinesInput(),
+          conversionExceptions, exceptionFields, outputRowData );
+      }
+
+      return outputRowData;
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Exception reading line from a memory-mapped file", e );
+    }
+  }
+
   public boolean init( StepMetaInterface smi, StepDataInterface sdi ) {
     meta = (CsvInputMeta) smi;
     data = (CsvInputData) sdi;
@@ -74,6 +74,13 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
 
   public FieldsMapping fieldsMapping;
 
+  /** True to scan the files memory-mapped, the scanner of the current file */
+  public boolean memoryMapped;
+  public MappedCsvScanner scanner;
+
+  /** Re-used buffer for the rows sent to the next steps in one batch */
+  public Object[][] outputRows;
+
   /**
    * Data class for CsvInput step
    *
@@ -258,6 +265,7 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
   }
 
   void closeFile() throws KettleException {
+    scanner = null;
     try {
       if ( fc != null ) {
         fc.close();
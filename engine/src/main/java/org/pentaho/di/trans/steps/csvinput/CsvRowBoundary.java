@@ -0,0 +1,163 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.steps.csvinput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Finds where the first row starts at or after a byte offset in a CSV file with enclosed fields that can contain
+ * line ends (RFC-4180). A line end only ends a row outside of an enclosure, so the enclosure state at the offset is
+ * determined first:
+ * <ol>
+ * <li>speculatively, from the first enclosure after the offset that can only be read one way: an enclosure followed
+ * by a byte other than an enclosure, delimiter or line end starts (or continues) an enclosed part, one preceded by such
+ * a byte ends it</li>
+ * <li>if there is no such enclosure close to the offset, by counting the enclosures from the start of the file: an odd
+ * number means the offset is inside an enclosure</li>
+ * </ol>
+ * Only single byte encodings with a single byte delimiter and enclosure are handled.
+ */
+public class CsvRowBoundary {
+
+  /** The number of bytes after the offset to look for an enclosure that tells the state */
+  static final int SPECULATION_WINDOW = 1024 * 1024;
+
+  private static final int BLOCK_SIZE = 64 * 1024;
+
+  private static final int CR = '\r';
+  private static final int LF = '\n';
+
+  private final FileChannel channel;
+  private final long fileStart;
+  private final int delimiter;
+  private final int enclosure;
+  private final long size;
+
+  private final ByteBuffer block = ByteBuffer.allocate( BLOCK_SIZE );
+  private long blockStart = -1L;
+
+  /**
+   * @param channel
+   *          the channel of the file
+   * @param fileStart
+   *          the position where the data starts, after a byte order mark
+   * @param delimiter
+   *          the delimiter
+   * @param enclosure
+   *          the enclosure
+   */
+  public CsvRowBoundary( FileChannel channel, long fileStart, byte delimiter, byte enclosure ) throws IOException {
+    this.channel = channel;
+    this.fileStart = fileStart;
+    this.delimiter = delimiter & 0xFF;
+    this.enclosure = enclosure & 0xFF;
+    this.size = channel.size();
+  }
+
+  /**
+   * @param offset
+   *          the position in the file
+   * @return the number of bytes from the offset up to the start of the first row at or after it
+   */
+  public long getBytesToSkip( long offset ) throws IOException {
+    if ( offset <= fileStart ) {
+      return 0L;
+    }
+    boolean inside = isInsideEnclosure( offset );
+    if ( !inside && isLineEnd( get( offset - 1 ) ) && !isLineEnd( get( offset ) ) ) {
+      return 0L; // a row starts right at the offset
+    }
+    long position = offset;
+    for ( int b = get( position ); b >= 0; b = get( position ) ) {
+      position++;
+      if ( b == enclosure ) {
+        inside = !inside;
+      } else if ( !inside && isLineEnd( b ) ) {
+        if ( isLineEnd( get( position ) ) ) {
+          position++; // CR LF
+        }
+        break;
+      }
+    }
+    return position - offset;
+  }
+
+  /**
+   * @return true if the byte at the offset is inside an enclosure
+   */
+  boolean isInsideEnclosure( long offset ) throws IOException {
+    int count = 0;
+    long end = Math.min( size, offset + SPECULATION_WINDOW );
+    for ( long position = offset; position < end; position++ ) {
+      if ( get( position ) != enclosure ) {
+        continue;
+      }
+      int next = get( position + 1 );
+      int previous = position > fileStart ? get( position - 1 ) : -1;
+      boolean insideBefore;
+      if ( next >= 0 && !isSpecial( next ) ) {
+        insideBefore = false;
+      } else if ( previous >= 0 && !isSpecial( previous ) ) {
+        insideBefore = true;
+      } else {
+        count++;
+        continue;
+      }
+      // Every enclosure in between switched the state
+      return insideBefore ^ ( count % 2 == 1 );
+    }
+
+    // Nothing conclusive: count the enclosures before the offset
+    long total = 0L;
+    for ( long position = fileStart; position < offset; position++ ) {
+      if ( get( position ) == enclosure ) {
+        total++;
+      }
+    }
+    return total % 2 == 1;
+  }
+
+  private boolean isSpecial( int b ) {
+    return b == enclosure || b == delimiter || isLineEnd( b );
+  }
+
+  private static boolean isLineEnd( int b ) {
+    return b == CR || b == LF;
+  }
+
+  /**
+   * @return the byte at a position in the file or -1 after the end of the file
+   */
+  private int get( long position ) throws IOException {
+    if ( position < 0 || position >= size ) {
+      return -1;
+    }
+    if ( blockStart < 0 || position < blockStart || position >= blockStart + block.limit() ) {
+      block.clear();
+      blockStart = position;
+      while ( block.hasRemaining() && channel.read( block, blockStart + block.position() ) > 0 ) {
+        // read the whole block
+      }
+      block.flip();
+      if ( !block.hasRemaining() ) {
+        return -1;
+      }
+    }
+    return block.get( (int) ( position - blockStart ) ) & 0xFF;
+  }
+}
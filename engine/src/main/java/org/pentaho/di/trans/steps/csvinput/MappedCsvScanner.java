@@ -0,0 +1,361 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.steps.csvinput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Splits the lines of a memory-mapped file in fields. The file is mapped in windows, a row is never split over two
+ * windows. The delimiter, enclosure and line ends are found eight bytes at a time with SWAR (SIMD within a register):
+ * every byte of a long is compared with the searched byte in a handful of arithmetic operations.<br>
+ * <br>
+ * The offsets of the fields of the current row are kept in a reusable index, a field is only copied when it's asked
+ * for. The rules are the ones of CSV Input for single byte encodings:
+ * <ul>
+ * <li>an enclosure only counts at the start of a field, a doubled enclosure in an enclosed field is escaped</li>
+ * <li>a line ends with a carriage return or a line feed, without new lines in unenclosed fields</li>
+ * <li>with mixed line ends a second line end right after the first one belongs to the same line</li>
+ * <li>the fields after the last needed field are skipped up to the line end and the line ends after it</li>
+ * </ul>
+ */
+public class MappedCsvScanner {
+
+  /** The maximum size of a mapped window, the maximum size of a row as well */
+  static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+
+  private static final long LOW_BITS = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+
+  private static final int END = 0;
+  private static final int ROW = 1;
+  private static final int NEED_MORE = 2;
+
+  private final FileChannel channel;
+  private final long fileSize;
+  private final int windowSize;
+  private final byte delimiter;
+  private final boolean enclosed;
+  private final byte enclosure;
+  private final boolean mixedLineEnds;
+
+  private final long delimiterPattern;
+  private final long enclosurePattern;
+  private final long crPattern;
+  private final long lfPattern;
+
+  private ByteBuffer window;
+  private ByteBuffer view;
+  private long windowStart;
+  private int limit;
+  private boolean lastWindow;
+  private int position;
+
+  private int nrFields;
+  private int[] fieldStarts = new int[ 16 ];
+  private int[] fieldEnds = new int[ 16 ];
+  private int[] fieldEscapes = new int[ 16 ];
+
+  /**
+   * @param channel
+   *          the channel of the file
+   * @param start
+   *          the position in the file to start reading at
+   * @param delimiter
+   *          the delimiter
+   * @param enclosure
+   *          the enclosure, null for none
+   * @param mixedLineEnds
+   *          true to take a second line end after a line end as part of the same line end
+   */
+  public MappedCsvScanner( FileChannel channel, long start, byte delimiter, byte[] enclosure, boolean mixedLineEnds )
+    throws IOException {
+    this( channel, start, delimiter, enclosure, mixedLineEnds, DEFAULT_WINDOW_SIZE );
+  }
+
+  MappedCsvScanner( FileChannel channel, long start, byte delimiter, byte[] enclosure, boolean mixedLineEnds,
+    int windowSize ) throws IOException {
+    this.channel = channel;
+    this.fileSize = channel.size();
+    this.windowSize = windowSize;
+    this.delimiter = delimiter;
+    this.enclosed = enclosure != null && enclosure.length > 0;
+    this.enclosure = enclosed ? enclosure[ 0 ] : delimiter;
+    this.mixedLineEnds = mixedLineEnds;
+
+    delimiterPattern = broadcast( delimiter );
+    enclosurePattern = broadcast( this.enclosure );
+    crPattern = broadcast( CR );
+    lfPattern = broadcast( LF );
+
+    map( start );
+  }
+
+  private void map( long start ) throws IOException {
+    long length = Math.min( windowSize, Math.max( 0L, fileSize - start ) );
+    MappedByteBuffer mapped = channel.map( FileChannel.MapMode.READ_ONLY, start, length );
+    window = mapped.order( ByteOrder.LITTLE_ENDIAN );
+    view = window.duplicate();
+    windowStart = start;
+    limit = (int) length;
+    lastWindow = start + length >= fileSize;
+    position = 0;
+  }
+
+  /**
+   * @return the position in the file after the current row
+   */
+  public long getPosition() {
+    return windowStart + position;
+  }
+
+  /**
+   * Skip to the start of the first row that starts at or after the position of the scanner, for a reader that starts
+   * in the middle of a file. A row starts right after a line end.
+   *
+   * @return the number of skipped bytes
+   */
+  public long skipPartialRow() throws IOException {
+    long start = getPosition();
+    if ( start == 0 ) {
+      return 0;
+    }
+    ByteBuffer previous = ByteBuffer.allocate( 1 );
+    channel.read( previous, start - 1 );
+    boolean afterLineEnd = previous.position() == 1 && isLineEnd( previous.get( 0 ) );
+    if ( afterLineEnd && ( position >= limit || !isLineEnd( window.get( position ) ) ) ) {
+      return 0;
+    }
+    int p = find( position, lfPattern, crPattern, crPattern );
+    if ( p < limit ) {
+      p++;
+      if ( p < limit && isLineEnd( window.get( p ) ) ) {
+        p++;
+      }
+    }
+    position = p;
+    return getPosition() - start;
+  }
+
+  /**
+   * Scan the next row.
+   *
+   * @param maxFields
+   *          the number of fields to index, the others are skipped
+   * @return false if there are no more rows
+   * @throws IOException
+   *           if the file can't be mapped or a row doesn't fit in a window
+   */
+  public boolean nextRow( int maxFields ) throws IOException {
+    int result = scanRow( maxFields );
+    if ( result == NEED_MORE ) {
+      // Map a new window that starts with this row
+      if ( position == 0 ) {
+        throw new IOException( "A row of more than " + windowSize + " bytes was found at position " + windowStart );
+      }
+      map( windowStart + position );
+      result = scanRow( maxFields );
+      if ( result == NEED_MORE ) {
+        throw new IOException( "A row of more than " + windowSize + " bytes was found at position " + windowStart );
+      }
+    }
+    return result == ROW;
+  }
+
+  private int scanRow( int maxFields ) {
+    int p = position;
+    if ( p >= limit ) {
+      return lastWindow ? END : NEED_MORE;
+    }
+    nrFields = 0;
+    while ( true ) {
+      if ( nrFields == maxFields ) {
+        // Skip the rest of the line and all the line ends after it
+        p = find( p, lfPattern, crPattern, crPattern );
+        while ( p < limit && isLineEnd( window.get( p ) ) ) {
+          p++;
+        }
+        if ( p == limit && !lastWindow ) {
+          return NEED_MORE;
+        }
+        break;
+      }
+
+      int start = p;
+      int end;
+      int escapes = 0;
+      if ( enclosed && window.get( p ) == enclosure ) {
+        int q = p + 1;
+        boolean closed = false;
+        while ( q < limit ) {
+          int e = find( q, enclosurePattern, enclosurePattern, enclosurePattern );
+          if ( e == limit ) {
+            q = limit;
+            break;
+          }
+          if ( e + 1 == limit && !lastWindow ) {
+            return NEED_MORE;
+          }
+          if ( e + 1 < limit && window.get( e + 1 ) == enclosure ) {
+            escapes++;
+            q = e + 2;
+          } else {
+            closed = true;
+            q = e + 1;
+            break;
+          }
+        }
+        if ( !closed ) {
+          if ( !lastWindow ) {
+            return NEED_MORE;
+          }
+          // An enclosure that isn't closed is part of the field
+          addField( start, limit, 0 );
+          p = limit;
+          break;
+        }
+        end = find( q, delimiterPattern, crPattern, lfPattern );
+        if ( end == limit && !lastWindow ) {
+          return NEED_MORE;
+        }
+        addField( start + 1, end - 1, escapes );
+      } else {
+        end = find( p, delimiterPattern, crPattern, lfPattern );
+        if ( end == limit && !lastWindow ) {
+          return NEED_MORE;
+        }
+        addField( start, end, 0 );
+      }
+
+      if ( end == limit ) {
+        p = limit;
+        break;
+      }
+      if ( window.get( end ) == delimiter ) {
+        if ( nrFields == maxFields ) {
+          p = end; // the rest is skipped from the delimiter on
+          continue;
+        }
+        p = end + 1;
+        if ( p == limit ) {
+          if ( !lastWindow ) {
+            return NEED_MORE;
+          }
+          break;
+        }
+        continue;
+      }
+
+      // A line end
+      p = end + 1;
+      if ( mixedLineEnds ) {
+        if ( p == limit && !lastWindow ) {
+          return NEED_MORE;
+        }
+        if ( p < limit && isLineEnd( window.get( p ) ) ) {
+          p++;
+        }
+      }
+      break;
+    }
+    position = p;
+    return ROW;
+  }
+
+  private void addField( int start, int end, int escapes ) {
+    if ( nrFields == fieldStarts.length ) {
+      fieldStarts = Arrays.copyOf( fieldStarts, nrFields * 2 );
+      fieldEnds = Arrays.copyOf( fieldEnds, nrFields * 2 );
+      fieldEscapes = Arrays.copyOf( fieldEscapes, nrFields * 2 );
+    }
+    fieldStarts[ nrFields ] = start;
+    fieldEnds[ nrFields ] = Math.max( start, end );
+    fieldEscapes[ nrFields ] = escapes;
+    nrFields++;
+  }
+
+  /**
+   * @return the number of fields of the current row
+   */
+  public int getNrFields() {
+    return nrFields;
+  }
+
+  /**
+   * @return the number of escaped (doubled) enclosures in a field of the current row
+   */
+  public int getEscapedEnclosures( int field ) {
+    return fieldEscapes[ field ];
+  }
+
+  /**
+   * @return the bytes of a field of the current row, without the enclosures around it
+   */
+  public byte[] getField( int field ) {
+    int start = fieldStarts[ field ];
+    byte[] bytes = new byte[ fieldEnds[ field ] - start ];
+    view.position( start );
+    view.get( bytes );
+    return bytes;
+  }
+
+  /**
+   * @return the position of the first byte from the given position on that matches one of the patterns, or the limit
+   *         of the window
+   */
+  private int find( int from, long pattern1, long pattern2, long pattern3 ) {
+    int i = from;
+    for ( ; i + Long.BYTES <= limit; i += Long.BYTES ) {
+      long word = window.getLong( i );
+      long found = matches( word, pattern1 ) | matches( word, pattern2 ) | matches( word, pattern3 );
+      if ( found != 0 ) {
+        // The lowest flagged byte is always a real match
+        return i + ( Long.numberOfTrailingZeros( found ) >>> 3 );
+      }
+    }
+    for ( ; i < limit; i++ ) {
+      long b = window.get( i ) & 0xFFL;
+      if ( b == ( pattern1 & 0xFFL ) || b == ( pattern2 & 0xFFL ) || b == ( pattern3 & 0xFFL ) ) {
+        return i;
+      }
+    }
+    return limit;
+  }
+
+  /**
+   * @return a long with the high bit set in the bytes of the word that are equal to the byte of the pattern. A byte
+   *         above a matching byte can be flagged as well, the lowest flagged byte always matches.
+   */
+  static long matches( long word, long pattern ) {
+    long x = word ^ pattern;
+    return ( x - LOW_BITS ) & ~x & HIGH_BITS;
+  }
+
+  static long broadcast( byte b ) {
+    return ( b & 0xFFL ) * LOW_BITS;
+  }
+
+  private static boolean isLineEnd( byte b ) {
+    return b == CR || b == LF;
+  }
+}
@@ -13,9 +13,16 @@
 
 package org.pentaho.di.trans.steps.databasejoin;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
@@ -36,6 +43,13 @@ import org.pentaho.di.trans.step.*;
 public class DatabaseJoin extends BaseDatabaseStep implements StepInterface {
   private static Class<?> PKG = DatabaseJoinMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** The maximum number of parameters of a batch query */
+  static final int MAX_BATCH_PARAMETERS = 1000;
+
+  /** The column with the number of the parameter set in a batch query */
+  static final String BATCH_SET_COLUMN = "KTL_SET";
+  static final String BATCH_ALIAS = "KTL_JOIN";
+
   private final ReentrantLock dbLock = new ReentrantLock();
 
   public DatabaseJoin( StepMeta stepMeta, StepDataInterface stepDataInterface, int copyNr, TransMeta transMeta,
@@ -50,35 +64,21 @@ public class DatabaseJoin extends BaseDatabaseStep implements StepInterface {
     try {
       if ( first ) {
         first = false;
-        prepareSQL( meta, data );
-        data.outputRowMeta = rowMeta.clone();
-        meta.getFields( getTransMeta().getBowl(),
-            data.outputRowMeta, getStepname(), new RowMetaInterface[] { meta.getTableFields(), }, null, this,
-            repository, metaStore );
-
-        data.lookupRowMeta = new RowMeta();
-
-        if ( log.isDetailed() ) {
-          logDetailed( BaseMessages.getString( PKG, "DatabaseJoin.Log.CheckingRow" ) + rowMeta.getString( rowData ) );
-        }
-
-        data.keynrs = new int[meta.getParameterField().length];
-
-        for ( int i = 0; i < meta.getParameterField().length; i++ ) {
-          data.keynrs[i] = rowMeta.indexOfValue( meta.getParameterField()[i] );
-          if ( data.keynrs[i] < 0 ) {
-            throw new KettleStepException( BaseMessages.getString( PKG, "DatabaseJoin.Exception.FieldNotFound", meta
-                .getParameterField()[i] ) );
-          }
-
-          data.lookupRowMeta.addValueMeta( rowMeta.getValueMeta( data.keynrs[i] ).clone() );
-        }
+        initLookup( meta, data, rowMeta, rowData );
       }
 
       // Construct the parameters row...
-      Object[] lookupRowData = new Object[data.lookupRowMeta.size()];
-      for ( int i = 0; i < data.keynrs.length; i++ ) {
-        lookupRowData[i] = rowData[data.keynrs[i]];
+      Object[] lookupRowData = getParameters( data, rowData );
+
+      // Did we query these parameters before?
+      RowMetaAndData parameters = null;
+      if ( data.cache != null ) {
+        parameters = new RowMetaAndData( data.lookupRowMeta, lookupRowData );
+        List<Object[]> cachedRows = data.cache.get( parameters );
+        if ( cachedRows != null ) {
+          putJoinedRows( meta, data, rowMeta, rowData, cachedRows );
+          return;
+        }
       }
 
       // Set the values on the prepared statement (for faster exec.)
@@ -87,7 +87,7 @@ public class DatabaseJoin extends BaseDatabaseStep implements StepInterface {
       // Get a row from the database...
       //
       Object[] add = data.db.getRow( rs );
-      RowMetaInterface addMeta = data.db.getReturnRowMeta();
+      List<Object[]> found = data.cache != null ? new ArrayList<Object[]>() : null;
 
       incrementLinesInput();
 
@@ -95,17 +95,9 @@ public class DatabaseJoin extends BaseDatabaseStep implements StepInterface {
       while ( add != null && ( meta.getRowLimit() == 0 || counter < meta.getRowLimit() ) ) {
         counter++;
 
-        Object[] newRow = RowDataUtil.resizeArray( rowData, data.outputRowMeta.size() );
-        int newIndex = rowMeta.size();
-        for ( int i = 0; i < addMeta.size(); i++ ) {
-          newRow[newIndex++] = add[i];
-        }
-        // we have to clone, otherwise we only get the last new value
-        putRow( data.outputRowMeta, data.outputRowMeta.cloneRow( newRow ) );
-
-        if ( log.isRowLevel() ) {
-          logRowlevel( BaseMessages.getString( PKG, "DatabaseJoin.Log.PutoutRow" )
-              + data.outputRowMeta.getString( newRow ) );
+        putJoinedRow( data, rowMeta, rowData, add );
+        if ( found != null ) {
+          found.add( add );
         }
 
         // Get a new row
@@ -117,38 +109,284 @@ public class DatabaseJoin extends BaseDatabaseStep implements StepInterface {
 
       // Nothing found? Perhaps we have to put something out after all?
       if ( counter == 0 && meta.isOuterJoin() ) {
-        if ( data.notfound == null ) {
-          // Just return null values for all values...
-          //
-          data.notfound = new Object[data.db.getReturnRowMeta().size()];
-        }
-        Object[] newRow = RowDataUtil.resizeArray( rowData, data.outputRowMeta.size() );
-        int newIndex = rowMeta.size();
-        for ( int i = 0; i < data.notfound.length; i++ ) {
-          newRow[newIndex++] = data.notfound[i];
-        }
-        putRow( data.outputRowMeta, newRow );
+        putNotFoundRow( data, rowMeta, rowData );
       }
 
       data.db.closeQuery( rs );
+
+      if ( found != null ) {
+        data.cache.put( parameters, found );
+      }
+    } finally {
+      dbLock.unlock();
+    }
+  }
+
+  private void initLookup( DatabaseJoinMeta meta, DatabaseJoinData data, RowMetaInterface rowMeta,
+      Object[] rowData ) throws KettleException {
+    prepareSQL( meta, data );
+    data.outputRowMeta = rowMeta.clone();
+    meta.getFields( getTransMeta().getBowl(),
+        data.outputRowMeta, getStepname(), new RowMetaInterface[] { meta.getTableFields(), }, null, this,
+        repository, metaStore );
+
+    data.lookupRowMeta = new RowMeta();
+
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "DatabaseJoin.Log.CheckingRow" ) + rowMeta.getString( rowData ) );
+    }
+
+    data.keynrs = new int[meta.getParameterField().length];
+
+    for ( int i = 0; i < meta.getParameterField().length; i++ ) {
+      data.keynrs[i] = rowMeta.indexOfValue( meta.getParameterField()[i] );
+      if ( data.keynrs[i] < 0 ) {
+        throw new KettleStepException( BaseMessages.getString( PKG, "DatabaseJoin.Exception.FieldNotFound", meta
+            .getParameterField()[i] ) );
+      }
+
+      data.lookupRowMeta.addValueMeta( rowMeta.getValueMeta( data.keynrs[i] ).clone() );
+    }
+  }
+
+  private Object[] getParameters( DatabaseJoinData data, Object[] rowData ) {
+    Object[] lookupRowData = new Object[data.lookupRowMeta.size()];
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      lookupRowData[i] = rowData[data.keynrs[i]];
+    }
+    return lookupRowData;
+  }
+
+  /**
+   * Puts out the input row joined with every row found, or with nulls for an outer join if nothing was found.
+   */
+  private void putJoinedRows( DatabaseJoinMeta meta, DatabaseJoinData data, RowMetaInterface rowMeta,
+      Object[] rowData, List<Object[]> found ) throws KettleStepException {
+    for ( Object[] add : found ) {
+      putJoinedRow( data, rowMeta, rowData, add );
+    }
+    if ( found.isEmpty() && meta.isOuterJoin() ) {
+      putNotFoundRow( data, rowMeta, rowData );
+    }
+  }
+
+  private void putJoinedRow( DatabaseJoinData data, RowMetaInterface rowMeta, Object[] rowData, Object[] add )
+    throws KettleStepException {
+    Object[] newRow = RowDataUtil.resizeArray( rowData, data.outputRowMeta.size() );
+    int newIndex = rowMeta.size();
+    for ( int i = 0; newIndex < data.outputRowMeta.size(); i++ ) {
+      newRow[newIndex++] = add[i];
+    }
+    // we have to clone, otherwise we only get the last new value
+    putRow( data.outputRowMeta, data.outputRowMeta.cloneRow( newRow ) );
+
+    if ( log.isRowLevel() ) {
+      logRowlevel( BaseMessages.getString( PKG, "DatabaseJoin.Log.PutoutRow" )
+          + data.outputRowMeta.getString( newRow ) );
+    }
+  }
+
+  private void putNotFoundRow( DatabaseJoinData data, RowMetaInterface rowMeta, Object[] rowData )
+    throws KettleStepException {
+    if ( data.notfound == null ) {
+      // Just return null values for all values...
+      //
+      data.notfound = new Object[data.outputRowMeta.size() - rowMeta.size()];
+    }
+    Object[] newRow = RowDataUtil.resizeArray( rowData, data.outputRowMeta.size() );
+    int newIndex = rowMeta.size();
+    for ( int i = 0; i < data.notfound.length; i++ ) {
+      newRow[newIndex++] = data.notfound[i];
+    }
+    putRow( data.outputRowMeta, newRow );
+  }
+
+  /**
+   * Keeps the row until enough distinct parameter sets are missing from the cache, these are then queried at once.
+   */
+  private void addToBatch( DatabaseJoinMeta meta, DatabaseJoinData data, RowMetaInterface rowMeta,
+      Object[] rowData ) throws KettleException {
+    dbLock.lock();
+    try {
+      if ( first ) {
+        first = false;
+        initLookup( meta, data, rowMeta, rowData );
+      }
+
+      RowMetaAndData parameters = new RowMetaAndData( data.lookupRowMeta, getParameters( data, rowData ) );
+      if ( !data.batchResults.containsKey( parameters ) ) {
+        List<Object[]> cachedRows = data.cache != null ? data.cache.get( parameters ) : null;
+        data.batchResults.put( parameters, cachedRows );
+        if ( cachedRows == null ) {
+          data.batchMissing++;
+        }
+      }
+      data.batchRows.add( rowData );
+      data.batchParameters.add( parameters );
+
+      // Rows found in the cache don't add parameter sets, so we also limit the number of rows we keep
+      //
+      if ( data.batchMissing >= data.batchSize || data.batchRows.size() >= 10 * data.batchSize ) {
+        flushBatch( meta, data );
+      }
     } finally {
       dbLock.unlock();
     }
   }
 
+  /**
+   * Queries the missing parameter sets of the batch and puts out the rows kept so far, in the order they came in. When
+   * the batch fails, the rows that were not put out yet go to the error handling, if any. The batch is always cleared.
+   */
+  private void flushBatch( DatabaseJoinMeta meta, DatabaseJoinData data ) throws KettleException {
+    List<RowMetaAndData> missing = new ArrayList<>( data.batchMissing );
+    for ( Map.Entry<RowMetaAndData, List<Object[]>> entry : data.batchResults.entrySet() ) {
+      if ( entry.getValue() == null ) {
+        missing.add( entry.getKey() );
+      }
+    }
+
+    int i = 0;
+    try {
+      if ( !missing.isEmpty() ) {
+        queryBatch( meta, data, missing );
+      }
+      for ( ; i < data.batchRows.size(); i++ ) {
+        List<Object[]> found = data.batchResults.get( data.batchParameters.get( i ) );
+        putJoinedRows( meta, data, getInputRowMeta(), data.batchRows.get( i ), found );
+      }
+    } catch ( KettleException e ) {
+      if ( !getStepMeta().isDoingErrorHandling() ) {
+        throw e;
+      }
+      for ( ; i < data.batchRows.size(); i++ ) {
+        putError( getInputRowMeta(), data.batchRows.get( i ), 1, e.toString(), null, "DBJOIN001" );
+      }
+    } finally {
+      clearBatch( data );
+    }
+  }
+
+  private void clearBatch( DatabaseJoinData data ) {
+    data.batchRows.clear();
+    data.batchParameters.clear();
+    data.batchResults.clear();
+    data.batchMissing = 0;
+  }
+
+  /**
+   * Runs the query once for every parameter set with UNION ALL. Every part returns the number of its parameter set
+   * first, so that the rows can be split again.
+   */
+  private void queryBatch( DatabaseJoinMeta meta, DatabaseJoinData data, List<RowMetaAndData> missing )
+    throws KettleException {
+    int nrSets = missing.size();
+    PreparedStatement statement = data.batchStatements.get( nrSets );
+    if ( statement == null ) {
+      String sql = getBatchSql( data.sql, nrSets );
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "DatabaseJoin.Log.SQLStatement", sql ) );
+      }
+      statement = data.db.prepareSQL( sql );
+      data.batchStatements.put( nrSets, statement );
+    }
+    // The running statement is the one to cancel
+    data.pstmt = statement;
+
+    int index = 1;
+    for ( RowMetaAndData parameters : missing ) {
+      for ( int i = 0; i < data.lookupRowMeta.size(); i++ ) {
+        data.lookupRowMeta.getValueMeta( i ).setPreparedStatementValue( meta.getDatabaseMeta(), statement, index++,
+          parameters.getData()[i] );
+      }
+    }
+
+    List<List<Object[]>> found = new ArrayList<>( nrSets );
+    for ( int i = 0; i < nrSets; i++ ) {
+      found.add( new ArrayList<Object[]>() );
+    }
+
+    ResultSet rs = data.db.openQuery( statement, new RowMeta(), new Object[0] );
+    int nrJoined = data.outputRowMeta.size() - getInputRowMeta().size();
+    Object[] add = data.db.getRow( rs );
+    while ( add != null ) {
+      incrementLinesInput();
+      List<Object[]> rows = found.get( data.db.getReturnRowMeta().getInteger( add, 0 ).intValue() );
+      if ( meta.getRowLimit() == 0 || rows.size() < meta.getRowLimit() ) {
+        rows.add( Arrays.copyOfRange( add, 1, 1 + nrJoined ) );
+      }
+      add = data.db.getRow( rs );
+    }
+    data.db.closeQuery( rs );
+
+    for ( int i = 0; i < nrSets; i++ ) {
+      data.batchResults.put( missing.get( i ), found.get( i ) );
+      if ( data.cache != null ) {
+        data.cache.put( missing.get( i ), found.get( i ) );
+      }
+    }
+  }
+
+  /**
+   * @param sql
+   *          the query of the step
+   * @param nrSets
+   *          the number of parameter sets
+   * @return the query repeated for every parameter set with UNION ALL, the first column is the number of the set
+   */
+  static String getBatchSql( String sql, int nrSets ) {
+    String query = Const.rtrim( sql );
+    if ( query.endsWith( ";" ) ) {
+      query = Const.rtrim( query.substring( 0, query.length() - 1 ) );
+    }
+    StringBuilder batch = new StringBuilder();
+    for ( int i = 0; i < nrSets; i++ ) {
+      if ( i > 0 ) {
+        batch.append( Const.CR ).append( "UNION ALL" ).append( Const.CR );
+      }
+      batch.append( "SELECT " ).append( i ).append( " AS " ).append( BATCH_SET_COLUMN ).append( ", " )
+        .append( BATCH_ALIAS ).append( ".* FROM ( " ).append( query ).append( " ) " ).append( BATCH_ALIAS );
+    }
+    return batch.toString();
+  }
+
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
+    DatabaseJoinMeta meta = (DatabaseJoinMeta) smi;
+    DatabaseJoinData data = (DatabaseJoinData) sdi;
 
     boolean sendToErrorRow = false;
     String errorMessage = null;
 
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
+      if ( data.batchSize > 1 && !data.batchRows.isEmpty() ) {
+        try {
+          dbLock.lock();
+          try {
+            flushBatch( meta, data );
+          } finally {
+            dbLock.unlock();
+          }
+        } catch ( KettleException e ) {
+          logError( BaseMessages.getString( PKG, "DatabaseJoin.Log.ErrorInStepRunning" ) + e.getMessage(), e );
+          setErrors( 1 );
+          stopAll();
+        }
+      }
+      if ( data.cache != null && log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "DatabaseJoin.Log.CacheStatistics", data.cache.getHits(),
+          data.cache.getMisses(), data.cache.size() ) );
+      }
       setOutputDone();
       return false;
     }
 
     try {
-      lookupValues( (DatabaseJoinMeta) smi, (DatabaseJoinData) sdi, getInputRowMeta(), r ); // add new values to the row in rowset[0].
+      if ( data.batchSize > 1 ) {
+        addToBatch( meta, data, getInputRowMeta(), r );
+      } else {
+        lookupValues( meta, data, getInputRowMeta(), r ); // add new values to the row in rowset[0].
+      }
       if ( checkFeedback( getLinesRead() ) ) {
         if ( log.isBasic() ) {
           logBasic( BaseMessages.getString( PKG, "DatabaseJoin.Log.LineNumber" ) + getLinesRead() );
@@ -210,7 +448,21 @@ public class DatabaseJoin extends BaseDatabaseStep implements StepInterface {
 
     boolean initialized = super.init( smi, sdi );
     if ( initialized ) {
-      data.db.setQueryLimit( meta.getRowLimit() );
+      int nrParameters = meta.getParameterField().length;
+      if ( meta.getBatchSize() > 1 && nrParameters > 0 ) {
+        // Stay below the number of parameters a statement takes on most databases
+        data.batchSize = Math.max( 1, Math.min( meta.getBatchSize(), MAX_BATCH_PARAMETERS / nrParameters ) );
+      } else {
+        data.batchSize = 1;
+      }
+      // In batch mode the row limit applies to every parameter set, not to the whole query
+      data.db.setQueryLimit( data.batchSize > 1 ? 0 : meta.getRowLimit() );
+      if ( meta.isCached() ) {
+        data.cache = new DatabaseJoinCache( meta.getCacheSize(), meta.getCacheTimeToLive() * 1000L );
+      }
+      if ( log.isDetailed() && data.batchSize > 1 ) {
+        logDetailed( BaseMessages.getString( PKG, "DatabaseJoin.Log.UsingBatches", data.batchSize ) );
+      }
     }
     dbLock.unlock();
 
@@ -223,6 +475,11 @@ public class DatabaseJoin extends BaseDatabaseStep implements StepInterface {
       if ( meta.isVariableReplace() ) {
         sql = environmentSubstitute( sql );
       }
+      data.sql = sql;
+      if ( data.batchSize > 1 ) {
+        // The batch statements are prepared for the number of parameter sets they query
+        return;
+      }
       // Prepare the SQL statement
       data.pstmt = data.db.prepareSQL( sql );
       if ( log.isDebug() ) {
@@ -240,8 +497,15 @@ public class DatabaseJoin extends BaseDatabaseStep implements StepInterface {
   }
 
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
+    final DatabaseJoinData data = (DatabaseJoinData) sdi;
     dbLock.lock();
     try {
+      if ( data.db != null ) {
+        for ( PreparedStatement statement : data.batchStatements.values() ) {
+          data.db.closePreparedStatement( statement );
+        }
+      }
+      data.batchStatements.clear();
       super.dispose( smi, sdi );
     } finally {
       dbLock.unlock();
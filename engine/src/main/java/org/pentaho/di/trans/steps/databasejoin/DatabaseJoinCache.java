@@ -0,0 +1,118 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.databasejoin;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import org.pentaho.di.core.RowMetaAndData;
+
+/**
+ * The rows the query of a Database Join returned for the parameter values seen before. When the cache is full, the
+ * entry that was used the longest time ago is removed. An entry that is older than the time to live is queried again.
+ */
+public class DatabaseJoinCache {
+
+  private final int maxSize;
+  private final long timeToLive;
+  private final LongSupplier clock;
+
+  private final LinkedHashMap<RowMetaAndData, Entry> map = new LinkedHashMap<>( 16, 0.75f, true );
+
+  private long hits;
+  private long misses;
+
+  /**
+   * @param maxSize
+   *          the maximum number of parameter sets to keep, 0 for no limit
+   * @param timeToLive
+   *          the number of milliseconds to keep the rows of a parameter set, 0 for no limit
+   */
+  public DatabaseJoinCache( int maxSize, long timeToLive ) {
+    this( maxSize, timeToLive, System::currentTimeMillis );
+  }
+
+  DatabaseJoinCache( int maxSize, long timeToLive, LongSupplier clock ) {
+    this.maxSize = maxSize;
+    this.timeToLive = timeToLive;
+    this.clock = clock;
+  }
+
+  /**
+   * @param parameters
+   *          the parameter values of the query
+   * @return the rows found for the parameters, an empty list if nothing was found or null if they are not cached
+   */
+  public List<Object[]> get( RowMetaAndData parameters ) {
+    Entry entry = map.get( parameters );
+    if ( entry != null && timeToLive > 0 && clock.getAsLong() - entry.created > timeToLive ) {
+      map.remove( parameters );
+      entry = null;
+    }
+    if ( entry == null ) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.rows;
+  }
+
+  /**
+   * @param parameters
+   *          the parameter values of the query
+   * @param rows
+   *          the rows found for the parameters
+   */
+  public void put( RowMetaAndData parameters, List<Object[]> rows ) {
+    map.put( parameters, new Entry( rows, clock.getAsLong() ) );
+    if ( maxSize > 0 && map.size() > maxSize ) {
+      Iterator<RowMetaAndData> eldest = map.keySet().iterator();
+      eldest.next();
+      eldest.remove();
+    }
+  }
+
+  /**
+   * @return the number of cached parameter sets
+   */
+  public int size() {
+    return map.size();
+  }
+
+  /**
+   * @return the number of parameter sets found in the cache
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return the number of parameter sets that had to be queried
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  private static class Entry {
+    private final List<Object[]> rows;
+    private final long created;
+
+    Entry( List<Object[]> rows, long created ) {
+      this.rows = rows;
+      this.created = created;
+    }
+  }
+}
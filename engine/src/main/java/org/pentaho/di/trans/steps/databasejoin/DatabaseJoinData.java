@@ -14,7 +14,13 @@
 package org.pentaho.di.trans.steps.databasejoin;
 
 import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseDatabaseStepData;
@@ -35,6 +41,18 @@ public class DatabaseJoinData extends BaseDatabaseStepData implements StepDataIn
   public Object[] notfound; // Values in case nothing is found...
   public boolean isCanceled;
 
+  String sql;
+  DatabaseJoinCache cache; // null if the results are not cached
+
+  int batchSize = 1;
+  final List<Object[]> batchRows = new ArrayList<>();
+  final List<RowMetaAndData> batchParameters = new ArrayList<>();
+  // The rows found for the distinct parameter sets of the batch, null if the set still needs to be queried
+  final Map<RowMetaAndData, List<Object[]>> batchResults = new LinkedHashMap<>();
+  int batchMissing;
+  // The batch statements by number of parameter sets
+  final Map<Integer, PreparedStatement> batchStatements = new HashMap<>();
+
   public DatabaseJoinData() {
     super();
   }
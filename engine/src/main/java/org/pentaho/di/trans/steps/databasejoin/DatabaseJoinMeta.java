@@ -71,6 +71,18 @@ public class DatabaseJoinMeta extends BaseDatabaseStepMeta implements StepMetaIn
    */
   private boolean replacevars;
 
+  /** Keep the rows found for the parameter values seen before */
+  private boolean cached;
+
+  /** The maximum number of parameter sets to keep in the cache (0=ALL) */
+  private int cacheSize;
+
+  /** The number of seconds to keep the rows of a parameter set in the cache (0=until the end) */
+  private int cacheTimeToLive;
+
+  /** The number of distinct parameter sets to query at once (0 or 1=one query per row) */
+  private int batchSize;
+
   public DatabaseJoinMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -165,6 +177,66 @@ public class DatabaseJoinMeta extends BaseDatabaseStepMeta implements StepMetaIn
     this.rowLimit = rowLimit;
   }
 
+  /**
+   * @return true if the rows found for the parameter values seen before are kept
+   */
+  public boolean isCached() {
+    return cached;
+  }
+
+  /**
+   * @param cached
+   *          true to keep the rows found for the parameter values seen before
+   */
+  public void setCached( boolean cached ) {
+    this.cached = cached;
+  }
+
+  /**
+   * @return the maximum number of parameter sets to keep in the cache, 0 for all
+   */
+  public int getCacheSize() {
+    return cacheSize;
+  }
+
+  /**
+   * @param cacheSize
+   *          the maximum number of parameter sets to keep in the cache, 0 for all
+   */
+  public void setCacheSize( int cacheSize ) {
+    this.cacheSize = cacheSize;
+  }
+
+  /**
+   * @return the number of seconds to keep the rows of a parameter set in the cache, 0 until the end
+   */
+  public int getCacheTimeToLive() {
+    return cacheTimeToLive;
+  }
+
+  /**
+   * @param cacheTimeToLive
+   *          the number of seconds to keep the rows of a parameter set in the cache, 0 until the end
+   */
+  public void setCacheTimeToLive( int cacheTimeToLive ) {
+    this.cacheTimeToLive = cacheTimeToLive;
+  }
+
+  /**
+   * @return the number of distinct parameter sets to query at once, 0 or 1 for one query per row
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * @param batchSize
+   *          the number of distinct parameter sets to query at once, 0 or 1 for one query per row
+   */
+  public void setBatchSize( int batchSize ) {
+    this.batchSize = batchSize;
+  }
+
   /**
    * @return Returns the sql.
    */
@@ -186,6 +258,10 @@ public class DatabaseJoinMeta extends BaseDatabaseStepMeta implements StepMetaIn
     parameterType = null;
     outerJoin = false;
     replacevars = false;
+    cached = false;
+    cacheSize = 0;
+    cacheTimeToLive = 0;
+    batchSize = 0;
     readData( stepnode, databases );
   }
 
@@ -216,6 +292,10 @@ public class DatabaseJoinMeta extends BaseDatabaseStepMeta implements StepMetaIn
       outerJoin = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "outer_join" ) );
       replacevars = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "replace_vars" ) );
       rowLimit = Const.toInt( XMLHandler.getTagValue( stepnode, "rowlimit" ), 0 );
+      cached = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "cache" ) );
+      cacheSize = Const.toInt( XMLHandler.getTagValue( stepnode, "cache_size" ), 0 );
+      cacheTimeToLive = Const.toInt( XMLHandler.getTagValue( stepnode, "cache_ttl" ), 0 );
+      batchSize = Const.toInt( XMLHandler.getTagValue( stepnode, "batch_size" ), 0 );
 
       Node param = XMLHandler.getSubNode( stepnode, "parameter" );
       int nrparam = XMLHandler.countNodes( param, "field" );
@@ -244,6 +324,10 @@ public class DatabaseJoinMeta extends BaseDatabaseStepMeta implements StepMetaIn
     parameterType = null;
     outerJoin = false;
     replacevars = false;
+    cached = false;
+    cacheSize = 0;
+    cacheTimeToLive = 0;
+    batchSize = 0;
 
     int nrparam = 0;
 
@@ -333,6 +417,10 @@ public class DatabaseJoinMeta extends BaseDatabaseStepMeta implements StepMetaIn
     retval.append( "    " ).append( XMLHandler.addTagValue( "sql", sql ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "outer_join", outerJoin ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "replace_vars", replacevars ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "cache", cached ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "cache_size", cacheSize ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "cache_ttl", cacheTimeToLive ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "batch_size", batchSize ) );
     retval.append( "    <parameter>" ).append( Const.CR );
     for ( int i = 0; i < parameterField.length; i++ ) {
       retval.append( "      <field>" ).append( Const.CR );
@@ -354,6 +442,10 @@ public class DatabaseJoinMeta extends BaseDatabaseStepMeta implements StepMetaIn
       sql = rep.getStepAttributeString( id_step, "sql" );
       outerJoin = rep.getStepAttributeBoolean( id_step, "outer_join" );
       replacevars = rep.getStepAttributeBoolean( id_step, "replace_vars" );
+      cached = rep.getStepAttributeBoolean( id_step, "cache" );
+      cacheSize = (int) rep.getStepAttributeInteger( id_step, "cache_size" );
+      cacheTimeToLive = (int) rep.getStepAttributeInteger( id_step, "cache_ttl" );
+      batchSize = (int) rep.getStepAttributeInteger( id_step, "batch_size" );
 
       int nrparam = rep.countNrStepAttributes( id_step, "parameter_field" );
 
@@ -378,6 +470,10 @@ public class DatabaseJoinMeta extends BaseDatabaseStepMeta implements StepMetaIn
       rep.saveStepAttribute( id_transformation, id_step, "sql", sql );
       rep.saveStepAttribute( id_transformation, id_step, "outer_join", outerJoin );
       rep.saveStepAttribute( id_transformation, id_step, "replace_vars", replacevars );
+      rep.saveStepAttribute( id_transformation, id_step, "cache", cached );
+      rep.saveStepAttribute( id_transformation, id_step, "cache_size", cacheSize );
+      rep.saveStepAttribute( id_transformation, id_step, "cache_ttl", cacheTimeToLive );
+      rep.saveStepAttribute( id_transformation, id_step, "batch_size", batchSize );
 
       for ( int i = 0; i < parameterField.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "parameter_field", parameterField[i] );
@@ -13,19 +13,27 @@
 
 package org.pentaho.di.trans.steps.databaselookup;
 
+import java.sql.ResultSet;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.logging.Metrics;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -53,6 +61,9 @@ import org.pentaho.di.trans.steps.databaselookup.readallcache.ReadAllCache;
 public class DatabaseLookup extends BaseStep implements StepInterface {
   private static Class<?> PKG = DatabaseLookupMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** Some databases don't accept more than 1000 values in an IN list, keep the batch queries below that */
+  static final int MAX_BATCH_PARAMETERS = 1000;
+
   private DatabaseLookupMeta meta;
   private DatabaseLookupData data;
 
@@ -70,8 +81,50 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
    */
   @VisibleForTesting
   synchronized Object[] lookupValues( RowMetaInterface inputRowMeta, Object[] row ) throws KettleException {
-    Object[] outputRow = RowDataUtil.resizeArray( row, data.outputRowMeta.size() );
+    Object[] lookupRow = createLookupRow( inputRowMeta, row );
+
+    Object[] add;
+    boolean cacheNow = false;
+    boolean cacheHit = false;
+
+    // First, check if we looked up before
+    if ( meta.isCached() ) {
+      add = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
+      if ( add != null ) {
+        cacheHit = true;
+        data.cacheHits++;
+      } else {
+        data.cacheMisses++;
+      }
+    } else {
+      add = null;
+    }
+
+    if ( add == null && ( !( meta.isCached() && meta.isLoadingAllDataInCache() ) || data.hasDBCondition ) ) {
+      // do not go to the database when all rows are in (exception LIKE operator)
+      if ( log.isRowLevel() ) {
+        logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow1" )
+          + meta.getStreamKeyField1().length
+          + BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow2" )
+          + data.lookupMeta.getString( lookupRow ) );
+      }
 
+      long startTime = System.nanoTime();
+      data.db.setValuesLookup( data.lookupMeta, lookupRow );
+      add = data.db.getLookup( meta.isFailingOnMultipleResults() );
+      if ( meta.isCached() ) {
+        data.cacheLoadTime += System.nanoTime() - startTime;
+      }
+      cacheNow = true;
+    }
+
+    return addLookupValues( inputRowMeta, row, lookupRow, add, cacheHit, cacheNow, data.db.getReturnRowMeta() );
+  }
+
+  /**
+   * Builds the values to look up from the key fields of the input row, converted to the types of the table.
+   */
+  private Object[] createLookupRow( RowMetaInterface inputRowMeta, Object[] row ) throws KettleException {
     Object[] lookupRow = new Object[ data.lookupMeta.size() ];
     int lookupIndex = 0;
 
@@ -110,35 +163,22 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         lookupIndex++;
       }
     }
+    return lookupRow;
+  }
 
-    Object[] add;
-    boolean cacheNow = false;
-    boolean cacheHit = false;
-
-    // First, check if we looked up before
-    if ( meta.isCached() ) {
-      add = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
-      if ( add != null ) {
-        cacheHit = true;
-      }
-    } else {
-      add = null;
-    }
-
-    if ( add == null && ( !( meta.isCached() && meta.isLoadingAllDataInCache() ) || data.hasDBCondition ) ) {
-      // do not go to the database when all rows are in (exception LIKE operator)
-      if ( log.isRowLevel() ) {
-        logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow1" )
-          + meta.getStreamKeyField1().length
-          + BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow2" )
-          + data.lookupMeta.getString( lookupRow ) );
-      }
-
-      data.db.setValuesLookup( data.lookupMeta, lookupRow );
-      add = data.db.getLookup( meta.isFailingOnMultipleResults() );
-      cacheNow = true;
-    }
-
+  /**
+   * Adds the looked up values (or the defaults if nothing was found) to the input row.
+   *
+   * @param add the values found or null if nothing was found
+   * @param cacheHit true if the values come from the cache, their types are already correct
+   * @param cacheNow true if the values should be stored in the cache
+   * @param returnedMeta the meta-data of the values as returned by the database
+   * @return the resulting row or null if the row is eaten or sent to error handling
+   */
+  private Object[] addLookupValues( RowMetaInterface inputRowMeta, Object[] row, Object[] lookupRow, Object[] add,
+                                    boolean cacheHit, boolean cacheNow, RowMetaInterface returnedMeta )
+    throws KettleException {
+    Object[] outputRow = RowDataUtil.resizeArray( row, data.outputRowMeta.size() );
 
     if ( add == null ) { // nothing was found, unknown code: add default values
       if ( meta.isEatingRowOnLookupFailure() ) {
@@ -180,7 +220,7 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         // that should not be a problem.
         //
         for ( int i = 0; i < types.length; i++ ) {
-          ValueMetaInterface returned = data.db.getReturnRowMeta().getValueMeta( i );
+          ValueMetaInterface returned = returnedMeta.getValueMeta( i );
           ValueMetaInterface expected = data.returnMeta.getValueMeta( i );
 
           if ( returned != null && types[ i ] > 0 && types[ i ] != returned.getType() ) {
@@ -344,15 +384,22 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
 
   @Override
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
+    meta = (DatabaseLookupMeta) smi;
+    data = (DatabaseLookupData) sdi;
+
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
+      if ( data.batchLookup ) {
+        try {
+          flushBatch();
+        } catch ( KettleException e ) {
+          return stopOnError( e );
+        }
+      }
       setOutputDone();
       return false;
     }
 
-    meta = (DatabaseLookupMeta) smi;
-    data = (DatabaseLookupData) sdi;
-
     if ( first ) {
       first = false;
 
@@ -404,7 +451,7 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
       }
 
       if ( meta.isCached() ) {
-        data.cache = DefaultCache.newCache( data, meta.getCacheSize() );
+        data.cache = DefaultCache.newCache( data, meta.getCacheSize(), meta.getCacheEviction() );
       }
 
       determineFieldsTypesQueryingDb();
@@ -415,10 +462,14 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
 
       initReturnMeta();
 
+      initBatchLookup();
+
       // If the user selected to load all data into the cache at startup, that's what we do now...
       //
       if ( meta.isCached() && meta.isLoadingAllDataInCache() ) {
+        long startTime = System.nanoTime();
         loadAllTableDataIntoTheCache();
+        data.cacheLoadTime += System.nanoTime() - startTime;
       }
     }
 
@@ -428,37 +479,323 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     }
 
     try {
-      // add new lookup values to the row
-      Object[] outputRow = lookupValues( getInputRowMeta(), r );
+      if ( data.batchLookup ) {
+        addToBatch( getInputRowMeta(), r );
+      } else {
+        // add new lookup values to the row
+        putLookupRow( r, lookupValues( getInputRowMeta(), r ) );
+      }
+    } catch ( KettleException e ) {
+      if ( getStepMeta().isDoingErrorHandling() ) {
+        putError( getInputRowMeta(), r, 1, e.getMessage(), null, "DBLOOKUPD001" );
+      } else {
+        return stopOnError( e );
+      }
+    }
+
+    return true;
+  }
 
-      if ( outputRow != null ) {
-        // copy row to output rowset(s);
-        putRow( data.outputRowMeta, outputRow );
+  private void putLookupRow( Object[] r, Object[] outputRow ) throws KettleStepException {
+    if ( outputRow != null ) {
+      // copy row to output rowset(s);
+      putRow( data.outputRowMeta, outputRow );
 
-        if ( log.isRowLevel() ) {
-          logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.WroteRowToNextStep" )
-            + getInputRowMeta().getString( r ) );
+      if ( log.isRowLevel() ) {
+        logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.WroteRowToNextStep" )
+          + getInputRowMeta().getString( r ) );
+      }
+
+      long linesRead = getLinesRead();
+      if ( checkFeedback( linesRead ) ) {
+        logBasic( "linenr " + linesRead );
+      }
+    }
+  }
+
+  private boolean stopOnError( KettleException e ) {
+    logError( BaseMessages.getString( PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing" )
+      + e.getMessage() );
+    setErrors( 1 );
+    stopAll();
+    setOutputDone(); // signal end to receiver(s)
+    return false;
+  }
+
+  /**
+   * Sees if the keys can be looked up in batches: all the conditions need to be "=". Instead of one query per row,
+   * the rows are kept until enough distinct keys are missing from the cache. These keys are then looked up with a
+   * single query (WHERE key IN (...)) and the rows are passed on in the order they came in.
+   */
+  private void initBatchLookup() {
+    data.batchLookup = false;
+
+    int nrKeys = meta.getStreamKeyField1().length;
+    if ( meta.getLookupBatchSize() <= 1 || nrKeys == 0 || ( meta.isCached() && meta.isLoadingAllDataInCache() ) ) {
+      return;
+    }
+    for ( int i = 0; i < nrKeys; i++ ) {
+      if ( data.conditions[ i ] != DatabaseLookupMeta.CONDITION_EQ ) {
+        logBasic( BaseMessages.getString( PKG, "DatabaseLookup.Log.BatchLookupNeedsEquals" ) );
+        return;
+      }
+    }
+    if ( data.lookupMeta.size() != nrKeys ) {
+      logBasic( BaseMessages.getString( PKG, "DatabaseLookup.Log.BatchLookupNeedsEquals" ) );
+      return;
+    }
+
+    data.batchLookup = true;
+    data.batchSize = Math.max( 1, Math.min( meta.getLookupBatchSize(), MAX_BATCH_PARAMETERS / nrKeys ) );
+    data.batchRows = new ArrayList<>();
+    data.batchLookupRows = new ArrayList<>();
+    data.batchCacheHits = new ArrayList<>();
+    data.batchKeys = new LinkedHashMap<>();
+
+    DatabaseMeta dbMeta = meta.getDatabaseMeta();
+    StringBuilder sql = new StringBuilder( "SELECT " );
+    for ( int i = 0; i < nrKeys; i++ ) {
+      sql.append( dbMeta.quoteField( meta.getTableKeyField()[ i ] ) ).append( ", " );
+    }
+    for ( int i = 0; i < meta.getReturnValueField().length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( dbMeta.quoteField( meta.getReturnValueField()[ i ] ) );
+    }
+    sql.append( " FROM " ).append(
+      dbMeta.getQuotedSchemaTableCombination( environmentSubstitute( meta.getSchemaName() ),
+        environmentSubstitute( meta.getTablename() ) ) );
+    sql.append( " WHERE " );
+    data.batchSqlPrefix = sql.toString();
+
+    if ( log.isDetailed() ) {
+      logDetailed(
+        BaseMessages.getString( PKG, "DatabaseLookup.Log.BatchLookup", String.valueOf( data.batchSize ) ) );
+    }
+  }
+
+  /**
+   * Keeps the row until the keys of the batch are looked up. The key is only added to the batch if it's not found in
+   * the cache and can match anything: a null value never equals anything in SQL.
+   */
+  private void addToBatch( RowMetaInterface inputRowMeta, Object[] row ) throws KettleException {
+    Object[] lookupRow = createLookupRow( inputRowMeta, row );
+
+    Object[] cacheHit = null;
+    if ( meta.isCached() ) {
+      cacheHit = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
+      if ( cacheHit != null ) {
+        data.cacheHits++;
+      } else {
+        data.cacheMisses++;
+      }
+    }
+    if ( cacheHit == null && !hasNullKey( lookupRow ) ) {
+      data.batchKeys.putIfAbsent( new RowMetaAndData( data.lookupMeta, lookupRow ), null );
+    }
+
+    data.batchRows.add( row );
+    data.batchLookupRows.add( lookupRow );
+    data.batchCacheHits.add( cacheHit );
+
+    // Rows found in the cache don't add keys, so we also limit the number of rows we keep
+    //
+    if ( data.batchKeys.size() >= data.batchSize || data.batchRows.size() >= 10 * data.batchSize ) {
+      flushBatch();
+    }
+  }
+
+  private boolean hasNullKey( Object[] lookupRow ) throws KettleException {
+    for ( int i = 0; i < lookupRow.length; i++ ) {
+      if ( data.lookupMeta.getValueMeta( i ).isNull( lookupRow[ i ] ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Looks up the keys of the batch and passes the rows kept so far on, in the order they came in. When the batch
+   * fails, the rows that were not passed on yet go to the error handling, if any. The batch is always cleared.
+   */
+  @VisibleForTesting
+  void flushBatch() throws KettleException {
+    int i = 0;
+    try {
+      if ( !data.batchKeys.isEmpty() ) {
+        long startTime = System.nanoTime();
+        lookupBatch();
+        if ( meta.isCached() ) {
+          data.cacheLoadTime += System.nanoTime() - startTime;
         }
+      }
 
-        long linesRead = getLinesRead();
-        if ( checkFeedback( linesRead ) ) {
-          logBasic( "linenr " + linesRead );
+      // Only the first row with a key counts as looked up, the others use the same values like a cache hit would
+      //
+      Set<RowMetaAndData> resolved = new HashSet<>();
+      for ( ; i < data.batchRows.size(); i++ ) {
+        Object[] row = data.batchRows.get( i );
+        Object[] lookupRow = data.batchLookupRows.get( i );
+        Object[] add = data.batchCacheHits.get( i );
+        Object[] outputRow;
+        if ( add != null ) {
+          outputRow = addLookupValues( getInputRowMeta(), row, lookupRow, add, true, false, null );
+        } else {
+          RowMetaAndData key = new RowMetaAndData( data.lookupMeta, lookupRow );
+          add = data.batchKeys.get( key );
+          boolean first = resolved.add( key );
+          RowMetaInterface returnedMeta = data.batchReturnMeta;
+          if ( add == null && first && data.batchUnmatched && data.batchKeys.containsKey( key ) ) {
+            // The database matched rows to keys we can't find back, e.g. comparing strings case insensitive or
+            // ignoring trailing spaces: look this key up on its own to get the same result as without a batch
+            //
+            data.db.setValuesLookup( data.lookupMeta, lookupRow );
+            add = data.db.getLookup( meta.isFailingOnMultipleResults() );
+            returnedMeta = data.db.getReturnRowMeta();
+            data.batchKeys.put( key, add );
+          }
+          outputRow = addLookupValues( getInputRowMeta(), row, lookupRow, add, add != null && !first, first,
+            returnedMeta );
         }
+        putLookupRow( row, outputRow );
       }
     } catch ( KettleException e ) {
-      if ( getStepMeta().isDoingErrorHandling() ) {
-        putError( getInputRowMeta(), r, 1, e.getMessage(), null, "DBLOOKUPD001" );
-      } else {
-        logError( BaseMessages.getString( PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing" )
-          + e.getMessage() );
-        setErrors( 1 );
-        stopAll();
-        setOutputDone(); // signal end to receiver(s)
-        return false;
+      if ( !getStepMeta().isDoingErrorHandling() ) {
+        throw e;
+      }
+      for ( ; i < data.batchRows.size(); i++ ) {
+        putError( getInputRowMeta(), data.batchRows.get( i ), 1, e.getMessage(), null, "DBLOOKUPD001" );
       }
+    } finally {
+      clearBatch();
     }
+  }
 
-    return true;
+  private void clearBatch() {
+    data.batchRows.clear();
+    data.batchLookupRows.clear();
+    data.batchCacheHits.clear();
+    data.batchKeys.clear();
+    data.batchUnmatched = false;
+  }
+
+  /**
+   * Looks up all the keys of the batch with one query and stores the first row found for every key.
+   */
+  private void lookupBatch() throws KettleException {
+    int nrKeys = data.lookupMeta.size();
+    List<RowMetaAndData> keys = new ArrayList<>( data.batchKeys.keySet() );
+
+    // The same key fields repeat for every key, set the list directly to avoid renaming them
+    //
+    List<ValueMetaInterface> paramsList = new ArrayList<>( keys.size() * nrKeys );
+    Object[] params = new Object[ keys.size() * nrKeys ];
+    for ( int k = 0; k < keys.size(); k++ ) {
+      for ( int i = 0; i < nrKeys; i++ ) {
+        paramsList.add( data.lookupMeta.getValueMeta( i ) );
+        params[ k * nrKeys + i ] = keys.get( k ).getData()[ i ];
+      }
+    }
+    RowMeta paramsMeta = new RowMeta();
+    paramsMeta.setValueMetaList( paramsList );
+
+    StringBuilder sql = new StringBuilder( data.batchSqlPrefix );
+    sql.append( getBatchLookupCondition( meta.getDatabaseMeta(), meta.getTableKeyField(), keys.size() ) );
+    if ( !Utils.isEmpty( meta.getOrderByClause() ) ) {
+      sql.append( " ORDER BY " ).append( meta.getOrderByClause() );
+    }
+
+    if ( log.isRowLevel() ) {
+      logRowlevel(
+        BaseMessages.getString( PKG, "DatabaseLookup.Log.BatchLookupKeys", String.valueOf( keys.size() ) ) );
+    }
+
+    List<Object[]> rows =
+      data.db.getRows( sql.toString(), paramsMeta, params, ResultSet.FETCH_FORWARD, false, 0, null );
+    RowMetaInterface resultMeta = data.db.getReturnRowMeta();
+
+    data.batchReturnMeta = new RowMeta();
+    for ( int i = nrKeys; i < resultMeta.size(); i++ ) {
+      data.batchReturnMeta.addValueMeta( resultMeta.getValueMeta( i ) );
+    }
+
+    for ( Object[] row : rows ) {
+      // Convert the key to the types of the lookup row to be able to find it back
+      //
+      Object[] keyData = new Object[ nrKeys ];
+      for ( int i = 0; i < nrKeys; i++ ) {
+        keyData[ i ] = data.lookupMeta.getValueMeta( i ).convertData( resultMeta.getValueMeta( i ), row[ i ] );
+      }
+      RowMetaAndData key = new RowMetaAndData( data.lookupMeta, keyData );
+      if ( !data.batchKeys.containsKey( key ) ) {
+        // e.g. a database comparing strings case insensitive: the keys that are not found are looked up one by one
+        data.batchUnmatched = true;
+        continue;
+      }
+      if ( data.batchKeys.get( key ) == null ) {
+        data.batchKeys.put( key, Arrays.copyOfRange( row, nrKeys, nrKeys + data.returnMeta.size() ) );
+      } else if ( meta.isFailingOnMultipleResults() ) {
+        throw new KettleDatabaseException(
+          "Only 1 row was expected as a result of a lookup, and at least 2 were found!" );
+      }
+    }
+  }
+
+  /**
+   * Builds the condition to look up several keys at once. A single key field gives <code>key IN (?, ?, ...)</code>.
+   * Several key fields are compared as a row, <code>(key1, key2) IN ((?, ?), ...)</code>, if the database supports
+   * it. Otherwise the keys are compared one by one: <code>(key1 = ? AND key2 = ?) OR ...</code>
+   *
+   * @param dbMeta the database to look up in
+   * @param keyFields the key fields of the table
+   * @param nrRows the number of keys to look up
+   * @return the condition with nrRows times the number of key fields parameters
+   */
+  @VisibleForTesting
+  static String getBatchLookupCondition( DatabaseMeta dbMeta, String[] keyFields, int nrRows ) {
+    StringBuilder condition = new StringBuilder();
+    if ( keyFields.length == 1 || dbMeta.supportsRowValueInList() ) {
+      StringBuilder columns = new StringBuilder();
+      StringBuilder values = new StringBuilder();
+      for ( int i = 0; i < keyFields.length; i++ ) {
+        if ( i > 0 ) {
+          columns.append( ", " );
+          values.append( ", " );
+        }
+        columns.append( dbMeta.quoteField( keyFields[ i ] ) );
+        values.append( '?' );
+      }
+      if ( keyFields.length > 1 ) {
+        columns.insert( 0, '(' ).append( ')' );
+        values.insert( 0, '(' ).append( ')' );
+      }
+      condition.append( columns ).append( " IN (" );
+      for ( int r = 0; r < nrRows; r++ ) {
+        if ( r > 0 ) {
+          condition.append( ", " );
+        }
+        condition.append( values );
+      }
+      condition.append( ')' );
+    } else {
+      condition.append( '(' );
+      for ( int r = 0; r < nrRows; r++ ) {
+        if ( r > 0 ) {
+          condition.append( " OR " );
+        }
+        condition.append( '(' );
+        for ( int i = 0; i < keyFields.length; i++ ) {
+          if ( i > 0 ) {
+            condition.append( " AND " );
+          }
+          condition.append( dbMeta.quoteField( keyFields[ i ] ) ).append( " = ?" );
+        }
+        condition.append( ')' );
+      }
+      condition.append( ')' );
+    }
+    return condition.toString();
   }
 
   private void loadAllTableDataIntoTheCache() throws KettleException {
@@ -645,6 +982,10 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
       data.db.close();
     }
 
+    if ( data.cache != null ) {
+      reportCacheStatistics();
+    }
+
     // Recover memory immediately, allow in-memory data to be garbage collected
     //
     data.cache = null;
@@ -652,6 +993,20 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     super.dispose( smi, sdi );
   }
 
+  /**
+   * Logs how well the cache did and adds the counters to the metrics of the step.
+   */
+  private void reportCacheStatistics() {
+    long loadTime = TimeUnit.NANOSECONDS.toMillis( data.cacheLoadTime );
+    logBasic( BaseMessages.getString( PKG, "DatabaseLookup.Log.CacheStatistics", String.valueOf( data.cacheHits ),
+      String.valueOf( data.cacheMisses ), String.valueOf( data.cacheEvictions ), String.valueOf( loadTime ) ) );
+
+    log.snap( Metrics.METRIC_STEP_CACHE_HIT_COUNT, data.cacheHits );
+    log.snap( Metrics.METRIC_STEP_CACHE_MISS_COUNT, data.cacheMisses );
+    log.snap( Metrics.METRIC_STEP_CACHE_EVICTION_COUNT, data.cacheEvictions );
+    log.snap( Metrics.METRIC_STEP_CACHE_LOAD_TIME, loadTime );
+  }
+
   /*
    * this method is required in order to
    * provide ability for unit tests to
@@ -13,6 +13,10 @@
 
 package org.pentaho.di.trans.steps.databaselookup;
 
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -40,6 +44,21 @@ public class DatabaseLookupData extends BaseStepData implements StepDataInterfac
   public int[] conditions;
   public boolean hasDBCondition;
 
+  public long cacheHits; // lookups found in the cache
+  public long cacheMisses; // lookups not found in the cache
+  public long cacheEvictions; // entries removed because the cache was full
+  public long cacheLoadTime; // nanoseconds spent reading the values to cache from the database
+
+  public boolean batchLookup; // look up several keys with one query
+  public int batchSize; // the maximum number of distinct keys in one query
+  public String batchSqlPrefix; // the lookup query up to the key condition
+  public List<Object[]> batchRows; // the rows waiting for the batch, in order
+  public List<Object[]> batchLookupRows; // the lookup keys of these rows
+  public List<Object[]> batchCacheHits; // the values found in the cache for these rows, null if not found
+  public Map<RowMetaAndData, Object[]> batchKeys; // the distinct keys to look up, with the values found
+  public RowMetaInterface batchReturnMeta; // the meta-data of the values returned by the last batch query
+  public boolean batchUnmatched; // the last batch query returned rows that match none of its keys
+
   public DatabaseLookupData() {
     super();
 
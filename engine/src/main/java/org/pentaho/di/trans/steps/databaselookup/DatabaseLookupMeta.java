@@ -54,6 +54,7 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
   private static Class<?> PKG = DatabaseLookupMeta.class; // for i18n purposes, needed by Translator2!!
 
   private static final String TAG_CACHE = "cache";
+  private static final String TAG_CACHE_EVICTION = "cache_eviction";
   private static final String TAG_CACHE_LOAD_ALL = "cache_load_all";
   private static final String TAG_CACHE_SIZE = "cache_size";
   private static final String TAG_CONDITION = "condition";
@@ -64,6 +65,7 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
   private static final String TAG_FIELD = "field";
   private static final String TAG_KEY = "key";
   private static final String TAG_LOOKUP = "lookup";
+  private static final String TAG_LOOKUP_BATCH_SIZE = "lookup_batch_size";
   private static final String TAG_LOOKUP_KEY_CONDITION = "lookup_key_condition";
   private static final String TAG_LOOKUP_KEY_FIELD = "lookup_key_field";
   private static final String TAG_LOOKUP_KEY_NAME = "lookup_key_name";
@@ -101,6 +103,17 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
   public static final int CONDITION_IS_NULL = 8;
   public static final int CONDITION_IS_NOT_NULL = 9;
 
+  /** Evict the least recently used entry when the cache is full */
+  public static final int CACHE_EVICTION_LRU = 0;
+  /** Evict the least frequently used entry when the cache is full */
+  public static final int CACHE_EVICTION_LFU = 1;
+
+  public static final String[] cacheEvictionCodes = new String[] { "LRU", "LFU" };
+
+  public static final String[] cacheEvictionDescs = new String[] {
+    BaseMessages.getString( PKG, "DatabaseLookupMeta.CacheEviction.LRU" ),
+    BaseMessages.getString( PKG, "DatabaseLookupMeta.CacheEviction.LFU" ), };
+
   /** what's the lookup schema name? */
   private String schemaName;
 
@@ -143,6 +156,9 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
   /** Limit the cache size to this! */
   private int cacheSize;
 
+  /** Which entry to evict when the cache is full: CACHE_EVICTION_LRU or CACHE_EVICTION_LFU */
+  private int cacheEviction;
+
   /** Flag to make it load all data into the cache at startup */
   private boolean loadingAllDataInCache;
 
@@ -152,6 +168,9 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
   /** Have the lookup eat the incoming row when nothing gets found */
   private boolean eatingRowOnLookupFailure;
 
+  /** Look up this many distinct keys with a single query, 0 or 1 looks up row by row */
+  private int lookupBatchSize;
+
   public DatabaseLookupMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -186,6 +205,52 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
     this.cacheSize = cacheSize;
   }
 
+  /**
+   * @return which entry to evict when the cache is full: CACHE_EVICTION_LRU or CACHE_EVICTION_LFU
+   */
+  public int getCacheEviction() {
+    return cacheEviction;
+  }
+
+  /**
+   * @param cacheEviction
+   *          which entry to evict when the cache is full: CACHE_EVICTION_LRU or CACHE_EVICTION_LFU
+   */
+  public void setCacheEviction( int cacheEviction ) {
+    this.cacheEviction = cacheEviction;
+  }
+
+  public static int getCacheEviction( String code ) {
+    int index = Const.indexOfString( code, cacheEvictionCodes );
+    if ( index < 0 ) {
+      index = Const.indexOfString( code, cacheEvictionDescs );
+    }
+    return Math.max( index, CACHE_EVICTION_LRU );
+  }
+
+  public static String getCacheEvictionCode( int cacheEviction ) {
+    if ( cacheEviction < 0 || cacheEviction >= cacheEvictionCodes.length ) {
+      return cacheEvictionCodes[ CACHE_EVICTION_LRU ];
+    }
+    return cacheEvictionCodes[ cacheEviction ];
+  }
+
+  /**
+   * @return the number of distinct keys to look up with a single query, 0 or 1 to look up row by row.
+   */
+  public int getLookupBatchSize() {
+    return lookupBatchSize;
+  }
+
+  /**
+   * @param lookupBatchSize
+   *          the number of distinct keys to look up with a single query, 0 or 1 to look up row by row. Only
+   *          lookups where all the conditions are "=" are batched.
+   */
+  public void setLookupBatchSize( int lookupBatchSize ) {
+    this.lookupBatchSize = lookupBatchSize;
+  }
+
   /**
    * @return Returns the database.
    */
@@ -424,6 +489,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
       cached = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, TAG_CACHE ) );
       loadingAllDataInCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, TAG_CACHE_LOAD_ALL ) );
       cacheSize = Const.toInt( XMLHandler.getTagValue( stepnode, TAG_CACHE_SIZE ), 0 );
+      cacheEviction = getCacheEviction( XMLHandler.getTagValue( stepnode, TAG_CACHE_EVICTION ) );
+      lookupBatchSize = Const.toInt( XMLHandler.getTagValue( stepnode, TAG_LOOKUP_BATCH_SIZE ), 0 );
       schemaName = XMLHandler.getTagValue( stepnode, TAG_LOOKUP, TAG_SCHEMA );
       tablename = XMLHandler.getTagValue( stepnode, TAG_LOOKUP, TAG_TABLE );
 
@@ -476,6 +543,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
     databaseMeta = null;
     cached = false;
     cacheSize = 0;
+    cacheEviction = CACHE_EVICTION_LRU;
+    lookupBatchSize = 0;
     schemaName = "";
     tablename = BaseMessages.getString( PKG, "DatabaseLookupMeta.Default.TableName" );
 
@@ -522,6 +591,9 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
     retval.append( SPACES4 ).append( XMLHandler.addTagValue( TAG_CACHE, cached ) );
     retval.append( SPACES4 ).append( XMLHandler.addTagValue( TAG_CACHE_LOAD_ALL, loadingAllDataInCache ) );
     retval.append( SPACES4 ).append( XMLHandler.addTagValue( TAG_CACHE_SIZE, cacheSize ) );
+    retval.append( SPACES4 ).append(
+      XMLHandler.addTagValue( TAG_CACHE_EVICTION, getCacheEvictionCode( cacheEviction ) ) );
+    retval.append( SPACES4 ).append( XMLHandler.addTagValue( TAG_LOOKUP_BATCH_SIZE, lookupBatchSize ) );
     retval.append( "    <lookup>" ).append( Const.CR );
     retval.append( SPACES6 ).append( XMLHandler.addTagValue( TAG_SCHEMA, schemaName ) );
     retval.append( SPACES6 ).append( XMLHandler.addTagValue( TAG_TABLE, tablename ) );
@@ -561,6 +633,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
       cached = rep.getStepAttributeBoolean( id_step, TAG_CACHE );
       loadingAllDataInCache = rep.getStepAttributeBoolean( id_step, TAG_CACHE_LOAD_ALL );
       cacheSize = (int) rep.getStepAttributeInteger( id_step, TAG_CACHE_SIZE );
+      cacheEviction = getCacheEviction( rep.getStepAttributeString( id_step, TAG_CACHE_EVICTION ) );
+      lookupBatchSize = (int) rep.getStepAttributeInteger( id_step, TAG_LOOKUP_BATCH_SIZE );
       schemaName = rep.getStepAttributeString( id_step, TAG_LOOKUP_SCHEMA );
       tablename = rep.getStepAttributeString( id_step, TAG_LOOKUP_TABLE );
       orderByClause = rep.getStepAttributeString( id_step, TAG_LOOKUP_ORDERBY );
@@ -599,6 +673,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
       rep.saveStepAttribute( idTransformation, idStep, TAG_CACHE, cached );
       rep.saveStepAttribute( idTransformation, idStep, TAG_CACHE_LOAD_ALL, loadingAllDataInCache );
       rep.saveStepAttribute( idTransformation, idStep, TAG_CACHE_SIZE, cacheSize );
+      rep.saveStepAttribute( idTransformation, idStep, TAG_CACHE_EVICTION, getCacheEvictionCode( cacheEviction ) );
+      rep.saveStepAttribute( idTransformation, idStep, TAG_LOOKUP_BATCH_SIZE, lookupBatchSize );
       rep.saveStepAttribute( idTransformation, idStep, TAG_LOOKUP_SCHEMA, schemaName );
       rep.saveStepAttribute( idTransformation, idStep, TAG_LOOKUP_TABLE, tablename );
       rep.saveStepAttribute( idTransformation, idStep, TAG_LOOKUP_ORDERBY, orderByClause );
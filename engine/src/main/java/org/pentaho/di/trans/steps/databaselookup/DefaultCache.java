@@ -18,34 +18,73 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
- * Old code, copied from {@linkplain DatabaseLookup}
+ * Old code, copied from {@linkplain DatabaseLookup}<br>
+ * <br>
+ * When the cache is full, the entry to evict is chosen by the eviction policy of the step:
+ * <ul>
+ * <li>LRU: the entry that was used the longest time ago</li>
+ * <li>LFU: the entry that was found the least number of times, the oldest of those if there are several</li>
+ * </ul>
+ * The LFU hit counts are halved every time as many new entries as the cache size were stored, so that entries which
+ * were found often a long time ago are evicted eventually and newer entries get a chance to stay.
+ * The entries are only kept in the order they were used if all the conditions are "=". Otherwise the cache is
+ * searched in the order the entries were stored, which needs to stay the same.
  *
  * @author Andrey Khayrutdinov
  */
 public class DefaultCache implements DatabaseLookupData.Cache {
 
   public static DefaultCache newCache( DatabaseLookupData data, int cacheSize ) {
-    return new DefaultCache( data, Math.max( 16, (int) ( cacheSize * 1.5 ) ) );
+    return newCache( data, cacheSize, DatabaseLookupMeta.CACHE_EVICTION_LRU );
+  }
+
+  public static DefaultCache newCache( DatabaseLookupData data, int cacheSize, int cacheEviction ) {
+    return new DefaultCache( data, Math.max( 16, (int) ( cacheSize * 1.5 ) ), cacheEviction );
   }
 
   private final DatabaseLookupData data;
   private final LinkedHashMap<RowMetaAndData, Object[]> map;
+  private final int cacheEviction;
+
+  // LFU only: the number of hits of every entry and the entries by number of hits, the oldest first
+  private final Map<RowMetaAndData, Integer> hits;
+  private final TreeMap<Integer, LinkedHashSet<RowMetaAndData>> entriesByHits;
+  private int storesSinceAging;
 
   DefaultCache( DatabaseLookupData data, int capacity ) {
+    this( data, capacity, DatabaseLookupMeta.CACHE_EVICTION_LRU );
+  }
+
+  DefaultCache( DatabaseLookupData data, int capacity, int cacheEviction ) {
     this.data = data;
-    map = new LinkedHashMap<>( capacity );
+    this.cacheEviction = cacheEviction;
+    boolean accessOrder = cacheEviction == DatabaseLookupMeta.CACHE_EVICTION_LRU && data.allEquals;
+    map = new LinkedHashMap<>( capacity, 0.75f, accessOrder );
+    if ( cacheEviction == DatabaseLookupMeta.CACHE_EVICTION_LFU ) {
+      hits = new HashMap<>( capacity );
+      entriesByHits = new TreeMap<>();
+    } else {
+      hits = null;
+      entriesByHits = null;
+    }
   }
 
   @Override
   public Object[] getRowFromCache( RowMetaInterface lookupMeta, Object[] lookupRow ) throws KettleException {
     if ( data.allEquals ) {
       // only do the map lookup when all equals otherwise conditions >, <, <> will give wrong results
-      Object[] row = map.get( new RowMetaAndData( data.lookupMeta, lookupRow ) );
+      RowMetaAndData key = new RowMetaAndData( data.lookupMeta, lookupRow );
+      Object[] row = map.get( key );
       if ( row != null ) {
+        countHit( key );
         return row;
       }
     } else { // special handling of conditions <,>, <> etc.
@@ -113,6 +152,7 @@ public class DefaultCache implements DatabaseLookupData.Cache {
           if ( match ) {
             Object[] row = entry.getValue();
             if ( row != null ) {
+              countHit( key );
               return row;
             }
           }
@@ -125,12 +165,80 @@ public class DefaultCache implements DatabaseLookupData.Cache {
   @Override
   public void storeRowInCache( DatabaseLookupMeta meta, RowMetaInterface lookupMeta, Object[] lookupRow,
                                Object[] add ) {
-    map.computeIfAbsent( new RowMetaAndData( lookupMeta, lookupRow ), k -> add );
+    RowMetaAndData key = new RowMetaAndData( lookupMeta, lookupRow );
+    if ( map.putIfAbsent( key, add ) != null ) {
+      return;
+    }
+    if ( hits != null ) {
+      hits.put( key, 0 );
+      entriesByHits.computeIfAbsent( 0, h -> new LinkedHashSet<>() ).add( key );
+    }
 
     // DEinspanjer 2009-02-01: If you had previously set a cache size and then turned on load all, this
     // method would throw out entries if the previous cache size wasn't big enough.
-    if ( !meta.isLoadingAllDataInCache() && meta.getCacheSize() > 0 && map.size() > meta.getCacheSize() ) {
-      map.remove( map.entrySet().iterator().next().getKey() );
+    if ( !meta.isLoadingAllDataInCache() && meta.getCacheSize() > 0 ) {
+      if ( hits != null && ++storesSinceAging >= meta.getCacheSize() ) {
+        ageHits();
+      }
+      if ( map.size() > meta.getCacheSize() ) {
+        evict();
+      }
+    }
+  }
+
+  /**
+   * @return the number of entries in the cache
+   */
+  public int size() {
+    return map.size();
+  }
+
+  private void countHit( RowMetaAndData key ) {
+    if ( hits == null ) {
+      return;
+    }
+    Integer count = hits.get( key );
+    if ( count == null ) {
+      return;
+    }
+    removeFromHits( key, count );
+    hits.put( key, count + 1 );
+    entriesByHits.computeIfAbsent( count + 1, h -> new LinkedHashSet<>() ).add( key );
+  }
+
+  private void removeFromHits( RowMetaAndData key, int count ) {
+    LinkedHashSet<RowMetaAndData> keys = entriesByHits.get( count );
+    keys.remove( key );
+    if ( keys.isEmpty() ) {
+      entriesByHits.remove( count );
+    }
+  }
+
+  /**
+   * Halves the hit counts of all the entries. The map is in insertion order for LFU, so the entries with the same
+   * number of hits stay sorted the oldest first.
+   */
+  private void ageHits() {
+    storesSinceAging = 0;
+    entriesByHits.clear();
+    for ( RowMetaAndData key : map.keySet() ) {
+      int count = hits.get( key ) / 2;
+      hits.put( key, count );
+      entriesByHits.computeIfAbsent( count, h -> new LinkedHashSet<>() ).add( key );
+    }
+  }
+
+  private void evict() {
+    RowMetaAndData key;
+    if ( hits != null ) {
+      Iterator<RowMetaAndData> leastUsed = entriesByHits.firstEntry().getValue().iterator();
+      key = leastUsed.next();
+      removeFromHits( key, hits.remove( key ) );
+    } else {
+      // The map is in access order for LRU, in insertion order otherwise
+      key = map.keySet().iterator().next();
     }
+    map.remove( key );
+    data.cacheEvictions++;
   }
 }
@@ -31,7 +31,10 @@ import org.pentaho.di.core.row.ValueMetaInterface;
  *
  * @author matt
  *
+ * @deprecated the pre-load cache of the step is a {@link DimensionVersionCache}, which looks up the versions of a
+ *             natural key without comparing rows.
  */
+@Deprecated
 public class DimensionCache implements Comparator<Object[]> {
   private RowMetaInterface rowMeta;
   private List<Object[]> rowCache;
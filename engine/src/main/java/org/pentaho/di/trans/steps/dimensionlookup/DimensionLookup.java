@@ -292,13 +292,23 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
       data.preloadFromDateIndex = rowMeta.indexOfValue( meta.getDateFrom() );
       data.preloadToDateIndex = rowMeta.indexOfValue( meta.getDateTo() );
 
+      // The technical key is the first field of the query
+      //
       data.preloadCache =
-        new DimensionCache( rowMeta, data.preloadKeyIndexes, data.preloadFromDateIndex, data.preloadToDateIndex );
-      data.preloadCache.setRowCache( rows );
+        new DimensionVersionCache( rowMeta, data.preloadKeyIndexes, data.preloadFromDateIndex,
+          data.preloadToDateIndex, 0 );
+      for ( Object[] cacheRow : rows ) {
+        data.preloadCache.addRow( cacheRow );
+      }
+      rows.clear();
+      logDetailed( "Pre-loaded " + data.preloadCache.size() + " versions of " + data.preloadCache.getNrKeys()
+        + " natural keys." );
 
-      logDetailed( "Sorting the cache rows..." );
-      data.preloadCache.sortRows();
-      logDetailed( "Sorting of cached rows finished." );
+      data.preloadKeyRowMeta = new RowMeta();
+      for ( int index : data.preloadKeyIndexes ) {
+        data.preloadKeyRowMeta.addValueMeta( rowMeta.getValueMeta( index ) );
+      }
+      data.preloadKeyValues = new Object[ data.preloadKeyIndexes.length ];
 
       // Also see what indexes to take to populate the lookup row...
       // We only ever compare indexes and the lookup date in the cache, the rest is not needed...
@@ -344,21 +354,16 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
     if ( !meta.isUpdate() && meta.isPreloadingCache() ) {
       // Obtain a result row from the pre-load cache...
       //
-      // Create a row to compare with
-      //
-      RowMetaInterface preloadRowMeta = data.preloadCache.getRowMeta();
-
       // In this case it's all the same. (simple)
       //
       data.returnRowMeta = data.preloadCache.getRowMeta();
-      lookupRowMeta = preloadRowMeta;
-      lookupRow = new Object[ preloadRowMeta.size() ];
+      lookupRowMeta = data.preloadKeyRowMeta;
+      lookupRow = data.preloadKeyValues;
 
-      // Assemble the lookup row, convert data if needed...
+      // Assemble the natural key, convert data if needed...
       //
       for ( int i = 0; i < data.preloadIndexes.size(); i++ ) {
         int from = data.preloadIndexes.get( i ); // Input row index
-        int to = data.preloadCache.getKeyIndexes()[ i ]; // Lookup row index
 
         // From data type...
         //
@@ -366,33 +371,16 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
 
         // to date type...
         //
-        ValueMetaInterface toValueMeta = data.preloadCache.getRowMeta().getValueMeta( to );
-
-        // From value:
-        //
-        Object fromData = row[ from ];
+        ValueMetaInterface toValueMeta = data.preloadKeyRowMeta.getValueMeta( i );
 
-        // To value:
+        // Set the converted key value...
         //
-        Object toData = toValueMeta.convertData( fromValueMeta, fromData );
-
-        // Set the key in the row...
-        //
-        lookupRow[ to ] = toData;
+        lookupRow[ i ] = toValueMeta.convertData( fromValueMeta, row[ from ] );
       }
 
-      // Also set the lookup date on the "end of date range" (toDate) position
-      //
-      lookupRow[ data.preloadFromDateIndex ] = valueDate;
-
-      // Look up the row in the pre-load cache...
+      // Look up the version valid on the lookup date in the pre-load cache...
       //
-      int index = data.preloadCache.lookupRow( lookupRow );
-      if ( index >= 0 ) {
-        returnRow = data.preloadCache.getRow( index );
-      } else {
-        returnRow = null; // Nothing found!
-      }
+      returnRow = data.preloadCache.lookupRow( lookupRow, valueDate );
 
     } else {
       lookupRow = new Object[ data.lookupRowMeta.size() ];
@@ -78,7 +78,11 @@ public class DimensionLookupData extends BaseDatabaseStepData implements StepDat
   public int preloadFromDateIndex;
   public int preloadToDateIndex;
 
-  public DimensionCache preloadCache;
+  public DimensionVersionCache preloadCache;
+
+  public RowMetaInterface preloadKeyRowMeta;
+
+  public Object[] preloadKeyValues;
 
   public List<Integer> preloadIndexes;
 
@@ -0,0 +1,295 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.dimensionlookup;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * The pre-loaded versions of a slowly changing dimension. Per natural key the versions are kept sorted on their start
+ * date in a single primitive array: the number of versions followed by a (date from, date to, technical key, row)
+ * entry per version, where row is the index of the version in one array of rows shared by all the keys. A lookup finds
+ * the natural key in a hash map and the version valid on the lookup date with a binary search on the start dates, it
+ * doesn't create objects.<br>
+ * <br>
+ * A null start date is kept as the lowest possible date and a null end date as the highest one. A version is valid
+ * from its start date (inclusive) up to its end date (exclusive).<br>
+ * <br>
+ * The cache is only filled once, when the step starts: the step only uses it when it looks up without updating the
+ * dimension.
+ *
+ * @since 11.1
+ */
+public class DimensionVersionCache {
+
+  private static final int FROM = 1;
+  private static final int TO = 2;
+  private static final int TK = 3;
+  private static final int ROW = 4;
+  private static final int SLOTS = 4;
+
+  private final RowMetaInterface rowMeta;
+  private final int[] keyIndexes;
+  private final int fromDateIndex;
+  private final int toDateIndex;
+  private final int technicalKeyIndex;
+
+  private final Map<Key, long[]> versions = new HashMap<>();
+  private final Key probe;
+
+  private Object[][] rows = new Object[ 16 ][];
+  private int size;
+
+  /**
+   * @param rowMeta
+   *          the description of the rows to store
+   * @param keyIndexes
+   *          the indexes of the natural key (in that order)
+   * @param fromDateIndex
+   *          the index of the start of the date range
+   * @param toDateIndex
+   *          the index of the end of the date range
+   * @param technicalKeyIndex
+   *          the index of the technical key
+   */
+  public DimensionVersionCache( RowMetaInterface rowMeta, int[] keyIndexes, int fromDateIndex, int toDateIndex,
+    int technicalKeyIndex ) {
+    this.rowMeta = rowMeta;
+    this.keyIndexes = keyIndexes;
+    this.fromDateIndex = fromDateIndex;
+    this.toDateIndex = toDateIndex;
+    this.technicalKeyIndex = technicalKeyIndex;
+    this.probe = new Key( new Object[ keyIndexes.length ] );
+  }
+
+  /**
+   * Adds a version of a dimension entry, for example a row read from the dimension table or one just inserted. The
+   * versions of the natural key stay sorted on their start date.
+   *
+   * @param row
+   *          the row in the layout of the cache
+   */
+  public void addRow( Object[] row ) throws KettleValueException {
+    long from = getTime( row[ fromDateIndex ], fromDateIndex, Long.MIN_VALUE );
+    long to = getTime( row[ toDateIndex ], toDateIndex, Long.MAX_VALUE );
+    Long technicalKey = rowMeta.getInteger( row, technicalKeyIndex );
+
+    for ( int i = 0; i < keyIndexes.length; i++ ) {
+      probe.values[ i ] = normalize( row[ keyIndexes[ i ] ] );
+    }
+    probe.rehash();
+    long[] entry = versions.get( probe );
+    long[] added = add( entry, from, to, technicalKey == null ? 0L : technicalKey );
+    if ( entry == null ) {
+      Key key = new Key( probe.values.clone() );
+      key.rehash();
+      versions.put( key, added );
+    } else if ( added != entry ) {
+      // The map keeps the key it has
+      versions.put( probe, added );
+    }
+    Arrays.fill( probe.values, null );
+
+    if ( size == rows.length ) {
+      rows = Arrays.copyOf( rows, size * 2 );
+    }
+    rows[ size++ ] = row;
+  }
+
+  /**
+   * Inserts a version after the versions that start earlier or at the same time. The array grows by doubling the
+   * number of versions it can hold.
+   *
+   * @return the array of the versions, a new one if it had to grow
+   */
+  private long[] add( long[] entry, long from, long to, long technicalKey ) {
+    if ( entry == null ) {
+      entry = new long[ 1 + SLOTS ];
+    }
+    int count = (int) entry[ 0 ];
+    if ( 1 + ( count + 1 ) * SLOTS > entry.length ) {
+      entry = Arrays.copyOf( entry, 1 + count * 2 * SLOTS );
+    }
+    int index = count;
+    while ( index > 0 && entry[ ( index - 1 ) * SLOTS + FROM ] > from ) {
+      index--;
+    }
+    System.arraycopy( entry, 1 + index * SLOTS, entry, 1 + ( index + 1 ) * SLOTS, ( count - index ) * SLOTS );
+    entry[ index * SLOTS + FROM ] = from;
+    entry[ index * SLOTS + TO ] = to;
+    entry[ index * SLOTS + TK ] = technicalKey;
+    entry[ index * SLOTS + ROW ] = size;
+    entry[ 0 ] = count + 1;
+    return entry;
+  }
+
+  /**
+   * Looks up the version of a natural key that is valid on a date.
+   *
+   * @param keyValues
+   *          the natural key, converted to the data types of the cache. The array is not kept and can be reused.
+   * @param date
+   *          the lookup date, null for the lowest possible date
+   * @return the row of the version or null if there is none
+   */
+  public Object[] lookupRow( Object[] keyValues, Date date ) {
+    long[] entry = find( keyValues );
+    if ( entry == null ) {
+      return null;
+    }
+    int index = indexOf( entry, date == null ? Long.MIN_VALUE : date.getTime() );
+    return index < 0 ? null : rows[ (int) entry[ index * SLOTS + ROW ] ];
+  }
+
+  /**
+   * Looks up the technical key of the version of a natural key that is valid on a date.
+   *
+   * @param keyValues
+   *          the natural key, converted to the data types of the cache. The array is not kept and can be reused.
+   * @param date
+   *          the lookup date, null for the lowest possible date
+   * @return the technical key or -1 if there is no such version
+   */
+  public long lookupTechnicalKey( Object[] keyValues, Date date ) {
+    long[] entry = find( keyValues );
+    if ( entry == null ) {
+      return -1L;
+    }
+    int index = indexOf( entry, date == null ? Long.MIN_VALUE : date.getTime() );
+    return index < 0 ? -1L : entry[ index * SLOTS + TK ];
+  }
+
+  /**
+   * @return the index of the last version that starts on or before the time and ends after it, or -1
+   */
+  private static int indexOf( long[] entry, long time ) {
+    int low = 0;
+    int high = (int) entry[ 0 ] - 1;
+    int found = -1;
+    while ( low <= high ) {
+      int mid = ( low + high ) >>> 1;
+      if ( entry[ mid * SLOTS + FROM ] <= time ) {
+        found = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    if ( found >= 0 && time < entry[ found * SLOTS + TO ] ) {
+      return found;
+    }
+    return -1;
+  }
+
+  private long[] find( Object[] keyValues ) {
+    for ( int i = 0; i < keyValues.length; i++ ) {
+      probe.values[ i ] = normalize( keyValues[ i ] );
+    }
+    probe.rehash();
+    long[] entry = versions.get( probe );
+    // Don't hold on to the values of the caller
+    Arrays.fill( probe.values, null );
+    return entry;
+  }
+
+  /**
+   * BigDecimal takes the scale into account in equals() and hashCode(), the database and the input may differ in it.
+   */
+  private static Object normalize( Object value ) {
+    if ( value instanceof BigDecimal ) {
+      return ( (BigDecimal) value ).stripTrailingZeros();
+    }
+    return value;
+  }
+
+  private long getTime( Object value, int index, long nullTime ) throws KettleValueException {
+    Date date = rowMeta.getValueMeta( index ).getDate( value );
+    return date == null ? nullTime : date.getTime();
+  }
+
+  /**
+   * @return the number of cached versions
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the number of cached natural keys
+   */
+  public int getNrKeys() {
+    return versions.size();
+  }
+
+  /**
+   * @return the description of the cached rows
+   */
+  public RowMetaInterface getRowMeta() {
+    return rowMeta;
+  }
+
+  /**
+   * @return the indexes of the natural key in the cached rows
+   */
+  public int[] getKeyIndexes() {
+    return keyIndexes;
+  }
+
+  /**
+   * @return the index of the start of the date range in the cached rows
+   */
+  public int getFromDateIndex() {
+    return fromDateIndex;
+  }
+
+  /**
+   * @return the index of the end of the date range in the cached rows
+   */
+  public int getToDateIndex() {
+    return toDateIndex;
+  }
+
+  /**
+   * The natural key of a version. The probe key of the lookups is filled in again for every lookup.
+   */
+  private static class Key {
+    private final Object[] values;
+    private int hash;
+
+    Key( Object[] values ) {
+      this.values = values;
+    }
+
+    void rehash() {
+      hash = Arrays.hashCode( values );
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals( Object obj ) {
+      return obj instanceof Key && Arrays.equals( values, ( (Key) obj ).values );
+    }
+  }
+}
@@ -0,0 +1,409 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.filterrows;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.pentaho.di.core.Condition;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.row.ColumnarRowBatch;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaAndData;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Evaluates a condition on a whole {@link ColumnarRowBatch} at once, with a loop over the primitive values of a column
+ * per comparison.<br>
+ * <br>
+ * Only conditions made up of comparisons (=, &lt;&gt;, &lt;, &lt;=, &gt;, &gt;=, IS NULL, IS NOT NULL) of Integer or
+ * Number fields with a constant of the same type or with another field of the same type can be compiled. The results
+ * are exactly the same as the ones of {@link Condition#evaluate(RowMetaInterface, Object[])}, including the handling
+ * of null values.
+ */
+class ColumnarCondition {
+
+  private final Node root;
+  private final int[] fieldIndexes;
+
+  private ColumnarCondition( Node root, Set<Integer> fieldIndexes ) {
+    this.root = root;
+    this.fieldIndexes = new int[ fieldIndexes.size() ];
+    int i = 0;
+    for ( Integer index : fieldIndexes ) {
+      this.fieldIndexes[ i++ ] = index;
+    }
+  }
+
+  /**
+   * @return the compiled condition or null if the condition can't be evaluated on a columnar batch
+   */
+  static ColumnarCondition compile( Condition condition, RowMetaInterface rowMeta ) {
+    Set<Integer> fieldIndexes = new LinkedHashSet<>();
+    Node root = compileNode( condition, rowMeta, fieldIndexes );
+    if ( root == null || fieldIndexes.isEmpty() ) {
+      return null;
+    }
+    return new ColumnarCondition( root, fieldIndexes );
+  }
+
+  /**
+   * @return the indexes of the fields the condition needs to be loaded in the batch
+   */
+  int[] getFieldIndexes() {
+    return fieldIndexes;
+  }
+
+  /**
+   * Evaluates the condition for all rows in the batch.
+   *
+   * @param batch
+   *          the batch with at least the fields of {@link #getFieldIndexes()} loaded
+   * @param result
+   *          receives the result for every row in the batch
+   */
+  void evaluate( ColumnarRowBatch batch, boolean[] result ) {
+    // Read once per batch instead of once per row, like Condition does
+    //
+    boolean nullsAreNotSmaller =
+      "Y".equalsIgnoreCase( System.getProperty( Const.KETTLE_FILTER_TREAT_NULLS_AS_NOT_ZERO, "N" ) );
+    root.evaluate( batch, batch.size(), nullsAreNotSmaller, result );
+  }
+
+  private static Node compileNode( Condition condition, RowMetaInterface rowMeta, Set<Integer> fieldIndexes ) {
+    if ( !condition.isAtomic() ) {
+      List<Node> children = new ArrayList<>();
+      int[] operators = new int[ condition.nrConditions() ];
+      for ( int i = 0; i < condition.nrConditions(); i++ ) {
+        Condition child = condition.getCondition( i );
+        Node node = compileNode( child, rowMeta, fieldIndexes );
+        if ( node == null ) {
+          return null;
+        }
+        children.add( node );
+        operators[ i ] = child.getOperator();
+        if ( i > 0 && !isSupportedOperator( operators[ i ] ) ) {
+          return null;
+        }
+      }
+      return new Composite( children.toArray( new Node[ 0 ] ), operators, condition.isNegated() );
+    }
+
+    int function = condition.getFunction();
+    if ( function == Condition.FUNC_TRUE ) {
+      return new Constant( !condition.isNegated() );
+    }
+    if ( function > Condition.FUNC_LARGER_EQUAL && function != Condition.FUNC_NULL
+      && function != Condition.FUNC_NOT_NULL ) {
+      return null;
+    }
+
+    int left = indexOf( rowMeta, condition.getLeftValuename() );
+    if ( left < 0 ) {
+      return null;
+    }
+    ValueMetaInterface leftMeta = rowMeta.getValueMeta( left );
+    int columnType = ColumnarRowBatch.getColumnType( leftMeta );
+    if ( ( columnType != ColumnarRowBatch.COLUMN_LONG && columnType != ColumnarRowBatch.COLUMN_DOUBLE )
+      || leftMeta.isSortedDescending() ) {
+      return null;
+    }
+
+    if ( function == Condition.FUNC_NULL || function == Condition.FUNC_NOT_NULL ) {
+      fieldIndexes.add( left );
+      return new Comparison( left, -1, function, 0L, 0.0, condition.isNegated() );
+    }
+
+    // Compare with a constant...
+    //
+    ValueMetaAndData exact = condition.getRightExact();
+    if ( exact != null && exact.getValueData() != null ) {
+      ValueMetaInterface exactMeta = exact.getValueMeta();
+      if ( exactMeta == null || ColumnarRowBatch.getColumnType( exactMeta ) != columnType ) {
+        return null;
+      }
+      fieldIndexes.add( left );
+      if ( columnType == ColumnarRowBatch.COLUMN_LONG ) {
+        long value = ( (Long) exact.getValueData() ).longValue();
+        return new Comparison( left, -1, function, value, 0.0, condition.isNegated() );
+      } else {
+        double value = ( (Double) exact.getValueData() ).doubleValue();
+        return new Comparison( left, -1, function, 0L, value, condition.isNegated() );
+      }
+    }
+
+    // ... or with another field
+    //
+    int right = indexOf( rowMeta, condition.getRightValuename() );
+    if ( right < 0 ) {
+      return null;
+    }
+    ValueMetaInterface rightMeta = rowMeta.getValueMeta( right );
+    if ( ColumnarRowBatch.getColumnType( rightMeta ) != columnType ) {
+      return null;
+    }
+    fieldIndexes.add( left );
+    fieldIndexes.add( right );
+    return new Comparison( left, right, function, 0L, 0.0, condition.isNegated() );
+  }
+
+  private static boolean isSupportedOperator( int operator ) {
+    switch ( operator ) {
+      case Condition.OPERATOR_AND:
+      case Condition.OPERATOR_OR:
+      case Condition.OPERATOR_AND_NOT:
+      case Condition.OPERATOR_OR_NOT:
+      case Condition.OPERATOR_XOR:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static int indexOf( RowMetaInterface rowMeta, String name ) {
+    if ( name == null || name.length() == 0 ) {
+      return -1;
+    }
+    return rowMeta.indexOfValue( name );
+  }
+
+  private interface Node {
+    void evaluate( ColumnarRowBatch batch, int size, boolean nullsAreNotSmaller, boolean[] result );
+  }
+
+  private static final class Constant implements Node {
+    private final boolean value;
+
+    Constant( boolean value ) {
+      this.value = value;
+    }
+
+    @Override
+    public void evaluate( ColumnarRowBatch batch, int size, boolean nullsAreNotSmaller, boolean[] result ) {
+      for ( int r = 0; r < size; r++ ) {
+        result[ r ] = value;
+      }
+    }
+  }
+
+  private static final class Composite implements Node {
+    private final Node[] children;
+    private final int[] operators;
+    private final boolean negate;
+    private boolean[] buffer;
+
+    Composite( Node[] children, int[] operators, boolean negate ) {
+      this.children = children;
+      this.operators = operators;
+      this.negate = negate;
+    }
+
+    @Override
+    public void evaluate( ColumnarRowBatch batch, int size, boolean nullsAreNotSmaller, boolean[] result ) {
+      children[ 0 ].evaluate( batch, size, nullsAreNotSmaller, result );
+      if ( children.length > 1 && ( buffer == null || buffer.length < size ) ) {
+        buffer = new boolean[ result.length ];
+      }
+      for ( int i = 1; i < children.length; i++ ) {
+        children[ i ].evaluate( batch, size, nullsAreNotSmaller, buffer );
+        switch ( operators[ i ] ) {
+          case Condition.OPERATOR_OR:
+            for ( int r = 0; r < size; r++ ) {
+              result[ r ] |= buffer[ r ];
+            }
+            break;
+          case Condition.OPERATOR_AND:
+            for ( int r = 0; r < size; r++ ) {
+              result[ r ] &= buffer[ r ];
+            }
+            break;
+          case Condition.OPERATOR_OR_NOT:
+            for ( int r = 0; r < size; r++ ) {
+              result[ r ] |= !buffer[ r ];
+            }
+            break;
+          case Condition.OPERATOR_AND_NOT:
+            for ( int r = 0; r < size; r++ ) {
+              result[ r ] &= !buffer[ r ];
+            }
+            break;
+          default: // XOR
+            for ( int r = 0; r < size; r++ ) {
+              result[ r ] ^= buffer[ r ];
+            }
+            break;
+        }
+      }
+      if ( negate ) {
+        for ( int r = 0; r < size; r++ ) {
+          result[ r ] = !result[ r ];
+        }
+      }
+    }
+  }
+
+  /**
+   * A comparison of a field with a constant (right &lt; 0) or with another field. Null values sort before all other
+   * values, just like in ValueMetaBase.compare().
+   */
+  private static final class Comparison implements Node {
+    private final int left;
+    private final int right;
+    private final int function;
+    private final long longValue;
+    private final double doubleValue;
+    private final boolean negate;
+
+    Comparison( int left, int right, int function, long longValue, double doubleValue, boolean negate ) {
+      this.left = left;
+      this.right = right;
+      this.function = function;
+      this.longValue = longValue;
+      this.doubleValue = doubleValue;
+      this.negate = negate;
+    }
+
+    @Override
+    public void evaluate( ColumnarRowBatch batch, int size, boolean nullsAreNotSmaller, boolean[] result ) {
+      long[] leftNulls = batch.getNulls( left );
+
+      if ( function == Condition.FUNC_NULL || function == Condition.FUNC_NOT_NULL ) {
+        boolean whenNull = function == Condition.FUNC_NULL;
+        for ( int r = 0; r < size; r++ ) {
+          boolean isNull = ( leftNulls[ r >>> 6 ] & ( 1L << r ) ) != 0;
+          result[ r ] = ( isNull == whenNull ) != negate;
+        }
+        return;
+      }
+
+      // First the comparison of the values, ignoring nulls...
+      //
+      if ( batch.getColumnType( left ) == ColumnarRowBatch.COLUMN_LONG ) {
+        long[] values = batch.getLongs( left );
+        if ( right < 0 ) {
+          compare( values, longValue, size, result );
+        } else {
+          compare( values, batch.getLongs( right ), size, result );
+        }
+      } else {
+        double[] values = batch.getDoubles( left );
+        if ( right < 0 ) {
+          compare( values, doubleValue, size, result );
+        } else {
+          compare( values, batch.getDoubles( right ), size, result );
+        }
+      }
+
+      // ... then patch up the rows with nulls, those are rare
+      //
+      long[] rightNulls = right < 0 ? null : batch.getNulls( right );
+      int words = ( size + 63 ) >>> 6;
+      for ( int w = 0; w < words; w++ ) {
+        long mask = leftNulls[ w ] | ( rightNulls == null ? 0L : rightNulls[ w ] );
+        while ( mask != 0L ) {
+          int r = ( w << 6 ) + Long.numberOfTrailingZeros( mask );
+          mask &= mask - 1;
+          if ( r >= size ) {
+            break;
+          }
+          boolean leftNull = ( leftNulls[ w ] & ( 1L << r ) ) != 0;
+          boolean rightNull = rightNulls != null && ( rightNulls[ w ] & ( 1L << r ) ) != 0;
+          int cmp = leftNull ? ( rightNull ? 0 : -1 ) : 1;
+          result[ r ] = matches( cmp, leftNull && nullsAreNotSmaller );
+        }
+      }
+
+      if ( negate ) {
+        for ( int r = 0; r < size; r++ ) {
+          result[ r ] = !result[ r ];
+        }
+      }
+    }
+
+    private boolean matches( int cmp, boolean nullIsNotSmaller ) {
+      switch ( function ) {
+        case Condition.FUNC_EQUAL:
+          return cmp == 0;
+        case Condition.FUNC_NOT_EQUAL:
+          return cmp != 0;
+        case Condition.FUNC_SMALLER:
+          return !nullIsNotSmaller && cmp < 0;
+        case Condition.FUNC_SMALLER_EQUAL:
+          return !nullIsNotSmaller && cmp <= 0;
+        case Condition.FUNC_LARGER:
+          return cmp > 0;
+        default: // FUNC_LARGER_EQUAL
+          return cmp >= 0;
+      }
+    }
+
+    private void compare( long[] values, long value, int size, boolean[] result ) {
+      switch ( function ) {
+        case Condition.FUNC_EQUAL:
+          for ( int r = 0; r < size; r++ ) {
+            result[ r ] = values[ r ] == value;
+          }
+          break;
+        case Condition.FUNC_NOT_EQUAL:
+          for ( int r = 0; r < size; r++ ) {
+            result[ r ] = values[ r ] != value;
+          }
+          break;
+        case Condition.FUNC_SMALLER:
+          for ( int r = 0; r < size; r++ ) {
+            result[ r ] = values[ r ] < value;
+          }
+          break;
+        case Condition.FUNC_SMALLER_EQUAL:
+          for ( int r = 0; r < size; r++ ) {
+            result[ r ] = values[ r ] <= value;
+          }
+          break;
+        case Condition.FUNC_LARGER:
+          for ( int r = 0; r < size; r++ ) {
+            result[ r ] = values[ r ] > value;
+          }
+          break;
+        default:
+          for ( int r = 0; r < size; r++ ) {
+            result[ r ] = values[ r ] >= value;
+          }
+          break;
+      }
+    }
+
+    private void compare( long[] values, long[] others, int size, boolean[] result ) {
+      for ( int r = 0; r < size; r++ ) {
+        result[ r ] = matches( Long.compare( values[ r ], others[ r ] ), false );
+      }
+    }
+
+    /**
+     * Uses Double.compare() semantics, like ValueMetaBase does, so that NaN and -0.0 behave the same.
+     */
+    private void compare( double[] values, double value, int size, boolean[] result ) {
+      for ( int r = 0; r < size; r++ ) {
+        result[ r ] = matches( Double.compare( values[ r ], value ), false );
+      }
+    }
+
+    private void compare( double[] values, double[] others, int size, boolean[] result ) {
+      for ( int r = 0; r < size; r++ ) {
+        result[ r ] = matches( Double.compare( values[ r ], others[ r ] ), false );
+      }
+    }
+  }
+}
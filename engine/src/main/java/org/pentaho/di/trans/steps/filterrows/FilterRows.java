@@ -13,11 +13,13 @@
 
 package org.pentaho.di.trans.steps.filterrows;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.ColumnarRowBatch;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -65,8 +67,8 @@ public class FilterRows extends BaseStep implements StepInterface {
 
     boolean keep;
 
-    Object[] r = getRow(); // Get next usable row from input rowset(s)!
-    if ( r == null ) { // no more input to be expected...
+    Object[][] rows = getRows( ROW_BATCH_SIZE ); // Get next usable rows from input rowset(s)!
+    if ( rows == null ) { // no more input to be expected...
 
       setOutputDone();
       return false;
@@ -75,6 +77,7 @@ public class FilterRows extends BaseStep implements StepInterface {
     if ( first ) {
       first = false;
 
+      data.keptRows = new Object[ ROW_BATCH_SIZE ][];
       data.outputRowMeta = getInputRowMeta().clone();
       meta.getFields( getTransMeta().getBowl(), data.outputRowMeta, getStepname(), null, null, this, repository,
         metaStore );
@@ -82,6 +85,17 @@ public class FilterRows extends BaseStep implements StepInterface {
       // if filter refers to non-existing fields, throw exception
       checkNonExistingFields();
 
+      // Simple numeric conditions are evaluated a whole batch at a time
+      //
+      data.columnarCondition = ColumnarCondition.compile( meta.getCondition(), getInputRowMeta() );
+      if ( data.columnarCondition != null ) {
+        data.columnarBatch = new ColumnarRowBatch( getInputRowMeta(), ROW_BATCH_SIZE );
+        data.keep = new boolean[ ROW_BATCH_SIZE ];
+        if ( log.isDetailed() ) {
+          logDetailed( BaseMessages.getString( PKG, "FilterRows.Log.UsingColumnarEvaluation" ) );
+        }
+      }
+
       // Cache the position of the RowSet for the output.
       //
       if ( data.chosesTargetSteps ) {
@@ -108,30 +122,45 @@ public class FilterRows extends BaseStep implements StepInterface {
       }
     }
 
-    keep = keepRow( getInputRowMeta(), r ); // Keep this row?
-    if ( !data.chosesTargetSteps ) {
-      if ( keep ) {
-        putRow( data.outputRowMeta, r ); // copy row to output rowset(s);
-      }
-    } else {
-      if ( keep ) {
-        if ( data.trueRowSet != null ) {
-          if ( log.isRowLevel() ) {
-            logRowlevel( "Sending row to true  :" + data.trueStepname + " : " + getInputRowMeta().getString( r ) );
-          }
-          putRowTo( data.outputRowMeta, r, data.trueRowSet );
+    if ( data.columnarCondition != null ) {
+      data.columnarBatch.load( rows, rows.length, data.columnarCondition.getFieldIndexes() );
+      data.columnarCondition.evaluate( data.columnarBatch, data.keep );
+    }
+
+    int nrKept = 0;
+    for ( int i = 0; i < rows.length; i++ ) {
+      Object[] r = rows[ i ];
+      // Keep this row?
+      keep = data.columnarCondition != null ? data.keep[ i ] : keepRow( getInputRowMeta(), r );
+      if ( !data.chosesTargetSteps ) {
+        if ( keep ) {
+          data.keptRows[ nrKept++ ] = r; // copy row to output rowset(s) with the rest of the batch
         }
       } else {
-        if ( data.falseRowSet != null ) {
-          if ( log.isRowLevel() ) {
-            logRowlevel( "Sending row to false :" + data.falseStepname + " : " + getInputRowMeta().getString( r ) );
+        if ( keep ) {
+          if ( data.trueRowSet != null ) {
+            if ( log.isRowLevel() ) {
+              logRowlevel( "Sending row to true  :" + data.trueStepname + " : " + getInputRowMeta().getString( r ) );
+            }
+            putRowTo( data.outputRowMeta, r, data.trueRowSet );
+          }
+        } else {
+          if ( data.falseRowSet != null ) {
+            if ( log.isRowLevel() ) {
+              logRowlevel( "Sending row to false :" + data.falseStepname + " : " + getInputRowMeta().getString( r ) );
+            }
+            putRowTo( data.outputRowMeta, r, data.falseRowSet );
           }
-          putRowTo( data.outputRowMeta, r, data.falseRowSet );
         }
       }
     }
 
-    if ( checkFeedback( getLinesRead() ) ) {
+    if ( nrKept > 0 ) {
+      putRows( data.outputRowMeta, data.keptRows, nrKept );
+      Arrays.fill( data.keptRows, 0, nrKept, null );
+    }
+
+    if ( checkFeedback( getLinesRead(), rows.length ) ) {
       if ( log.isBasic() ) {
         logBasic( BaseMessages.getString( PKG, "FilterRows.Log.LineNumber" ) + getLinesRead() );
       }
@@ -14,6 +14,7 @@
 package org.pentaho.di.trans.steps.filterrows;
 
 import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.row.ColumnarRowBatch;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -32,6 +33,14 @@ public class FilterRowsData extends BaseStepData implements StepDataInterface {
   public String trueStepname;
   public String falseStepname;
 
+  /** Re-used buffer for the rows of a batch that are sent to the next steps */
+  public Object[][] keptRows;
+
+  /** The condition compiled for columnar evaluation, null if the condition is evaluated row by row */
+  ColumnarCondition columnarCondition;
+  ColumnarRowBatch columnarBatch;
+  boolean[] keep;
+
   public FilterRowsData() {
     super();
   }
@@ -19,6 +19,7 @@ import java.util.List;
 import org.apache.commons.lang.ArrayUtils;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.database.StagingTable;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
@@ -47,6 +48,9 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
   private InsertUpdateMeta meta;
   private InsertUpdateData data;
 
+  /** The number of rows to stage at a time when there is no commit size */
+  static final int DEFAULT_STAGING_SIZE = 1000;
+
   public InsertUpdate( StepMeta stepMeta, StepDataInterface stepDataInterface, int copyNr, TransMeta transMeta,
     Trans trans ) {
     super( stepMeta, stepDataInterface, copyNr, transMeta, trans );
@@ -174,6 +178,15 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
     if ( r == null ) {
       // no more input to be expected...
 
+      if ( data.stagingTable != null ) {
+        try {
+          applyStagedRows();
+        } catch ( KettleException e ) {
+          logError( BaseMessages.getString( PKG, "InsertUpdate.Log.ErrorInStep" ), e );
+          setErrors( 1 );
+          stopAll();
+        }
+      }
       setOutputDone();
       return false;
     }
@@ -252,8 +265,6 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
         }
       }
 
-      setLookup( getInputRowMeta() );
-
       data.insertRowMeta = new RowMeta();
 
       // Insert the update fields: just names. Type doesn't matter!
@@ -273,23 +284,20 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
             + insValue.getName() ); // TODO i18n
         }
       }
-      data.db.prepareInsert(
-        data.insertRowMeta, environmentSubstitute( meta.getSchemaName() ), environmentSubstitute( meta
-          .getTableName() ) );
 
-      if ( !meta.isUpdateBypassed() ) {
-        List<String> updateColumns = new ArrayList<String>();
-        for ( int i = 0; i < meta.getUpdateFields().length; i++ ) {
-          if ( meta.getUpdateFields()[ i ].getUpdate().booleanValue() ) {
-            updateColumns.add( meta.getUpdateFields()[ i ].getUpdateLookup() );
-          }
-        }
-        prepareUpdate( getInputRowMeta() );
+      if ( canUseStagingTable() ) {
+        createStagingTable();
+      } else {
+        prepareStatements();
       }
     }
 
     try {
-      lookupValues( getInputRowMeta(), r ); // add new values to the row in rowset[0].
+      if ( data.stagingTable != null ) {
+        stageRow( r );
+      } else {
+        lookupValues( getInputRowMeta(), r ); // add new values to the row in rowset[0].
+      }
       putRow( data.outputRowMeta, r ); // Nothing changed to the input, return the same row, pass a "cloned" metadata
       // row.
 
@@ -319,6 +327,125 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
     return true;
   }
 
+  private void prepareStatements() throws KettleException {
+    setLookup( getInputRowMeta() );
+
+    data.db.prepareInsert(
+      data.insertRowMeta, environmentSubstitute( meta.getSchemaName() ), environmentSubstitute( meta
+        .getTableName() ) );
+
+    if ( !meta.isUpdateBypassed() ) {
+      prepareUpdate( getInputRowMeta() );
+    }
+  }
+
+  /**
+   * The rows can only be applied in sets if the database supports it and if every key is compared with "=" and
+   * inserted from the same field: the inserted keys are what the database matches the rows on. Errors can't be traced
+   * back to a single row, so error handling needs the rows one by one.
+   */
+  boolean canUseStagingTable() {
+    if ( !meta.isUseStagingTable() ) {
+      return false;
+    }
+    if ( !meta.getDatabaseMeta().supportsUpsertFromTable() ) {
+      logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.StagingTableNotSupported",
+        meta.getDatabaseMeta().getName() ) );
+      return false;
+    }
+    if ( getStepMeta().isDoingErrorHandling() ) {
+      logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.StagingTableErrorHandling" ) );
+      return false;
+    }
+    if ( meta.getKeyFields().length == 0 ) {
+      logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.StagingTableNeedsEquals" ) );
+      return false;
+    }
+    for ( InsertUpdateMeta.KeyField keyField : meta.getKeyFields() ) {
+      if ( !"=".equals( keyField.getKeyCondition() ) || !isInserted( keyField ) ) {
+        logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.StagingTableNeedsEquals" ) );
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isInserted( InsertUpdateMeta.KeyField keyField ) {
+    for ( InsertUpdateMeta.UpdateField updateField : meta.getUpdateFields() ) {
+      if ( keyField.getKeyLookup().equalsIgnoreCase( updateField.getUpdateLookup() )
+        && keyField.getKeyStream().equalsIgnoreCase( updateField.getUpdateStream() ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void createStagingTable() throws KettleException {
+    String[] keyColumns = new String[ meta.getKeyFields().length ];
+    for ( int i = 0; i < keyColumns.length; i++ ) {
+      keyColumns[ i ] = meta.getKeyFields()[ i ].getKeyLookup();
+    }
+    List<String> updateColumns = new ArrayList<>();
+    if ( !meta.isUpdateBypassed() ) {
+      for ( int i = 0; i < meta.getUpdateFields().length; i++ ) {
+        if ( meta.getUpdateFields()[ i ].getUpdate().booleanValue() ) {
+          updateColumns.add( meta.getUpdateFields()[ i ].getUpdateLookup() );
+        }
+      }
+    }
+    data.stagingTable = new StagingTable( data.db, data.schemaTable, data.insertRowMeta, keyColumns,
+      updateColumns.toArray( new String[ 0 ] ) );
+    data.stagingSize = meta.getCommitSize( this ) > 0 ? meta.getCommitSize( this ) : DEFAULT_STAGING_SIZE;
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "InsertUpdate.Log.UsingStagingTable",
+        String.valueOf( data.stagingSize ), data.stagingTable.getTableName() ) );
+    }
+  }
+
+  /**
+   * Stage a row to apply it with the next set. A row with a null key never matches a row of the target table, nor
+   * another staged row: it is applied on its own, like without a staging table, so that it is not merged away.
+   */
+  private void stageRow( Object[] row ) throws KettleException {
+    for ( int keynr : data.keynrs ) {
+      if ( row[ keynr ] == null ) {
+        if ( data.prepStatementLookup == null ) {
+          prepareStatements();
+        }
+        lookupValues( getInputRowMeta(), row );
+        return;
+      }
+    }
+    Object[] insertRow = new Object[ data.valuenrs.length ];
+    for ( int i = 0; i < data.valuenrs.length; i++ ) {
+      insertRow[ i ] = row[ data.valuenrs[ i ] ];
+    }
+    data.stagingTable.addRow( insertRow );
+    if ( data.stagingTable.size() >= data.stagingSize ) {
+      applyStagedRows();
+    }
+  }
+
+  /**
+   * Insert or update the staged rows in the target table with a single statement and commit.
+   */
+  void applyStagedRows() throws KettleException {
+    int nrRows = data.stagingTable.size();
+    if ( nrRows == 0 ) {
+      return;
+    }
+    int count = data.stagingTable.upsert();
+    if ( !data.db.isAutoCommit() ) {
+      data.db.commit();
+    }
+    if ( log.isDebug() ) {
+      logDebug( BaseMessages.getString( PKG, "InsertUpdate.Log.AppliedStagedRows", String.valueOf( nrRows ),
+        String.valueOf( count ) ) );
+    }
+    // The database doesn't tell how many of the rows were inserted and how many were updated
+    setLinesOutput( getLinesOutput() + nrRows );
+  }
+
 
 
   public void setLookup( RowMetaInterface rowMeta ) throws KettleDatabaseException {
@@ -497,6 +624,9 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
         }
         data.db.closeUpdate();
         data.db.closeInsert();
+        if ( data.stagingTable != null ) {
+          data.stagingTable.close();
+        }
       } catch ( KettleDatabaseException e ) {
         logError( BaseMessages.getString( PKG, "InsertUpdate.Log.UnableToCommitConnection" ) + e.toString() );
         setErrors( 1 );
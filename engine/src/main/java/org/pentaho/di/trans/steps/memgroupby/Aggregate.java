@@ -21,4 +21,11 @@ public class Aggregate {
   public Set<Object>[] distinctObjs;
   public double[] mean;
 
+  /** Running sums of integers, kept as primitives so that adding a value doesn't allocate anything */
+  public long[] longSums;
+  /** Running sums of numbers and the sums of squared differences of the standard deviations */
+  public double[] doubleSums;
+  /** The sketches of the distinct values when the counts need to be merged */
+  public HyperLogLog[] distinctSketches;
+
 }
@@ -13,6 +13,11 @@
 
 package org.pentaho.di.trans.steps.memgroupby;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -21,9 +26,11 @@ import java.util.TreeSet;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.math.stat.descriptive.rank.Percentile;
+import org.apache.commons.vfs2.FileSystemException;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
@@ -34,6 +41,8 @@ import org.pentaho.di.core.row.value.ValueMetaBase;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
 import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.vfs.IKettleVFS;
+import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -43,6 +52,7 @@ import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByData.HashEntry;
+import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByData.SpillFile;
 
 /**
  * Groups information based on aggregation rules. (sum, count, ...)
@@ -53,6 +63,13 @@ import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByData.HashEntry;
 public class MemoryGroupBy extends BaseStep implements StepInterface {
   private static Class<?> PKG = MemoryGroupByMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** The rows that are spilled to disk are divided over 2^SPILL_PARTITION_BITS partitions */
+  private static final int SPILL_PARTITION_BITS = 4;
+  private static final int SPILL_PARTITIONS = 1 << SPILL_PARTITION_BITS;
+
+  /** Every level uses the next bits of the hash code, after that the groups can't be divided any further */
+  private static final int MAX_SPILL_LEVEL = 32 / SPILL_PARTITION_BITS;
+
   private MemoryGroupByMeta meta;
 
   private MemoryGroupByData data;
@@ -89,6 +106,22 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       compatibilityMode = ValueMetaBase.convertStringToBoolean(
         getVariable( Const.KETTLE_COMPATIBILITY_MEMORY_GROUP_BY_SUM_AVERAGE_RETURN_NUMBER_TYPE, "N" ) );
 
+      // Partial results can only be produced for aggregates that can be merged afterwards
+      //
+      data.partial = meta.getAggregationMode() == MemoryGroupByMeta.AGGREGATION_MODE_PARTIAL;
+      data.merging = meta.getAggregationMode() == MemoryGroupByMeta.AGGREGATION_MODE_MERGE;
+      if ( data.partial || data.merging ) {
+        for ( int i = 0; i < meta.getAggregateType().length; i++ ) {
+          if ( !MemoryGroupByMeta.isMergeable( meta.getAggregateType()[i] ) ) {
+            logError( BaseMessages.getString( PKG, "MemoryGroupByMeta.CheckResult.AggregateNotMergeable",
+              meta.getAggregateField()[i], MemoryGroupByMeta.getTypeDescLong( meta.getAggregateType()[i] ) ) );
+            setErrors( 1 );
+            stopAll();
+            return false;
+          }
+        }
+      }
+
       // What is the output looking like?
       //
       data.inputRowMeta = getInputRowMeta();
@@ -115,20 +148,27 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       // If the step does not receive any rows, we can not lookup field position indexes
       if ( r != null ) {
         for ( int i = 0; i < meta.getSubjectField().length; i++ ) {
-          if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY ) {
+          if ( data.merging ) {
+            // The partial results carry the names of the aggregates
+            data.subjectnrs[i] = data.inputRowMeta.indexOfValue( meta.getAggregateField()[i] );
+          } else if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY ) {
             data.subjectnrs[i] = 0;
           } else {
             data.subjectnrs[i] = data.inputRowMeta.indexOfValue( meta.getSubjectField()[i] );
           }
           if ( data.subjectnrs[i] < 0 ) {
-            logError( BaseMessages.getString( PKG, "MemoryGroupBy.Log.AggregateSubjectFieldCouldNotFound", meta
-              .getSubjectField()[i] ) );
+            logError( BaseMessages.getString( PKG, "MemoryGroupBy.Log.AggregateSubjectFieldCouldNotFound",
+              data.merging ? meta.getAggregateField()[i] : meta.getSubjectField()[i] ) );
             setErrors( 1 );
             stopAll();
             return false;
           }
         }
 
+        if ( data.merging && !initPartialFieldIndexes() ) {
+          return false;
+        }
+
         for ( int i = 0; i < meta.getGroupField().length; i++ ) {
           data.groupnrs[i] = data.inputRowMeta.indexOfValue( meta.getGroupField()[i] );
           if ( data.groupnrs[i] < 0 ) {
@@ -150,6 +190,10 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       //
       initGroupMeta( data.inputRowMeta );
 
+      // When do we start spilling the rows of new groups to disk?
+      //
+      data.maxGroups = Const.toInt( environmentSubstitute( meta.getMaxGroupsInMemory() ), -1 );
+      data.freeMemoryPctLimit = Const.toInt( environmentSubstitute( meta.getFreeMemoryLimit() ), -1 );
     }
 
     if ( first ) {
@@ -162,14 +206,19 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       data.groupAggMeta = new RowMeta();
       data.groupAggMeta.addRowMeta( data.groupMeta );
       data.groupAggMeta.addRowMeta( data.aggMeta );
+
+      initAccumulators();
     }
 
     // Here is where we start to do the real work...
     //
     if ( r == null ) { // no more input to be expected... (or none received in the first place)
 
-      updateValueMeta();
+      if ( !data.partial ) {
+        updateValueMeta();
+      }
       handleLastOfGroup();
+      aggregateSpilledRows();
 
       setOutputDone();
       return false;
@@ -194,25 +243,14 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
   private void handleLastOfGroup() throws KettleException {
     // Dump the content of the map...
     //
-    for ( HashEntry entry : data.map.keySet() ) {
-      Aggregate aggregate = data.map.get( entry );
-      Object[] aggregateResult = getAggregateResult( aggregate );
-
-      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
-      int index = 0;
-      for ( int i = 0; i < data.groupMeta.size(); i++ ) {
-        outputRowData[index++] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( entry.getGroupData()[i] );
-      }
-      for ( int i = 0; i < data.aggMeta.size(); i++ ) {
-        outputRowData[index++] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[i] );
-      }
-      putRow( data.outputRowMeta, outputRowData );
-    }
+    dumpGroups();
 
     // What if we always need to give back one row?
     // This means we give back 0 for count all, count distinct, null for everything else
     //
-    if ( data.map.isEmpty() && meta.isAlwaysGivingBackOneRow() ) {
+    // Partial results are never given back for an empty input: the merge step does that.
+    //
+    if ( data.map.isEmpty() && meta.isAlwaysGivingBackOneRow() && !data.partial ) {
       Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
       int index = 0;
       for ( int i = 0; i < data.groupMeta.size(); i++ ) {
@@ -231,6 +269,173 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     }
   }
 
+  private void dumpGroups() throws KettleException {
+    for ( HashEntry entry : data.map.keySet() ) {
+      Aggregate aggregate = data.map.get( entry );
+
+      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+      int index = 0;
+      for ( int i = 0; i < data.groupMeta.size(); i++ ) {
+        outputRowData[index++] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( entry.getGroupData()[i] );
+      }
+      if ( data.partial ) {
+        addPartialResult( aggregate, outputRowData, index );
+      } else {
+        Object[] aggregateResult = getAggregateResult( aggregate );
+        for ( int i = 0; i < data.aggMeta.size(); i++ ) {
+          outputRowData[index++] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[i] );
+        }
+      }
+      putRow( data.outputRowMeta, outputRowData );
+    }
+  }
+
+  /**
+   * Aggregates the rows that were spilled to disk, one partition at a time. The rows of a partition that doesn't fit
+   * in memory either are spilled again, divided over new partitions using the next bits of the hash code of the group.
+   */
+  private void aggregateSpilledRows() throws KettleException {
+    closeSpillFiles();
+
+    while ( !data.pendingSpillFiles.isEmpty() && !isStopped() ) {
+      SpillFile spillFile = data.pendingSpillFiles.pop();
+      data.map.clear();
+      data.spillLevel = spillFile.level + 1;
+
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.AggregatingSpilledRows",
+          String.valueOf( spillFile.nrRows ), String.valueOf( data.spillLevel ) ) );
+      }
+
+      try ( DataInputStream inputStream = new DataInputStream(
+        new BufferedInputStream( KettleVFS.getInputStream( spillFile.fileObject ), 50000 ) ) ) {
+        for ( long i = 0; i < spillFile.nrRows; i++ ) {
+          addToAggregate( data.inputRowMeta.readData( inputStream ) );
+        }
+      } catch ( IOException | KettleFileException e ) {
+        throw new KettleException( BaseMessages.getString(
+          PKG, "MemoryGroupBy.Exception.UnableToReadBackRowFromTemporaryFile" ), e );
+      } finally {
+        deleteSpillFile( spillFile );
+      }
+
+      closeSpillFiles();
+      dumpGroups();
+    }
+    data.spillLevel = 0;
+  }
+
+  /**
+   * @return true if there is no more room for new groups and their rows need to be spilled to disk
+   */
+  private boolean isMemoryBudgetReached() {
+    if ( data.spillLevel >= MAX_SPILL_LEVEL || data.map.isEmpty() ) {
+      return false;
+    }
+    if ( data.maxGroups > 0 && data.map.size() >= data.maxGroups ) {
+      return true;
+    }
+    if ( data.freeMemoryPctLimit > 0 && ++data.freeCounter >= 1000 ) {
+      data.freeCounter = 0;
+      return Const.getPercentageFreeMemory() < data.freeMemoryPctLimit;
+    }
+    return false;
+  }
+
+  /**
+   * Writes a row of a group that isn't in memory to the partition of its group. All the rows of a group end up in the
+   * same partition, in the order they arrived, so the partition can be aggregated on its own later on.
+   */
+  private void spillRow( HashEntry entry, Object[] r ) throws KettleException {
+    if ( !data.spilling ) {
+      data.spilling = true;
+      data.spillFiles = new SpillFile[SPILL_PARTITIONS];
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.StartSpilling",
+          String.valueOf( data.spillLevel ), String.valueOf( data.map.size() ) ) );
+      }
+    }
+
+    int partition = getSpillPartition( entry.hashCode(), data.spillLevel );
+    SpillFile spillFile = data.spillFiles[partition];
+    if ( spillFile == null ) {
+      spillFile = createSpillFile();
+      data.spillFiles[partition] = spillFile;
+    }
+    try {
+      data.inputRowMeta.writeData( spillFile.outputStream, r );
+    } catch ( KettleFileException e ) {
+      throw new KettleException( "Unable to write row to temporary file", e );
+    }
+    spillFile.nrRows++;
+  }
+
+  @VisibleForTesting
+  static int getSpillPartition( int hashCode, int level ) {
+    // Mix the bits, the hash codes of numbers and strings are hardly random in the lower bits
+    //
+    int hash = hashCode;
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return ( hash >>> ( level * SPILL_PARTITION_BITS ) ) & ( SPILL_PARTITIONS - 1 );
+  }
+
+  private SpillFile createSpillFile() throws KettleException {
+    SpillFile spillFile = new SpillFile();
+    spillFile.level = data.spillLevel;
+    try {
+      IKettleVFS vfs = KettleVFS.getInstance( getTransMeta().getBowl() );
+      spillFile.fileObject = vfs.createTempFile( "memgrp", ".tmp",
+        environmentSubstitute( Const.NVL( meta.getDirectory(), "%%java.io.tmpdir%%" ) ), getTransMeta() );
+      spillFile.outputStream = new DataOutputStream(
+        new BufferedOutputStream( vfs.getOutputStream( spillFile.fileObject, false ), 50000 ) );
+    } catch ( IOException e ) {
+      deleteSpillFile( spillFile );
+      throw new KettleException( BaseMessages.getString(
+        PKG, "MemoryGroupBy.Exception.UnableToCreateTemporaryFile" ), e );
+    }
+    return spillFile;
+  }
+
+  /**
+   * Closes the partitions of the current level. They are aggregated after the groups that are in memory.
+   */
+  private void closeSpillFiles() throws KettleException {
+    if ( data.spillFiles != null ) {
+      for ( SpillFile spillFile : data.spillFiles ) {
+        if ( spillFile != null ) {
+          try {
+            spillFile.outputStream.close();
+          } catch ( IOException e ) {
+            throw new KettleException( "Unable to close temporary file", e );
+          } finally {
+            spillFile.outputStream = null;
+            data.pendingSpillFiles.push( spillFile );
+          }
+        }
+      }
+      data.spillFiles = null;
+    }
+    data.spilling = false;
+  }
+
+  private void deleteSpillFile( SpillFile spillFile ) {
+    if ( spillFile.outputStream != null ) {
+      BaseStep.closeQuietly( spillFile.outputStream );
+      spillFile.outputStream = null;
+    }
+    try {
+      if ( spillFile.fileObject != null && spillFile.fileObject.exists() ) {
+        spillFile.fileObject.delete();
+      }
+    } catch ( FileSystemException e ) {
+      logError( e.getLocalizedMessage(), e );
+    }
+  }
+
   @VisibleForTesting
   void updateValueMeta() throws KettleException {
 
@@ -262,6 +467,13 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
     Aggregate aggregate = data.map.get( entry );
     if ( aggregate == null ) {
+      // If there is no more room for a new group, its rows are aggregated after the groups in memory
+      //
+      if ( data.spilling || isMemoryBudgetReached() ) {
+        spillRow( entry, r );
+        return;
+      }
+
       // Create a new value...
       //
       aggregate = new Aggregate();
@@ -278,13 +490,28 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       Object value = aggregate.agg[i];
       ValueMetaInterface valueMeta = data.aggMeta.getValueMeta( i );
 
+      if ( data.merging && mergePartialResult( aggregate, i, subjMeta, subj, r ) ) {
+        continue;
+      }
+
       switch ( meta.getAggregateType()[i] ) {
         case MemoryGroupByMeta.TYPE_GROUP_SUM:
-          aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
+          if ( isAccumulated( i ) ) {
+            if ( !subjMeta.isNull( subj ) ) {
+              accumulate( aggregate, i, subjMeta, subj );
+              aggregate.counts[i]++;
+            }
+          } else {
+            aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
+          }
           break;
         case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
           if ( !subjMeta.isNull( subj ) ) {
-            aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
+            if ( isAccumulated( i ) ) {
+              accumulate( aggregate, i, subjMeta, subj );
+            } else {
+              aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
+            }
             aggregate.counts[i]++;
           }
           break;
@@ -301,8 +528,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
           aggregate.counts[i]++;
           double n = aggregate.counts[i];
           double x = subjMeta.getNumber( subj );
-          // for standard deviation null is exact 0
-          double sum = value == null ? new Double( 0 ) : (Double) value;
+          double sum = getStandardDeviationSum( aggregate, i );
           double mean = aggregate.mean[i];
 
           double delta = x - mean;
@@ -310,7 +536,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
           sum = sum + delta * ( x - mean );
 
           aggregate.mean[i] = mean;
-          aggregate.agg[i] = sum;
+          setStandardDeviationSum( aggregate, i, sum );
           break;
         case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
           if ( aggregate.distinctObjs == null ) {
@@ -327,7 +553,10 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
             if ( obj instanceof byte [] ) {
               obj = new String( (byte []) obj );
             }
-            if ( !aggregate.distinctObjs[i].contains( obj ) ) {
+            if ( data.partial ) {
+              // Sets of distinct values can't be merged without keeping them all, a sketch can
+              getDistinctSketch( aggregate, i ).add( obj );
+            } else if ( !aggregate.distinctObjs[i].contains( obj ) ) {
               aggregate.distinctObjs[i].add( obj );
             }
           }
@@ -484,6 +713,229 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Decides which sums can be kept as primitives in the aggregates instead of a value object that is replaced for every
+   * row. This is only done for plain Integer and Number subjects so that the results stay exactly the same.
+   */
+  private void initAccumulators() {
+    data.accumulators = new int[data.subjectnrs.length];
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      int aggregateType = meta.getAggregateType()[i];
+      if ( aggregateType != MemoryGroupByMeta.TYPE_GROUP_SUM && aggregateType != MemoryGroupByMeta.TYPE_GROUP_AVERAGE ) {
+        continue;
+      }
+      ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[i] );
+      if ( subjMeta == null || subjMeta.getStorageType() != ValueMetaInterface.STORAGE_TYPE_NORMAL ) {
+        continue;
+      }
+      Class<?> subjClass = subjMeta.getClass();
+      Class<?> aggClass = data.aggMeta.getValueMeta( i ).getClass();
+      if ( subjClass == ValueMetaInteger.class && aggClass == ValueMetaInteger.class ) {
+        data.accumulators[i] = MemoryGroupByData.ACCUMULATOR_LONG;
+      } else if ( ( subjClass == ValueMetaInteger.class || subjClass == ValueMetaNumber.class )
+        && aggClass == ValueMetaNumber.class ) {
+        data.accumulators[i] = MemoryGroupByData.ACCUMULATOR_DOUBLE;
+      }
+    }
+  }
+
+  private boolean isAccumulated( int i ) {
+    return data.accumulators != null && data.accumulators[i] != MemoryGroupByData.ACCUMULATOR_OBJECT;
+  }
+
+  /**
+   * Adds a non-null subject value to the primitive sum of an aggregate.
+   */
+  private void accumulate( Aggregate aggregate, int i, ValueMetaInterface subjMeta, Object subj )
+    throws KettleValueException {
+    if ( data.accumulators[i] == MemoryGroupByData.ACCUMULATOR_LONG ) {
+      if ( aggregate.longSums == null ) {
+        aggregate.longSums = new long[data.subjectnrs.length];
+      }
+      aggregate.longSums[i] += subjMeta.getInteger( subj ).longValue();
+    } else {
+      if ( aggregate.doubleSums == null ) {
+        aggregate.doubleSums = new double[data.subjectnrs.length];
+      }
+      aggregate.doubleSums[i] += subjMeta.getNumber( subj ).doubleValue();
+    }
+  }
+
+  /**
+   * @return the primitive sum of an aggregate as a value object or null if no value was added
+   */
+  private Object getAccumulatedSum( Aggregate aggregate, int i ) {
+    if ( aggregate.counts[i] == 0 ) {
+      return null;
+    }
+    if ( data.accumulators[i] == MemoryGroupByData.ACCUMULATOR_LONG ) {
+      return Long.valueOf( aggregate.longSums[i] );
+    }
+    return Double.valueOf( aggregate.doubleSums[i] );
+  }
+
+  private double getStandardDeviationSum( Aggregate aggregate, int i ) {
+    if ( data.accumulators != null ) {
+      if ( aggregate.doubleSums == null ) {
+        aggregate.doubleSums = new double[data.subjectnrs.length];
+      }
+      return aggregate.doubleSums[i];
+    }
+    // for standard deviation null is exact 0
+    return aggregate.agg[i] == null ? 0.0 : (Double) aggregate.agg[i];
+  }
+
+  private void setStandardDeviationSum( Aggregate aggregate, int i, double sum ) {
+    if ( data.accumulators != null ) {
+      aggregate.doubleSums[i] = sum;
+    } else {
+      aggregate.agg[i] = sum;
+    }
+  }
+
+  private HyperLogLog getDistinctSketch( Aggregate aggregate, int i ) {
+    if ( aggregate.distinctSketches == null ) {
+      aggregate.distinctSketches = new HyperLogLog[data.subjectnrs.length];
+    }
+    if ( aggregate.distinctSketches[i] == null ) {
+      aggregate.distinctSketches[i] = new HyperLogLog();
+    }
+    return aggregate.distinctSketches[i];
+  }
+
+  /**
+   * Looks up the extra fields of the partial results of the averages and standard deviations.
+   */
+  private boolean initPartialFieldIndexes() {
+    data.partialCountnrs = new int[data.subjectnrs.length];
+    data.partialMeannrs = new int[data.subjectnrs.length];
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      int aggregateType = meta.getAggregateType()[i];
+      String countField = null;
+      String meanField = null;
+      if ( aggregateType == MemoryGroupByMeta.TYPE_GROUP_AVERAGE ) {
+        countField = meta.getAggregateField()[i] + MemoryGroupByMeta.PARTIAL_COUNT_SUFFIX;
+      } else if ( aggregateType == MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION ) {
+        countField = meta.getAggregateField()[i] + MemoryGroupByMeta.PARTIAL_COUNT_SUFFIX;
+        meanField = meta.getAggregateField()[i] + MemoryGroupByMeta.PARTIAL_MEAN_SUFFIX;
+      }
+      for ( String field : new String[] { countField, meanField } ) {
+        if ( field != null && data.inputRowMeta.indexOfValue( field ) < 0 ) {
+          logError( BaseMessages.getString( PKG, "MemoryGroupBy.Log.AggregateSubjectFieldCouldNotFound", field ) );
+          setErrors( 1 );
+          stopAll();
+          return false;
+        }
+      }
+      data.partialCountnrs[i] = countField == null ? -1 : data.inputRowMeta.indexOfValue( countField );
+      data.partialMeannrs[i] = meanField == null ? -1 : data.inputRowMeta.indexOfValue( meanField );
+    }
+    return true;
+  }
+
+  /**
+   * Merges the partial result of an aggregate into the aggregate of the group. Sums, minimums, maximums and
+   * concatenations are merged just like the values they were made of, so these are left to the caller.
+   *
+   * @return true if the partial result was merged, false if it can be aggregated as a regular value
+   */
+  private boolean mergePartialResult( Aggregate aggregate, int i, ValueMetaInterface subjMeta, Object subj,
+    Object[] r ) throws KettleException {
+    switch ( meta.getAggregateType()[i] ) {
+      case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+        long count = getPartialCount( r, i );
+        if ( count > 0 && !subjMeta.isNull( subj ) ) {
+          if ( isAccumulated( i ) ) {
+            accumulate( aggregate, i, subjMeta, subj );
+          } else {
+            aggregate.agg[i] = ValueDataUtil.sum( data.aggMeta.getValueMeta( i ), aggregate.agg[i], subjMeta, subj );
+          }
+          aggregate.counts[i] += count;
+        }
+        return true;
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+        if ( !subjMeta.isNull( subj ) ) {
+          aggregate.counts[i] += subjMeta.getInteger( subj );
+        }
+        return true;
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
+        if ( !subjMeta.isNull( subj ) ) {
+          getDistinctSketch( aggregate, i ).merge( HyperLogLog.fromBytes( subjMeta.getBinary( subj ) ) );
+        }
+        return true;
+      case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
+        // Combine the counts, means and sums of squared differences (Chan et al.)
+        //
+        long nb = getPartialCount( r, i );
+        if ( nb > 0 ) {
+          ValueMetaInterface meanMeta = data.inputRowMeta.getValueMeta( data.partialMeannrs[i] );
+          double meanB = meanMeta.getNumber( r[data.partialMeannrs[i]] );
+          double sumB = subjMeta.getNumber( subj );
+          long na = aggregate.counts[i];
+          double meanA = aggregate.mean[i];
+          double n = na + nb;
+          double delta = meanB - meanA;
+
+          aggregate.mean[i] = meanA + delta * nb / n;
+          setStandardDeviationSum( aggregate, i,
+            getStandardDeviationSum( aggregate, i ) + sumB + delta * delta * na * nb / n );
+          aggregate.counts[i] = na + nb;
+        }
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private long getPartialCount( Object[] r, int i ) throws KettleValueException {
+    ValueMetaInterface countMeta = data.inputRowMeta.getValueMeta( data.partialCountnrs[i] );
+    Long count = countMeta.getInteger( r[data.partialCountnrs[i]] );
+    return count == null ? 0L : count;
+  }
+
+  /**
+   * Adds the partial results of the aggregates of a group to an output row, in the layout of
+   * {@link MemoryGroupByMeta#getFields}. Null values are not replaced by zeros, the merge step does that.
+   */
+  @VisibleForTesting
+  void addPartialResult( Aggregate aggregate, Object[] outputRowData, int index ) throws KettleValueException {
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      ValueMetaInterface aggMeta = data.aggMeta.getValueMeta( i );
+      switch ( meta.getAggregateType()[i] ) {
+        case MemoryGroupByMeta.TYPE_GROUP_SUM:
+          outputRowData[index++] = aggMeta.convertToNormalStorageType(
+            isAccumulated( i ) ? getAccumulatedSum( aggregate, i ) : aggregate.agg[i] );
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+          outputRowData[index++] = aggMeta.convertToNormalStorageType(
+            isAccumulated( i ) ? getAccumulatedSum( aggregate, i ) : aggregate.agg[i] );
+          outputRowData[index++] = aggregate.counts[i];
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
+          outputRowData[index++] = getStandardDeviationSum( aggregate, i );
+          outputRowData[index++] = aggregate.counts[i];
+          outputRowData[index++] = aggregate.mean[i];
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+          outputRowData[index++] = aggregate.counts[i];
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
+          outputRowData[index++] = getDistinctSketch( aggregate, i ).toBytes();
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
+        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
+          StringBuilder sb = (StringBuilder) aggregate.agg[i];
+          outputRowData[index++] = sb.length() == 0 ? null : sb.toString();
+          break;
+        default:
+          outputRowData[index++] = aggMeta.convertToNormalStorageType( aggregate.agg[i] );
+          break;
+      }
+    }
+  }
+
   private void initGroupMeta( RowMetaInterface previousRowMeta ) throws KettleValueException {
     data.groupMeta = new RowMeta();
     data.entryMeta = new RowMeta();
@@ -511,7 +963,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
     if ( data.subjectnrs != null ) {
       for ( int i = 0; i < data.subjectnrs.length; i++ ) {
-        Object ag = aggregate.agg[i];
+        Object ag = isAccumulated( i ) ? getAccumulatedSum( aggregate, i ) : aggregate.agg[i];
         switch ( meta.getAggregateType()[i] ) {
           case MemoryGroupByMeta.TYPE_GROUP_SUM:
             break;
@@ -537,15 +989,17 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
             break;
           case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
           case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
-          case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
             ag = aggregate.counts[i];
             break;
+          case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
+            ag = data.merging ? getDistinctSketch( aggregate, i ).estimate() : aggregate.counts[i];
+            break;
           case MemoryGroupByMeta.TYPE_GROUP_MIN:
             break;
           case MemoryGroupByMeta.TYPE_GROUP_MAX:
             break;
           case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
-            double sum = (Double) ag / aggregate.counts[i];
+            double sum = getStandardDeviationSum( aggregate, i ) / aggregate.counts[i];
             ag = Double.valueOf( Math.sqrt( sum ) );
             break;
           case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
@@ -583,7 +1037,22 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     super.dispose( smi, sdi );
-    ( (MemoryGroupByData) sdi ).clear();
+
+    // Remove the temporary files of the groups that were never aggregated
+    //
+    MemoryGroupByData groupByData = (MemoryGroupByData) sdi;
+    if ( groupByData.spillFiles != null ) {
+      for ( SpillFile spillFile : groupByData.spillFiles ) {
+        if ( spillFile != null ) {
+          deleteSpillFile( spillFile );
+        }
+      }
+      groupByData.spillFiles = null;
+    }
+    while ( !groupByData.pendingSpillFiles.isEmpty() ) {
+      deleteSpillFile( groupByData.pendingSpillFiles.pop() );
+    }
+    groupByData.clear();
   }
 
   @Override
@@ -591,6 +1060,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     // Empty the hash table
     //
     handleLastOfGroup();
+    aggregateSpilledRows();
 
     // Clear the complete cache...
     //
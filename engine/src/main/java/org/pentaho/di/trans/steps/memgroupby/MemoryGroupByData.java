@@ -13,8 +13,12 @@
 
 package org.pentaho.di.trans.steps.memgroupby;
 
+import java.io.DataOutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 
+import org.apache.commons.vfs2.FileObject;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -27,6 +31,13 @@ import org.pentaho.di.trans.step.StepDataInterface;
  *
  */
 public class MemoryGroupByData extends BaseStepData implements StepDataInterface {
+  /** The running value of the aggregate is kept in Aggregate.agg */
+  public static final int ACCUMULATOR_OBJECT = 0;
+  /** The running value of the aggregate is kept in Aggregate.longSums */
+  public static final int ACCUMULATOR_LONG = 1;
+  /** The running value of the aggregate is kept in Aggregate.doubleSums */
+  public static final int ACCUMULATOR_DOUBLE = 2;
+
   public class HashEntry {
     private Object[] groupData;
 
@@ -90,6 +101,33 @@ public class MemoryGroupByData extends BaseStepData implements StepDataInterface
 
   public boolean newBatch;
 
+  /** True if the output has partial results, false for final results */
+  public boolean partial;
+  /** True if the input rows are partial results that need to be merged */
+  public boolean merging;
+  /** When merging: the indexes of the number of values of the averages and standard deviations */
+  public int[] partialCountnrs;
+  /** When merging: the indexes of the means of the standard deviations */
+  public int[] partialMeannrs;
+
+  /** Where every aggregate keeps its running value, one of the ACCUMULATOR_ constants */
+  public int[] accumulators;
+
+  /** The number of groups to keep in memory before we spill rows to disk, no limit if <= 0 */
+  public int maxGroups;
+  /** Spill rows to disk when the free memory drops below this percentage, disabled if <= 0 */
+  public int freeMemoryPctLimit;
+  public int freeCounter;
+
+  /** True if the rows of new groups are being spilled to disk */
+  public boolean spilling;
+  /** 0 while reading the input rows, n while aggregating rows spilled at level n-1 */
+  public int spillLevel;
+  /** The partitions the rows are spilled to at the current level */
+  public SpillFile[] spillFiles;
+  /** The spilled partitions that still need to be aggregated */
+  public Deque<SpillFile> pendingSpillFiles = new ArrayDeque<>();
+
   public MemoryGroupByData() {
     super();
 
@@ -105,4 +143,15 @@ public class MemoryGroupByData extends BaseStepData implements StepDataInterface
   public void clear() {
     map = new HashMap<MemoryGroupByData.HashEntry, Aggregate>();
   }
+
+  /**
+   * A temporary file with the rows of the groups of one partition that didn't fit in memory.
+   */
+  public static class SpillFile {
+    public FileObject fileObject;
+    public DataOutputStream outputStream;
+    /** The level at which the rows were spilled */
+    public int level;
+    public long nrRows;
+  }
 }
@@ -31,8 +31,11 @@ import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaBase;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
 import org.pentaho.di.core.row.value.ValueMetaFactory;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaNone;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.core.xml.XMLHandler;
 import org.pentaho.di.i18n.BaseMessages;
@@ -114,6 +117,29 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     BaseMessages.getString( PKG, "MemoryGroupByMeta.TypeGroupLongDesc.COUNT_DISTINCT" ),
     BaseMessages.getString( PKG, "MemoryGroupByMeta.TypeGroupLongDesc.COUNT_ANY" ), };
 
+  /** Aggregate the input rows into the final results */
+  public static final int AGGREGATION_MODE_NORMAL = 0;
+
+  /** Aggregate the input rows of this step copy into partial results that can be merged later on */
+  public static final int AGGREGATION_MODE_PARTIAL = 1;
+
+  /** Merge the partial results of the copies of a step in partial mode into the final results */
+  public static final int AGGREGATION_MODE_MERGE = 2;
+
+  public static final String[] aggregationModeCode = /* WARNING: DO NOT TRANSLATE THIS. */
+  { "NORMAL", "PARTIAL", "MERGE", };
+
+  public static final String[] aggregationModeDesc = {
+    BaseMessages.getString( PKG, "MemoryGroupByMeta.AggregationMode.NORMAL" ),
+    BaseMessages.getString( PKG, "MemoryGroupByMeta.AggregationMode.PARTIAL" ),
+    BaseMessages.getString( PKG, "MemoryGroupByMeta.AggregationMode.MERGE" ), };
+
+  /** The suffix of the partial result field with the number of values of an average or standard deviation */
+  public static final String PARTIAL_COUNT_SUFFIX = "_count";
+
+  /** The suffix of the partial result field with the mean of a standard deviation */
+  public static final String PARTIAL_MEAN_SUFFIX = "_mean";
+
   @Injection( name = "GROUPFIELD", group = "FIELDS" )
   /** Fields to group over */
   private String[] groupField;
@@ -138,6 +164,22 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
   /** Flag to indicate that we always give back one row. Defaults to true for existing transformations. */
   private boolean alwaysGivingBackOneRow;
 
+  @Injection( name = "SPILL_DIRECTORY" )
+  /** Directory to store the rows of the groups that don't fit in memory */
+  private String directory;
+
+  @Injection( name = "MAX_GROUPS_IN_MEMORY" )
+  /** The number of groups to keep in memory before spilling rows to disk, empty for no limit */
+  private String maxGroupsInMemory;
+
+  @Injection( name = "FREE_MEMORY_LIMIT" )
+  /** Start spilling rows to disk when the free memory drops below this percentage, empty to disable */
+  private String freeMemoryLimit;
+
+  @Injection( name = "AGGREGATION_MODE" )
+  /** Normal, partial or merge aggregation, one of the AGGREGATION_MODE_ constants */
+  private int aggregationMode;
+
   public MemoryGroupByMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -281,6 +323,11 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
       } else {
         alwaysGivingBackOneRow = "Y".equalsIgnoreCase( giveBackRow );
       }
+
+      directory = XMLHandler.getTagValue( stepnode, "directory" );
+      maxGroupsInMemory = XMLHandler.getTagValue( stepnode, "max_groups" );
+      freeMemoryLimit = XMLHandler.getTagValue( stepnode, "free_memory" );
+      aggregationMode = getAggregationMode( XMLHandler.getTagValue( stepnode, "aggregation_mode" ) );
     } catch ( Exception e ) {
       throw new KettleXMLException( BaseMessages.getString(
         PKG, "MemoryGroupByMeta.Exception.UnableToLoadStepInfoFromXML" ), e );
@@ -301,6 +348,43 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     return 0;
   }
 
+  public static final int getAggregationMode( String code ) {
+    for ( int i = 0; i < aggregationModeCode.length; i++ ) {
+      if ( aggregationModeCode[i].equalsIgnoreCase( code ) ) {
+        return i;
+      }
+    }
+    return AGGREGATION_MODE_NORMAL;
+  }
+
+  public static final String getAggregationModeCode( int i ) {
+    if ( i < 0 || i >= aggregationModeCode.length ) {
+      return aggregationModeCode[AGGREGATION_MODE_NORMAL];
+    }
+    return aggregationModeCode[i];
+  }
+
+  /**
+   * @return true if the partial results of the aggregation type can be merged
+   */
+  public static final boolean isMergeable( int aggregateType ) {
+    switch ( aggregateType ) {
+      case TYPE_GROUP_SUM:
+      case TYPE_GROUP_AVERAGE:
+      case TYPE_GROUP_MIN:
+      case TYPE_GROUP_MAX:
+      case TYPE_GROUP_COUNT_ALL:
+      case TYPE_GROUP_COUNT_ANY:
+      case TYPE_GROUP_COUNT_DISTINCT:
+      case TYPE_GROUP_STANDARD_DEVIATION:
+      case TYPE_GROUP_CONCAT_COMMA:
+      case TYPE_GROUP_CONCAT_STRING:
+        return true;
+      default:
+        return false;
+    }
+  }
+
   public static final String getTypeDesc( int i ) {
     if ( i < 0 || i >= typeGroupCode.length ) {
       return null;
@@ -321,6 +405,11 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     int nrfields = 0;
 
     allocate( sizegroup, nrfields );
+
+    directory = "%%java.io.tmpdir%%";
+    maxGroupsInMemory = null;
+    freeMemoryLimit = null;
+    aggregationMode = AGGREGATION_MODE_NORMAL;
   }
 
   @Override
@@ -345,9 +434,11 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     }
 
     // Re-add aggregates
+    // When merging, the partial results carry the names of the aggregates
     //
     for ( int i = 0; i < subjectField.length; i++ ) {
-      ValueMetaInterface subj = r.searchValueMeta( subjectField[i] );
+      ValueMetaInterface subj =
+        r.searchValueMeta( aggregationMode == AGGREGATION_MODE_MERGE ? aggregateField[i] : subjectField[i] );
       if ( subj != null || aggregateType[i] == TYPE_GROUP_COUNT_ANY ) {
         String value_name = aggregateField[i];
         int value_type = ValueMetaInterface.TYPE_NONE;
@@ -421,7 +512,11 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
             v.setConversionMask( subj.getConversionMask() );
           }
 
-          fields.addValueMeta( v );
+          if ( aggregationMode == AGGREGATION_MODE_PARTIAL ) {
+            addPartialFields( fields, v, aggregateType[i], origin );
+          } else {
+            fields.addValueMeta( v );
+          }
         }
       }
     }
@@ -432,11 +527,51 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     r.addRowMeta( fields );
   }
 
+  /**
+   * Adds the fields of the partial result of an aggregate. The first field has the name of the aggregate, averages and
+   * standard deviations add the number of values and the mean with a suffix.
+   */
+  private void addPartialFields( RowMetaInterface fields, ValueMetaInterface v, int type, String origin ) {
+    switch ( type ) {
+      case TYPE_GROUP_COUNT_DISTINCT:
+        ValueMetaInterface sketch = new ValueMetaBinary( v.getName() );
+        sketch.setOrigin( origin );
+        fields.addValueMeta( sketch );
+        break;
+      case TYPE_GROUP_AVERAGE:
+        fields.addValueMeta( v );
+        fields.addValueMeta( createPartialValueMeta( v.getName() + PARTIAL_COUNT_SUFFIX, true, origin ) );
+        break;
+      case TYPE_GROUP_STANDARD_DEVIATION:
+        fields.addValueMeta( v );
+        fields.addValueMeta( createPartialValueMeta( v.getName() + PARTIAL_COUNT_SUFFIX, true, origin ) );
+        fields.addValueMeta( createPartialValueMeta( v.getName() + PARTIAL_MEAN_SUFFIX, false, origin ) );
+        break;
+      default:
+        fields.addValueMeta( v );
+        break;
+    }
+  }
+
+  private static ValueMetaInterface createPartialValueMeta( String name, boolean integer, String origin ) {
+    ValueMetaInterface v = integer ? new ValueMetaInteger( name ) : new ValueMetaNumber( name );
+    if ( integer ) {
+      v.setLength( ValueMetaInterface.DEFAULT_INTEGER_LENGTH, 0 );
+    }
+    v.setOrigin( origin );
+    return v;
+  }
+
   @Override
   public String getXML() {
     StringBuilder retval = new StringBuilder( 500 );
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "give_back_row", alwaysGivingBackOneRow ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "directory", directory ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "max_groups", maxGroupsInMemory ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "free_memory", freeMemoryLimit ) );
+    retval.append( "      " ).append(
+      XMLHandler.addTagValue( "aggregation_mode", getAggregationModeCode( aggregationMode ) ) );
 
     retval.append( "      <group>" ).append( Const.CR );
     for ( int i = 0; i < groupField.length; i++ ) {
@@ -486,6 +621,11 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
       }
 
       alwaysGivingBackOneRow = rep.getStepAttributeBoolean( id_step, 0, "give_back_row", hasNumberOfValues );
+
+      directory = rep.getStepAttributeString( id_step, "directory" );
+      maxGroupsInMemory = rep.getStepAttributeString( id_step, "max_groups" );
+      freeMemoryLimit = rep.getStepAttributeString( id_step, "free_memory" );
+      aggregationMode = getAggregationMode( rep.getStepAttributeString( id_step, "aggregation_mode" ) );
     } catch ( Exception e ) {
       throw new KettleException( BaseMessages.getString(
         PKG, "MemoryGroupByMeta.Exception.UnexpectedErrorInReadingStepInfoFromRepository" ), e );
@@ -496,6 +636,11 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
   public void saveRep( Repository rep, IMetaStore metaStore, ObjectId id_transformation, ObjectId id_step ) throws KettleException {
     try {
       rep.saveStepAttribute( id_transformation, id_step, "give_back_row", alwaysGivingBackOneRow );
+      rep.saveStepAttribute( id_transformation, id_step, "directory", directory );
+      rep.saveStepAttribute( id_transformation, id_step, "max_groups", maxGroupsInMemory );
+      rep.saveStepAttribute( id_transformation, id_step, "free_memory", freeMemoryLimit );
+      rep.saveStepAttribute( id_transformation, id_step, "aggregation_mode",
+        getAggregationModeCode( aggregationMode ) );
 
       for ( int i = 0; i < groupField.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "group_name", groupField[i] );
@@ -531,6 +676,18 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
           PKG, "MemoryGroupByMeta.CheckResult.NoInputError" ), stepMeta );
       remarks.add( cr );
     }
+
+    if ( aggregationMode != AGGREGATION_MODE_NORMAL ) {
+      for ( int i = 0; i < aggregateType.length; i++ ) {
+        if ( !isMergeable( aggregateType[i] ) ) {
+          cr =
+            new CheckResult( CheckResultInterface.TYPE_RESULT_ERROR, BaseMessages.getString(
+              PKG, "MemoryGroupByMeta.CheckResult.AggregateNotMergeable", aggregateField[i],
+              getTypeDescLong( aggregateType[i] ) ), stepMeta );
+          remarks.add( cr );
+        }
+      }
+    }
   }
 
   @Override
@@ -559,6 +716,66 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     this.alwaysGivingBackOneRow = alwaysGivingBackOneRow;
   }
 
+  /**
+   * @return the directory to store the rows of the groups that don't fit in memory
+   */
+  public String getDirectory() {
+    return directory;
+  }
+
+  /**
+   * @param directory
+   *          the directory to store the rows of the groups that don't fit in memory
+   */
+  public void setDirectory( String directory ) {
+    this.directory = directory;
+  }
+
+  /**
+   * @return the number of groups to keep in memory before spilling rows to disk, empty for no limit
+   */
+  public String getMaxGroupsInMemory() {
+    return maxGroupsInMemory;
+  }
+
+  /**
+   * @param maxGroupsInMemory
+   *          the number of groups to keep in memory before spilling rows to disk, empty for no limit
+   */
+  public void setMaxGroupsInMemory( String maxGroupsInMemory ) {
+    this.maxGroupsInMemory = maxGroupsInMemory;
+  }
+
+  /**
+   * @return the percentage of free memory below which rows are spilled to disk, empty to disable
+   */
+  public String getFreeMemoryLimit() {
+    return freeMemoryLimit;
+  }
+
+  /**
+   * @param freeMemoryLimit
+   *          the percentage of free memory below which rows are spilled to disk, empty to disable
+   */
+  public void setFreeMemoryLimit( String freeMemoryLimit ) {
+    this.freeMemoryLimit = freeMemoryLimit;
+  }
+
+  /**
+   * @return the aggregation mode, one of the AGGREGATION_MODE_ constants
+   */
+  public int getAggregationMode() {
+    return aggregationMode;
+  }
+
+  /**
+   * @param aggregationMode
+   *          the aggregation mode, one of the AGGREGATION_MODE_ constants
+   */
+  public void setAggregationMode( int aggregationMode ) {
+    this.aggregationMode = aggregationMode;
+  }
+
   /**
    * If we use injection we can have different arrays lengths.
    * We need synchronize them for consistency behavior with UI
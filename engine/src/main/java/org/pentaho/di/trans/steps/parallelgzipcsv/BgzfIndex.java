@@ -0,0 +1,249 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.steps.parallelgzipcsv;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The start of every block of a block gzipped (BGZF) file, in the compressed and in the uncompressed data. A BGZF file
+ * is a series of gzip members of at most 64KB that each record their compressed size in the extra field of the
+ * header, as written by bgzip. With the index a reader can start inflating at the block that holds a position instead
+ * of inflating everything before it.<br>
+ * <br>
+ * The index is stored in the format of bgzip (a .gzi file): the number of entries followed by the compressed and
+ * uncompressed offset of every block but the first, all as little endian 64 bit integers.
+ */
+public class BgzfIndex {
+
+  /** The extension of the index file, added to the name of the gzipped file */
+  public static final String EXTENSION = ".gzi";
+
+  private static final int HEADER_SIZE = 12;
+  private static final int TRAILER_SIZE = 4;
+  private static final int FLAG_EXTRA = 4;
+
+  private long[] compressedOffsets;
+  private long[] uncompressedOffsets;
+  private int size;
+
+  private BgzfIndex( int capacity ) {
+    compressedOffsets = new long[ capacity ];
+    uncompressedOffsets = new long[ capacity ];
+    add( 0L, 0L );
+  }
+
+  private void add( long compressedOffset, long uncompressedOffset ) {
+    if ( size == compressedOffsets.length ) {
+      compressedOffsets = Arrays.copyOf( compressedOffsets, size * 2 );
+      uncompressedOffsets = Arrays.copyOf( uncompressedOffsets, size * 2 );
+    }
+    compressedOffsets[ size ] = compressedOffset;
+    uncompressedOffsets[ size ] = uncompressedOffset;
+    size++;
+  }
+
+  /**
+   * Build the index by reading the header and trailer of every block of the file.
+   *
+   * @param in
+   *          the gzipped file, it is not closed
+   * @return the index or null if the file is not block gzipped
+   */
+  public static BgzfIndex build( InputStream in ) throws IOException {
+    BgzfIndex index = new BgzfIndex( 1024 );
+    byte[] header = new byte[ HEADER_SIZE ];
+    byte[] trailer = new byte[ TRAILER_SIZE ];
+    long compressedOffset = 0L;
+    long uncompressedOffset = 0L;
+    boolean first = true;
+
+    int n = read( in, header, HEADER_SIZE );
+    while ( n > 0 ) {
+      int blockSize = n == HEADER_SIZE ? getBlockSize( in, header ) : -1;
+      if ( blockSize < 0 ) {
+        if ( first ) {
+          return null;
+        }
+        throw new IOException( "Invalid BGZF block at offset " + compressedOffset );
+      }
+      skip( in, blockSize - HEADER_SIZE - getShort( header, 10 ) - TRAILER_SIZE );
+      if ( read( in, trailer, TRAILER_SIZE ) < TRAILER_SIZE ) {
+        throw new EOFException( "Truncated BGZF block at offset " + compressedOffset );
+      }
+      if ( !first ) {
+        index.add( compressedOffset, uncompressedOffset );
+      }
+      first = false;
+      compressedOffset += blockSize;
+      uncompressedOffset += getInt( trailer, 0 ) & 0xFFFFFFFFL;
+
+      n = read( in, header, HEADER_SIZE );
+    }
+    return first ? null : index;
+  }
+
+  /**
+   * Reads the extra field after the header of a block.
+   *
+   * @return the size of the block or -1 if it's not a BGZF block
+   */
+  private static int getBlockSize( InputStream in, byte[] header ) throws IOException {
+    if ( ( header[ 0 ] & 0xFF ) != 31 || ( header[ 1 ] & 0xFF ) != 139 || header[ 2 ] != 8
+      || ( header[ 3 ] & FLAG_EXTRA ) == 0 ) {
+      return -1;
+    }
+    byte[] extra = new byte[ getShort( header, 10 ) ];
+    if ( read( in, extra, extra.length ) < extra.length ) {
+      return -1;
+    }
+    // Look for the BC sub field holding the block size minus one
+    for ( int i = 0; i + 4 <= extra.length; i += 4 + getShort( extra, i + 2 ) ) {
+      if ( extra[ i ] == 'B' && extra[ i + 1 ] == 'C' && getShort( extra, i + 2 ) == 2 && i + 6 <= extra.length ) {
+        return getShort( extra, i + 4 ) + 1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param in
+   *          an index in the .gzi format, it is not closed
+   */
+  public static BgzfIndex read( InputStream in ) throws IOException {
+    byte[] buffer = new byte[ 16 ];
+    if ( read( in, buffer, 8 ) < 8 ) {
+      throw new EOFException( "Truncated BGZF index" );
+    }
+    long entries = getLong( buffer, 0 );
+    if ( entries < 0 || entries >= Integer.MAX_VALUE ) {
+      throw new IOException( "Invalid number of entries in the BGZF index: " + entries );
+    }
+    BgzfIndex index = new BgzfIndex( (int) entries + 1 );
+    for ( long i = 0; i < entries; i++ ) {
+      if ( read( in, buffer, 16 ) < 16 ) {
+        throw new EOFException( "Truncated BGZF index" );
+      }
+      index.add( getLong( buffer, 0 ), getLong( buffer, 8 ) );
+    }
+    return index;
+  }
+
+  /**
+   * @param out
+   *          where to write the index in the .gzi format, it is not closed
+   */
+  public void write( OutputStream out ) throws IOException {
+    byte[] buffer = new byte[ 16 ];
+    putLong( buffer, 0, size - 1 );
+    out.write( buffer, 0, 8 );
+    for ( int i = 1; i < size; i++ ) {
+      putLong( buffer, 0, compressedOffsets[ i ] );
+      putLong( buffer, 8, uncompressedOffsets[ i ] );
+      out.write( buffer, 0, 16 );
+    }
+  }
+
+  /**
+   * @param uncompressedPosition
+   *          a position in the uncompressed data
+   * @return the index of the last block that starts at or before the position
+   */
+  public int findBlock( long uncompressedPosition ) {
+    int low = 0;
+    int high = size - 1;
+    while ( low < high ) {
+      int middle = ( low + high + 1 ) >>> 1;
+      if ( uncompressedOffsets[ middle ] <= uncompressedPosition ) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the offset of a block in the gzipped file
+   */
+  public long getCompressedOffset( int block ) {
+    return compressedOffsets[ block ];
+  }
+
+  /**
+   * @return the position of the first byte of a block in the uncompressed data
+   */
+  public long getUncompressedOffset( int block ) {
+    return uncompressedOffsets[ block ];
+  }
+
+  /**
+   * @return the number of blocks
+   */
+  public int size() {
+    return size;
+  }
+
+  private static int read( InputStream in, byte[] buffer, int length ) throws IOException {
+    int total = 0;
+    while ( total < length ) {
+      int n = in.read( buffer, total, length - total );
+      if ( n < 0 ) {
+        break;
+      }
+      total += n;
+    }
+    return total;
+  }
+
+  private static void skip( InputStream in, long length ) throws IOException {
+    if ( length < 0 ) {
+      throw new IOException( "Invalid BGZF block size" );
+    }
+    long skipped = 0L;
+    while ( skipped < length ) {
+      long n = in.skip( length - skipped );
+      if ( n <= 0 ) {
+        if ( in.read() < 0 ) {
+          throw new EOFException( "Truncated BGZF block" );
+        }
+        n = 1;
+      }
+      skipped += n;
+    }
+  }
+
+  private static int getShort( byte[] buffer, int offset ) {
+    return ( buffer[ offset ] & 0xFF ) | ( buffer[ offset + 1 ] & 0xFF ) << 8;
+  }
+
+  private static int getInt( byte[] buffer, int offset ) {
+    return getShort( buffer, offset ) | getShort( buffer, offset + 2 ) << 16;
+  }
+
+  private static long getLong( byte[] buffer, int offset ) {
+    return ( getInt( buffer, offset ) & 0xFFFFFFFFL ) | (long) getInt( buffer, offset + 4 ) << 32;
+  }
+
+  private static void putLong( byte[] buffer, int offset, long value ) {
+    for ( int i = 0; i < 8; i++ ) {
+      buffer[ offset + i ] = (byte) ( value >>> ( 8 * i ) );
+    }
+  }
+}
@@ -14,6 +14,8 @@
 package org.pentaho.di.trans.steps.parallelgzipcsv;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.zip.GZIPInputStream;
@@ -181,21 +183,13 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
       // Get into position...
       //
       try {
-        long bytesSkipped = 0;
-        while ( bytesSkipped < bytesToSkip ) {
-          long n = data.gzis.skip( bytesToSkip - bytesSkipped );
-          if ( n <= 0 ) {
-            // EOF reached...
-            //
-            data.eofReached = true;
-            data.fileReadPosition += bytesSkipped;
-            return true; // nothing more to be found in the file, stop right here.
-          }
-          bytesSkipped += n;
+        if ( !skipTo( positionToReach ) ) {
+          // EOF reached...
+          //
+          data.eofReached = true;
+          return true; // nothing more to be found in the file, stop right here.
         }
 
-        data.fileReadPosition += bytesSkipped;
-
         // Now we need to clear the buffer, reset everything...
         //
         clearBuffer();
@@ -280,6 +274,8 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
       }
 
       data.gzis = new GZIPInputStream( data.fis, data.bufferSize );
+      data.fileObject = fileObject;
+      data.index = data.parallel ? loadIndex( fileObject, data.filenames[data.filenr] ) : null;
 
       clearBuffer();
       data.fileReadPosition = 0L;
@@ -321,21 +317,12 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
           logBasic( "Skipping "
             + bytesToSkip + " bytes to go to position " + bytesToSkip + " for step copy " + data.stepNumber );
 
-          long bytesSkipped = 0L;
-          while ( bytesSkipped < bytesToSkip ) {
-            long n = data.gzis.skip( bytesToSkip - bytesSkipped );
-            if ( n <= 0 ) {
-              // EOF in this file, can't read a block in this step copy
-              data.eofReached = true;
-              return false;
-            }
-            bytesSkipped += n;
+          if ( !skipTo( bytesToSkip ) ) {
+            // EOF in this file, can't read a block in this step copy
+            data.eofReached = true;
+            return false;
           }
 
-          // Keep track of the file pointer!
-          //
-          data.fileReadPosition += bytesSkipped;
-
           // Reset the bytes read in the current block of data
           //
           data.totalBytesRead = 0L;
@@ -384,6 +371,102 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * A block gzipped (BGZF) file can be read from any of its blocks. The index of the blocks is read from the .gzi file
+   * next to it, or built from the headers of the blocks and written there by the first step copy.
+   *
+   * @return the index of the blocks or null if the file is not block gzipped
+   */
+  private BgzfIndex loadIndex( FileObject fileObject, String filename ) throws KettleException, IOException {
+    FileObject indexFile = KettleVFS.getInstance( getTransMeta().getBowl() )
+      .getFileObject( filename + BgzfIndex.EXTENSION, getTransMeta() );
+    BgzfIndex index = null;
+    if ( indexFile.exists()
+      && indexFile.getContent().getLastModifiedTime() >= fileObject.getContent().getLastModifiedTime() ) {
+      try ( InputStream in = KettleVFS.getInputStream( indexFile ) ) {
+        index = BgzfIndex.read( in );
+      } catch ( IOException e ) {
+        // Another step copy is still writing it: build it here as well
+        logDetailed( "Unable to read BGZF index " + indexFile.getName().getURI() + " : " + e.getMessage() );
+      }
+    }
+    if ( index == null ) {
+      try ( InputStream in = KettleVFS.getInputStream( fileObject ) ) {
+        index = BgzfIndex.build( in );
+      }
+      if ( index != null && data.stepNumber == 0 ) {
+        writeIndex( index, indexFile );
+      }
+    }
+    if ( index != null ) {
+      logBasic( BaseMessages.getString( PKG, "ParGzipCsvInput.Log.BlockGzipped", filename,
+        Integer.toString( index.size() ) ) );
+    }
+    return index;
+  }
+
+  /**
+   * Cache the index next to the file. Failing to do so, for example in a read-only folder, only costs the time to build
+   * it again on the next read.
+   */
+  private void writeIndex( BgzfIndex index, FileObject indexFile ) {
+    try {
+      FileObject tempFile = KettleVFS.getInstance( getTransMeta().getBowl() )
+        .getFileObject( indexFile.getName().getURI() + ".tmp", getTransMeta() );
+      try ( OutputStream out = KettleVFS.getOutputStream( tempFile, false ) ) {
+        index.write( out );
+      }
+      tempFile.moveTo( indexFile );
+    } catch ( Exception e ) {
+      logDetailed( "Unable to write BGZF index " + indexFile.getName().getURI() + " : " + e.getMessage() );
+    }
+  }
+
+  /**
+   * Get into position in the uncompressed data of the current file. With a BGZF index the file is opened again at the
+   * block that holds the position, otherwise all the data in between is inflated and discarded.
+   *
+   * @return false if the end of the file was reached first
+   */
+  private boolean skipTo( long position ) throws IOException {
+    if ( data.index != null ) {
+      int block = data.index.findBlock( position );
+      long blockStart = data.index.getUncompressedOffset( block );
+      if ( blockStart > data.fileReadPosition ) {
+        data.gzis.close();
+        data.fis = KettleVFS.getInputStream( data.fileObject );
+        long offset = data.index.getCompressedOffset( block );
+        long skipped = 0L;
+        while ( skipped < offset ) {
+          long n = data.fis.skip( offset - skipped );
+          if ( n <= 0 ) {
+            throw new IOException( "Unable to skip to offset " + offset + " of the BGZF file" );
+          }
+          skipped += n;
+        }
+        data.gzis = new GZIPInputStream( data.fis, data.bufferSize );
+        data.fileReadPosition = blockStart;
+      }
+    }
+
+    long bytesToSkip = position - data.fileReadPosition;
+    long bytesSkipped = 0L;
+    try {
+      while ( bytesSkipped < bytesToSkip ) {
+        long n = data.gzis.skip( bytesToSkip - bytesSkipped );
+        if ( n <= 0 ) {
+          return false;
+        }
+        bytesSkipped += n;
+      }
+    } finally {
+      // Keep track of the file pointer!
+      //
+      data.fileReadPosition += bytesSkipped;
+    }
+    return true;
+  }
+
   private void clearBuffer() {
     data.startBuffer = 0;
     data.endBuffer = 0;
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.zip.GZIPInputStream;
 
+import org.apache.commons.vfs2.FileObject;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
@@ -36,6 +37,12 @@ public class ParGzipCsvInputData extends BaseStepData implements StepDataInterfa
   public byte[] binaryFilename;
 
   public InputStream fis;
+  public FileObject fileObject;
+
+  /**
+   * The blocks of the current file if it is block gzipped, null otherwise
+   */
+  public BgzfIndex index;
 
   public boolean isAddingRowNumber;
   public long rowNumber;
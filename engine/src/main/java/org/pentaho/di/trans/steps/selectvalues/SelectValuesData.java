@@ -37,6 +37,9 @@ public class SelectValuesData extends BaseStepData implements StepDataInterface
 
   public RowMetaInterface outputRowMeta;
 
+  /** Re-used buffer for the rows sent to the next steps in one batch */
+  public Object[][] outputRows;
+
   // The MODE, default = select...
   public boolean select; // "normal" selection of fields.
   public boolean deselect; // de-select mode
@@ -0,0 +1,192 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+/**
+ * Encodes the sort keys of a row into a normalized byte array. Comparing two such arrays byte by byte (unsigned) gives
+ * exactly the same order as {@link RowMetaInterface#compare(Object[], Object[], int[])}, so sorting and merging only
+ * have to do a memcmp style comparison instead of looking at the value metadata for every field of every comparison.
+ * <br>
+ * <br>
+ * Every key field starts with a marker byte: 0 for null, 1 for a value. Null values sort first, like in
+ * ValueMetaBase.compare(). Integers and dates are stored as 8 bytes with the sign bit flipped, numbers as the 8 bytes
+ * of their IEEE 754 representation transformed to sort like Double.compare() and strings as big endian UTF-16 with
+ * every 0 byte escaped, followed by a 0,0 terminator. All the bytes of a descending field are inverted.<br>
+ * <br>
+ * Only Integer, Number, Date, Boolean and case sensitive String fields without a collator can be encoded.
+ */
+class SortKeyEncoder {
+  private static final int KIND_LONG = 0;
+  private static final int KIND_DOUBLE = 1;
+  private static final int KIND_DATE = 2;
+  private static final int KIND_BOOLEAN = 3;
+  private static final int KIND_STRING = 4;
+
+  private final int[] fieldnrs;
+  private final ValueMetaInterface[] valueMetas;
+  private final int[] kinds;
+
+  private SortKeyEncoder( int[] fieldnrs, ValueMetaInterface[] valueMetas, int[] kinds ) {
+    this.fieldnrs = fieldnrs;
+    this.valueMetas = valueMetas;
+    this.kinds = kinds;
+  }
+
+  /**
+   * @return an encoder for the given key fields or null if one of the fields can't be encoded
+   */
+  static SortKeyEncoder create( RowMetaInterface rowMeta, int[] fieldnrs ) {
+    ValueMetaInterface[] valueMetas = new ValueMetaInterface[ fieldnrs.length ];
+    int[] kinds = new int[ fieldnrs.length ];
+    for ( int i = 0; i < fieldnrs.length; i++ ) {
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( fieldnrs[ i ] );
+      if ( valueMeta.getStorageType() != ValueMetaInterface.STORAGE_TYPE_NORMAL ) {
+        return null;
+      }
+      // Only the exact classes: subclasses or a custom comparator might compare differently
+      //
+      Class<?> valueMetaClass = valueMeta.getClass();
+      if ( valueMetaClass == ValueMetaInteger.class ) {
+        kinds[ i ] = KIND_LONG;
+      } else if ( valueMetaClass == ValueMetaNumber.class ) {
+        kinds[ i ] = KIND_DOUBLE;
+      } else if ( valueMetaClass == ValueMetaDate.class ) {
+        kinds[ i ] = KIND_DATE;
+      } else if ( valueMetaClass == ValueMetaBoolean.class ) {
+        kinds[ i ] = KIND_BOOLEAN;
+      } else if ( valueMetaClass == ValueMetaString.class && valueMeta.isCollatorDisabled()
+        && !valueMeta.isCaseInsensitive() ) {
+        kinds[ i ] = KIND_STRING;
+      } else {
+        return null;
+      }
+      valueMetas[ i ] = valueMeta;
+    }
+    return new SortKeyEncoder( fieldnrs, valueMetas, kinds );
+  }
+
+  /**
+   * Compares two encoded keys.
+   */
+  static int compare( byte[] key1, byte[] key2 ) {
+    return Arrays.compareUnsigned( key1, key2 );
+  }
+
+  /**
+   * Encodes the key fields of the given row. This method can be called by multiple threads at once.
+   */
+  byte[] encode( Object[] row ) throws KettleValueException {
+    KeyBuffer buffer = new KeyBuffer();
+    for ( int i = 0; i < fieldnrs.length; i++ ) {
+      ValueMetaInterface valueMeta = valueMetas[ i ];
+      Object value = row[ fieldnrs[ i ] ];
+      int start = buffer.size;
+
+      if ( valueMeta.isNull( value ) ) {
+        buffer.put( (byte) 0 );
+      } else {
+        buffer.put( (byte) 1 );
+        switch ( kinds[ i ] ) {
+          case KIND_LONG:
+            buffer.putLong( valueMeta.getInteger( value ).longValue() ^ Long.MIN_VALUE );
+            break;
+          case KIND_DOUBLE:
+            long bits = Double.doubleToLongBits( valueMeta.getNumber( value ).doubleValue() );
+            buffer.putLong( bits < 0 ? ~bits : bits ^ Long.MIN_VALUE );
+            break;
+          case KIND_DATE:
+            Date date = valueMeta.getDate( value );
+            buffer.putLong( date.getTime() ^ Long.MIN_VALUE );
+            break;
+          case KIND_BOOLEAN:
+            buffer.put( valueMeta.getBoolean( value ).booleanValue() ? (byte) 1 : (byte) 0 );
+            break;
+          default:
+            String string = valueMeta.getString( value );
+            if ( valueMeta.isIgnoreWhitespace() ) {
+              string = string.trim();
+            }
+            buffer.putString( string );
+            break;
+        }
+      }
+
+      if ( valueMeta.isSortedDescending() ) {
+        buffer.invert( start );
+      }
+    }
+    return buffer.toByteArray();
+  }
+
+  private static final class KeyBuffer {
+    private byte[] bytes = new byte[ 32 ];
+    private int size;
+
+    void put( byte b ) {
+      if ( size == bytes.length ) {
+        bytes = Arrays.copyOf( bytes, size * 2 );
+      }
+      bytes[ size++ ] = b;
+    }
+
+    void putLong( long value ) {
+      for ( int shift = 56; shift >= 0; shift -= 8 ) {
+        put( (byte) ( value >>> shift ) );
+      }
+    }
+
+    /**
+     * A 0 byte is written as 0,255 so that the 0,0 terminator sorts before anything else and a string sorts before
+     * all the strings it is a prefix of.
+     */
+    void putString( String string ) {
+      for ( int i = 0; i < string.length(); i++ ) {
+        char c = string.charAt( i );
+        putEscaped( (byte) ( c >>> 8 ) );
+        putEscaped( (byte) c );
+      }
+      put( (byte) 0 );
+      put( (byte) 0 );
+    }
+
+    private void putEscaped( byte b ) {
+      put( b );
+      if ( b == 0 ) {
+        put( (byte) 0xFF );
+      }
+    }
+
+    void invert( int start ) {
+      for ( int i = start; i < size; i++ ) {
+        bytes[ i ] = (byte) ~bytes[ i ];
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf( bytes, size );
+    }
+  }
+}
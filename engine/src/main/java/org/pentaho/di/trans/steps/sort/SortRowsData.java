@@ -34,15 +34,38 @@ public class SortRowsData extends BaseStepData implements StepDataInterface {
   public List<Object[]> buffer;
   public int getBufferIndex;
 
+  /**
+   * @deprecated the temp-files are read by a {@link SortRunMerger}, these are no longer used
+   */
+  @Deprecated
   public List<InputStream> fis;
+  /**
+   * @deprecated the temp-files are read by a {@link SortRunMerger}, these are no longer used
+   */
+  @Deprecated
   public List<GZIPInputStream> gzis;
+  /**
+   * @deprecated the temp-files are read by a {@link SortRunMerger}, these are no longer used
+   */
+  @Deprecated
   public List<DataInputStream> dis;
+  /**
+   * @deprecated the temp-files are read by a {@link SortRunMerger}, these are no longer used
+   */
+  @Deprecated
   public List<Object[]> rowbuffer;
   public List<Integer> bufferSizes;
 
-  // To store rows and file references
+  /**
+   * @deprecated the temp-files are read by a {@link SortRunMerger}, these are no longer used
+   */
+  @Deprecated
   public List<RowTempFile> tempRows;
 
+  // Merges the sorted temp-files
+  SortRunMerger merger;
+  public int mergeFanIn;
+
   public int[] fieldnrs; // the corresponding field numbers;
   public FileObject fil;
   public RowMetaInterface outputRowMeta;
@@ -51,8 +74,8 @@ public class SortRowsData extends BaseStepData implements StepDataInterface {
   public int[] convertKeysToNative;
   public boolean convertAnyKeysToNative;
 
-  Comparator<RowTempFile> comparator;
   Comparator<Object[]> rowComparator;
+  SortKeyEncoder keyEncoder;
 
   public int freeCounter;
   public int freeMemoryPct;
@@ -0,0 +1,151 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.exception.KettleEOFException;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.vfs.KettleVFS;
+import org.pentaho.di.trans.step.BaseStep;
+import org.xerial.snappy.SnappyInputStream;
+
+/**
+ * Merges sorted runs (temporary files) into one sorted stream of rows. The next row of every run is kept in a heap so
+ * that finding the smallest row takes log(runs) comparisons. When a key encoder is available the comparisons are done
+ * on the encoded keys. Rows with equal keys come out in the order of the runs.
+ */
+class SortRunMerger {
+  private final RowMetaInterface rowMeta;
+  private final SortKeyEncoder keyEncoder;
+  private final List<DataInputStream> inputs = new ArrayList<>();
+  private final PriorityQueue<RowTempFile> heap;
+
+  /**
+   * Opens all the runs and reads the first row of each of them.
+   *
+   * @param files
+   *          the runs to merge, each sorted
+   * @param rowMeta
+   *          the layout of the rows in the runs
+   * @param keyEncoder
+   *          the encoder of the sort keys or null to compare with the row comparator
+   * @param rowComparator
+   *          compares rows when there is no key encoder
+   * @param compressed
+   *          true if the runs are compressed
+   */
+  SortRunMerger( List<FileObject> files, RowMetaInterface rowMeta, SortKeyEncoder keyEncoder,
+    Comparator<Object[]> rowComparator, boolean compressed ) throws KettleException {
+    this.rowMeta = rowMeta;
+    this.keyEncoder = keyEncoder;
+
+    Comparator<RowTempFile> comparator;
+    if ( keyEncoder != null ) {
+      comparator = ( o1, o2 ) -> SortKeyEncoder.compare( o1.key, o2.key );
+    } else {
+      comparator = ( o1, o2 ) -> rowComparator.compare( o1.row, o2.row );
+    }
+    heap = new PriorityQueue<>( Math.max( 1, files.size() ),
+      comparator.thenComparingInt( rowTempFile -> rowTempFile.fileNumber ) );
+
+    try {
+      for ( int f = 0; f < files.size(); f++ ) {
+        InputStream inputStream = KettleVFS.getInputStream( files.get( f ) );
+        if ( compressed ) {
+          inputStream = new SnappyInputStream( new BufferedInputStream( inputStream, 50000 ) );
+        }
+        DataInputStream dataInputStream = new DataInputStream( new BufferedInputStream( inputStream, 50000 ) );
+        inputs.add( dataInputStream );
+        readNext( f );
+      }
+    } catch ( IOException e ) {
+      close();
+      throw new KettleException( "Unable to open temp-file for reading", e );
+    } catch ( KettleException e ) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * @return the number of runs that still have rows
+   */
+  int getNrOpenRuns() {
+    return heap.size();
+  }
+
+  /**
+   * @return the next row in sort order or null when all runs are exhausted
+   */
+  Object[] next() throws KettleException {
+    RowTempFile smallest = heap.poll();
+    if ( smallest == null ) {
+      return null;
+    }
+    readNext( smallest.fileNumber );
+    return smallest.row;
+  }
+
+  private void readNext( int fileNumber ) throws KettleException {
+    DataInputStream input = inputs.get( fileNumber );
+    if ( input == null ) {
+      return;
+    }
+    Object[] row;
+    try {
+      row = rowMeta.readData( input );
+    } catch ( KettleEOFException e ) {
+      // This run is exhausted
+      BaseStep.closeQuietly( input );
+      inputs.set( fileNumber, null );
+      return;
+    } catch ( SocketTimeoutException e ) {
+      throw new KettleValueException( e ); // should never happen on local files
+    } catch ( KettleFileException e ) {
+      throw new KettleException( "Unable to read row from temp-file", e );
+    }
+
+    RowTempFile rowTempFile = new RowTempFile( row, fileNumber );
+    if ( keyEncoder != null ) {
+      rowTempFile.key = keyEncoder.encode( row );
+    }
+    heap.add( rowTempFile );
+  }
+
+  /**
+   * Closes all the runs that are still open. The files themselves are not deleted.
+   */
+  void close() {
+    for ( DataInputStream input : inputs ) {
+      if ( input != null ) {
+        BaseStep.closeQuietly( input );
+      }
+    }
+    inputs.clear();
+    heap.clear();
+  }
+}
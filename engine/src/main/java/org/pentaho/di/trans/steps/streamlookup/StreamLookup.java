@@ -16,9 +16,11 @@ package org.pentaho.di.trans.steps.streamlookup;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.hash.ByteArrayHashIndex;
+import org.pentaho.di.core.hash.OffHeapHashIndex;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -34,6 +36,7 @@ import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 
+import java.io.DataOutputStream;
 import java.math.BigDecimal;
 import java.text.DateFormat;
 import java.util.Collections;
@@ -189,6 +192,16 @@ public class StreamLookup extends BaseStep implements StepInterface {
 
         data.cacheKeyMeta = cacheKeyMeta;
         data.cacheValueMeta = cacheValueMeta;
+
+        if ( meta.isMemoryPreservationActive() && !meta.isUsingSortedList() && !meta.isUsingIntegerPair()
+          && meta.isUsingOffHeapIndex() ) {
+          // We don't know how many rows will arrive so size the index after what can be buffered on the hop
+          //
+          data.offHeapIndex =
+            new OffHeapHashIndex( Math.max( rowSet.size() + 1, getTransMeta().getSizeRowset() ) );
+          data.keyBuffer = new StreamLookupData.KeyBuffer();
+          data.keyOutputStream = new DataOutputStream( data.keyBuffer );
+        }
       }
 
       Object[] keyData = new Object[keyNrs.length];
@@ -209,6 +222,11 @@ public class StreamLookup extends BaseStep implements StepInterface {
       rowData = getRowFrom( rowSet );
     }
 
+    if ( data.offHeapIndex != null && log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "StreamLookup.Log.OffHeapIndexSize",
+        String.valueOf( data.offHeapIndex.getSize() ), String.valueOf( data.offHeapIndex.getMemoryAllocated() ) ) );
+    }
+
     return true;
   }
 
@@ -311,6 +329,9 @@ public class StreamLookup extends BaseStep implements StepInterface {
           Long key = keyMeta.getInteger( keyData, 0 );
           Long value = valueMeta.getInteger( valueData, 0 );
           data.longIndex.put( key, value );
+        } else if ( meta.isUsingOffHeapIndex() ) {
+          serializeKey( keyMeta, keyData );
+          data.offHeapIndex.put( data.keyBuffer.toByteArray(), RowMeta.extractData( valueMeta, valueData ) );
         } else {
           if ( data.hashIndex == null ) {
             data.hashIndex = new ByteArrayHashIndex( keyMeta );
@@ -344,6 +365,13 @@ public class StreamLookup extends BaseStep implements StepInterface {
             return null;
           }
           return new Object[] { value, };
+        } else if ( meta.isUsingOffHeapIndex() ) {
+          serializeKey( keyMeta, keyData );
+          byte[] value = data.offHeapIndex.get( data.keyBuffer.getBuffer(), 0, data.keyBuffer.size() );
+          if ( value == null ) {
+            return null;
+          }
+          return RowMeta.getRow( data.cacheValueMeta, value );
         } else {
           try {
             byte[] value = data.hashIndex.get( RowMeta.extractData( keyMeta, keyData ) );
@@ -362,6 +390,19 @@ public class StreamLookup extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Serializes the key into the re-usable key buffer so that probing the off-heap index doesn't allocate a new byte
+   * array for every row.
+   */
+  private void serializeKey( RowMetaInterface keyMeta, Object[] keyData ) throws KettleValueException {
+    data.keyBuffer.reset();
+    try {
+      keyMeta.writeData( data.keyOutputStream, keyData );
+    } catch ( KettleFileException e ) {
+      throw new KettleValueException( e );
+    }
+  }
+
   @Override
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
     meta = (StreamLookupMeta) smi;
@@ -474,6 +515,7 @@ public class StreamLookup extends BaseStep implements StepInterface {
     data.list = null;
     data.hashIndex = null;
     data.longIndex = null;
+    data.offHeapIndex = null;
 
     super.dispose( smi, sdi );
   }
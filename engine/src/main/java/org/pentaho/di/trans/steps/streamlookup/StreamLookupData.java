@@ -13,6 +13,8 @@
 
 package org.pentaho.di.trans.steps.streamlookup;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -23,6 +25,7 @@ import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.hash.ByteArrayHashIndex;
 import org.pentaho.di.core.hash.LongHashIndex;
+import org.pentaho.di.core.hash.OffHeapHashIndex;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -64,6 +67,11 @@ public class StreamLookupData extends BaseStepData implements StepDataInterface
 
   public ByteArrayHashIndex hashIndex;
   public LongHashIndex longIndex;
+  public OffHeapHashIndex offHeapIndex;
+
+  /** The re-usable buffer the keys are serialized in to probe the off-heap index */
+  KeyBuffer keyBuffer;
+  DataOutputStream keyOutputStream;
 
   public RowMetaInterface lookupMeta;
 
@@ -101,4 +109,12 @@ public class StreamLookupData extends BaseStepData implements StepDataInterface
     };
   }
 
+  /**
+   * A byte array output stream that gives access to its buffer, so the serialized key doesn't need to be copied.
+   */
+  static class KeyBuffer extends ByteArrayOutputStream {
+    byte[] getBuffer() {
+      return buf;
+    }
+  }
 }
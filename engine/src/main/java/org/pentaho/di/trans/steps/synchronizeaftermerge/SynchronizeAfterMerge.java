@@ -15,6 +15,7 @@ package org.pentaho.di.trans.steps.synchronizeaftermerge;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -23,6 +24,7 @@ import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.database.OracleDatabaseMeta;
+import org.pentaho.di.core.database.StagingTable;
 import org.pentaho.di.core.exception.KettleDatabaseBatchException;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
@@ -48,6 +50,8 @@ public class SynchronizeAfterMerge extends BaseDatabaseStep implements StepInter
   private SynchronizeAfterMergeMeta meta;
   private SynchronizeAfterMergeData data;
 
+  static final int DEFAULT_STAGING_SIZE = 1000;
+
   public SynchronizeAfterMerge( StepMeta stepMeta, StepDataInterface stepDataInterface, int copyNr, TransMeta transMeta,
                                 Trans trans ) {
     super( stepMeta, stepDataInterface, copyNr, transMeta, trans );
@@ -642,6 +646,143 @@ public class SynchronizeAfterMerge extends BaseDatabaseStep implements StepInter
     return sql;
   }
 
+  /**
+   * The updates and deletes can only be applied in sets if the database supports it, if they go to a single table and
+   * if every key is compared with "=" without a lookup first. Errors can't be traced back to a single row, so error
+   * handling needs the rows one by one.
+   */
+  boolean canUseStagingTable() {
+    if ( !meta.isUseStagingTable() ) {
+      return false;
+    }
+    if ( !meta.getDatabaseMeta().supportsUpsertFromTable() ) {
+      logBasic( BaseMessages.getString( PKG, "SynchronizeAfterMerge.Log.StagingTableNotSupported",
+        meta.getDatabaseMeta().getName() ) );
+      return false;
+    }
+    if ( getStepMeta().isDoingErrorHandling() ) {
+      logBasic( BaseMessages.getString( PKG, "SynchronizeAfterMerge.Log.StagingTableErrorHandling" ) );
+      return false;
+    }
+    if ( meta.istablenameInField() || meta.isPerformLookup() ) {
+      logBasic( BaseMessages.getString( PKG, "SynchronizeAfterMerge.Log.StagingTableNeedsSingleTable" ) );
+      return false;
+    }
+    if ( meta.getKeyLookup().length == 0 ) {
+      logBasic( BaseMessages.getString( PKG, "SynchronizeAfterMerge.Log.StagingTableNeedsEquals" ) );
+      return false;
+    }
+    for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+      if ( !"=".equals( meta.getKeyCondition()[i] ) || isKeyUpdated( i ) ) {
+        logBasic( BaseMessages.getString( PKG, "SynchronizeAfterMerge.Log.StagingTableNeedsEquals" ) );
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the key column is updated with another field than the one it is matched on
+   */
+  private boolean isKeyUpdated( int keyIndex ) {
+    for ( int i = 0; i < meta.getUpdateLookup().length; i++ ) {
+      if ( meta.getUpdate()[i].booleanValue() && meta.getKeyLookup()[keyIndex].equalsIgnoreCase( meta
+        .getUpdateLookup()[i] ) && !meta.getKeyStream()[keyIndex].equalsIgnoreCase( meta.getUpdateStream()[i] ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void createStagingTable() throws KettleException {
+    RowMetaInterface stagingRowMeta = new RowMeta();
+    List<Integer> fieldnrs = new ArrayList<>();
+    List<String> updateColumns = new ArrayList<>();
+    for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+      ValueMetaInterface valueMeta = data.inputRowMeta.getValueMeta( data.keynrs[i] ).clone();
+      valueMeta.setName( meta.getKeyLookup()[i] );
+      stagingRowMeta.addValueMeta( valueMeta );
+      fieldnrs.add( data.keynrs[i] );
+    }
+    for ( int i = 0; i < meta.getUpdateLookup().length; i++ ) {
+      if ( meta.getUpdate()[i].booleanValue() && stagingRowMeta.indexOfValue( meta.getUpdateLookup()[i] ) < 0 ) {
+        ValueMetaInterface valueMeta = data.inputRowMeta.getValueMeta( data.valuenrs[i] ).clone();
+        valueMeta.setName( meta.getUpdateLookup()[i] );
+        stagingRowMeta.addValueMeta( valueMeta );
+        fieldnrs.add( data.valuenrs[i] );
+        updateColumns.add( meta.getUpdateLookup()[i] );
+      }
+    }
+    data.stagingFieldnrs = new int[fieldnrs.size()];
+    for ( int i = 0; i < data.stagingFieldnrs.length; i++ ) {
+      data.stagingFieldnrs[i] = fieldnrs.get( i );
+    }
+    data.stagingTable = new StagingTable( data.db, data.realSchemaTable, stagingRowMeta, meta.getKeyLookup(),
+      updateColumns.toArray( new String[0] ) );
+    data.stagingSize = data.commitSize > 0 ? data.commitSize : DEFAULT_STAGING_SIZE;
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "SynchronizeAfterMerge.Log.UsingStagingTable",
+        String.valueOf( data.stagingSize ), data.stagingTable.getTableName() ) );
+    }
+  }
+
+  /**
+   * Stage an update or delete. The staged rows are applied first when the operation changes, so the rows still reach
+   * the table in the order of the stream.
+   */
+  private void stageRow( Object[] row, String operation ) throws KettleException {
+    if ( !operation.equals( data.stagingOperation ) ) {
+      applyStagedRows();
+      data.stagingOperation = operation;
+    }
+    if ( log.isRowLevel() ) {
+      logRowlevel( BaseMessages.getString( PKG, "SynchronizeAfterMerge.Log.StageRow", operation,
+        data.inputRowMeta.getString( row ) ) );
+    }
+    Object[] stagingRow = new Object[data.stagingFieldnrs.length];
+    for ( int i = 0; i < data.stagingFieldnrs.length; i++ ) {
+      stagingRow[i] = row[data.stagingFieldnrs[i]];
+    }
+    data.stagingTable.addRow( stagingRow );
+    if ( data.stagingTable.size() >= data.stagingSize ) {
+      applyStagedRows();
+      data.db.commit();
+    }
+  }
+
+  /**
+   * Apply the staged updates or deletes to the target table with a single statement. The inserts that are still in
+   * the batch came before them in the stream and are executed first.
+   */
+  void applyStagedRows() throws KettleException {
+    int nrRows = data.stagingTable.size();
+    if ( nrRows == 0 ) {
+      return;
+    }
+    String insertKey = data.realSchemaTable + "insert";
+    if ( data.batchMode && Const.NVL( data.commitCounterMap.get( insertKey ), 0 ) > 0 ) {
+      try {
+        data.insertStatement.executeBatch();
+        data.insertStatement.clearBatch();
+      } catch ( SQLException ex ) {
+        throw Database.createKettleDatabaseBatchException( BaseMessages.getString( PKG,
+          "SynchronizeAfterMerge.Error.UpdatingBatch" ), ex );
+      }
+      data.commitCounterMap.put( insertKey, 0 );
+    }
+    int count;
+    if ( data.stagingOperation.equals( data.deleteValue ) ) {
+      count = data.stagingTable.delete();
+    } else {
+      count = data.stagingTable.update();
+    }
+    if ( log.isDebug() ) {
+      logDebug( BaseMessages.getString( PKG, "SynchronizeAfterMerge.Log.AppliedStagedRows", String.valueOf( nrRows ),
+        String.valueOf( count ) ) );
+    }
+    setLinesUpdated( getLinesUpdated() + count );
+  }
+
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
     meta = (SynchronizeAfterMergeMeta) smi;
     data = (SynchronizeAfterMergeData) sdi;
@@ -807,14 +948,30 @@ public class SynchronizeAfterMerge extends BaseDatabaseStep implements StepInter
             logDebug( "Preparation of the Delete SQL statement : " + sql );
           }
         }
+
+        if ( canUseStagingTable() ) {
+          createStagingTable();
+        }
       }
 
     } // end if first
 
     try {
-      lookupValues( nextRow ); // add new values to the row in rowset[0].
-      if ( !data.batchMode ) {
-        putRow( data.outputRowMeta, nextRow ); // copy row to output rowset(s);
+      String operation = null;
+      if ( data.stagingTable != null ) {
+        operation = data.inputRowMeta.getString( nextRow, data.indexOfOperationOrderField );
+      }
+      if ( operation != null && ( operation.equals( data.updateValue ) || operation.equals( data.deleteValue ) ) ) {
+        stageRow( nextRow, operation );
+        putRow( data.outputRowMeta, nextRow );
+      } else {
+        if ( operation != null && operation.equals( data.insertValue ) ) {
+          applyStagedRows();
+        }
+        lookupValues( nextRow ); // add new values to the row in rowset[0].
+        if ( !data.batchMode ) {
+          putRow( data.outputRowMeta, nextRow ); // copy row to output rowset(s);
+        }
       }
 
       if ( checkFeedback( getLinesRead() ) ) {
@@ -888,6 +1045,9 @@ public class SynchronizeAfterMerge extends BaseDatabaseStep implements StepInter
       if ( data.db.getConnection().isClosed() ) {
         return true;
       }
+      if ( data.stagingTable != null && getErrors() == 0 ) {
+        applyStagedRows();
+      }
       for ( String schemaTable : data.preparedStatements.keySet() ) {
         // Get a commit counter per prepared statement to keep track of separate tables, etc.
         Integer batchCounter = Const.NVL( data.commitCounterMap.get( schemaTable ), 0 );
@@ -927,6 +1087,22 @@ public class SynchronizeAfterMerge extends BaseDatabaseStep implements StepInter
     return true;
   }
 
+  @Override
+  public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
+    meta = (SynchronizeAfterMergeMeta) smi;
+    data = (SynchronizeAfterMergeData) sdi;
+
+    if ( data.stagingTable != null ) {
+      try {
+        data.stagingTable.close();
+      } catch ( KettleDatabaseException e ) {
+        logError( "Unexpected error dropping the staging table.", e );
+        setErrors( 1 );
+      }
+    }
+    super.dispose( smi, sdi );
+  }
+
   private void performErrorHandling( KettleDatabaseBatchException be ) {
     if ( getStepMeta().isDoingErrorHandling() ) {
       // Right at the back we are experiencing a batch commit problem...
@@ -23,6 +23,7 @@ import java.util.Map;
 
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.database.StagingTable;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseDatabaseStepData;
 import org.pentaho.di.trans.step.BaseStepData;
@@ -90,6 +91,11 @@ public class SynchronizeAfterMergeData extends BaseDatabaseStepData implements S
 
   public List<Object[]> batchBuffer;
 
+  public StagingTable stagingTable;
+  public int stagingSize;
+  public int[] stagingFieldnrs; // Stream field nrs of the staged columns
+  public String stagingOperation; // The operation of the staged rows, update or delete
+
   /**
    * Default constructor.
    */
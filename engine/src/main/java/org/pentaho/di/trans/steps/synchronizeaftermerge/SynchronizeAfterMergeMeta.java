@@ -113,6 +113,9 @@ public class SynchronizeAfterMergeMeta extends BaseDatabaseStepMeta implements S
   @Injection( name = "PERFORM_LOOKUP" )
   private boolean performLookup;
 
+  @Injection( name = "USE_STAGING_TABLE" )
+  private boolean useStagingTable;
+
   @Injection( name = "ORDER_INSERT" )
   private String OrderInsert;
 
@@ -161,6 +164,21 @@ public class SynchronizeAfterMergeMeta extends BaseDatabaseStepMeta implements S
     return performLookup;
   }
 
+  /**
+   * @param useStagingTable
+   *          The useStagingTable flag to set.
+   */
+  public void setUseStagingTable( boolean useStagingTable ) {
+    this.useStagingTable = useStagingTable;
+  }
+
+  /**
+   * @return Returns the useStagingTable flag: apply the updates and deletes in sets through a temporary table.
+   */
+  public boolean isUseStagingTable() {
+    return useStagingTable;
+  }
+
   public boolean istablenameInField() {
     return tablenameInField;
   }
@@ -417,6 +435,7 @@ public class SynchronizeAfterMergeMeta extends BaseDatabaseStepMeta implements S
 
       useBatchUpdate = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_batch" ) );
       performLookup = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "perform_lookup" ) );
+      useStagingTable = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_staging_table" ) );
 
       tablenameInField = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "tablename_in_field" ) );
       tablenameField = XMLHandler.getTagValue( stepnode, "tablename_field" );
@@ -483,6 +502,7 @@ public class SynchronizeAfterMergeMeta extends BaseDatabaseStepMeta implements S
     OrderUpdate = null;
     OrderDelete = null;
     performLookup = false;
+    useStagingTable = false;
 
     int nrkeys = 0;
     int nrvalues = 0;
@@ -516,6 +536,7 @@ public class SynchronizeAfterMergeMeta extends BaseDatabaseStepMeta implements S
     retval.append( "    " ).append( XMLHandler.addTagValue( "tablename_field", tablenameField ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "use_batch", useBatchUpdate ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "perform_lookup", performLookup ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "use_staging_table", useStagingTable ) );
 
     retval.append( "    " ).append( XMLHandler.addTagValue( "operation_order_field", operationOrderField ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "order_insert", OrderInsert ) );
@@ -562,6 +583,7 @@ public class SynchronizeAfterMergeMeta extends BaseDatabaseStepMeta implements S
       tablenameField = rep.getStepAttributeString( id_step, "tablename_field" );
       useBatchUpdate = rep.getStepAttributeBoolean( id_step, "use_batch" );
       performLookup = rep.getStepAttributeBoolean( id_step, "perform_lookup" );
+      useStagingTable = rep.getStepAttributeBoolean( id_step, "use_staging_table" );
 
       operationOrderField = rep.getStepAttributeString( id_step, "operation_order_field" );
       OrderInsert = rep.getStepAttributeString( id_step, "order_insert" );
@@ -607,6 +629,7 @@ public class SynchronizeAfterMergeMeta extends BaseDatabaseStepMeta implements S
 
       rep.saveStepAttribute( id_transformation, id_step, "use_batch", useBatchUpdate );
       rep.saveStepAttribute( id_transformation, id_step, "perform_lookup", performLookup );
+      rep.saveStepAttribute( id_transformation, id_step, "use_staging_table", useStagingTable );
 
       for ( int i = 0; i < keyStream.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "key_name", keyStream[i] );
@@ -0,0 +1,170 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.steps.tableinput;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+
+/**
+ * Reads the rows of a result set on a thread of its own, in blocks of rows, ahead of the step that consumes them.
+ * Fetching from the driver and converting the values then overlap with the work of the step and the steps after it.
+ * At most the given number of blocks are waiting to be consumed.<br>
+ * <br>
+ * While the reader runs, the step must not use the database connection for anything else.
+ */
+public class ResultSetPrefetcher implements Runnable {
+
+  /** Marks the end of the rows */
+  private static final Object[][] END = new Object[ 0 ][];
+
+  private final Database db;
+  private final ResultSet rs;
+  private final boolean lazyConversion;
+  private final int blockSize;
+  private final BlockingQueue<Object[][]> blocks;
+
+  private volatile boolean stopped;
+  private volatile KettleDatabaseException error;
+  private Thread thread;
+
+  private Object[][] block;
+  private int index;
+
+  /**
+   * @param db
+   *          the database of the result set
+   * @param rs
+   *          the result set to read
+   * @param lazyConversion
+   *          true to read the strings with lazy conversion
+   * @param blockSize
+   *          the number of rows in a block
+   * @param nrBlocks
+   *          the number of blocks to read ahead
+   */
+  public ResultSetPrefetcher( Database db, ResultSet rs, boolean lazyConversion, int blockSize, int nrBlocks ) {
+    this.db = db;
+    this.rs = rs;
+    this.lazyConversion = lazyConversion;
+    this.blockSize = blockSize;
+    this.blocks = new ArrayBlockingQueue<>( nrBlocks );
+  }
+
+  /**
+   * Start reading the rows.
+   *
+   * @param name
+   *          the name of the thread
+   */
+  public void start( String name ) {
+    thread = new Thread( this, name );
+    thread.setDaemon( true );
+    thread.start();
+  }
+
+  @Override
+  public void run() {
+    try {
+      boolean more = true;
+      while ( more && !stopped ) {
+        Object[][] rows = new Object[ blockSize ][];
+        int nrRows = 0;
+        while ( nrRows < blockSize && !stopped ) {
+          Object[] row = db.getRow( rs, lazyConversion );
+          if ( row == null ) {
+            more = false;
+            break;
+          }
+          rows[ nrRows++ ] = row;
+        }
+        if ( nrRows > 0 ) {
+          put( nrRows < blockSize ? Arrays.copyOf( rows, nrRows ) : rows );
+        }
+      }
+    } catch ( KettleDatabaseException e ) {
+      error = e;
+    } catch ( RuntimeException e ) {
+      error = new KettleDatabaseException( "Unexpected error reading ahead the rows of the query", e );
+    } finally {
+      put( END );
+    }
+  }
+
+  private void put( Object[][] rows ) {
+    try {
+      while ( !stopped ) {
+        if ( blocks.offer( rows, 100, TimeUnit.MILLISECONDS ) ) {
+          return;
+        }
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      stopped = true;
+    }
+  }
+
+  /**
+   * @return the next row or null if there are no more rows
+   * @throws KettleDatabaseException
+   *           if reading the rows failed
+   */
+  public Object[] getRow() throws KettleDatabaseException {
+    if ( block == END ) {
+      return null;
+    }
+    if ( block == null || index == block.length ) {
+      block = take();
+      index = 0;
+      if ( block == END ) {
+        if ( error != null ) {
+          throw error;
+        }
+        return null;
+      }
+    }
+    return block[ index++ ];
+  }
+
+  private Object[][] take() throws KettleDatabaseException {
+    try {
+      return blocks.take();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleDatabaseException( "Interrupted while waiting for the rows of the query", e );
+    }
+  }
+
+  /**
+   * Stop reading and wait for the reader to finish. The result set can be closed afterwards.
+   */
+  public void close() {
+    stopped = true;
+    blocks.clear();
+    if ( thread != null ) {
+      try {
+        thread.join();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -13,8 +13,14 @@
 
 package org.pentaho.di.trans.steps.tableinput;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -26,6 +32,7 @@ import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
 import org.pentaho.di.core.logging.LoggingObjectType;
 import org.pentaho.di.core.logging.SimpleLoggingObject;
@@ -54,6 +61,9 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
 
   private final ReentrantLock dbLock = new ReentrantLock();
 
+  /** The alias of the query when it's wrapped to read a partition */
+  private static final String PARTITION_ALIAS = "KTL_PART";
+
   private TableInputMeta meta;
   private TableInputData data;
 
@@ -143,23 +153,8 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
           return false;
         }
       } else {
-        if ( data.thisrow != null ) { // We can expect more rows
-
-          try {
-            data.nextrow = data.db.getRow( data.rs, meta.isLazyConversionActive() );
-          } catch ( KettleDatabaseException e ) {
-            if ( e.getCause() instanceof SQLException && isStopped() ) {
-              //This exception indicates we tried reading a row after the statment for this step was cancelled
-              //this is expected and ok so do not pass the exception up
-              logDebug( e.getMessage() );
-              return false;
-            } else {
-              throw e;
-            }
-          }
-          if ( data.nextrow != null ) {
-            incrementLinesInput();
-          }
+        if ( data.thisrow != null && !fetchNextRow() ) { // We can expect more rows
+          return false;
         }
       }
 
@@ -200,10 +195,33 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
           return false; // end of data or error.
         }
       } else {
-        putRow( data.rowMeta, data.thisrow ); // fill the rowset(s). (wait for empty)
+        if ( data.outputRows == null ) {
+          data.outputRows = new Object[ ROW_BATCH_SIZE ][];
+        }
+        int nrRows = 0;
+        data.outputRows[ nrRows++ ] = data.thisrow;
         data.thisrow = data.nextrow;
 
-        if ( checkFeedback( getLinesInput() ) ) {
+        // Fill up the rest of the batch before handing it over to the next steps
+        //
+        boolean cancelled = false;
+        while ( nrRows < ROW_BATCH_SIZE && data.thisrow != null && !isStopped() ) {
+          if ( !fetchNextRow() ) {
+            // Still pass on the rows read before the query got cancelled
+            cancelled = true;
+            break;
+          }
+          data.outputRows[ nrRows++ ] = data.thisrow;
+          data.thisrow = data.nextrow;
+        }
+
+        putRows( data.rowMeta, data.outputRows, nrRows ); // fill the rowset(s). (wait for empty)
+        Arrays.fill( data.outputRows, 0, nrRows, null );
+        if ( cancelled ) {
+          return false;
+        }
+
+        if ( checkFeedback( getLinesInput(), nrRows ) ) {
           if ( log.isBasic() ) {
             logBasic( BaseMessages.getString( PKG, "TableInput.Log.LineNumber", String.valueOf( getLinesInput() ) ) );
           }
@@ -216,13 +234,52 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Reads the next row of the result set into data.nextrow
+   *
+   * @return false if the query was cancelled because the step got stopped
+   */
+  private boolean fetchNextRow() throws KettleDatabaseException {
+    try {
+      data.nextrow = readRow();
+    } catch ( KettleDatabaseException e ) {
+      if ( e.getCause() instanceof SQLException && isStopped() ) {
+        //This exception indicates we tried reading a row after the statment for this step was cancelled
+        //this is expected and ok so do not pass the exception up
+        logDebug( e.getMessage() );
+        return false;
+      } else {
+        throw e;
+      }
+    }
+    if ( data.nextrow != null ) {
+      incrementLinesInput();
+    }
+    return true;
+  }
+
+  /**
+   * @return the next row of the result set, from the prefetcher if the rows are read ahead
+   */
+  private Object[] readRow() throws KettleDatabaseException {
+    if ( data.prefetcher != null ) {
+      return data.prefetcher.getRow();
+    }
+    return data.db.getRow( data.rs, meta.isLazyConversionActive() );
+  }
+
   private void closePreviousQuery() throws KettleDatabaseException {
+    if ( data.prefetcher != null ) {
+      // The reader has to let go of the result set before it's closed
+      data.prefetcher.close();
+      data.prefetcher = null;
+    }
     if ( data.db != null ) {
       data.db.closeQuery( data.rs );
     }
   }
 
-  private boolean doQuery( RowMetaInterface parametersMeta, Object[] parameters ) throws KettleDatabaseException {
+  private boolean doQuery( RowMetaInterface parametersMeta, Object[] parameters ) throws KettleException {
     boolean success = true;
 
     // Open the query with the optional parameters received from the source steps.
@@ -233,6 +290,34 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
       sql = meta.getSQL();
     }
 
+    if ( data.partitionCount > 1 ) {
+      // Only read the range of the partition column of this step copy
+      //
+      Object[] range = readPartitionRange( sql, parametersMeta, parameters );
+      if ( range == null ) {
+        data.thisrow = null; // Nothing to read for this copy
+        return true;
+      }
+      String column = meta.getDatabaseMeta().quoteField( data.partitionColumn );
+      String condition = null;
+      parametersMeta = parametersMeta.clone();
+      if ( range[0] != null ) {
+        condition = column + " >= ?";
+        parameters = RowDataUtil.addValueData( parameters, parametersMeta.size(), range[0] );
+        parametersMeta.addValueMeta( data.partitionMeta.clone() );
+      }
+      if ( range[1] != null ) {
+        condition = condition == null ? "( " + column + " < ? OR " + column + " IS NULL )"
+          : condition + " AND " + column + " < ?";
+        parameters = RowDataUtil.addValueData( parameters, parametersMeta.size(), range[1] );
+        parametersMeta.addValueMeta( data.partitionMeta.clone() );
+      }
+      if ( condition != null ) {
+        sql = "SELECT * FROM (" + Const.CR + stripTerminator( sql ) + Const.CR + ") " + PARTITION_ALIAS
+          + " WHERE " + condition;
+      }
+    }
+
     if ( log.isDetailed() ) {
       logDetailed( BaseMessages.getString( PKG, "TableInput.Log.SqlQuery", sql ) );
     }
@@ -259,11 +344,17 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
         }
       }
 
+      if ( data.prefetchBlocks > 0 ) {
+        data.prefetcher = new ResultSetPrefetcher( data.db, data.rs, meta.isLazyConversionActive(), ROW_BATCH_SIZE,
+          data.prefetchBlocks );
+        data.prefetcher.start( "Table input prefetch of " + getStepname() + "." + getCopy() );
+      }
+
       // Get the first row...
-      data.thisrow = data.db.getRow( data.rs );
+      data.thisrow = readRow();
       if ( data.thisrow != null ) {
         incrementLinesInput();
-        data.nextrow = data.db.getRow( data.rs );
+        data.nextrow = readRow();
         if ( data.nextrow != null ) {
           incrementLinesInput();
         }
@@ -272,6 +363,109 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
     return success;
   }
 
+  /**
+   * Reads the minimum and maximum of the partition column and calculates the range of this step copy.
+   *
+   * @return the lower (inclusive) and upper (exclusive) bound of the range, null for an open end, or null if this copy
+   *         has nothing to read
+   */
+  private Object[] readPartitionRange( String sql, RowMetaInterface parametersMeta, Object[] parameters )
+    throws KettleException {
+    String column = meta.getDatabaseMeta().quoteField( data.partitionColumn );
+    String rangeSql = "SELECT MIN(" + column + "), MAX(" + column + ") FROM (" + Const.CR + stripTerminator( sql )
+      + Const.CR + ") " + PARTITION_ALIAS;
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "TableInput.Log.ReadingPartitionRange", rangeSql ) );
+    }
+    ResultSet rs;
+    if ( parametersMeta.isEmpty() ) {
+      rs = data.db.openQuery( rangeSql, null, null, ResultSet.FETCH_FORWARD, false );
+    } else {
+      rs = data.db.openQuery( rangeSql, parametersMeta, parameters, ResultSet.FETCH_FORWARD, false );
+    }
+    Object[] minMax;
+    try {
+      minMax = data.db.getRow( rs );
+      data.partitionMeta = data.db.getReturnRowMeta().getValueMeta( 0 );
+    } finally {
+      data.db.closeQuery( rs );
+    }
+
+    if ( minMax == null || minMax[0] == null ) {
+      // Only nulls or no rows at all: the first copy reads them
+      return data.partitionNr == 0 ? new Object[] { null, null } : null;
+    }
+    Object[] bounds = getPartitionBounds( data.partitionMeta, minMax[0], minMax[1], data.partitionCount );
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "TableInput.Log.PartitionRange", String.valueOf( data.partitionNr ),
+        data.partitionMeta.getString( bounds[data.partitionNr] ),
+        data.partitionMeta.getString( bounds[data.partitionNr + 1] ) ) );
+    }
+    return new Object[] {
+      data.partitionNr == 0 ? null : bounds[data.partitionNr],
+      data.partitionNr == data.partitionCount - 1 ? null : bounds[data.partitionNr + 1] };
+  }
+
+  /**
+   * Splits the range between the minimum and maximum in equal parts.
+   *
+   * @return the nrPartitions + 1 bounds, in the type of the value metadata
+   */
+  static Object[] getPartitionBounds( ValueMetaInterface valueMeta, Object min, Object max, int nrPartitions )
+    throws KettleException {
+    BigDecimal low = toBigDecimal( valueMeta, min );
+    BigDecimal span = toBigDecimal( valueMeta, max ).subtract( low );
+
+    Object[] bounds = new Object[nrPartitions + 1];
+    for ( int i = 0; i <= nrPartitions; i++ ) {
+      BigDecimal bound = low.add( span.multiply( BigDecimal.valueOf( i ) ).divide( BigDecimal.valueOf( nrPartitions ),
+        MathContext.DECIMAL128 ) );
+      switch ( valueMeta.getType() ) {
+        case ValueMetaInterface.TYPE_INTEGER:
+          bounds[i] = bound.setScale( 0, RoundingMode.FLOOR ).longValue();
+          break;
+        case ValueMetaInterface.TYPE_NUMBER:
+          bounds[i] = bound.doubleValue();
+          break;
+        case ValueMetaInterface.TYPE_BIGNUMBER:
+          bounds[i] = bound;
+          break;
+        case ValueMetaInterface.TYPE_TIMESTAMP:
+          bounds[i] = new Timestamp( bound.setScale( 0, RoundingMode.FLOOR ).longValue() );
+          break;
+        default:
+          bounds[i] = new Date( bound.setScale( 0, RoundingMode.FLOOR ).longValue() );
+          break;
+      }
+    }
+    return bounds;
+  }
+
+  private static BigDecimal toBigDecimal( ValueMetaInterface valueMeta, Object value ) throws KettleException {
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        return BigDecimal.valueOf( valueMeta.getInteger( value ) );
+      case ValueMetaInterface.TYPE_NUMBER:
+        return BigDecimal.valueOf( valueMeta.getNumber( value ) );
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        return valueMeta.getBigNumber( value );
+      case ValueMetaInterface.TYPE_DATE:
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        return BigDecimal.valueOf( valueMeta.getDate( value ).getTime() );
+      default:
+        throw new KettleValueException( BaseMessages.getString( PKG, "TableInput.Exception.PartitionColumnType",
+          valueMeta.getName(), valueMeta.getTypeDesc() ) );
+    }
+  }
+
+  /**
+   * Removes a trailing semicolon so that the query can be used as a sub query.
+   */
+  private static String stripTerminator( String sql ) {
+    String trimmed = Const.rtrim( sql );
+    return trimmed.endsWith( ";" ) ? trimmed.substring( 0, trimmed.length() - 1 ) : trimmed;
+  }
+
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     dbLock.lock();
     try {
@@ -332,6 +526,21 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
         if ( meta.getDatabaseMeta().isRequiringTransactionsOnQueries() ) {
           data.db.setCommitSize( 100 ); // needed for PGSQL it seems...
         }
+
+        data.prefetchBlocks = Const.toInt( environmentSubstitute( meta.getPrefetchBlocks() ), 0 );
+        if ( data.prefetchBlocks > 0 ) {
+          data.db.setFetchSize( meta.getDatabaseMeta().getPrefetchFetchSize() );
+        }
+
+        data.partitionColumn = environmentSubstitute( meta.getPartitionColumn() );
+        if ( !Utils.isEmpty( data.partitionColumn ) ) {
+          if ( meta.isExecuteEachInputRow() ) {
+            logBasic( BaseMessages.getString( PKG, "TableInput.Log.PartitionColumnIgnored" ) );
+          } else {
+            data.partitionNr = getUniqueStepNrAcrossSlaves();
+            data.partitionCount = getUniqueStepCountAcrossSlaves();
+          }
+        }
         return true;
       }
       return false;
@@ -18,6 +18,7 @@ import java.sql.ResultSet;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.trans.step.BaseDatabaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 import org.pentaho.di.trans.step.errorhandling.StreamInterface;
@@ -36,6 +37,19 @@ public class TableInputData extends BaseDatabaseStepData implements StepDataInte
   public boolean isCanceled;
   public StreamInterface infoStream;
 
+  /** Re-used buffer for the rows sent to the next steps in one batch */
+  public Object[][] outputRows;
+
+  /** The column to split the rows over the step copies on, the number of copies and the number of this copy */
+  public String partitionColumn;
+  public int partitionCount;
+  public int partitionNr;
+  public ValueMetaInterface partitionMeta;
+
+  /** The number of row blocks to read ahead on another thread, 0 to read in the step thread */
+  public int prefetchBlocks;
+  public ResultSetPrefetcher prefetcher;
+
   public TableInputData() {
     super();
 
@@ -87,6 +87,14 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
 
   private RowMetaInterface cachedRowMeta;
 
+  /** The numeric or date column of the query to split the rows over the step copies on */
+  @Injection( name = "PARTITION_COLUMN" )
+  private String partitionColumn;
+
+  /** The number of blocks of rows to read ahead on another thread, empty or 0 to read in the step thread */
+  @Injection( name = "PREFETCH_BLOCKS" )
+  private String prefetchBlocks;
+
   public TableInputMeta() {
     super();
   }
@@ -157,6 +165,37 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
     this.sql = sql;
   }
 
+  /**
+   * @return the numeric or date column of the query to split the rows over the step copies on, empty to let every copy
+   *         run the full query
+   */
+  public String getPartitionColumn() {
+    return partitionColumn;
+  }
+
+  /**
+   * @param partitionColumn
+   *          the numeric or date column of the query to split the rows over the step copies on
+   */
+  public void setPartitionColumn( String partitionColumn ) {
+    this.partitionColumn = partitionColumn;
+  }
+
+  /**
+   * @return the number of blocks of rows to read ahead on another thread, empty or 0 to read in the step thread
+   */
+  public String getPrefetchBlocks() {
+    return prefetchBlocks;
+  }
+
+  /**
+   * @param prefetchBlocks
+   *          the number of blocks of rows to read ahead on another thread
+   */
+  public void setPrefetchBlocks( String prefetchBlocks ) {
+    this.prefetchBlocks = prefetchBlocks;
+  }
+
   public void loadXML( Node stepnode, List<DatabaseMeta> databases, IMetaStore metaStore ) throws KettleXMLException {
     readData( stepnode, databases );
   }
@@ -181,6 +220,8 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       variableReplacementActive = "Y".equals( XMLHandler.getTagValue( stepnode, "variables_active" ) );
       lazyConversionActive = "Y".equals( XMLHandler.getTagValue( stepnode, "lazy_conversion_active" ) );
       cachedRowMetaActive = "Y".equals( XMLHandler.getTagValue( stepnode, "cached_row_meta_active" ) );
+      partitionColumn = XMLHandler.getTagValue( stepnode, "partition_column" );
+      prefetchBlocks = XMLHandler.getTagValue( stepnode, "prefetch_blocks" );
       cachedRowMeta = new RowMeta( XMLHandler.getSubNode( stepnode, RowMeta.XML_META_TAG ) );
 
     } catch ( Exception e ) {
@@ -192,6 +233,8 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
     databaseMeta = null;
     sql = "SELECT <values> FROM <table name> WHERE <conditions>";
     rowLimit = "0";
+    partitionColumn = null;
+    prefetchBlocks = "0";
   }
 
   protected Database getDatabase() {
@@ -301,6 +344,8 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
     retval.append( "    " + XMLHandler.addTagValue( "variables_active", variableReplacementActive ) );
     retval.append( "    " + XMLHandler.addTagValue( "lazy_conversion_active", lazyConversionActive ) );
     retval.append( "    " + XMLHandler.addTagValue( "cached_row_meta_active", cachedRowMetaActive ) );
+    retval.append( "    " + XMLHandler.addTagValue( "partition_column", partitionColumn ) );
+    retval.append( "    " + XMLHandler.addTagValue( "prefetch_blocks", prefetchBlocks ) );
     storeCachedRowMeta( retval );
     return retval.toString();
   }
@@ -354,6 +399,8 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       variableReplacementActive = rep.getStepAttributeBoolean( id_step, "variables_active" );
       lazyConversionActive = rep.getStepAttributeBoolean( id_step, "lazy_conversion_active" );
       cachedRowMetaActive = rep.getStepAttributeBoolean( id_step, "cached_row_meta_active" );
+      partitionColumn = rep.getStepAttributeString( id_step, "partition_column" );
+      prefetchBlocks = rep.getStepAttributeString( id_step, "prefetch_blocks" );
 
       String sRowMeta = rep.getStepAttributeString( id_step, RowMeta.XML_META_TAG );
       if ( sRowMeta != null ) {
@@ -380,6 +427,8 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       rep.saveStepAttribute( id_transformation, id_step, "variables_active", variableReplacementActive );
       rep.saveStepAttribute( id_transformation, id_step, "lazy_conversion_active", lazyConversionActive );
       rep.saveStepAttribute( id_transformation, id_step, "cached_row_meta_active", cachedRowMetaActive );
+      rep.saveStepAttribute( id_transformation, id_step, "partition_column", partitionColumn );
+      rep.saveStepAttribute( id_transformation, id_step, "prefetch_blocks", prefetchBlocks );
       if ( cachedRowMeta != null ) {
         rep.saveStepAttribute( id_transformation, id_step, RowMeta.XML_META_TAG, cachedRowMeta.getMetaXML() );
       }
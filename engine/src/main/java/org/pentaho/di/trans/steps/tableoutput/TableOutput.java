@@ -17,6 +17,7 @@ import org.json.simple.JSONObject;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.SQLStatement;
+import org.pentaho.di.core.database.BulkLoadBuffer;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseInterface;
 import org.pentaho.di.core.exception.KettleDatabaseBatchException;
@@ -37,6 +38,8 @@ import org.pentaho.di.trans.step.*;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -55,6 +58,9 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
   public static final String CONNECTION = "connection";
   private static Class<?> PKG = TableOutputMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** The maximum number of rows streamed to the database in one bulk load */
+  static final int BULK_LOAD_SIZE = 10000;
+
   private TableOutputMeta meta;
   private TableOutputData data;
 
@@ -67,8 +73,8 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
     meta = (TableOutputMeta) smi;
     data = (TableOutputData) sdi;
 
-    Object[] r = getRow(); // this also waits for a previous step to be finished.
-    if ( r == null ) { // no more input to be expected...
+    Object[][] rows = getRows( ROW_BATCH_SIZE ); // this also waits for a previous step to be finished.
+    if ( rows == null ) { // no more input to be expected...
       // truncate the table if there are no rows at all coming into this step
       if ( first && meta.truncateTable() ) {
         truncateTable();
@@ -118,19 +124,31 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
       }
     }
 
+    if ( data.outputRows == null ) {
+      data.outputRows = new Object[ ROW_BATCH_SIZE ][];
+    }
+    int nrOutputRows = 0;
     try {
-      Object[] outputRowData = writeToTable( getInputRowMeta(), r );
-      if ( outputRowData != null ) {
-        putRow( data.outputRowMeta, outputRowData ); // in case we want it go further...
-        incrementLinesOutput();
+      for ( Object[] r : rows ) {
+        Object[] outputRowData = writeToTable( getInputRowMeta(), r );
+        if ( outputRowData != null ) {
+          data.outputRows[ nrOutputRows++ ] = outputRowData; // in case we want it go further...
+          incrementLinesOutput();
+        }
       }
+      putRows( data.outputRowMeta, data.outputRows, nrOutputRows );
+      Arrays.fill( data.outputRows, 0, nrOutputRows, null );
 
-      if ( checkFeedback( getLinesRead() ) ) {
+      if ( checkFeedback( getLinesRead(), rows.length ) ) {
         if ( log.isBasic() ) {
           logBasic( "linenr " + getLinesRead() );
         }
       }
     } catch ( KettleException e ) {
+      // The rows written before the error still go further
+      putRows( data.outputRowMeta, data.outputRows, nrOutputRows );
+      Arrays.fill( data.outputRows, 0, nrOutputRows, null );
+
       logError( "Because of an error, this step can't continue: ", e );
       setErrors( 1 );
       stopAll();
@@ -236,6 +254,16 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
       throw new KettleStepException( "The tablename is not defined (empty)" );
     }
 
+    if ( data.bulkLoad ) {
+      writeToBulkLoad( insertRowData, outputRowData );
+      return null;
+    }
+
+    if ( data.nrWriters > 1 ) {
+      writeToWriterPool( insertRowData, outputRowData );
+      return null;
+    }
+
     insertStatement = data.preparedStatements.get( tableName );
     if ( insertStatement == null ) {
       String sql =
@@ -428,6 +456,115 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
     return log.isRowLevel();
   }
 
+  /**
+   * Buffers a row for the bulk load. The rows are loaded at the latest when the commit size is reached, so that a
+   * commit never splits a load.
+   */
+  private void writeToBulkLoad( Object[] insertRowData, Object[] outputRowData ) throws KettleException {
+    try {
+      if ( data.bulkLoadBuffer == null ) {
+        String schemaTable =
+          data.databaseMeta.getQuotedSchemaTableCombination( environmentSubstitute( meta.getSchemaName() ),
+            data.tableName );
+        data.bulkLoadBuffer = new BulkLoadBuffer( data.db, schemaTable, data.insertRowMeta );
+      }
+      data.bulkLoadBuffer.addRow( insertRowData );
+      data.batchBuffer.add( outputRowData );
+      if ( data.bulkLoadBuffer.size() >= Math.min( BULK_LOAD_SIZE, data.commitSize - data.bulkLoadCounter ) ) {
+        loadBulkRows();
+      }
+    } catch ( KettleDatabaseException e ) {
+      throw new KettleException( BaseMessages.getString( PKG, "TableOutput.Exception.BulkLoadFailed",
+        data.tableName ), e );
+    }
+  }
+
+  /**
+   * Loads the buffered rows, commits once the commit size is reached and passes the loaded rows on.
+   */
+  private void loadBulkRows() throws KettleException {
+    int nrRows = data.bulkLoadBuffer.size();
+    long loaded = data.bulkLoadBuffer.load();
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "TableOutput.Log.BulkLoaded", nrRows, loaded ) );
+    }
+    data.bulkLoadCounter += nrRows;
+    if ( data.bulkLoadCounter >= data.commitSize ) {
+      data.db.commit();
+      data.bulkLoadCounter = 0;
+    }
+    for ( Object[] row : data.batchBuffer ) {
+      putRow( data.outputRowMeta, row );
+      incrementLinesOutput();
+    }
+    data.batchBuffer.clear();
+  }
+
+  /**
+   * Buffers a row for the writer pool and submits the buffer as a batch once it holds commit size rows. The output
+   * rows are only passed on once the commit group of their batch is committed.
+   */
+  private void writeToWriterPool( Object[] insertRowData, Object[] outputRowData ) throws KettleException {
+    try {
+      if ( data.writerPool == null ) {
+        // The writer connections need to see a truncate of the step connection
+        data.db.commit( true );
+        String sql =
+          data.db.getInsertStatement( environmentSubstitute( meta.getSchemaName() ), data.tableName,
+            data.insertRowMeta );
+        if ( log.isDetailed() ) {
+          logDetailed( "Prepared statement : " + sql );
+        }
+        data.writerPool =
+          new TableOutputWriterPool( this, this, data.databaseMeta, getPartitionID(), data.nrWriters, sql,
+            data.insertRowMeta );
+      }
+      data.writerRows.add( insertRowData );
+      data.batchBuffer.add( outputRowData );
+      if ( isRowLevel() ) {
+        logRowlevel( "Buffered row: " + data.insertRowMeta.getString( insertRowData ) );
+      }
+      if ( data.writerRows.size() >= data.commitSize ) {
+        submitWriterBatch();
+      }
+    } catch ( KettleDatabaseException e ) {
+      throw new KettleException( BaseMessages.getString( PKG, "TableOutput.Exception.WriterBatchFailed",
+        data.tableName ), e );
+    }
+  }
+
+  /**
+   * Hands the buffered rows to the next writer connection. When every connection holds a batch, the group is
+   * committed first.
+   */
+  private void submitWriterBatch() throws KettleException {
+    if ( data.writerPool.isGroupComplete() ) {
+      commitWriterGroup();
+    }
+    data.writerPool.submit( data.writerRows );
+    data.writerRows = new ArrayList<Object[]>();
+    data.writerGroupRows.addAll( data.batchBuffer );
+    data.batchBuffer.clear();
+  }
+
+  /**
+   * Commits the writer connections and passes on the rows of the group. The commit is not atomic: when it fails, the
+   * connections that committed before the failing one keep their rows.
+   */
+  private void commitWriterGroup() throws KettleException {
+    try {
+      data.writerPool.commit();
+    } catch ( KettleDatabaseException e ) {
+      throw new KettleException( BaseMessages.getString( PKG, "TableOutput.Exception.WriterCommitFailed",
+        data.tableName ), e );
+    }
+    for ( Object[] row : data.writerGroupRows ) {
+      putRow( data.outputRowMeta, row );
+      incrementLinesOutput();
+    }
+    data.writerGroupRows.clear();
+  }
+
   private void processBatchException( String errorMessage, int[] updateCounts, List<Exception> exceptionsList ) throws KettleException {
     // There was an error with the commit
     // We should put all the failing rows out there...
@@ -520,6 +657,32 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
           data.tableName = environmentSubstitute( meta.getTableName() );
         }
 
+        // A bulk load streams the rows of a single table as a whole: it can't report or skip single rows.
+        if ( meta.isUseBulkLoad() ) {
+          data.bulkLoad =
+            data.databaseMeta.supportsBulkLoadFromStream() && data.tableName != null
+              && !getStepMeta().isDoingErrorHandling() && !meta.ignoreErrors() && !meta.isReturningGeneratedKeys();
+          logBasic( BaseMessages.getString( PKG, data.bulkLoad ? "TableOutput.Log.UsingBulkLoad"
+            : "TableOutput.Log.BulkLoadNotUsed" ) );
+        }
+
+        // The writer pool splits the batches of a single table over several connections.
+        // Error handling needs the rows of a batch back on the step connection.
+        data.nrWriters = Math.max( 1, Const.toInt( environmentSubstitute( meta.getNrWriters() ), 1 ) );
+        if ( data.nrWriters > 1 && data.bulkLoad ) {
+          data.nrWriters = 1;
+        } else if ( data.nrWriters > 1 ) {
+          if ( data.batchMode && data.tableName != null && !getStepMeta().isDoingErrorHandling() ) {
+            if ( log.isBasic() ) {
+              logBasic( BaseMessages.getString( PKG, "TableOutput.Log.UsingWriterConnections", data.nrWriters,
+                data.commitSize * data.nrWriters ) );
+            }
+          } else {
+            logBasic( BaseMessages.getString( PKG, "TableOutput.Log.WriterConnectionsNotUsed" ) );
+            data.nrWriters = 1;
+          }
+        }
+
         return true;
       } catch ( KettleException e ) {
         logError( "An error occurred intialising this step: " + e.getMessage() );
@@ -554,6 +717,16 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
 
     if ( data.db != null ) {
       try {
+        if ( data.writerPool != null && getErrors() == 0 ) {
+          if ( !data.writerRows.isEmpty() ) {
+            submitWriterBatch();
+          }
+          commitWriterGroup();
+        }
+        if ( data.bulkLoadBuffer != null && getErrors() == 0 ) {
+          loadBulkRows();
+          data.db.commit();
+        }
         for ( String schemaTable : data.preparedStatements.keySet() ) {
           // Get a commit counter per prepared statement to keep track of separate tables, etc.
           //
@@ -604,6 +777,17 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
             logError( "Unexpected error rolling back the database connection.", e );
           }
         }
+        if ( data.writerPool != null ) {
+          if ( getErrors() > 0 ) {
+            try {
+              data.writerPool.rollback();
+            } catch ( KettleDatabaseException e ) {
+              logError( "Unexpected error rolling back the writer connections.", e );
+            }
+          }
+          data.writerPool.close();
+          data.writerPool = null;
+        }
       }
       super.dispose( smi, sdi );
     }
@@ -22,6 +22,7 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 
+import org.pentaho.di.core.database.BulkLoadBuffer;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -69,6 +70,23 @@ public class TableOutputData extends BaseDatabaseStepData implements StepDataInt
 
   public int commitSize;
 
+  /** Re-used buffer for the rows sent to the next steps in one batch */
+  public Object[][] outputRows;
+
+  /** Stream the rows with the bulk load API of the driver instead of inserting them */
+  public boolean bulkLoad;
+  public BulkLoadBuffer bulkLoadBuffer;
+  /** The number of rows loaded since the last commit */
+  public int bulkLoadCounter;
+
+  /** The number of connections that insert the batches in parallel, 1 when not using the writer pool */
+  public int nrWriters;
+  public TableOutputWriterPool writerPool;
+  /** The rows to insert in the next batch of the writer pool */
+  public List<Object[]> writerRows;
+  /** The output rows of the submitted batches, they are passed on when their commit group is committed */
+  public List<Object[]> writerGroupRows;
+
   public TableOutputData() {
     super();
 
@@ -82,6 +100,8 @@ public class TableOutputData extends BaseDatabaseStepData implements StepDataInt
     indexOfTableNameField = -1;
 
     batchBuffer = new ArrayList<Object[]>();
+    writerRows = new ArrayList<Object[]>();
+    writerGroupRows = new ArrayList<Object[]>();
     commitCounterMap = new HashMap<String, Integer>();
 
     releaseSavepoint = true;
@@ -72,6 +72,10 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
   @Injection( name = "COMMIT_SIZE" )
   private String commitSize;
 
+  /** The number of connections that insert the batches in parallel */
+  @Injection( name = "NR_WRITER_CONNECTIONS" )
+  private String nrWriters;
+
   @Injection( name = "TRUNCATE_TABLE" )
   public void metaSetTruncateTable( String value ) {
     setTruncateTable( "Y".equalsIgnoreCase( value ) );
@@ -99,6 +103,10 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
   }
   private boolean useBatchUpdate;
 
+  /** Stream the rows into the table with the bulk load API of the driver */
+  @Injection( name = "USE_BULK_LOAD" )
+  private boolean useBulkLoad;
+
 
   @Injection( name = "PARTITION_OVER_TABLES" )
   public void metaSetPartitionOverTables( String value ) {
@@ -287,6 +295,7 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     super(); // allocate BaseStepMeta
     useBatchUpdate = true;
     commitSize = "1000";
+    nrWriters = "1";
 
     fieldStream = new String[ 0 ];
     fieldDatabase = new String[ 0 ];
@@ -348,6 +357,20 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     this.commitSize = commitSize;
   }
 
+  /**
+   * @return the number of connections that insert the batches in parallel
+   */
+  public String getNrWriters() {
+    return nrWriters;
+  }
+
+  /**
+   * @param nrWriters the number of connections that insert the batches in parallel
+   */
+  public void setNrWriters( String nrWriters ) {
+    this.nrWriters = nrWriters;
+  }
+
   /**
    * @return the table name
    */
@@ -438,6 +461,20 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     return useBatchUpdate;
   }
 
+  /**
+   * @return true if the rows are streamed into the table with the bulk load API of the driver
+   */
+  public boolean isUseBulkLoad() {
+    return useBulkLoad;
+  }
+
+  /**
+   * @param useBulkLoad true to stream the rows into the table with the bulk load API of the driver
+   */
+  public void setUseBulkLoad( boolean useBulkLoad ) {
+    this.useBulkLoad = useBulkLoad;
+  }
+
   private void readData( Node stepnode, List<DatabaseMeta> databases ) throws KettleXMLException {
     try {
       String con = XMLHandler.getTagValue( stepnode, "connection" );
@@ -445,9 +482,11 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
       schemaName = XMLHandler.getTagValue( stepnode, "schema" );
       tableName = XMLHandler.getTagValue( stepnode, "table" );
       commitSize = XMLHandler.getTagValue( stepnode, "commit" );
+      nrWriters = Const.NVL( XMLHandler.getTagValue( stepnode, "nr_writers" ), "1" );
       truncateTable = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "truncate" ) );
       ignoreErrors = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "ignore_errors" ) );
       useBatchUpdate = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_batch" ) );
+      useBulkLoad = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_bulk_load" ) );
 
       // If not present it will be false to be compatible with pre-v3.2
       specifyFields = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "specify_fields" ) );
@@ -484,6 +523,8 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     databaseMeta = null;
     tableName = "";
     commitSize = "1000";
+    nrWriters = "1";
+    useBulkLoad = false;
 
     partitioningEnabled = false;
     partitioningMonthly = true;
@@ -503,9 +544,11 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     retval.append( "    " + XMLHandler.addTagValue( "schema", schemaName ) );
     retval.append( "    " + XMLHandler.addTagValue( "table", tableName ) );
     retval.append( "    " + XMLHandler.addTagValue( "commit", commitSize ) );
+    retval.append( "    " + XMLHandler.addTagValue( "nr_writers", nrWriters ) );
     retval.append( "    " + XMLHandler.addTagValue( "truncate", truncateTable ) );
     retval.append( "    " + XMLHandler.addTagValue( "ignore_errors", ignoreErrors ) );
     retval.append( "    " + XMLHandler.addTagValue( "use_batch", useBatchUpdate ) );
+    retval.append( "    " + XMLHandler.addTagValue( "use_bulk_load", useBulkLoad ) );
     retval.append( "    " + XMLHandler.addTagValue( "specify_fields", specifyFields ) );
 
     retval.append( "    " + XMLHandler.addTagValue( "partitioning_enabled", partitioningEnabled ) );
@@ -540,9 +583,11 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
       schemaName = rep.getStepAttributeString( id_step, "schema" );
       tableName = rep.getStepAttributeString( id_step, "table" );
       commitSize = rep.getStepAttributeString( id_step, "commit" );
+      nrWriters = Const.NVL( rep.getStepAttributeString( id_step, "nr_writers" ), "1" );
       truncateTable = rep.getStepAttributeBoolean( id_step, "truncate" );
       ignoreErrors = rep.getStepAttributeBoolean( id_step, "ignore_errors" );
       useBatchUpdate = rep.getStepAttributeBoolean( id_step, "use_batch" );
+      useBulkLoad = rep.getStepAttributeBoolean( id_step, "use_bulk_load" );
       specifyFields = rep.getStepAttributeBoolean( id_step, "specify_fields" );
 
       partitioningEnabled = rep.getStepAttributeBoolean( id_step, "partitioning_enabled" );
@@ -579,9 +624,11 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
       rep.saveStepAttribute( id_transformation, id_step, "schema", schemaName );
       rep.saveStepAttribute( id_transformation, id_step, "table", tableName );
       rep.saveStepAttribute( id_transformation, id_step, "commit", commitSize );
+      rep.saveStepAttribute( id_transformation, id_step, "nr_writers", nrWriters );
       rep.saveStepAttribute( id_transformation, id_step, "truncate", truncateTable );
       rep.saveStepAttribute( id_transformation, id_step, "ignore_errors", ignoreErrors );
       rep.saveStepAttribute( id_transformation, id_step, "use_batch", useBatchUpdate );
+      rep.saveStepAttribute( id_transformation, id_step, "use_bulk_load", useBulkLoad );
       rep.saveStepAttribute( id_transformation, id_step, "specify_fields", specifyFields );
 
       rep.saveStepAttribute( id_transformation, id_step, "partitioning_enabled", partitioningEnabled );
@@ -0,0 +1,275 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.variables.VariableSpace;
+
+/**
+ * A set of connections that insert batches of rows into the same table at the same time. The batches are handed out
+ * round-robin, so that one connection executes its batch while the step fills the next one for another connection.
+ * Every connection has its own thread, the connection and its statement are only used on that thread.<br>
+ * <br>
+ * A commit group is one batch per connection. The connections only commit once all the batches of a group are
+ * executed, one after the other in the order of the connections. When a batch fails, none of the connections commit
+ * its group and all of them can be rolled back to the previous group.<br>
+ * <br>
+ * The commit itself is not atomic: when a connection fails to commit, the connections before it already committed
+ * their batch of the group. The connections after it are rolled back and the error tells how many connections
+ * committed.
+ */
+public class TableOutputWriterPool {
+
+  private final Writer[] writers;
+  private int next;
+  private boolean pending;
+
+  /**
+   * Connects all the writers and prepares the insert statement on each of them.
+   *
+   * @param parent
+   *          the step the connections belong to
+   * @param variables
+   *          the variables of the step
+   * @param databaseMeta
+   *          the connection to open several times
+   * @param partitionId
+   *          the partition of the step, or null
+   * @param nrWriters
+   *          the number of connections
+   * @param sql
+   *          the insert statement
+   * @param rowMeta
+   *          the layout of the inserted rows
+   */
+  public TableOutputWriterPool( LoggingObjectInterface parent, VariableSpace variables, DatabaseMeta databaseMeta,
+    String partitionId, int nrWriters, String sql, RowMetaInterface rowMeta ) throws KettleDatabaseException {
+    writers = new Writer[nrWriters];
+    try {
+      for ( int i = 0; i < nrWriters; i++ ) {
+        String threadName = "Table output writer " + i + " of " + parent.getObjectName();
+        writers[i] = new Writer( createDatabase( parent, databaseMeta ), variables, partitionId, sql, rowMeta,
+          threadName );
+      }
+    } catch ( KettleDatabaseException e ) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * @return a new database to connect a writer with
+   */
+  Database createDatabase( LoggingObjectInterface parent, DatabaseMeta databaseMeta ) {
+    return new Database( parent, databaseMeta );
+  }
+
+  /**
+   * @return the number of connections
+   */
+  public int size() {
+    return writers.length;
+  }
+
+  /**
+   * @return true if the next batch starts a new commit group: the previous group needs to be committed first
+   */
+  public boolean isGroupComplete() {
+    return next == 0 && pending;
+  }
+
+  /**
+   * Hands a batch of rows to the next writer. This only waits if that writer is still busy with its batch of the
+   * previous group.
+   *
+   * @param rows
+   *          the rows to insert, in the layout of the insert statement
+   */
+  public void submit( final List<Object[]> rows ) throws KettleDatabaseException {
+    final Writer writer = writers[next];
+    writer.await();
+    writer.pending = writer.executor.submit( new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        writer.execute( rows );
+        return null;
+      }
+    } );
+    pending = true;
+    next = ( next + 1 ) % writers.length;
+  }
+
+  /**
+   * Waits for all the submitted batches and commits the connections one after the other. When a commit fails, the
+   * connections that did not commit yet are rolled back.
+   */
+  public void commit() throws KettleDatabaseException {
+    for ( Writer writer : writers ) {
+      writer.await();
+    }
+    for ( int i = 0; i < writers.length; i++ ) {
+      final Writer writer = writers[i];
+      writer.pending = writer.executor.submit( new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          writer.db.commit( true );
+          return null;
+        }
+      } );
+      try {
+        writer.await();
+      } catch ( KettleDatabaseException e ) {
+        try {
+          rollback();
+        } catch ( KettleDatabaseException re ) {
+          e.addSuppressed( re );
+        }
+        throw new KettleDatabaseException( "Unable to commit writer connection " + ( i + 1 ) + " of "
+          + writers.length + ", the " + i + " connection(s) before it already committed their rows", e );
+      }
+    }
+    pending = false;
+    next = 0;
+  }
+
+  /**
+   * Rolls back all the connections to the last commit, the batches that are still running are waited for first.
+   */
+  public void rollback() throws KettleDatabaseException {
+    KettleDatabaseException first = null;
+    for ( final Writer writer : writers ) {
+      if ( writer == null ) {
+        continue;
+      }
+      try {
+        writer.await();
+      } catch ( KettleDatabaseException e ) {
+        // Already reported by the batch, it needs to be rolled back anyway
+      }
+      writer.pending = writer.executor.submit( new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          writer.db.rollback( true );
+          return null;
+        }
+      } );
+      try {
+        writer.await();
+      } catch ( KettleDatabaseException e ) {
+        if ( first == null ) {
+          first = e;
+        }
+      }
+    }
+    pending = false;
+    next = 0;
+    if ( first != null ) {
+      throw first;
+    }
+  }
+
+  /**
+   * Disconnects all the writers and stops their threads. Rows that are not committed are discarded.
+   */
+  public void close() {
+    for ( Writer writer : writers ) {
+      if ( writer != null ) {
+        writer.executor.shutdownNow();
+        try {
+          writer.db.closePreparedStatement( writer.statement );
+        } catch ( KettleDatabaseException e ) {
+          // Closed together with the connection anyway
+        }
+        writer.db.disconnect();
+      }
+    }
+  }
+
+  private static class Writer {
+    private final Database db;
+    private final RowMetaInterface rowMeta;
+    private final ExecutorService executor;
+    private PreparedStatement statement;
+    private Future<Void> pending;
+
+    Writer( Database db, VariableSpace variables, String partitionId, String sql, RowMetaInterface rowMeta,
+      final String threadName ) throws KettleDatabaseException {
+      this.db = db;
+      this.rowMeta = rowMeta;
+      executor = Executors.newSingleThreadExecutor( r -> {
+        Thread thread = new Thread( r, threadName );
+        thread.setDaemon( true );
+        return thread;
+      } );
+      db.shareVariablesWith( variables );
+      try {
+        db.connect( partitionId );
+        db.setAutoCommit( false );
+        statement = db.prepareSQL( sql );
+      } catch ( KettleDatabaseException e ) {
+        executor.shutdownNow();
+        db.disconnect();
+        throw e;
+      }
+    }
+
+    void execute( List<Object[]> rows ) throws KettleDatabaseException {
+      try {
+        for ( Object[] row : rows ) {
+          db.setValues( rowMeta, row, statement );
+          statement.addBatch();
+        }
+        statement.executeBatch();
+        statement.clearBatch();
+      } catch ( SQLException e ) {
+        throw Database.createKettleDatabaseBatchException( "Error updating batch", e );
+      }
+    }
+
+    /**
+     * Waits for the last task of this writer and passes on its error.
+     */
+    void await() throws KettleDatabaseException {
+      if ( pending == null ) {
+        return;
+      }
+      try {
+        pending.get();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new KettleDatabaseException( "Interrupted while waiting for a batch insert", e );
+      } catch ( ExecutionException e ) {
+        if ( e.getCause() instanceof KettleDatabaseException ) {
+          throw (KettleDatabaseException) e.getCause();
+        }
+        throw new KettleDatabaseException( "Unexpected error inserting a batch", e.getCause() );
+      } finally {
+        pending = null;
+      }
+    }
+  }
+}
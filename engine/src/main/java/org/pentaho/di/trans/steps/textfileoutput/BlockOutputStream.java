@@ -0,0 +1,228 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.steps.textfileoutput;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.pentaho.di.core.compress.CompressionOutputStream;
+import org.pentaho.di.core.compress.CompressionProvider;
+
+/**
+ * Buffers the output of a step in large blocks and hands every full block to a writer thread, so the step can fill the
+ * next block while the previous one is written. With a pool of compressors every block is compressed into a stream of
+ * its own, in parallel, and the writer puts the compressed streams one after the other in the file: see
+ * {@link CompressionProvider#supportsConcatenatedOutput()}. <br>
+ * <br>
+ * A block is written when it is full and on {@link #flush()}, which waits for all the blocks to be written. An error of
+ * the writer is thrown on the next write or flush.
+ */
+public class BlockOutputStream extends BufferedOutputStream {
+
+  public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+  private final OutputStream target;
+  private final ExecutorService writer;
+  private final ExecutorService compressors;
+  private final CompressionProvider compressionProvider;
+  private final int blockSize;
+  private final int nrBlocks;
+
+  private final BlockingQueue<byte[]> freeBlocks;
+  private int nrAllocated;
+
+  private byte[] block;
+  private int count;
+  private boolean blockWritten;
+  private Future<?> lastWrite;
+  private volatile IOException error;
+
+  /**
+   * @param target
+   *          where the blocks are written: the compression stream or, with compressors, the file
+   * @param writer
+   *          a single thread executor that writes the blocks in order
+   * @param compressors
+   *          the threads to compress the blocks with or null to write them as they are
+   * @param compressionProvider
+   *          the compression of the blocks if there are compressors
+   * @param blockSize
+   *          the size of a block
+   * @param nrBlocks
+   *          the maximum number of blocks being filled, compressed or written
+   */
+  public BlockOutputStream( OutputStream target, ExecutorService writer, ExecutorService compressors,
+                            CompressionProvider compressionProvider, int blockSize, int nrBlocks ) {
+    super( target, 1 );
+    this.target = target;
+    this.writer = writer;
+    this.compressors = compressors;
+    this.compressionProvider = compressionProvider;
+    this.blockSize = blockSize;
+    this.nrBlocks = Math.max( 2, nrBlocks );
+    this.freeBlocks = new ArrayBlockingQueue<>( this.nrBlocks );
+  }
+
+  @Override
+  public void write( int b ) throws IOException {
+    if ( block == null ) {
+      block = nextBlock();
+    } else if ( count == blockSize ) {
+      writeBlock();
+      block = nextBlock();
+    }
+    block[ count++ ] = (byte) b;
+  }
+
+  @Override
+  public void write( byte[] b, int off, int len ) throws IOException {
+    while ( len > 0 ) {
+      if ( block == null ) {
+        block = nextBlock();
+      } else if ( count == blockSize ) {
+        writeBlock();
+        block = nextBlock();
+      }
+      int n = Math.min( len, blockSize - count );
+      System.arraycopy( b, off, block, count, n );
+      count += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  /**
+   * Write what is buffered and wait until everything is written.
+   */
+  @Override
+  public void flush() throws IOException {
+    try {
+      // An empty file still needs a compressed stream
+      if ( count > 0 || ( compressors != null && !blockWritten ) ) {
+        writeBlock();
+      }
+    } finally {
+      // Also after an error: the writer may still be busy with the target
+      awaitLastWrite();
+    }
+    checkError();
+    target.flush();
+  }
+
+  /**
+   * Write what is buffered and close the target once the writer is done with it, also after an error.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      target.close();
+    }
+  }
+
+  private void awaitLastWrite() throws IOException {
+    if ( lastWrite != null ) {
+      try {
+        lastWrite.get();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException( "Interrupted waiting for the blocks to be written" );
+      } catch ( ExecutionException e ) {
+        setError( e.getCause() );
+      }
+      lastWrite = null;
+    }
+  }
+
+  private void writeBlock() throws IOException {
+    checkError();
+    final byte[] full = block == null ? new byte[ 0 ] : block;
+    final int length = count;
+    final Future<byte[]> compressed = compressors == null ? null : compressors.submit( () -> compress( full, length ) );
+    lastWrite = writer.submit( () -> {
+      try {
+        if ( error == null ) {
+          if ( compressed == null ) {
+            target.write( full, 0, length );
+          } else {
+            target.write( compressed.get() );
+          }
+        }
+      } catch ( ExecutionException e ) {
+        setError( e.getCause() );
+      } catch ( Exception e ) {
+        setError( e );
+      } finally {
+        if ( full.length == blockSize ) {
+          freeBlocks.offer( full );
+        }
+      }
+    } );
+    blockWritten = true;
+
+    block = null;
+    count = 0;
+  }
+
+  private byte[] compress( byte[] data, int length ) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream( length / 2 + 64 );
+    try ( CompressionOutputStream out = compressionProvider.createOutputStream( bytes ) ) {
+      out.write( data, 0, length );
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @return a free block, waiting for one if all of them are in use
+   */
+  private byte[] nextBlock() throws IOException {
+    byte[] next = freeBlocks.poll();
+    if ( next == null && nrAllocated < nrBlocks ) {
+      nrAllocated++;
+      return new byte[ blockSize ];
+    }
+    try {
+      while ( next == null ) {
+        next = freeBlocks.take();
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted waiting for a block to be written" );
+    }
+    return next;
+  }
+
+  private void setError( Throwable t ) {
+    if ( error == null ) {
+      error = t instanceof IOException ? (IOException) t : new IOException( t );
+    }
+  }
+
+  private void checkError() throws IOException {
+    if ( error != null ) {
+      throw error;
+    }
+  }
+}
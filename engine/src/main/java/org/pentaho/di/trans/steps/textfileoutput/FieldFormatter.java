@@ -0,0 +1,452 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.steps.textfileoutput;
+
+import java.io.UnsupportedEncodingException;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.util.Utils;
+
+/**
+ * Formats the values of a field straight into a reusable byte array, the same way
+ * {@link ValueMetaInterface#getBinaryString(Object)} would, without creating a String and a byte array for every
+ * value. The mask of the field is compiled once: see {@link #compile(ValueMetaInterface, String)} for the fields that
+ * can be formatted this way.<br>
+ * <br>
+ * Not thread-safe: every copy of the step compiles its own formatters.
+ */
+public abstract class FieldFormatter {
+
+  private static final String ASCII;
+
+  static {
+    StringBuilder ascii = new StringBuilder( 128 );
+    for ( char c = 0; c < 128; c++ ) {
+      ascii.append( c );
+    }
+    ASCII = ascii.toString();
+  }
+
+  protected byte[] buffer;
+  protected int length;
+
+  protected FieldFormatter( int size ) {
+    buffer = new byte[ size ];
+  }
+
+  /**
+   * Format a value into the buffer.
+   *
+   * @param value
+   *          the value, not null
+   * @return true if the value is in the buffer, false if it has to be formatted the usual way
+   */
+  public abstract boolean format( Object value );
+
+  /**
+   * @return the buffer holding the last formatted value, from 0 to {@link #getLength()}
+   */
+  public byte[] getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * @return the number of bytes of the last formatted value
+   */
+  public int getLength() {
+    return length;
+  }
+
+  protected void append( byte[] bytes ) {
+    System.arraycopy( bytes, 0, buffer, length, bytes.length );
+    length += bytes.length;
+  }
+
+  /**
+   * Compile the formatters of a row.
+   *
+   * @param valueMetas
+   *          the fields in the order they are written
+   * @param encoding
+   *          the encoding of the output file or null for the default
+   * @return a formatter for every field, null where the field has to be formatted the usual way
+   */
+  public static FieldFormatter[] compile( List<ValueMetaInterface> valueMetas, String encoding ) {
+    FieldFormatter[] formatters = new FieldFormatter[ valueMetas.size() ];
+    for ( int i = 0; i < formatters.length; i++ ) {
+      formatters[ i ] = compile( valueMetas.get( i ), encoding );
+    }
+    return formatters;
+  }
+
+  /**
+   * Compile the formatter of a field. Supported are, in normal storage:
+   * <ul>
+   * <li>integers with a mask of digits, grouping and literal text;</li>
+   * <li>dates with a mask of the numeric year, month, day, hour, minute, second and millisecond and literal text, in
+   * the Gregorian calendar;</li>
+   * <li>strings without trimming, length, padding or truncation.</li>
+   * </ul>
+   * Numbers and big numbers keep being rounded by their {@link DecimalFormat}. The encoding has to write ASCII as
+   * ASCII, like UTF-8 and the ISO-8859 encodings, and every text of the mask has to be ASCII.
+   *
+   * @param v
+   *          the field
+   * @param encoding
+   *          the encoding of the output file or null for the default, used for strings
+   * @return the formatter or null if the field has to be formatted the usual way
+   */
+  public static FieldFormatter compile( ValueMetaInterface v, String encoding ) {
+    if ( v == null || v.getStorageType() != ValueMetaInterface.STORAGE_TYPE_NORMAL ) {
+      return null;
+    }
+    if ( v.getClass() == ValueMetaInteger.class && isAsciiCompatible( v.getStringEncoding() ) ) {
+      return IntegerFormatter.compile( v.getDecimalFormat( false ) );
+    }
+    if ( v.getClass() == ValueMetaDate.class && isAsciiCompatible( v.getStringEncoding() ) ) {
+      return DateFormatter.compile( v.getDateFormat() );
+    }
+    if ( v.getClass() == ValueMetaString.class && v.getTrimType() == ValueMetaInterface.TRIM_TYPE_NONE
+      && v.getLength() < 0 && isAsciiCompatible( encoding ) ) {
+      return new StringFormatter();
+    }
+    return null;
+  }
+
+  static boolean isAsciiCompatible( String encoding ) {
+    try {
+      byte[] bytes = Utils.isEmpty( encoding ) ? ASCII.getBytes() : ASCII.getBytes( encoding );
+      if ( bytes.length != ASCII.length() ) {
+        return false;
+      }
+      for ( int i = 0; i < bytes.length; i++ ) {
+        if ( bytes[ i ] != i ) {
+          return false;
+        }
+      }
+      return true;
+    } catch ( UnsupportedEncodingException e ) {
+      return false;
+    }
+  }
+
+  static byte[] toAscii( String text ) {
+    if ( text == null ) {
+      return new byte[ 0 ];
+    }
+    byte[] bytes = new byte[ text.length() ];
+    for ( int i = 0; i < bytes.length; i++ ) {
+      char c = text.charAt( i );
+      if ( c >= 128 ) {
+        return null;
+      }
+      bytes[ i ] = (byte) c;
+    }
+    return bytes;
+  }
+
+  /**
+   * Writes a long like a {@link DecimalFormat} without fraction, exponent or multiplier does.
+   */
+  static class IntegerFormatter extends FieldFormatter {
+    private final byte[] positivePrefix;
+    private final byte[] positiveSuffix;
+    private final byte[] negativePrefix;
+    private final byte[] negativeSuffix;
+    private final int minimumDigits;
+    private final int groupingSize;
+    private final byte groupingSeparator;
+    private final byte[] digits = new byte[ 19 ];
+
+    private IntegerFormatter( byte[] positivePrefix, byte[] positiveSuffix, byte[] negativePrefix,
+                              byte[] negativeSuffix, int minimumDigits, int groupingSize, byte groupingSeparator ) {
+      super( Math.max( positivePrefix.length + positiveSuffix.length, negativePrefix.length + negativeSuffix.length )
+        + 2 * Math.max( minimumDigits, 19 ) + 1 );
+      this.positivePrefix = positivePrefix;
+      this.positiveSuffix = positiveSuffix;
+      this.negativePrefix = negativePrefix;
+      this.negativeSuffix = negativeSuffix;
+      this.minimumDigits = minimumDigits;
+      this.groupingSize = groupingSize;
+      this.groupingSeparator = groupingSeparator;
+    }
+
+    static IntegerFormatter compile( DecimalFormat format ) {
+      if ( format == null || format.getMultiplier() != 1 || format.getMinimumFractionDigits() > 0
+        || format.isDecimalSeparatorAlwaysShown() || format.getMaximumIntegerDigits() < 19
+        || format.toPattern().indexOf( 'E' ) >= 0 || format.getDecimalFormatSymbols().getZeroDigit() != '0' ) {
+        return null;
+      }
+      byte[] positivePrefix = toAscii( format.getPositivePrefix() );
+      byte[] positiveSuffix = toAscii( format.getPositiveSuffix() );
+      byte[] negativePrefix = toAscii( format.getNegativePrefix() );
+      byte[] negativeSuffix = toAscii( format.getNegativeSuffix() );
+      char separator = format.getDecimalFormatSymbols().getGroupingSeparator();
+      boolean grouping = format.isGroupingUsed() && format.getGroupingSize() > 0;
+      if ( positivePrefix == null || positiveSuffix == null || negativePrefix == null || negativeSuffix == null
+        || ( grouping && separator >= 128 ) ) {
+        return null;
+      }
+      return new IntegerFormatter( positivePrefix, positiveSuffix, negativePrefix, negativeSuffix,
+        format.getMinimumIntegerDigits(), grouping ? format.getGroupingSize() : 0, (byte) separator );
+    }
+
+    @Override
+    public boolean format( Object value ) {
+      if ( !( value instanceof Long ) ) {
+        return false;
+      }
+      long number = (Long) value;
+
+      // The digits from the right, negative numbers stay negative to cope with Long.MIN_VALUE
+      int nrDigits = 0;
+      for ( long rest = number; rest != 0; rest /= 10 ) {
+        digits[ nrDigits++ ] = (byte) ( '0' + Math.abs( rest % 10 ) );
+      }
+      int width = Math.max( nrDigits, minimumDigits );
+
+      length = 0;
+      append( number < 0 ? negativePrefix : positivePrefix );
+      if ( width == 0 ) {
+        buffer[ length++ ] = '0';
+      }
+      for ( int i = width - 1; i >= 0; i-- ) {
+        buffer[ length++ ] = i < nrDigits ? digits[ i ] : (byte) '0';
+        if ( groupingSize > 0 && i > 0 && i % groupingSize == 0 ) {
+          buffer[ length++ ] = groupingSeparator;
+        }
+      }
+      append( number < 0 ? negativeSuffix : positiveSuffix );
+      return true;
+    }
+  }
+
+  /**
+   * Writes a date like a {@link SimpleDateFormat} with only numeric fields does.
+   */
+  static class DateFormatter extends FieldFormatter {
+    private final Calendar calendar;
+    private final byte[][] literals;
+    private final char[] letters;
+    private final int[] counts;
+
+    private DateFormatter( Calendar calendar, byte[][] literals, char[] letters, int[] counts, int size ) {
+      super( size );
+      this.calendar = calendar;
+      this.literals = literals;
+      this.letters = letters;
+      this.counts = counts;
+    }
+
+    static DateFormatter compile( SimpleDateFormat format ) {
+      if ( format == null || format.getClass() != SimpleDateFormat.class
+        || format.getCalendar().getClass() != GregorianCalendar.class ) {
+        return null;
+      }
+      NumberFormat numberFormat = format.getNumberFormat();
+      if ( !( numberFormat instanceof DecimalFormat )
+        || ( (DecimalFormat) numberFormat ).getDecimalFormatSymbols().getZeroDigit() != '0' ) {
+        return null;
+      }
+
+      // The pattern as literal text before every field and after the last one
+      List<byte[]> literals = new ArrayList<>();
+      StringBuilder letters = new StringBuilder();
+      List<Integer> counts = new ArrayList<>();
+      StringBuilder literal = new StringBuilder();
+      int size = 0;
+      String pattern = format.toPattern();
+      int i = 0;
+      while ( i < pattern.length() ) {
+        char c = pattern.charAt( i );
+        if ( c == '\'' ) {
+          if ( i + 1 < pattern.length() && pattern.charAt( i + 1 ) == '\'' ) {
+            literal.append( c );
+            i += 2;
+            continue;
+          }
+          // Quoted text, where two quotes are a quote
+          for ( i++; ; i++ ) {
+            if ( i >= pattern.length() ) {
+              return null;
+            }
+            if ( pattern.charAt( i ) == '\'' ) {
+              if ( i + 1 < pattern.length() && pattern.charAt( i + 1 ) == '\'' ) {
+                literal.append( '\'' );
+                i++;
+              } else {
+                i++;
+                break;
+              }
+            } else {
+              literal.append( pattern.charAt( i ) );
+            }
+          }
+        } else if ( ( c >= 'a' && c <= 'z' ) || ( c >= 'A' && c <= 'Z' ) ) {
+          int count = 1;
+          while ( i + count < pattern.length() && pattern.charAt( i + count ) == c ) {
+            count++;
+          }
+          if ( "yMdHkKhmsS".indexOf( c ) < 0 || ( c == 'M' && count > 2 ) ) {
+            return null;
+          }
+          byte[] bytes = toAscii( literal.toString() );
+          if ( bytes == null ) {
+            return null;
+          }
+          literals.add( bytes );
+          literal.setLength( 0 );
+          letters.append( c );
+          counts.add( count );
+          size += bytes.length + Math.max( count, 10 );
+          i += count;
+        } else {
+          literal.append( c );
+          i++;
+        }
+      }
+      byte[] bytes = toAscii( literal.toString() );
+      if ( bytes == null ) {
+        return null;
+      }
+      literals.add( bytes );
+      size += bytes.length;
+
+      int[] countArray = new int[ counts.size() ];
+      for ( int f = 0; f < countArray.length; f++ ) {
+        countArray[ f ] = counts.get( f );
+      }
+      return new DateFormatter( (Calendar) format.getCalendar().clone(), literals.toArray( new byte[ 0 ][] ),
+        letters.toString().toCharArray(), countArray, size );
+    }
+
+    @Override
+    public boolean format( Object value ) {
+      if ( !( value instanceof Date ) ) {
+        return false;
+      }
+      calendar.setTime( (Date) value );
+
+      length = 0;
+      for ( int f = 0; f < letters.length; f++ ) {
+        append( literals[ f ] );
+        int count = counts[ f ];
+        int number;
+        switch ( letters[ f ] ) {
+          case 'y':
+            number = calendar.get( Calendar.YEAR );
+            if ( count == 2 ) {
+              number %= 100;
+            }
+            break;
+          case 'M':
+            number = calendar.get( Calendar.MONTH ) + 1;
+            break;
+          case 'd':
+            number = calendar.get( Calendar.DAY_OF_MONTH );
+            break;
+          case 'H':
+            number = calendar.get( Calendar.HOUR_OF_DAY );
+            break;
+          case 'k':
+            number = calendar.get( Calendar.HOUR_OF_DAY );
+            if ( number == 0 ) {
+              number = 24;
+            }
+            break;
+          case 'K':
+            number = calendar.get( Calendar.HOUR );
+            break;
+          case 'h':
+            number = calendar.get( Calendar.HOUR );
+            if ( number == 0 ) {
+              number = 12;
+            }
+            break;
+          case 'm':
+            number = calendar.get( Calendar.MINUTE );
+            break;
+          case 's':
+            number = calendar.get( Calendar.SECOND );
+            break;
+          default:
+            number = calendar.get( Calendar.MILLISECOND );
+            break;
+        }
+        appendPadded( number, count );
+      }
+      append( literals[ letters.length ] );
+      return true;
+    }
+
+    private void appendPadded( int number, int width ) {
+      int nrDigits = 1;
+      for ( int rest = number / 10; rest > 0; rest /= 10 ) {
+        nrDigits++;
+      }
+      for ( int i = nrDigits; i < width; i++ ) {
+        buffer[ length++ ] = '0';
+      }
+      for ( int i = length + nrDigits - 1; i >= length; i-- ) {
+        buffer[ i ] = (byte) ( '0' + number % 10 );
+        number /= 10;
+      }
+      length += nrDigits;
+    }
+  }
+
+  /**
+   * Writes a string of ASCII characters as it is. Other strings are formatted the usual way.
+   */
+  static class StringFormatter extends FieldFormatter {
+
+    StringFormatter() {
+      super( 256 );
+    }
+
+    @Override
+    public boolean format( Object value ) {
+      if ( !( value instanceof String ) ) {
+        return false;
+      }
+      String string = (String) value;
+      int size = string.length();
+      if ( size > buffer.length ) {
+        buffer = new byte[ Math.max( size, 2 * buffer.length ) ];
+      }
+      for ( int i = 0; i < size; i++ ) {
+        char c = string.charAt( i );
+        if ( c >= 128 ) {
+          return false;
+        }
+        buffer[ i ] = (byte) c;
+      }
+      length = size;
+      return true;
+    }
+  }
+}
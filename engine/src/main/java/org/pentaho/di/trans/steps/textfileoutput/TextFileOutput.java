@@ -19,6 +19,7 @@ import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -29,6 +30,7 @@ import org.pentaho.di.core.WriterOutputStream;
 import org.pentaho.di.core.compress.CompressionOutputStream;
 import org.pentaho.di.core.compress.CompressionProvider;
 import org.pentaho.di.core.compress.CompressionProviderFactory;
+import org.pentaho.di.core.compress.NoneCompressionProvider;
 import org.pentaho.di.core.compress.zip.ZIPCompressionProvider;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileException;
@@ -176,7 +178,8 @@ public class TextFileOutput extends BaseStep implements StepInterface {
 
           OutputStream fileOutputStream =
             getOutputStream( filename, getTransMeta(), !isZipFile && appendToExistingFile );
-          CompressionOutputStream compressionOutputStream = compressionProvider.createOutputStream( fileOutputStream );
+          CompressionOutputStream compressionOutputStream =
+            createCompressionOutputStream( compressionProvider, fileOutputStream );
 
           // The compression output stream may also archive entries. For this we create the filename
           // (with appropriate extension) and add it as an entry to the output stream. For providers
@@ -191,7 +194,8 @@ public class TextFileOutput extends BaseStep implements StepInterface {
             }
           }
 
-          BufferedOutputStream bufferedOutputStream = new BufferedOutputStream( compressionOutputStream, 5000 );
+          BufferedOutputStream bufferedOutputStream =
+            createBufferedOutputStream( compressionProvider, compressionOutputStream );
 
           fileStreams = data.new FileStream( fileOutputStream, compressionOutputStream, bufferedOutputStream );
 
@@ -209,9 +213,11 @@ public class TextFileOutput extends BaseStep implements StepInterface {
 
           OutputStream fileOutputStream = getOutputStream( filename, getTransMeta(), true );
           CompressionProvider compressionProvider = getCompressionProvider();
-          CompressionOutputStream compressionOutputStream = compressionProvider.createOutputStream( fileOutputStream );
+          CompressionOutputStream compressionOutputStream =
+            createCompressionOutputStream( compressionProvider, fileOutputStream );
           compressionOutputStream.addEntry( filename, environmentSubstitute( meta.getExtension() ) );
-          BufferedOutputStream bufferedOutputStream = new BufferedOutputStream( compressionOutputStream, 5000 );
+          BufferedOutputStream bufferedOutputStream =
+            createBufferedOutputStream( compressionProvider, compressionOutputStream );
 
           fileStreams.setFileOutputStream( fileOutputStream );
           fileStreams.setCompressedOutputStream( compressionOutputStream );
@@ -237,6 +243,56 @@ public class TextFileOutput extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * When the blocks of output are compressed in parallel, each into a compressed stream of its own, they are written
+   * to the file as they are.
+   */
+  private CompressionOutputStream createCompressionOutputStream( CompressionProvider compressionProvider,
+                                                                 OutputStream fileOutputStream ) throws IOException {
+    if ( isCompressingBlocks( compressionProvider ) ) {
+      return new NoneCompressionProvider.NoneCompressionOutputStream( fileOutputStream, compressionProvider );
+    }
+    return compressionProvider.createOutputStream( fileOutputStream );
+  }
+
+  /**
+   * With compression threads the output is buffered in large blocks that a separate thread writes, while the step
+   * fills the next one.
+   */
+  private BufferedOutputStream createBufferedOutputStream( CompressionProvider compressionProvider,
+                                                           CompressionOutputStream compressionOutputStream ) {
+    int compressionThreads = meta.getCompressionThreads( this );
+    if ( compressionThreads <= 0 ) {
+      return new BufferedOutputStream( compressionOutputStream, 5000 );
+    }
+    if ( data.blockWriter == null ) {
+      data.blockWriter = Executors.newSingleThreadExecutor( getThreadFactory( "writer" ) );
+    }
+    ExecutorService compressors = null;
+    if ( isCompressingBlocks( compressionProvider ) ) {
+      if ( data.blockCompressors == null ) {
+        data.blockCompressors = Executors.newFixedThreadPool( compressionThreads, getThreadFactory( "compressor" ) );
+      }
+      compressors = data.blockCompressors;
+    }
+    return new BlockOutputStream( compressionOutputStream, data.blockWriter, compressors, compressionProvider,
+      BlockOutputStream.DEFAULT_BLOCK_SIZE, 2 * compressionThreads + 2 );
+  }
+
+  private boolean isCompressingBlocks( CompressionProvider compressionProvider ) {
+    return meta.getCompressionThreads( this ) > 0 && compressionProvider.supportsConcatenatedOutput();
+  }
+
+  private ThreadFactory getThreadFactory( String role ) {
+    AtomicInteger threadNr = new AtomicInteger( 1 );
+    return runnable -> {
+      Thread thread = new Thread( runnable, getStepname() + "." + getCopy() + " " + role + " "
+        + threadNr.getAndIncrement() );
+      thread.setDaemon( true );
+      return thread;
+    };
+  }
+
   public String getOutputFileName( Object[] row ) throws KettleException {
     String filename = null;
     if ( row == null ) {
@@ -466,6 +522,9 @@ public class TextFileOutput extends BaseStep implements StepInterface {
   public void writeRow( RowMetaInterface rowMeta, Object[] r ) throws KettleStepException {
     try {
       if ( Utils.isEmpty( meta.getOutputFields() ) ) {
+        if ( data.fieldFormatters == null ) {
+          data.fieldFormatters = FieldFormatter.compile( rowMeta.getValueMetaList(), meta.getEncoding() );
+        }
         /*
          * Write all values in stream to text file.
          */
@@ -479,9 +538,13 @@ public class TextFileOutput extends BaseStep implements StepInterface {
           // no special null value default was specified since no fields are specified at all
           // As such, we pass null
           //
-          writeField( v, valueData, null );
+          writeField( v, valueData, null, data.fieldFormatters[ i ] );
         }
       } else {
+        if ( data.fieldFormatters == null ) {
+          data.fieldFormatters =
+            FieldFormatter.compile( Arrays.asList( meta.getMetaWithFieldOptions() ), meta.getEncoding() );
+        }
         /*
          * Only write the fields specified!
          */
@@ -492,7 +555,7 @@ public class TextFileOutput extends BaseStep implements StepInterface {
 
           ValueMetaInterface v = meta.getMetaWithFieldOptions()[ i ];
           Object valueData = r[ data.fieldnrs[ i ] ];
-          writeField( v, valueData, data.binaryNullValue[ i ] );
+          writeField( v, valueData, data.binaryNullValue[ i ], data.fieldFormatters[ i ] );
         }
       }
 
@@ -600,7 +663,8 @@ public class TextFileOutput extends BaseStep implements StepInterface {
     }
   }
 
-  private void writeField( ValueMetaInterface v, Object valueData, byte[] nullString ) throws KettleStepException {
+  private void writeField( ValueMetaInterface v, Object valueData, byte[] nullString, FieldFormatter formatter )
+    throws KettleStepException {
     try {
       byte[] str;
 
@@ -616,6 +680,13 @@ public class TextFileOutput extends BaseStep implements StepInterface {
           } else {
             str = getBinaryString( ( valueData == null ) ? "" : valueData.toString() );
           }
+        } else if ( formatter != null && valueData != null && formatter.format( valueData ) ) {
+          // Formatted without creating a string: write it as it is unless it has to be enclosed
+          if ( !isWriteEnclosureForWriteField( formatter.getBuffer(), formatter.getLength() ) ) {
+            data.writer.write( formatter.getBuffer(), 0, formatter.getLength() );
+            return;
+          }
+          str = Arrays.copyOf( formatter.getBuffer(), formatter.getLength() );
         } else {
           str = formatField( v, valueData );
         }
@@ -924,10 +995,26 @@ public class TextFileOutput extends BaseStep implements StepInterface {
     data.out = null;
     data.fos = null;
 
+    if ( data.blockWriter != null ) {
+      data.blockWriter.shutdownNow();
+      data.blockWriter = null;
+    }
+    if ( data.blockCompressors != null ) {
+      data.blockCompressors.shutdownNow();
+      data.blockCompressors = null;
+    }
+
     super.dispose( smi, sdi );
   }
 
   public boolean containsSeparatorOrEnclosure( byte[] source, byte[] separator, byte[] enclosure ) {
+    return containsSeparatorOrEnclosure( source, source.length, separator, enclosure );
+  }
+
+  /**
+   * @return true if the first length bytes of source contain the separator or the enclosure
+   */
+  boolean containsSeparatorOrEnclosure( byte[] source, int length, byte[] separator, byte[] enclosure ) {
     boolean result = false;
 
     boolean enclosureExists = enclosure != null && enclosure.length > 0;
@@ -937,11 +1024,11 @@ public class TextFileOutput extends BaseStep implements StepInterface {
     if ( separatorExists || enclosureExists ) {
 
       // Search for the first occurrence of the separator or enclosure
-      for ( int index = 0; !result && index < source.length; index++ ) {
+      for ( int index = 0; !result && index < length; index++ ) {
         if ( enclosureExists && source[index] == enclosure[0] ) {
 
           // Potential match found, make sure there are enough bytes to support a full match
-          if ( index + enclosure.length <= source.length ) {
+          if ( index + enclosure.length <= length ) {
             // First byte of enclosure found
             result = true; // Assume match
             for ( int i = 1; i < enclosure.length; i++ ) {
@@ -956,7 +1043,7 @@ public class TextFileOutput extends BaseStep implements StepInterface {
         } else if ( separatorExists && source[index] == separator[0] ) {
 
           // Potential match found, make sure there are enough bytes to support a full match
-          if ( index + separator.length <= source.length ) {
+          if ( index + separator.length <= length ) {
             // First byte of separator found
             result = true; // Assume match
             for ( int i = 1; i < separator.length; i++ ) {
@@ -1037,8 +1124,16 @@ public class TextFileOutput extends BaseStep implements StepInterface {
    * @return writeEnclosure based on valueData
    */
   boolean isWriteEnclosureForWriteField( byte[] str ) {
+    return isWriteEnclosureForWriteField( str, str.length );
+  }
+
+  /**
+   * @return writeEnclosure based on the first length bytes of valueData
+   */
+  boolean isWriteEnclosureForWriteField( byte[] str, int length ) {
     return ( meta.isEnclosureForced() && !meta.isPadded() )
-            || isEnclosureFixDisabledAndContainsSeparatorOrEnclosure( str );
+            || ( !meta.isEnclosureFixDisabled()
+            && containsSeparatorOrEnclosure( str, length, data.binarySeparator, data.binaryEnclosure ) );
   }
 
   /**
@@ -24,6 +24,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
 
 import org.pentaho.di.core.compress.CompressionOutputStream;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -399,6 +400,12 @@ public class TextFileOutputData extends BaseStepData implements StepDataInterfac
 
   public OutputStream fos;
 
+  /**
+   * The thread writing the blocks of output and the threads compressing them, see {@link BlockOutputStream}
+   */
+  public ExecutorService blockWriter;
+  public ExecutorService blockCompressors;
+
   public RowMetaInterface outputRowMeta;
   public RowMetaInterface inputRowMeta;
 
@@ -410,6 +417,11 @@ public class TextFileOutputData extends BaseStepData implements StepDataInterfac
 
   public byte[][] binaryNullValue;
 
+  /**
+   * The formatters of the written fields, compiled on the first row, see {@link FieldFormatter}
+   */
+  public FieldFormatter[] fieldFormatters;
+
   public boolean oneFileOpened;
 
   public int fileNameFieldIndex;
@@ -66,6 +66,7 @@ public class TextFileOutputMeta extends BaseFileOutputMeta implements StepMetaIn
   private static final String CONST_STRING_ADD_TO_RESULT_FILENAMES = "add_to_result_filenames";
   private static final String CONST_STRING_APPEND = "append";
   private static final String CONST_STRING_COMPRESSION = "compression";
+  private static final String CONST_STRING_COMPRESSION_THREADS = "compression_threads";
   private static final String CONST_STRING_CREATE_PARENT_FOLDER = "create_parent_folder";
   private static final String CONST_STRING_CURRENCY = "currency";
   private static final String CONST_STRING_DATE_TIME_FORMAT = "date_time_format";
@@ -96,6 +97,7 @@ public class TextFileOutputMeta extends BaseFileOutputMeta implements StepMetaIn
   private static final String CONST_STRING_FILE_ADD_STEPNR = "file_add_stepnr";
   private static final String CONST_STRING_FILE_ADD_TIME = "file_add_time";
   private static final String CONST_STRING_FILE_APPEND = "file_append";
+  private static final String CONST_STRING_FILE_COMPRESSION_THREADS = "file_compression_threads";
   private static final String CONST_STRING_FILE_EXTENTION = "file_extention";
   private static final String CONST_STRING_FILE_FAST_DUMP = "file_fast_dump";
   private static final String CONST_STRING_FILE_NAME = "file_name";
@@ -201,6 +203,13 @@ public class TextFileOutputMeta extends BaseFileOutputMeta implements StepMetaIn
   @Injection( name = "FAST_DATA_DUMP" )
   private boolean fastDump;
 
+  /**
+   * If this value is larger than 0, the output is written in blocks by a separate thread and compressed on this number
+   * of threads
+   */
+  @Injection( name = "COMPRESSION_THREADS" )
+  private String compressionThreads;
+
   /* THE FIELD SPECIFICATIONS ... */
 
   /** The output fields */
@@ -501,6 +510,29 @@ public class TextFileOutputMeta extends BaseFileOutputMeta implements StepMetaIn
     splitEveryRows = value;
   }
 
+  /**
+   * @param varSpace for variable substitution
+   * @return The number of threads to compress the output with, 0 to write and compress it in the step thread.
+   */
+  public int getCompressionThreads( VariableSpace varSpace ) {
+    return Const.toInt( varSpace == null ? compressionThreads : varSpace.environmentSubstitute( compressionThreads ),
+      0 );
+  }
+
+  /**
+   * @return The number of threads to compress the output with, 0 to write and compress it in the step thread.
+   */
+  public String getCompressionThreads() {
+    return compressionThreads;
+  }
+
+  /**
+   * @param value The number of threads to compress the output with, 0 to write and compress it in the step thread.
+   */
+  public void setCompressionThreads( String value ) {
+    compressionThreads = value;
+  }
+
   /**
    * @return <tt>1</tt> if <tt>isFooterEnabled()</tt> and <tt>0</tt> otherwise
    */
@@ -702,6 +734,7 @@ public class TextFileOutputMeta extends BaseFileOutputMeta implements StepMetaIn
       padded = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, CONST_STRING_FILE, CONST_STRING_PAD ) );
       fastDump = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, CONST_STRING_FILE, CONST_STRING_FAST_DUMP ) );
       splitEveryRows = XMLHandler.getTagValue( stepnode, CONST_STRING_FILE, CONST_STRING_SPLITEVERY );
+      compressionThreads = XMLHandler.getTagValue( stepnode, CONST_STRING_FILE, CONST_STRING_COMPRESSION_THREADS );
 
       newline = getNewLine( fileFormat );
 
@@ -779,6 +812,7 @@ public class TextFileOutputMeta extends BaseFileOutputMeta implements StepMetaIn
     timeInFilename = false;
     padded = false;
     fastDump = false;
+    compressionThreads = "0";
     addToResultFilenames = true;
     fileAppended = false;
 
@@ -865,6 +899,7 @@ public class TextFileOutputMeta extends BaseFileOutputMeta implements StepMetaIn
     retval.append( "      " ).append( XMLHandler.addTagValue( CONST_STRING_PAD, padded ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( CONST_STRING_FAST_DUMP, fastDump ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( CONST_STRING_SPLITEVERY, splitEveryRows ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( CONST_STRING_COMPRESSION_THREADS, compressionThreads ) );
   }
 
   @Override
@@ -919,6 +954,7 @@ public class TextFileOutputMeta extends BaseFileOutputMeta implements StepMetaIn
 
       padded = rep.getStepAttributeBoolean( id_step, CONST_STRING_FILE_PAD );
       fastDump = rep.getStepAttributeBoolean( id_step, CONST_STRING_FILE_FAST_DUMP );
+      compressionThreads = rep.getStepAttributeString( id_step, CONST_STRING_FILE_COMPRESSION_THREADS );
 
       newline = getNewLine( fileFormat );
 
@@ -978,6 +1014,7 @@ public class TextFileOutputMeta extends BaseFileOutputMeta implements StepMetaIn
       rep.saveStepAttribute( id_transformation, id_step, CONST_STRING_FILE_ADD_TIME, timeInFilename );
       rep.saveStepAttribute( id_transformation, id_step, CONST_STRING_FILE_PAD, padded );
       rep.saveStepAttribute( id_transformation, id_step, CONST_STRING_FILE_FAST_DUMP, fastDump );
+      rep.saveStepAttribute( id_transformation, id_step, CONST_STRING_FILE_COMPRESSION_THREADS, compressionThreads );
       rep.saveStepAttribute( id_transformation, id_step, CONST_STRING_FILE_NAME_IN_FIELD, fileNameInField );
       rep.saveStepAttribute( id_transformation, id_step, CONST_STRING_FILE_NAME_FIELD, fileNameField );
 
@@ -15,6 +15,7 @@ package org.pentaho.di.trans.steps.update;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang.ArrayUtils;
@@ -23,6 +24,7 @@ import org.pentaho.di.core.Const;
 import org.pentaho.di.core.SQLStatement;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.database.StagingTable;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
@@ -46,6 +48,8 @@ public class Update extends BaseDatabaseStep implements StepInterface {
   private UpdateMeta meta;
   private UpdateData data;
 
+  static final int DEFAULT_STAGING_SIZE = 1000;
+
   public Update( StepMeta stepMeta, StepDataInterface stepDataInterface, int copyNr, TransMeta transMeta,
     Trans trans ) {
     super( stepMeta, stepDataInterface, copyNr, transMeta, trans );
@@ -201,6 +205,15 @@ public class Update extends BaseDatabaseStep implements StepInterface {
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
 
+      if ( data.stagingTable != null ) {
+        try {
+          applyStagedRows();
+        } catch ( KettleException e ) {
+          logError( BaseMessages.getString( PKG, "Update.Log.ErrorInStep" ), e );
+          setErrors( 1 );
+          stopAll();
+        }
+      }
       setOutputDone();
       return false;
     }
@@ -276,7 +289,9 @@ public class Update extends BaseDatabaseStep implements StepInterface {
             + "" + data.valuenrs[i] );
         }
       }
-      if ( meta.isSkipLookup() ) {
+      if ( canUseStagingTable() ) {
+        createStagingTable();
+      } else if ( meta.isSkipLookup() ) {
         // We skip lookup
         // but we need fields for update
         data.lookupParameterRowMeta = new RowMeta();
@@ -302,11 +317,19 @@ public class Update extends BaseDatabaseStep implements StepInterface {
       } else {
         setLookup( getInputRowMeta() );
       }
-      prepareUpdate( getInputRowMeta() );
+      if ( data.stagingTable == null ) {
+        prepareUpdate( getInputRowMeta() );
+      }
     }
 
     try {
-      Object[] outputRow = lookupValues( getInputRowMeta(), r ); // add new values to the row in rowset[0].
+      Object[] outputRow;
+      if ( data.stagingTable != null ) {
+        stageRow( r );
+        outputRow = r;
+      } else {
+        outputRow = lookupValues( getInputRowMeta(), r ); // add new values to the row in rowset[0].
+      }
       if ( outputRow != null ) {
         putRow( data.outputRowMeta, outputRow ); // copy non-ignored rows to output rowset(s);
       }
@@ -336,6 +359,112 @@ public class Update extends BaseDatabaseStep implements StepInterface {
     return true;
   }
 
+  /**
+   * The rows can only be updated in sets if the database supports it, if every key is compared with "=" and if a row
+   * without a match doesn't need any handling: the lookup is skipped or a failed lookup is ignored without a flag
+   * field. Errors can't be traced back to a single row, so error handling needs the rows one by one.
+   */
+  boolean canUseStagingTable() {
+    if ( !meta.isUseStagingTable() ) {
+      return false;
+    }
+    if ( !meta.getDatabaseMeta().supportsUpsertFromTable() ) {
+      logBasic( BaseMessages.getString( PKG, "Update.Log.StagingTableNotSupported",
+        meta.getDatabaseMeta().getName() ) );
+      return false;
+    }
+    if ( getStepMeta().isDoingErrorHandling() ) {
+      logBasic( BaseMessages.getString( PKG, "Update.Log.StagingTableErrorHandling" ) );
+      return false;
+    }
+    if ( !meta.isSkipLookup() && ( !meta.isErrorIgnored() || !Utils.isEmpty( meta.getIgnoreFlagField() ) ) ) {
+      logBasic( BaseMessages.getString( PKG, "Update.Log.StagingTableNeedsLookup" ) );
+      return false;
+    }
+    if ( meta.getKeyLookup().length == 0 ) {
+      logBasic( BaseMessages.getString( PKG, "Update.Log.StagingTableNeedsEquals" ) );
+      return false;
+    }
+    for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+      if ( !"=".equals( meta.getKeyCondition()[i] ) || isKeyUpdated( i ) ) {
+        logBasic( BaseMessages.getString( PKG, "Update.Log.StagingTableNeedsEquals" ) );
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the key column is updated with another field than the one it is matched on
+   */
+  private boolean isKeyUpdated( int keyIndex ) {
+    for ( int i = 0; i < meta.getUpdateLookup().length; i++ ) {
+      if ( meta.getKeyLookup()[keyIndex].equalsIgnoreCase( meta.getUpdateLookup()[i] )
+        && !meta.getKeyStream()[keyIndex].equalsIgnoreCase( meta.getUpdateStream()[i] ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void createStagingTable() throws KettleException {
+    RowMetaInterface stagingRowMeta = new RowMeta();
+    List<Integer> fieldnrs = new ArrayList<>();
+    for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+      ValueMetaInterface valueMeta = getInputRowMeta().getValueMeta( data.keynrs[i] ).clone();
+      valueMeta.setName( meta.getKeyLookup()[i] );
+      stagingRowMeta.addValueMeta( valueMeta );
+      fieldnrs.add( data.keynrs[i] );
+    }
+    for ( int i = 0; i < meta.getUpdateLookup().length; i++ ) {
+      if ( stagingRowMeta.indexOfValue( meta.getUpdateLookup()[i] ) < 0 ) {
+        ValueMetaInterface valueMeta = getInputRowMeta().getValueMeta( data.valuenrs[i] ).clone();
+        valueMeta.setName( meta.getUpdateLookup()[i] );
+        stagingRowMeta.addValueMeta( valueMeta );
+        fieldnrs.add( data.valuenrs[i] );
+      }
+    }
+    data.stagingFieldnrs = ArrayUtils.toPrimitive( fieldnrs.toArray( new Integer[0] ) );
+    data.stagingTable = new StagingTable( data.db, data.schemaTable, stagingRowMeta, meta.getKeyLookup(),
+      meta.getUpdateLookup() );
+    data.stagingSize = meta.getCommitSize( this ) > 0 ? meta.getCommitSize( this ) : DEFAULT_STAGING_SIZE;
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "Update.Log.UsingStagingTable",
+        String.valueOf( data.stagingSize ), data.stagingTable.getTableName() ) );
+    }
+  }
+
+  private void stageRow( Object[] row ) throws KettleException {
+    Object[] stagingRow = new Object[data.stagingFieldnrs.length];
+    for ( int i = 0; i < data.stagingFieldnrs.length; i++ ) {
+      stagingRow[i] = row[data.stagingFieldnrs[i]];
+    }
+    incrementLinesInput();
+    data.stagingTable.addRow( stagingRow );
+    if ( data.stagingTable.size() >= data.stagingSize ) {
+      applyStagedRows();
+    }
+  }
+
+  /**
+   * Update the target table with the staged rows in a single statement and commit.
+   */
+  void applyStagedRows() throws KettleException {
+    int nrRows = data.stagingTable.size();
+    if ( nrRows == 0 ) {
+      return;
+    }
+    int count = data.stagingTable.update();
+    if ( !data.db.isAutoCommit() ) {
+      data.db.commit();
+    }
+    if ( log.isDebug() ) {
+      logDebug( BaseMessages.getString( PKG, "Update.Log.AppliedStagedRows", String.valueOf( nrRows ),
+        String.valueOf( count ) ) );
+    }
+    setLinesUpdated( getLinesUpdated() + count );
+  }
+
   public void setLookup( RowMetaInterface rowMeta ) throws KettleDatabaseException {
     data.lookupParameterRowMeta = new RowMeta();
     data.lookupReturnRowMeta = new RowMeta();
@@ -499,6 +628,9 @@ public class Update extends BaseDatabaseStep implements StepInterface {
         }
         data.db.closePreparedStatement( data.prepStatementUpdate );
         data.db.closePreparedStatement( data.prepStatementLookup );
+        if ( data.stagingTable != null ) {
+          data.stagingTable.close();
+        }
       } catch ( KettleDatabaseException e ) {
         logError( BaseMessages.getString( PKG, "Update.Log.UnableToCommitUpdateConnection" )
           + data.db + "] :" + e.toString() );
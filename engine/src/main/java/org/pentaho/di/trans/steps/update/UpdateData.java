@@ -16,6 +16,7 @@ package org.pentaho.di.trans.steps.update;
 import java.sql.PreparedStatement;
 
 import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.StagingTable;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseDatabaseStepData;
 import org.pentaho.di.trans.step.BaseStepData;
@@ -47,6 +48,10 @@ public class UpdateData extends BaseDatabaseStepData implements StepDataInterfac
   public RowMetaInterface lookupReturnRowMeta;
   public RowMetaInterface updateParameterRowMeta;
 
+  public StagingTable stagingTable;
+  public int stagingSize;
+  public int[] stagingFieldnrs; // Stream field nrs of the staged columns
+
   public UpdateData() {
     super();
 
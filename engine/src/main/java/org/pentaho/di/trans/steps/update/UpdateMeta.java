@@ -114,6 +114,10 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
   @Injection( name = "BATCH_UPDATE" )
   private boolean useBatchUpdate;
 
+  /** Flag to update the rows in sets through a staging table */
+  @Injection( name = "USE_STAGING_TABLE" )
+  private boolean useStagingTable;
+
   @Injection( name = "CONNECTIONNAME" )
   public void setConnection( String connectionName ) {
     databaseMeta = DatabaseMeta.findDatabase( databases, connectionName );
@@ -373,6 +377,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
       csize = XMLHandler.getTagValue( stepnode, "commit" );
       commitSize = ( csize == null ) ? "0" : csize;
       useBatchUpdate = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_batch" ) );
+      useStagingTable = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_staging_table" ) );
       skipLookup = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "skip_lookup" ) );
       errorIgnored = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "error_ignored" ) );
       ignoreFlagField = XMLHandler.getTagValue( stepnode, "ignore_flag_field" );
@@ -415,6 +420,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
   @Override
   public void setDefault() {
     skipLookup = false;
+    useStagingTable = false;
     keyStream = null;
     updateLookup = null;
     databaseMeta = null;
@@ -449,6 +455,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
     retval.append( "    " + XMLHandler.addTagValue( "skip_lookup", skipLookup ) );
     retval.append( "    " + XMLHandler.addTagValue( "commit", commitSize ) );
     retval.append( "    " + XMLHandler.addTagValue( "use_batch", useBatchUpdate ) );
+    retval.append( "    " + XMLHandler.addTagValue( "use_staging_table", useStagingTable ) );
     retval.append( "    " + XMLHandler.addTagValue( "error_ignored", errorIgnored ) );
     retval.append( "    " + XMLHandler.addTagValue( "ignore_flag_field", ignoreFlagField ) );
     retval.append( "    <lookup>" + Const.CR );
@@ -495,6 +502,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
         }
       }
       useBatchUpdate = rep.getStepAttributeBoolean( id_step, "use_batch" );
+      useStagingTable = rep.getStepAttributeBoolean( id_step, "use_staging_table" );
       schemaName = rep.getStepAttributeString( id_step, "schema" );
       tableName = rep.getStepAttributeString( id_step, "table" );
 
@@ -539,6 +547,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
       rep.saveStepAttribute( id_transformation, id_step, "skip_lookup", skipLookup );
       rep.saveStepAttribute( id_transformation, id_step, "commit", commitSize );
       rep.saveStepAttribute( id_transformation, id_step, "use_batch", useBatchUpdate );
+      rep.saveStepAttribute( id_transformation, id_step, "use_staging_table", useStagingTable );
       rep.saveStepAttribute( id_transformation, id_step, "schema", schemaName );
       rep.saveStepAttribute( id_transformation, id_step, "table", tableName );
 
@@ -929,6 +938,21 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
     this.useBatchUpdate = useBatchUpdate;
   }
 
+  /**
+   * @return true if the rows are updated in sets through a staging table, if the database supports it
+   */
+  public boolean isUseStagingTable() {
+    return useStagingTable;
+  }
+
+  /**
+   * @param useStagingTable
+   *          true to update the rows in sets through a staging table
+   */
+  public void setUseStagingTable( boolean useStagingTable ) {
+    this.useStagingTable = useStagingTable;
+  }
+
   /**
    * If we use injection we can have different arrays lengths.
    * We need synchronize them for consistency behavior with UI
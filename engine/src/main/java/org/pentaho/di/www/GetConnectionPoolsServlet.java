@@ -0,0 +1,158 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.di.www;
+
+import java.io.IOException;
+import java.io.PrintStream;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.database.ConnectionPoolUtil;
+import org.pentaho.di.core.database.MonitoredDataSource;
+import org.pentaho.di.core.xml.XMLHandler;
+
+public class GetConnectionPoolsServlet extends BaseHttpServlet implements CartePluginInterface {
+
+  private static final long serialVersionUID = 7325918604731562264L;
+
+  public static final String CONTEXT_PATH = "/kettle/connectionPools";
+
+  public static final String XML_TAG_CONNECTION_POOLS = "connection_pools";
+  public static final String XML_TAG_CONNECTION_POOL = "connection_pool";
+
+  public GetConnectionPoolsServlet() {
+  }
+
+  /**
+<div id="mindtouch">
+    <h1>/kettle/connectionPools</h1>
+    <a name="GET"></a>
+    <h2>GET</h2>
+    <p>Gets the database connection pools of the server with their metrics: the connections in use, idle and
+  waited for, the number of connections handed out, the average and longest time it took to get one and the number
+  of requests that timed out or failed. A value of -1 means the pool provider doesn't report it.</p>
+
+    <p><b>Example Request:</b><br />
+    <pre function="syntax.xml">
+    GET /kettle/connectionPools
+    </pre>
+    </p>
+
+  <h3>Response Body</h3>
+
+  <table class="pentaho-table">
+    <tbody>
+      <tr>
+        <td align="right">element:</td>
+        <td>(custom)</td>
+      </tr>
+      <tr>
+        <td align="right">media types:</td>
+        <td>text/xml</td>
+      </tr>
+    </tbody>
+  </table>
+
+    <p><b>Example Response:</b></p>
+  <pre function="syntax.xml">
+  <?xml version="1.0" encoding="UTF-8"?>
+  <connection_pools>
+    <connection_pool>
+      <name>dwh</name>
+      <provider>HIKARI</provider>
+      <active>8</active>
+      <idle>2</idle>
+      <pending>3</pending>
+      <acquired>10452</acquired>
+      <acquire_time_avg_ms>0.412</acquire_time_avg_ms>
+      <acquire_time_max_ms>2310.5</acquire_time_max_ms>
+      <timeouts>0</timeouts>
+      <failures>0</failures>
+    </connection_pool>
+  </connection_pools>
+  </pre>
+
+    <h3>Status Codes</h3>
+    <table class="pentaho-table">
+  <tbody>
+    <tr>
+      <th>code</th>
+      <th>description</th>
+    </tr>
+    <tr>
+      <td>200</td>
+      <td>Request was processed.</td>
+    </tr>
+  </tbody>
+</table>
+</div>
+  */
+  public void doGet( HttpServletRequest request, HttpServletResponse response ) throws ServletException,
+    IOException {
+    if ( isJettyMode() && !request.getContextPath().startsWith( CONTEXT_PATH ) ) {
+      return;
+    }
+
+    if ( log.isDebug() ) {
+      logDebug( "Connection pool metrics requested" );
+    }
+    response.setStatus( HttpServletResponse.SC_OK );
+
+    // We always reply in XML...
+    //
+    response.setContentType( "text/xml" );
+    response.setCharacterEncoding( Const.XML_ENCODING );
+    PrintStream out = new PrintStream( response.getOutputStream() );
+
+    out.print( XMLHandler.getXMLHeader( Const.XML_ENCODING ) );
+    out.println( XMLHandler.openTag( XML_TAG_CONNECTION_POOLS ) );
+    for ( MonitoredDataSource pool : ConnectionPoolUtil.getDataSources() ) {
+      out.println( getXML( pool ) );
+    }
+    out.println( XMLHandler.closeTag( XML_TAG_CONNECTION_POOLS ) );
+    out.flush();
+  }
+
+  static String getXML( MonitoredDataSource pool ) {
+    StringBuilder xml = new StringBuilder();
+    xml.append( "  " ).append( XMLHandler.openTag( XML_TAG_CONNECTION_POOL ) ).append( Const.CR );
+    xml.append( "    " ).append( XMLHandler.addTagValue( "name", pool.getName() ) );
+    xml.append( "    " ).append( XMLHandler.addTagValue( "provider", pool.getProvider().getName() ) );
+    xml.append( "    " ).append( XMLHandler.addTagValue( "active", pool.getActiveConnections() ) );
+    xml.append( "    " ).append( XMLHandler.addTagValue( "idle", pool.getIdleConnections() ) );
+    xml.append( "    " ).append( XMLHandler.addTagValue( "pending", pool.getPendingConnections() ) );
+    xml.append( "    " ).append( XMLHandler.addTagValue( "acquired", pool.getAcquiredConnections() ) );
+    xml.append( "    " ).append( XMLHandler.addTagValue( "acquire_time_avg_ms", pool.getAverageAcquireMillis() ) );
+    xml.append( "    " ).append( XMLHandler.addTagValue( "acquire_time_max_ms", pool.getMaxAcquireMillis() ) );
+    xml.append( "    " ).append( XMLHandler.addTagValue( "timeouts", pool.getTimeouts() ) );
+    xml.append( "    " ).append( XMLHandler.addTagValue( "failures", pool.getFailures() ) );
+    xml.append( "  " ).append( XMLHandler.closeTag( XML_TAG_CONNECTION_POOL ) );
+    return xml.toString();
+  }
+
+  public String toString() {
+    return "Get the database connection pools and their metrics";
+  }
+
+  public String getService() {
+    return CONTEXT_PATH + " (" + toString() + ")";
+  }
+
+  public String getContextPath() {
+    return CONTEXT_PATH;
+  }
+
+}
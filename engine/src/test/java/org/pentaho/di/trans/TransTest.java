@@ -36,6 +36,7 @@ import org.pentaho.di.core.logging.LoggingObjectInterface;
 import org.pentaho.di.core.logging.LoggingObjectLifecycleInterface;
 import org.pentaho.di.core.logging.StepLogTable;
 import org.pentaho.di.core.logging.TransLogTable;
+import org.pentaho.di.core.util.VirtualThreads;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
@@ -58,6 +59,7 @@ import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.collect.ImmutableList.of;
 import static java.util.Collections.emptyList;
@@ -123,6 +125,47 @@ public class TransTest {
     verify( trans ).fireTransFinishedListeners();
   }
 
+  @Test ( timeout = 10000 )
+  public void waitUntilRunningIsSignalledWhenTheTransformationStarts() throws Exception {
+    final boolean[] running = { false };
+    Thread waiter = new Thread( () -> {
+      try {
+        running[ 0 ] = trans.waitUntilRunning( 1, TimeUnit.MINUTES );
+      } catch ( InterruptedException e ) {
+        // the assertion below fails
+      }
+    } );
+    waiter.start();
+    Thread.sleep( 50 );
+
+    trans.setRunning( true );
+    waiter.join();
+
+    assertTrue( running[ 0 ] );
+  }
+
+  @Test ( timeout = 10000 )
+  public void waitUntilRunningReturnsWhenTheTransformationIsStopped() throws Exception {
+    trans.setStopped( true );
+    assertFalse( trans.waitUntilRunning( 1, TimeUnit.MINUTES ) );
+  }
+
+  @Test
+  public void virtualStepThreadsAreOnlyUsedWhenSupported() {
+    assertFalse( trans.isUsingVirtualStepThreads() );
+
+    trans.setVariable( Const.KETTLE_VIRTUAL_STEP_THREADS, "Y" );
+    assertEquals( VirtualThreads.isSupported(), trans.isUsingVirtualStepThreads() );
+  }
+
+  @Test
+  public void workStealingSchedulerIsOptIn() {
+    assertFalse( trans.isUsingWorkStealingScheduler() );
+
+    trans.setVariable( Const.KETTLE_WORK_STEALING_SCHEDULER, "Y" );
+    assertTrue( trans.isUsingWorkStealingScheduler() );
+  }
+
   @Ignore("DisplayName is not persisted, making this fail")
   @Test
   public void testFindDatabaseWithEncodedConnectionName() throws Exception {
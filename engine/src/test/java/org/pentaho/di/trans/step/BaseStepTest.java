@@ -56,9 +56,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -279,6 +281,151 @@ public class BaseStepTest {
     assertNotSame( meta1, meta2 );
   }
 
+  @Test
+  public void putRowsCopiesTheBatchToAllOutputRowSets() throws Exception {
+    RowSet rs1 = new QueueRowSet();
+    RowSet rs2 = new QueueRowSet();
+
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+    BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    baseStep.setStopped( false );
+    baseStep.setRepartitioning( StepPartitioningMeta.PARTITIONING_METHOD_NONE );
+    baseStep.setOutputRowSets( Arrays.asList( rs1, rs2 ) );
+
+    final int[] written = { 0 };
+    baseStep.addRowListener( new RowAdapter() {
+      @Override
+      public void rowWrittenEvent( RowMetaInterface rowMeta, Object[] row ) {
+        written[ 0 ]++;
+      }
+    } );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    Object[][] rows = { { 1L }, { 2L }, { 3L }, null };
+
+    baseStep.putRows( rowMeta, rows, 3 );
+
+    assertEquals( 3, written[ 0 ] );
+    assertEquals( 6, baseStep.getLinesWritten() );
+    assertEquals( 3, rs1.size() );
+    assertEquals( 3, rs2.size() );
+    for ( int i = 0; i < 3; i++ ) {
+      assertSame( rows[ i ], rs1.getRowImmediate() );
+      Object[] copy = rs2.getRowImmediate();
+      assertNotSame( rows[ i ], copy );
+      assertEquals( rows[ i ][ 0 ], copy[ 0 ] );
+    }
+  }
+
+  @Test
+  public void getRowsReturnsTheAvailableRowsOfTheInputRowSet() throws Exception {
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+    BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    RowSet rowSet = new QueueRowSet();
+    for ( long i = 0; i < 5; i++ ) {
+      rowSet.putRow( rowMeta, new Object[] { i } );
+    }
+    rowSet.setDone();
+    baseStep.setInputRowSets( new ArrayList<>( List.of( rowSet ) ) );
+
+    Object[][] rows = baseStep.getRows( 3 );
+    assertEquals( 3, rows.length );
+    assertEquals( 0L, rows[ 0 ][ 0 ] );
+    assertEquals( 2L, rows[ 2 ][ 0 ] );
+
+    rows = baseStep.getRows( 3 );
+    assertEquals( 2, rows.length );
+    assertEquals( 4L, rows[ 1 ][ 0 ] );
+
+    assertNull( baseStep.getRows( 3 ) );
+    assertEquals( 5, baseStep.getLinesRead() );
+  }
+
+  @Test
+  public void getAndPutRowsWithRowHandler() throws KettleException {
+    BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface,
+        0, mockHelper.transMeta, mockHelper.trans );
+    baseStep.setRowHandler( rowHandlerWithDefaultMethods() );
+
+    Object[][] rows = baseStep.getRows( 10 );
+    assertEquals( 1, rows.length );
+
+    baseStep.setRowHandler( rowHandler );
+    RowMetaInterface rowMetaInterface = mock( RowMetaInterface.class );
+    Object[][] batch = new Object[][] { { "foo" }, { "bar" } };
+    baseStep.putRows( rowMetaInterface, batch, 2 );
+    verify( rowHandler, times( 1 ) ).putRows( rowMetaInterface, batch, 2 );
+  }
+
+  @Test
+  public void getRowWakesUpWhenAnyInputRowSetReceivesARow() throws Exception {
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+    final BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    RowSet rs1 = new BlockingRowSet( 10 );
+    RowSet rs2 = new BlockingRowSet( 10 );
+    baseStep.setInputRowSets( new ArrayList<>( Arrays.asList( rs1, rs2 ) ) );
+
+    final Object[][] result = new Object[ 1 ][];
+    Thread reader = new Thread( () -> {
+      try {
+        result[ 0 ] = baseStep.getRow();
+      } catch ( KettleException e ) {
+        // the assertions below fail
+      }
+    } );
+    reader.start();
+    Thread.sleep( 50 );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    Object[] row = new Object[] { 1L };
+    rs2.putRow( rowMeta, row );
+
+    // The reader is signalled, it doesn't have to wait for its polling timeout to expire
+    reader.join( 500 );
+    assertFalse( reader.isAlive() );
+    assertSame( row, result[ 0 ] );
+  }
+
+  @Test
+  public void resumeRunningWakesUpAPausedStep() throws Exception {
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+    final BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    baseStep.setStopped( false );
+    baseStep.setRepartitioning( StepPartitioningMeta.PARTITIONING_METHOD_NONE );
+    RowSet rowSet = new BlockingRowSet( 10 );
+    baseStep.setOutputRowSets( Collections.singletonList( rowSet ) );
+    baseStep.pauseRunning();
+
+    final RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    Thread writer = new Thread( () -> {
+      try {
+        baseStep.putRow( rowMeta, new Object[] { 1L } );
+      } catch ( KettleStepException e ) {
+        // the assertions below fail
+      }
+    } );
+    writer.start();
+    writer.join( 50 );
+    assertTrue( writer.isAlive() );
+    assertEquals( 0, rowSet.size() );
+
+    baseStep.resumeRunning();
+    writer.join( 5000 );
+    assertFalse( writer.isAlive() );
+    assertEquals( 1, rowSet.size() );
+  }
+
   @Test
   public void testBuildLog() throws KettleValueException {
     BaseStep testObject = new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta,
@@ -0,0 +1,141 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.step;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.RowProducer;
+import org.pentaho.di.trans.RowStepCollector;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransTestFactory;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+
+/**
+ * Runs small transformations with KETTLE_WORK_STEALING_SCHEDULER=Y: injector, dummy, dummy.
+ */
+public class WorkStealingStepSchedulerTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String TEST_STEPNAME = "test";
+  private static final int NR_ROWS = 10000;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    KettleEnvironment.init();
+  }
+
+  private static RowMetaInterface getRowMeta() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    return rowMeta;
+  }
+
+  private static Trans prepareTrans() throws Exception {
+    TransMeta transMeta = TransTestFactory.generateTestTransformation( null, new DummyTransMeta(), TEST_STEPNAME );
+    // Small row sets, so the steps have to take turns many times
+    transMeta.setSizeRowset( 10 );
+    Trans trans = new Trans( transMeta );
+    trans.setVariable( Const.KETTLE_WORK_STEALING_SCHEDULER, "Y" );
+    trans.prepareExecution( null );
+    return trans;
+  }
+
+  @Test( timeout = 60000 )
+  public void testAllRowsArriveInOrder() throws Exception {
+    Trans trans = prepareTrans();
+    RowStepCollector collector = new RowStepCollector();
+    trans.getStepInterface( TransTestFactory.DUMMY_STEPNAME, 0 ).addRowListener( collector );
+    RowProducer producer = trans.addRowProducer( TransTestFactory.INJECTOR_STEPNAME, 0 );
+    trans.startThreads();
+
+    RowMetaInterface rowMeta = getRowMeta();
+    for ( long i = 0; i < NR_ROWS; i++ ) {
+      producer.putRow( rowMeta, new Object[] { i } );
+    }
+    producer.finished();
+    trans.waitUntilFinished();
+
+    assertEquals( 0, trans.getErrors() );
+    assertTrue( trans.isFinished() );
+    List<RowMetaAndData> rows = collector.getRowsRead();
+    assertEquals( NR_ROWS, rows.size() );
+    for ( int i = 0; i < NR_ROWS; i++ ) {
+      assertEquals( Long.valueOf( i ), rows.get( i ).getInteger( 0 ) );
+    }
+    assertEquals( NR_ROWS, trans.getStepInterface( TEST_STEPNAME, 0 ).getLinesWritten() );
+  }
+
+  @Test( timeout = 60000 )
+  public void testStopFinishesAllSteps() throws Exception {
+    Trans trans = prepareTrans();
+    RowProducer producer = trans.addRowProducer( TransTestFactory.INJECTOR_STEPNAME, 0 );
+    trans.startThreads();
+
+    // The input never ends: only the stop gets the steps to finish
+    RowMetaInterface rowMeta = getRowMeta();
+    for ( long i = 0; i < 100; i++ ) {
+      producer.putRow( rowMeta, new Object[] { i } );
+    }
+    trans.stopAll();
+    trans.waitUntilFinished();
+
+    assertTrue( trans.isFinished() );
+    assertTrue( trans.isStopped() );
+    assertEquals( 0, trans.getErrors() );
+  }
+
+  @Test( timeout = 60000 )
+  public void testErrorStopsTheTransformation() throws Exception {
+    Trans trans = prepareTrans();
+    trans.getStepInterface( TEST_STEPNAME, 0 ).addRowListener( new RowAdapter() {
+      @Override
+      public void rowWrittenEvent( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
+        if ( (Long) row[ 0 ] == 500L ) {
+          throw new KettleStepException( "Failing on purpose" );
+        }
+      }
+    } );
+    RowProducer producer = trans.addRowProducer( TransTestFactory.INJECTOR_STEPNAME, 0 );
+    trans.startThreads();
+
+    // The steps stop reading after the error, don't wait for room forever
+    RowMetaInterface rowMeta = getRowMeta();
+    for ( long i = 0; i < NR_ROWS && !trans.isStopped(); i++ ) {
+      producer.putRowWait( rowMeta, new Object[] { i }, 100, TimeUnit.MILLISECONDS );
+    }
+    producer.finished();
+    trans.waitUntilFinished();
+
+    assertTrue( trans.isFinished() );
+    assertTrue( trans.getErrors() > 0 );
+  }
+}
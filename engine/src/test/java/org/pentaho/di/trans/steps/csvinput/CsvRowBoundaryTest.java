@@ -0,0 +1,104 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.steps.csvinput;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class CsvRowBoundaryTest {
+
+  private File file;
+  private RandomAccessFile raf;
+
+  @After
+  public void tearDown() throws IOException {
+    if ( raf != null ) {
+      raf.close();
+    }
+    if ( file != null ) {
+      file.delete();
+    }
+  }
+
+  private CsvRowBoundary open( String content ) throws IOException {
+    file = File.createTempFile( "csv-boundary", ".csv" );
+    Files.write( file.toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+    raf = new RandomAccessFile( file, "r" );
+    return new CsvRowBoundary( raf.getChannel(), 0L, (byte) ',', (byte) '"' );
+  }
+
+  /**
+   * Every offset has to skip to the first row that starts at or after it.
+   */
+  private void assertRowStarts( String[] rows ) throws IOException {
+    StringBuilder content = new StringBuilder();
+    boolean[] rowStart = new boolean[ String.join( "", rows ).length() + 1 ];
+    for ( String row : rows ) {
+      rowStart[ content.length() ] = true;
+      content.append( row );
+    }
+    rowStart[ content.length() ] = true;
+    CsvRowBoundary boundary = open( content.toString() );
+
+    for ( int offset = 1; offset <= content.length(); offset++ ) {
+      int expected = offset;
+      while ( !rowStart[ expected ] ) {
+        expected++;
+      }
+      assertEquals( "offset " + offset, expected - offset, boundary.getBytesToSkip( offset ) );
+    }
+  }
+
+  @Test
+  public void testEnclosedNewLines() throws Exception {
+    assertRowStarts( new String[] {
+      "id,text\n",
+      "1,\"first\nline\"\n",
+      "2,\"say \"\"hi\"\"\nthere\"\n",
+      "3,plain\r\n",
+      "4,\"a,b\r\nc\"\r\n",
+      "5,last\n" } );
+  }
+
+  @Test
+  public void testInconclusiveSpeculationCountsEnclosures() throws Exception {
+    // Every enclosure is next to a delimiter or line end: the state can only be told from the start of the file
+    assertRowStarts( new String[] {
+      "\"a\",\"\n\"\n",
+      "\"b\",\"\n,\n\"\n",
+      "\"c\",\"\"\n" } );
+  }
+
+  @Test
+  public void testIsInsideEnclosure() throws Exception {
+    CsvRowBoundary boundary = open( "1,\"x\ny\"\n2,z\n" );
+    assertFalse( boundary.isInsideEnclosure( 1 ) );
+    assertTrue( boundary.isInsideEnclosure( 3 ) );
+    assertTrue( boundary.isInsideEnclosure( 4 ) );
+    assertFalse( boundary.isInsideEnclosure( 7 ) );
+    assertFalse( boundary.isInsideEnclosure( 9 ) );
+  }
+}
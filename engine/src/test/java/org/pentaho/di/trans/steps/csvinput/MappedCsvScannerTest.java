@@ -0,0 +1,156 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.steps.csvinput;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class MappedCsvScannerTest {
+
+  private static final byte[] QUOTE = { '"' };
+
+  private File file;
+  private RandomAccessFile raf;
+
+  @After
+  public void tearDown() throws IOException {
+    if ( raf != null ) {
+      raf.close();
+    }
+    if ( file != null ) {
+      file.delete();
+    }
+  }
+
+  private FileChannel open( String content ) throws IOException {
+    file = File.createTempFile( "mapped-csv", ".csv" );
+    Files.write( file.toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+    raf = new RandomAccessFile( file, "r" );
+    return raf.getChannel();
+  }
+
+  private static List<String> readRows( MappedCsvScanner scanner, int maxFields ) throws IOException {
+    List<String> rows = new ArrayList<>();
+    while ( scanner.nextRow( maxFields ) ) {
+      StringBuilder row = new StringBuilder();
+      for ( int i = 0; i < scanner.getNrFields(); i++ ) {
+        row.append( i > 0 ? "|" : "" ).append( new String( scanner.getField( i ), StandardCharsets.UTF_8 ) );
+      }
+      rows.add( row.toString() );
+    }
+    return rows;
+  }
+
+  @Test
+  public void testFieldsAndLineEnds() throws Exception {
+    MappedCsvScanner scanner =
+      new MappedCsvScanner( open( "a,bb,ccc\r\nlonger field value,,x\n1,2" ), 0, (byte) ',', QUOTE, true );
+    assertEquals( "[a|bb|ccc, longer field value||x, 1|2]", readRows( scanner, 3 ).toString() );
+  }
+
+  @Test
+  public void testEnclosures() throws Exception {
+    MappedCsvScanner scanner =
+      new MappedCsvScanner( open( "\"a,b\",\"say \"\"hi\"\"\",c\"d\n\"x\ny\",2,3\n" ), 0, (byte) ',', QUOTE, true );
+
+    assertTrue( scanner.nextRow( 3 ) );
+    assertArrayEquals( "a,b".getBytes(), scanner.getField( 0 ) );
+    // The escaped enclosures are removed by the step
+    assertArrayEquals( "say \"\"hi\"\"".getBytes(), scanner.getField( 1 ) );
+    assertEquals( 2, scanner.getEscapedEnclosures( 1 ) );
+    // An enclosure in the middle of a field is data
+    assertArrayEquals( "c\"d".getBytes(), scanner.getField( 2 ) );
+
+    // A new line in an enclosed field
+    assertTrue( scanner.nextRow( 3 ) );
+    assertArrayEquals( "x\ny".getBytes(), scanner.getField( 0 ) );
+    assertFalse( scanner.nextRow( 3 ) );
+  }
+
+  @Test
+  public void testExtraFieldsAreSkipped() throws Exception {
+    MappedCsvScanner scanner = new MappedCsvScanner( open( "a,b,c,d\n\ne,f\n" ), 0, (byte) ',', QUOTE, true );
+    assertEquals( "[a|b, e|f]", readRows( scanner, 2 ).toString() );
+  }
+
+  @Test
+  public void testUnixLineEnds() throws Exception {
+    // Without mixed line ends a second line end is an empty row
+    MappedCsvScanner scanner = new MappedCsvScanner( open( "a,b\n\nc,d" ), 0, (byte) ',', null, false );
+    assertEquals( "[a|b, , c|d]", readRows( scanner, 2 ).toString() );
+  }
+
+  @Test
+  public void testRowsOverWindows() throws Exception {
+    StringBuilder content = new StringBuilder();
+    List<String> expected = new ArrayList<>();
+    for ( int i = 0; i < 100; i++ ) {
+      content.append( i ).append( ",value " ).append( i ).append( '\n' );
+      expected.add( i + "|value " + i );
+    }
+    MappedCsvScanner scanner = new MappedCsvScanner( open( content.toString() ), 0, (byte) ',', QUOTE, true, 32 );
+    assertEquals( expected, readRows( scanner, 2 ) );
+  }
+
+  @Test( expected = IOException.class )
+  public void testRowLongerThanWindow() throws Exception {
+    MappedCsvScanner scanner = new MappedCsvScanner( open( "0123456789,0123456789\nx" ), 0, (byte) ',', QUOTE, true,
+      16 );
+    scanner.nextRow( 2 );
+  }
+
+  @Test
+  public void testSkipPartialRow() throws Exception {
+    FileChannel channel = open( "aaa,1\r\nbbb,2\nccc,3\n" );
+
+    // In the middle of a row: skip to the next one
+    MappedCsvScanner scanner = new MappedCsvScanner( channel, 2, (byte) ',', QUOTE, true );
+    assertEquals( 5, scanner.skipPartialRow() );
+    assertEquals( "[bbb|2, ccc|3]", readRows( scanner, 2 ).toString() );
+
+    // Between carriage return and line feed
+    scanner = new MappedCsvScanner( channel, 6, (byte) ',', QUOTE, true );
+    assertEquals( 1, scanner.skipPartialRow() );
+    assertEquals( "[bbb|2, ccc|3]", readRows( scanner, 2 ).toString() );
+
+    // At the start of a row
+    scanner = new MappedCsvScanner( channel, 13, (byte) ',', QUOTE, true );
+    assertEquals( 0, scanner.skipPartialRow() );
+    assertEquals( "[ccc|3]", readRows( scanner, 2 ).toString() );
+  }
+
+  @Test
+  public void testMatches() {
+    long word = 0x2C41422C0A2C4344L; // bytes (low to high): D C , LF , B A ,
+    long found = MappedCsvScanner.matches( word, MappedCsvScanner.broadcast( (byte) ',' ) );
+    assertEquals( 2, Long.numberOfTrailingZeros( found ) >>> 3 );
+    assertEquals( 0L, MappedCsvScanner.matches( word, MappedCsvScanner.broadcast( (byte) ';' ) ) );
+  }
+}
@@ -0,0 +1,82 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.databasejoin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+
+public class DatabaseJoinCacheTest {
+
+  private static RowMetaAndData key( long id ) {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    return new RowMetaAndData( rowMeta, new Object[] { id } );
+  }
+
+  @Test
+  public void testHitsAndMisses() {
+    DatabaseJoinCache cache = new DatabaseJoinCache( 0, 0 );
+    List<Object[]> rows = Collections.singletonList( new Object[] { "a" } );
+
+    assertNull( cache.get( key( 1 ) ) );
+    cache.put( key( 1 ), rows );
+    cache.put( key( 2 ), Collections.<Object[]>emptyList() );
+
+    assertSame( rows, cache.get( key( 1 ) ) );
+    // Nothing found is cached as well
+    assertEquals( 0, cache.get( key( 2 ) ).size() );
+    assertEquals( 2, cache.getHits() );
+    assertEquals( 1, cache.getMisses() );
+    assertEquals( 2, cache.size() );
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsEvicted() {
+    DatabaseJoinCache cache = new DatabaseJoinCache( 2, 0 );
+    cache.put( key( 1 ), Collections.<Object[]>emptyList() );
+    cache.put( key( 2 ), Collections.<Object[]>emptyList() );
+    cache.get( key( 1 ) );
+    cache.put( key( 3 ), Collections.<Object[]>emptyList() );
+
+    assertEquals( 2, cache.size() );
+    assertNotNull( cache.get( key( 1 ) ) );
+    assertNull( cache.get( key( 2 ) ) );
+    assertNotNull( cache.get( key( 3 ) ) );
+  }
+
+  @Test
+  public void testExpiredEntriesAreQueriedAgain() {
+    AtomicLong now = new AtomicLong( 1000L );
+    DatabaseJoinCache cache = new DatabaseJoinCache( 0, 500L, now::get );
+    cache.put( key( 1 ), Collections.<Object[]>emptyList() );
+
+    now.set( 1500L );
+    assertNotNull( cache.get( key( 1 ) ) );
+    now.set( 1501L );
+    assertNull( cache.get( key( 1 ) ) );
+    assertEquals( 0, cache.size() );
+  }
+}
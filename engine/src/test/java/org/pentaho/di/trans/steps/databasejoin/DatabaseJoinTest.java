@@ -13,23 +13,49 @@
 
 package org.pentaho.di.trans.steps.databasejoin;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.database.MySQLDatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 import org.pentaho.di.trans.step.StepPartitioningMeta;
+import org.pentaho.di.trans.steps.mock.StepMockHelper;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -44,8 +70,23 @@ public class DatabaseJoinTest {
   DatabaseJoinData mockStepDataInterface;
   DatabaseJoin mockDatabaseJoin;
 
+  StepMockHelper<DatabaseJoinMeta, DatabaseJoinData> smh;
+  Map<Long, List<String>> table;
+  List<Object[]> output;
+  List<Object[]> errors;
+
   @Before
   public void setUp() {
+    smh = new StepMockHelper<>( "databaseJoin", DatabaseJoinMeta.class, DatabaseJoinData.class );
+    when( smh.logChannelInterfaceFactory.create( any(), any( LoggingObjectInterface.class ) ) ).thenReturn(
+      smh.logChannelInterface );
+    table = new HashMap<>();
+    table.put( 1L, Arrays.asList( "a" ) );
+    table.put( 2L, Arrays.asList( "b1", "b2", "b3" ) );
+    table.put( 3L, Collections.<String>emptyList() );
+    table.put( 4L, Arrays.asList( "d" ) );
+    output = new ArrayList<>();
+    errors = new ArrayList<>();
 
     StepMeta mockStepMeta = mock( StepMeta.class );
     TransMeta mockTransMeta = mock( TransMeta.class );
@@ -63,6 +104,11 @@ public class DatabaseJoinTest {
     mockDatabaseJoin = spy( new DatabaseJoin( mockStepMeta, mockStepDataInterface, 1, mockTransMeta, mockTrans ) );
   }
 
+  @After
+  public void tearDown() {
+    smh.cleanUp();
+  }
+
   @Test
   public void testStopRunningWhenStepIsStopped() throws KettleException {
     doReturn( true ).when( mockDatabaseJoin ).isStopped();
@@ -114,4 +160,240 @@ public class DatabaseJoinTest {
     verify( mockStepDataInterface.db, times( 0 ) ).cancelStatement( any( PreparedStatement.class ) );
     assertFalse( mockStepDataInterface.isCanceled );
   }
+
+  @Test
+  public void testBatchSqlQueriesEveryParameterSet() {
+    assertEquals( "SELECT 0 AS KTL_SET, KTL_JOIN.* FROM ( SELECT a FROM t WHERE b = ? ) KTL_JOIN",
+      DatabaseJoin.getBatchSql( "SELECT a FROM t WHERE b = ?", 1 ) );
+    assertEquals( "SELECT 0 AS KTL_SET, KTL_JOIN.* FROM ( SELECT a FROM t WHERE b = ? ) KTL_JOIN\n"
+      + "UNION ALL\n"
+      + "SELECT 1 AS KTL_SET, KTL_JOIN.* FROM ( SELECT a FROM t WHERE b = ? ) KTL_JOIN",
+      DatabaseJoin.getBatchSql( "SELECT a FROM t WHERE b = ? ; \n", 2 ).replace( "\r", "" ) );
+  }
+
+  @Test
+  public void testBatchPutsOutRowsInInputOrderAcrossFlushes() throws Exception {
+    DatabaseJoinMeta meta = createMeta( 0, true );
+    DatabaseJoinData data = createData( 2 );
+    DatabaseJoin step = createStep( data, 1L, 2L, 1L, 3L, 4L );
+
+    run( step, meta, data );
+
+    // Flushes after 2 missing sets: (1, 2), (1, 3) and (4) at the end, 3 has no rows but it's an outer join
+    verify( data.db, times( 3 ) ).openQuery( any( PreparedStatement.class ), any( RowMetaInterface.class ),
+      any( Object[].class ) );
+    assertOutput( output, 1L, "a", 2L, "b1", 2L, "b2", 2L, "b3", 1L, "a", 3L, null, 4L, "d" );
+    assertTrue( errors.isEmpty() );
+  }
+
+  @Test
+  public void testBatchSplitsRowsBySetIndex() throws Exception {
+    DatabaseJoinMeta meta = createMeta( 0, false );
+    DatabaseJoinData data = createData( 3 );
+    DatabaseJoin step = createStep( data, 4L, 3L, 2L );
+
+    run( step, meta, data );
+
+    // One query for the 3 sets, the rows of set 1 (key 3) are missing and there is no outer join
+    verify( data.db, times( 1 ) ).openQuery( any( PreparedStatement.class ), any( RowMetaInterface.class ),
+      any( Object[].class ) );
+    assertOutput( output, 4L, "d", 2L, "b1", 2L, "b2", 2L, "b3" );
+  }
+
+  @Test
+  public void testBatchAppliesRowLimitToEveryParameterSet() throws Exception {
+    DatabaseJoinMeta meta = createMeta( 2, false );
+    DatabaseJoinData data = createData( 2 );
+    DatabaseJoin step = createStep( data, 2L, 1L );
+
+    run( step, meta, data );
+
+    assertOutput( output, 2L, "b1", 2L, "b2", 1L, "a" );
+  }
+
+  @Test
+  public void testBatchSkipsQueryForCachedParameters() throws Exception {
+    DatabaseJoinMeta meta = createMeta( 0, false );
+    DatabaseJoinData data = createData( 2 );
+    data.cache = new DatabaseJoinCache( 0, 0L );
+    DatabaseJoin step = createStep( data, 1L, 2L, 2L, 1L, 1L );
+
+    run( step, meta, data );
+
+    verify( data.db, times( 1 ) ).openQuery( any( PreparedStatement.class ), any( RowMetaInterface.class ),
+      any( Object[].class ) );
+    assertOutput( output, 1L, "a", 2L, "b1", 2L, "b2", 2L, "b3", 2L, "b1", 2L, "b2", 2L, "b3", 1L, "a", 1L, "a" );
+  }
+
+  @Test
+  public void testBatchQueriesExpiredParametersAgain() throws Exception {
+    DatabaseJoinMeta meta = createMeta( 0, false );
+    DatabaseJoinData data = createData( 2 );
+    long[] now = { 0L };
+    data.cache = new DatabaseJoinCache( 0, 1000L, () -> now[ 0 ] );
+    DatabaseJoin step = createStep( data );
+    // Every row comes in after the time to live of the rows queried before it
+    Deque<Object[]> input = new ArrayDeque<>( Arrays.asList( new Object[] { 1L }, new Object[] { 2L },
+      new Object[] { 1L }, new Object[] { 2L } ) );
+    doAnswer( invocation -> {
+      now[ 0 ] += 1100L;
+      return input.poll();
+    } ).when( step ).getRow();
+
+    run( step, meta, data );
+
+    verify( data.db, times( 2 ) ).openQuery( any( PreparedStatement.class ), any( RowMetaInterface.class ),
+      any( Object[].class ) );
+    assertOutput( output, 1L, "a", 2L, "b1", 2L, "b2", 2L, "b3", 1L, "a", 2L, "b1", 2L, "b2", 2L, "b3" );
+  }
+
+  @Test
+  public void testFailedQuerySendsBatchToErrorHandling() throws Exception {
+    DatabaseJoinMeta meta = createMeta( 0, false );
+    DatabaseJoinData data = createData( 2 );
+    DatabaseJoin step = createStep( data, 1L, 9L, 4L );
+    when( smh.stepMeta.isDoingErrorHandling() ).thenReturn( true );
+
+    run( step, meta, data );
+
+    assertEquals( 2, errors.size() );
+    assertEquals( 1L, errors.get( 0 )[ 0 ] );
+    assertEquals( 9L, errors.get( 1 )[ 0 ] );
+    assertOutput( output, 4L, "d" );
+  }
+
+  @Test
+  public void testFailedFlushSendsRemainingRowsToErrorHandling() throws Exception {
+    DatabaseJoinMeta meta = createMeta( 0, false );
+    DatabaseJoinData data = createData( 3 );
+    DatabaseJoin step = createStep( data, 1L, 2L, 1L, 3L, 4L );
+    when( smh.stepMeta.isDoingErrorHandling() ).thenReturn( true );
+    doAnswer( invocation -> {
+      Object[] row = invocation.getArgument( 1 );
+      if ( "b1".equals( row[ 1 ] ) ) {
+        throw new KettleStepException( "Unable to put out row" );
+      }
+      output.add( row );
+      return null;
+    } ).when( step ).putRow( any( RowMetaInterface.class ), any( Object[].class ) );
+
+    run( step, meta, data );
+
+    // Every input row is joined or sent to the error handling exactly once
+    assertEquals( 3, errors.size() );
+    assertEquals( 2L, errors.get( 0 )[ 0 ] );
+    assertEquals( 1L, errors.get( 1 )[ 0 ] );
+    assertEquals( 3L, errors.get( 2 )[ 0 ] );
+    assertOutput( output, 1L, "a", 4L, "d" );
+  }
+
+  @Test
+  public void testFailedQueryWithoutErrorHandlingStopsTheStep() throws Exception {
+    DatabaseJoinMeta meta = createMeta( 0, false );
+    DatabaseJoinData data = createData( 2 );
+    DatabaseJoin step = createStep( data, 1L, 9L, 4L );
+
+    assertTrue( step.processRow( meta, data ) );
+    assertFalse( step.processRow( meta, data ) );
+
+    assertEquals( 1, step.getErrors() );
+    assertTrue( output.isEmpty() );
+    assertTrue( data.batchRows.isEmpty() );
+    assertTrue( data.batchResults.isEmpty() );
+  }
+
+  private DatabaseJoinMeta createMeta( int rowLimit, boolean outerJoin ) throws Exception {
+    DatabaseMeta databaseMeta = new DatabaseMeta();
+    databaseMeta.setDatabaseInterface( new MySQLDatabaseMeta() );
+
+    DatabaseJoinMeta meta = mock( DatabaseJoinMeta.class );
+    when( meta.getDatabaseMeta() ).thenReturn( databaseMeta );
+    when( meta.getSql() ).thenReturn( "SELECT name FROM t WHERE id = ?" );
+    when( meta.getParameterField() ).thenReturn( new String[] { "id" } );
+    when( meta.getRowLimit() ).thenReturn( rowLimit );
+    when( meta.isOuterJoin() ).thenReturn( outerJoin );
+    doAnswer( invocation -> {
+      ( (RowMetaInterface) invocation.getArgument( 1 ) ).addValueMeta( new ValueMetaString( "name" ) );
+      return null;
+    } ).when( meta ).getFields( any(), any( RowMetaInterface.class ), any(), any(), any(), any(), any(), any() );
+    return meta;
+  }
+
+  /**
+   * The database runs the batch query on the table of the test: the value 9 can't be queried.
+   */
+  private DatabaseJoinData createData( int batchSize ) throws Exception {
+    Map<Integer, Long> parameters = new TreeMap<>();
+    PreparedStatement statement = mock( PreparedStatement.class );
+    doAnswer( invocation -> parameters.put( invocation.getArgument( 0 ), invocation.getArgument( 1 ) ) )
+      .when( statement ).setLong( anyInt(), anyLong() );
+
+    RowMeta returnRowMeta = new RowMeta();
+    returnRowMeta.addValueMeta( new ValueMetaInteger( DatabaseJoin.BATCH_SET_COLUMN ) );
+    returnRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    Deque<Object[]> resultRows = new ArrayDeque<>();
+    Database db = mock( Database.class );
+    when( db.prepareSQL( anyString() ) ).thenReturn( statement );
+    when( db.getReturnRowMeta() ).thenReturn( returnRowMeta );
+    when( db.openQuery( any( PreparedStatement.class ), any( RowMetaInterface.class ), any( Object[].class ) ) )
+      .thenAnswer( invocation -> {
+        List<Long> ids = new ArrayList<>( parameters.values() );
+        parameters.clear();
+        long set = 0;
+        for ( Long id : ids ) {
+          if ( id == 9L ) {
+            throw new KettleDatabaseException( "Unable to query 9" );
+          }
+          for ( String name : table.get( id ) ) {
+            resultRows.add( new Object[] { set, name } );
+          }
+          set++;
+        }
+        return mock( ResultSet.class );
+      } );
+    when( db.getRow( any( ResultSet.class ) ) ).thenAnswer( invocation -> resultRows.poll() );
+
+    DatabaseJoinData data = new DatabaseJoinData();
+    data.db = db;
+    data.batchSize = batchSize;
+    return data;
+  }
+
+  private DatabaseJoin createStep( DatabaseJoinData data, Object... ids ) throws Exception {
+    DatabaseJoin step = spy( new DatabaseJoin( smh.stepMeta, data, 0, smh.transMeta, smh.trans ) );
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    step.setInputRowMeta( inputRowMeta );
+
+    Object[][] rows = new Object[ ids.length + 1 ][];
+    for ( int i = 0; i < ids.length; i++ ) {
+      rows[ i ] = new Object[] { ids[ i ] };
+    }
+    doReturn( rows[ 0 ], Arrays.copyOfRange( rows, 1, rows.length ) ).when( step ).getRow();
+    doAnswer( invocation -> output.add( invocation.getArgument( 1 ) ) ).when( step )
+      .putRow( any( RowMetaInterface.class ), any( Object[].class ) );
+    doAnswer( invocation -> errors.add( invocation.getArgument( 1 ) ) ).when( step )
+      .putError( any( RowMetaInterface.class ), any( Object[].class ), anyLong(), anyString(),
+        nullable( String.class ), anyString() );
+    return step;
+  }
+
+  private void run( DatabaseJoin step, DatabaseJoinMeta meta, DatabaseJoinData data ) throws Exception {
+    while ( step.processRow( meta, data ) ) {
+      // keep going
+    }
+  }
+
+  /**
+   * @param expected
+   *          the id and the name of every expected output row
+   */
+  private void assertOutput( List<Object[]> rows, Object... expected ) {
+    assertEquals( expected.length / 2, rows.size() );
+    for ( int i = 0; i < rows.size(); i++ ) {
+      assertEquals( expected[ i * 2 ], rows.get( i )[ 0 ] );
+      assertEquals( expected[ i * 2 + 1 ], rows.get( i )[ 1 ] );
+    }
+  }
 }
@@ -26,8 +26,10 @@ import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.bowl.Bowl;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.database.GenericDatabaseMeta;
 import org.pentaho.di.core.database.MySQLDatabaseMeta;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -54,7 +56,9 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -65,6 +69,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.doAnswer;
@@ -539,6 +544,256 @@ public class DatabaseLookupUTest {
     testIsTimelessMaskNullTestVariant("yyyy-MM-dd" ,true );
   }
 
+  @Test
+  public void testBatchLookupCondition() {
+    MySQLDatabaseMeta mysql = new MySQLDatabaseMeta();
+    DatabaseMeta mysqlMeta = new DatabaseMeta();
+    mysqlMeta.setDatabaseInterface( mysql );
+    DatabaseMeta genericMeta = new DatabaseMeta();
+    genericMeta.setDatabaseInterface( new GenericDatabaseMeta() );
+
+    assertEquals( "k1 IN (?, ?, ?)",
+      DatabaseLookup.getBatchLookupCondition( genericMeta, new String[] { "k1" }, 3 ) );
+    assertEquals( "(k1, k2) IN ((?, ?), (?, ?))",
+      DatabaseLookup.getBatchLookupCondition( mysqlMeta, new String[] { "k1", "k2" }, 2 ) );
+    assertEquals( "((k1 = ? AND k2 = ?) OR (k1 = ? AND k2 = ?))",
+      DatabaseLookup.getBatchLookupCondition( genericMeta, new String[] { "k1", "k2" }, 2 ) );
+  }
+
+  private static DatabaseLookupMeta createBatchLookupMeta() {
+    MySQLDatabaseMeta mysql = new MySQLDatabaseMeta();
+    mysql.setName( "MySQL" );
+    DatabaseMeta dbMeta = new DatabaseMeta();
+    dbMeta.setDatabaseInterface( mysql );
+
+    DatabaseLookupMeta meta = new DatabaseLookupMeta();
+    meta.setDefault();
+    meta.allocate( 1, 1 );
+    meta.setDatabaseMeta( dbMeta );
+    meta.setTablename( "VirtualTable" );
+    meta.setStreamKeyField1( new String[] { "key" } );
+    meta.setStreamKeyField2( new String[] { "" } );
+    meta.setTableKeyField( new String[] { ID_FIELD } );
+    meta.setKeyCondition( new String[] { "=" } );
+    meta.setReturnValueField( new String[] { "name" } );
+    meta.setReturnValueNewName( new String[] { "name" } );
+    meta.setReturnValueDefault( new String[] { "unknown" } );
+    meta.setReturnValueDefaultType( new int[] { ValueMetaInterface.TYPE_STRING } );
+    meta.setLookupBatchSize( 2 );
+    return meta;
+  }
+
+  @Test
+  public void testBatchLookupKeepsRowOrder() throws Exception {
+    DatabaseLookupMeta meta = createBatchLookupMeta();
+    DatabaseMeta dbMeta = meta.getDatabaseMeta();
+
+    RowMeta tableMeta = new RowMeta();
+    tableMeta.addValueMeta( new ValueMetaInteger( ID_FIELD ) );
+    tableMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    Map<Long, String> table = new HashMap<>();
+    table.put( 1L, "one" );
+    table.put( 2L, "two" );
+    table.put( 4L, "four" );
+
+    Database db = mock( Database.class );
+    doReturn( tableMeta ).when( db ).getTableFields( anyString() );
+    doReturn( tableMeta ).when( db ).getReturnRowMeta();
+    doAnswer( invocation -> {
+      // Return the rows found in reverse order, the step needs to put them back in order
+      Object[] keys = invocation.getArgument( 2 );
+      List<Object[]> rows = new ArrayList<>();
+      for ( Object key : keys ) {
+        if ( table.containsKey( key ) ) {
+          rows.add( 0, new Object[] { key, table.get( key ) } );
+        }
+      }
+      return rows;
+    } ).when( db ).getRows( anyString(), any( RowMetaInterface.class ), any( Object[].class ), anyInt(),
+      anyBoolean(), anyInt(), any() );
+
+    DatabaseLookup step = spyLookup( mockHelper, db, dbMeta );
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "key" ) );
+    step.setInputRowMeta( inputRowMeta );
+    doReturn( new Object[] { 1L }, new Object[] { 2L }, new Object[] { 1L }, new Object[] { 3L },
+      new Object[] { null }, new Object[] { 4L }, null ).when( step ).getRow();
+    List<Object[]> output = new ArrayList<>();
+    doAnswer( invocation -> {
+      output.add( invocation.getArgument( 1 ) );
+      return null;
+    } ).when( step ).putRow( any( RowMetaInterface.class ), any( Object[].class ) );
+
+    DatabaseLookupData data = new DatabaseLookupData();
+    assertTrue( step.init( meta, data ) );
+    while ( step.processRow( meta, data ) ) {
+      // keep going
+    }
+
+    assertTrue( data.batchLookup );
+    verify( db, times( 3 ) ).getRows( anyString(), any( RowMetaInterface.class ), any( Object[].class ), anyInt(),
+      anyBoolean(), anyInt(), any() );
+    verify( db, times( 0 ) ).getLookup( anyBoolean() );
+
+    Object[][] expected = {
+      { 1L, "one" }, { 2L, "two" }, { 1L, "one" }, { 3L, "unknown" }, { null, "unknown" }, { 4L, "four" } };
+    assertEquals( expected.length, output.size() );
+    for ( int i = 0; i < expected.length; i++ ) {
+      assertEquals( expected[ i ][ 0 ], output.get( i )[ 0 ] );
+      assertEquals( expected[ i ][ 1 ], output.get( i )[ 1 ] );
+    }
+  }
+
+  @Test
+  public void testBatchLookupLooksUpKeysNotFoundBackOneByOne() throws Exception {
+    DatabaseLookupMeta meta = createBatchLookupMeta();
+    DatabaseMeta dbMeta = meta.getDatabaseMeta();
+
+    RowMeta tableMeta = new RowMeta();
+    tableMeta.addValueMeta( new ValueMetaString( ID_FIELD ) );
+    tableMeta.addValueMeta( new ValueMetaString( "name" ) );
+    RowMeta nameMeta = new RowMeta();
+    nameMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    Map<String, String> table = new HashMap<>();
+    table.put( "ABC", "first" );
+    table.put( "def", "second" );
+
+    // The database compares the keys case insensitive, like a lot of collations do
+    //
+    RowMetaInterface[] returnMeta = { tableMeta };
+    Object[][] lookupRow = new Object[ 1 ][];
+    Database db = mock( Database.class );
+    doReturn( tableMeta ).when( db ).getTableFields( anyString() );
+    doAnswer( invocation -> returnMeta[ 0 ] ).when( db ).getReturnRowMeta();
+    doAnswer( invocation -> {
+      Object[] keys = invocation.getArgument( 2 );
+      List<Object[]> rows = new ArrayList<>();
+      for ( Map.Entry<String, String> entry : table.entrySet() ) {
+        for ( Object key : keys ) {
+          if ( entry.getKey().equalsIgnoreCase( (String) key ) ) {
+            rows.add( new Object[] { entry.getKey(), entry.getValue() } );
+            break;
+          }
+        }
+      }
+      returnMeta[ 0 ] = tableMeta;
+      return rows;
+    } ).when( db ).getRows( anyString(), any( RowMetaInterface.class ), any( Object[].class ), anyInt(),
+      anyBoolean(), anyInt(), any() );
+    doAnswer( invocation -> {
+      lookupRow[ 0 ] = invocation.getArgument( 1 );
+      return null;
+    } ).when( db ).setValuesLookup( any( RowMetaInterface.class ), any( Object[].class ) );
+    doAnswer( invocation -> {
+      returnMeta[ 0 ] = nameMeta;
+      for ( Map.Entry<String, String> entry : table.entrySet() ) {
+        if ( entry.getKey().equalsIgnoreCase( (String) lookupRow[ 0 ][ 0 ] ) ) {
+          return new Object[] { entry.getValue() };
+        }
+      }
+      return null;
+    } ).when( db ).getLookup( anyBoolean() );
+
+    DatabaseLookup step = spyLookup( mockHelper, db, dbMeta );
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    step.setInputRowMeta( inputRowMeta );
+    doReturn( new Object[] { "abc" }, new Object[] { "def" }, new Object[] { "abc" }, new Object[] { "xyz" },
+      null ).when( step ).getRow();
+    List<Object[]> output = new ArrayList<>();
+    doAnswer( invocation -> {
+      output.add( invocation.getArgument( 1 ) );
+      return null;
+    } ).when( step ).putRow( any( RowMetaInterface.class ), any( Object[].class ) );
+
+    DatabaseLookupData data = new DatabaseLookupData();
+    assertTrue( step.init( meta, data ) );
+    while ( step.processRow( meta, data ) ) {
+      // keep going
+    }
+
+    // "def" is found back in the batch, the other keys are looked up on their own
+    //
+    verify( db, times( 2 ) ).getRows( anyString(), any( RowMetaInterface.class ), any( Object[].class ), anyInt(),
+      anyBoolean(), anyInt(), any() );
+    verify( db, times( 3 ) ).getLookup( anyBoolean() );
+
+    Object[][] expected = { { "abc", "first" }, { "def", "second" }, { "abc", "first" }, { "xyz", "unknown" } };
+    assertEquals( expected.length, output.size() );
+    for ( int i = 0; i < expected.length; i++ ) {
+      assertEquals( expected[ i ][ 0 ], output.get( i )[ 0 ] );
+      assertEquals( expected[ i ][ 1 ], output.get( i )[ 1 ] );
+    }
+  }
+
+  @Test
+  public void testBatchLookupSendsRowsNotPassedOnToErrorHandling() throws Exception {
+    DatabaseLookupMeta meta = createBatchLookupMeta();
+    DatabaseMeta dbMeta = meta.getDatabaseMeta();
+    when( mockHelper.stepMeta.isDoingErrorHandling() ).thenReturn( true );
+
+    RowMeta tableMeta = new RowMeta();
+    tableMeta.addValueMeta( new ValueMetaInteger( ID_FIELD ) );
+    tableMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    Database db = mock( Database.class );
+    doReturn( tableMeta ).when( db ).getTableFields( anyString() );
+    doReturn( tableMeta ).when( db ).getReturnRowMeta();
+    doAnswer( invocation -> {
+      Object[] keys = invocation.getArgument( 2 );
+      List<Object[]> rows = new ArrayList<>();
+      for ( Object key : keys ) {
+        rows.add( new Object[] { key, "name" + key } );
+      }
+      return rows;
+    } ).when( db ).getRows( anyString(), any( RowMetaInterface.class ), any( Object[].class ), anyInt(),
+      anyBoolean(), anyInt(), any() );
+
+    DatabaseLookup step = spyLookup( mockHelper, db, dbMeta );
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "key" ) );
+    step.setInputRowMeta( inputRowMeta );
+    doReturn( new Object[] { 1L }, new Object[] { 2L }, new Object[] { 3L }, new Object[] { 4L },
+      null ).when( step ).getRow();
+
+    // The next step fails on the first row of the first batch
+    //
+    List<Object[]> output = new ArrayList<>();
+    doAnswer( invocation -> {
+      Object[] row = invocation.getArgument( 1 );
+      if ( Long.valueOf( 1L ).equals( row[ 0 ] ) ) {
+        throw new KettleStepException( "Unable to pass on row" );
+      }
+      output.add( row );
+      return null;
+    } ).when( step ).putRow( any( RowMetaInterface.class ), any( Object[].class ) );
+    List<Object[]> errors = new ArrayList<>();
+    doAnswer( invocation -> {
+      errors.add( invocation.getArgument( 1 ) );
+      return null;
+    } ).when( step ).putError( any( RowMetaInterface.class ), any( Object[].class ), anyLong(), anyString(),
+      nullable( String.class ), anyString() );
+
+    DatabaseLookupData data = new DatabaseLookupData();
+    assertTrue( step.init( meta, data ) );
+    while ( step.processRow( meta, data ) ) {
+      // keep going
+    }
+
+    // Every row goes either to the output or to the error handling, exactly once
+    //
+    assertEquals( 2, errors.size() );
+    assertEquals( 1L, errors.get( 0 )[ 0 ] );
+    assertEquals( 2L, errors.get( 1 )[ 0 ] );
+    assertEquals( 2, output.size() );
+    assertEquals( 3L, output.get( 0 )[ 0 ] );
+    assertEquals( "name3", output.get( 0 )[ 1 ] );
+    assertEquals( 4L, output.get( 1 )[ 0 ] );
+    assertEquals( "name4", output.get( 1 )[ 1 ] );
+  }
+
   private RowMeta determineFieldsTypeQueryingDbSetupAndCall( String kettlePropertyValue ) throws KettleException {
     //Row Meta - What is expected as configured in the database
     RowMeta rowMeta = new RowMeta();
@@ -23,6 +23,8 @@ import java.util.LinkedHashMap;
 
 import static org.mockito.Mockito.mock;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.when;
 import static org.pentaho.test.util.InternalState.getInternalState;
 import static org.pentaho.test.util.InternalState.setInternalState;
@@ -308,4 +310,92 @@ public class DefaultCacheTest {
       assertEquals( new Object[]{ i * 100 }[0], result[0] );
     }
   }
+
+  @Test
+  public void lruEvictionTest() throws Exception {
+    DatabaseLookupMeta databaseLookupMeta = mock( DatabaseLookupMeta.class );
+    when( databaseLookupMeta.getCacheSize() ).thenReturn( 3 );
+    DatabaseLookupData databaseLookupData = createData();
+    DefaultCache defaultCache =
+      DefaultCache.newCache( databaseLookupData, 3, DatabaseLookupMeta.CACHE_EVICTION_LRU );
+    RowMeta rowMeta = (RowMeta) databaseLookupData.lookupMeta;
+    for ( long i = 1; i <= 3; ++i ) {
+      defaultCache.storeRowInCache( databaseLookupMeta, rowMeta, new Object[]{ i }, new Object[]{ i * 100 } );
+    }
+    // Using 1 makes 2 the least recently used entry
+    assertNotNull( defaultCache.getRowFromCache( rowMeta, new Object[]{ 1L } ) );
+    defaultCache.storeRowInCache( databaseLookupMeta, rowMeta, new Object[]{ 4L }, new Object[]{ 400L } );
+
+    assertEquals( 3, defaultCache.size() );
+    assertEquals( 1, databaseLookupData.cacheEvictions );
+    assertNull( defaultCache.getRowFromCache( rowMeta, new Object[]{ 2L } ) );
+    assertNotNull( defaultCache.getRowFromCache( rowMeta, new Object[]{ 1L } ) );
+    assertNotNull( defaultCache.getRowFromCache( rowMeta, new Object[]{ 3L } ) );
+  }
+
+  @Test
+  public void lfuEvictionTest() throws Exception {
+    DatabaseLookupMeta databaseLookupMeta = mock( DatabaseLookupMeta.class );
+    when( databaseLookupMeta.getCacheSize() ).thenReturn( 3 );
+    DatabaseLookupData databaseLookupData = createData();
+    DefaultCache defaultCache =
+      DefaultCache.newCache( databaseLookupData, 3, DatabaseLookupMeta.CACHE_EVICTION_LFU );
+    RowMeta rowMeta = (RowMeta) databaseLookupData.lookupMeta;
+    for ( long i = 1; i <= 3; ++i ) {
+      defaultCache.storeRowInCache( databaseLookupMeta, rowMeta, new Object[]{ i }, new Object[]{ i * 100 } );
+    }
+    defaultCache.getRowFromCache( rowMeta, new Object[]{ 1L } );
+    defaultCache.getRowFromCache( rowMeta, new Object[]{ 1L } );
+    defaultCache.getRowFromCache( rowMeta, new Object[]{ 3L } );
+
+    // 2 was never found, then 4 is the least frequently used entry
+    defaultCache.storeRowInCache( databaseLookupMeta, rowMeta, new Object[]{ 4L }, new Object[]{ 400L } );
+    assertNull( defaultCache.getRowFromCache( rowMeta, new Object[]{ 2L } ) );
+    defaultCache.storeRowInCache( databaseLookupMeta, rowMeta, new Object[]{ 5L }, new Object[]{ 500L } );
+    assertNull( defaultCache.getRowFromCache( rowMeta, new Object[]{ 4L } ) );
+
+    assertEquals( 3, defaultCache.size() );
+    assertEquals( 2, databaseLookupData.cacheEvictions );
+    assertEquals( 100L, defaultCache.getRowFromCache( rowMeta, new Object[]{ 1L } )[0] );
+    assertEquals( 300L, defaultCache.getRowFromCache( rowMeta, new Object[]{ 3L } )[0] );
+    assertEquals( 500L, defaultCache.getRowFromCache( rowMeta, new Object[]{ 5L } )[0] );
+  }
+
+  @Test
+  public void lfuAgingTest() throws Exception {
+    DatabaseLookupMeta databaseLookupMeta = mock( DatabaseLookupMeta.class );
+    when( databaseLookupMeta.getCacheSize() ).thenReturn( 3 );
+    DatabaseLookupData databaseLookupData = createData();
+    DefaultCache defaultCache =
+      DefaultCache.newCache( databaseLookupData, 3, DatabaseLookupMeta.CACHE_EVICTION_LFU );
+    RowMeta rowMeta = (RowMeta) databaseLookupData.lookupMeta;
+    for ( long i = 1; i <= 3; ++i ) {
+      defaultCache.storeRowInCache( databaseLookupMeta, rowMeta, new Object[]{ i }, new Object[]{ i * 100 } );
+    }
+    defaultCache.getRowFromCache( rowMeta, new Object[]{ 1L } );
+
+    // 2 and 3 were never found
+    defaultCache.storeRowInCache( databaseLookupMeta, rowMeta, new Object[]{ 4L }, new Object[]{ 400L } );
+    defaultCache.storeRowInCache( databaseLookupMeta, rowMeta, new Object[]{ 5L }, new Object[]{ 500L } );
+    // 3 new entries were stored since the last aging: the single hit of 1 is halved away and 1, the oldest entry,
+    // is evicted instead of 4
+    defaultCache.storeRowInCache( databaseLookupMeta, rowMeta, new Object[]{ 6L }, new Object[]{ 600L } );
+    assertNull( defaultCache.getRowFromCache( rowMeta, new Object[]{ 1L } ) );
+
+    assertEquals( 3, defaultCache.size() );
+    assertEquals( 3, databaseLookupData.cacheEvictions );
+    assertEquals( 400L, defaultCache.getRowFromCache( rowMeta, new Object[]{ 4L } )[0] );
+    assertEquals( 500L, defaultCache.getRowFromCache( rowMeta, new Object[]{ 5L } )[0] );
+    assertEquals( 600L, defaultCache.getRowFromCache( rowMeta, new Object[]{ 6L } )[0] );
+  }
+
+  private DatabaseLookupData createData() {
+    DatabaseLookupData databaseLookupData = new DatabaseLookupData();
+    databaseLookupData.allEquals = true;
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    databaseLookupData.lookupMeta = rowMeta;
+    databaseLookupData.conditions = new int[]{ DatabaseLookupMeta.CONDITION_EQ };
+    return databaseLookupData;
+  }
 }
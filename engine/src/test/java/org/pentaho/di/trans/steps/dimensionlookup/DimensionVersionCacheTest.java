@@ -0,0 +1,120 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.steps.dimensionlookup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class DimensionVersionCacheTest {
+
+  private static final Date D1 = new Date( 1425300000000L );
+  private static final Date D2 = new Date( 1425300000000L + 3600000L );
+  private static final Date D3 = new Date( 1425300000000L + 3600000L * 2 );
+  private static final Date D4 = new Date( 1425300000000L + 3600000L * 3 );
+
+  private DimensionVersionCache cache;
+
+  @Before
+  public void setUp() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "TK" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "CODE" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "NR" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "DATE_FROM" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "DATE_TO" ) );
+    cache = new DimensionVersionCache( rowMeta, new int[] { 1, 2 }, 3, 4, 0 );
+  }
+
+  @Test
+  public void testLookupOfVersions() throws Exception {
+    Object[] v1 = { 1L, "a", BigDecimal.ONE, null, D2 };
+    Object[] v2 = { 2L, "a", BigDecimal.ONE, D2, D3 };
+    Object[] v3 = { 3L, "a", BigDecimal.ONE, D3, null };
+    // The versions don't have to be added in order
+    cache.addRow( v3 );
+    cache.addRow( v1 );
+    cache.addRow( v2 );
+    cache.addRow( new Object[] { 4L, "b", BigDecimal.ONE, null, null } );
+    assertEquals( 4, cache.size() );
+    assertEquals( 2, cache.getNrKeys() );
+
+    Object[] key = { "a", BigDecimal.ONE };
+    assertSame( v1, cache.lookupRow( key, D1 ) );
+    assertSame( v1, cache.lookupRow( key, null ) );
+    assertSame( v2, cache.lookupRow( key, D2 ) );
+    assertSame( v3, cache.lookupRow( key, D3 ) );
+    assertSame( v3, cache.lookupRow( key, D4 ) );
+    assertEquals( 2L, cache.lookupTechnicalKey( key, D2 ) );
+    assertEquals( 4L, cache.lookupTechnicalKey( new Object[] { "b", BigDecimal.ONE }, D4 ) );
+
+    assertNull( cache.lookupRow( new Object[] { "c", BigDecimal.ONE }, D1 ) );
+    assertEquals( -1L, cache.lookupTechnicalKey( new Object[] { "a", BigDecimal.TEN }, D1 ) );
+  }
+
+  @Test
+  public void testGapBetweenVersions() throws Exception {
+    cache.addRow( new Object[] { 1L, "a", BigDecimal.ONE, D1, D2 } );
+    cache.addRow( new Object[] { 2L, "a", BigDecimal.ONE, D3, D4 } );
+
+    Object[] key = { "a", BigDecimal.ONE };
+    assertNull( cache.lookupRow( key, null ) );
+    assertEquals( 1L, cache.lookupTechnicalKey( key, D1 ) );
+    assertEquals( -1L, cache.lookupTechnicalKey( key, D2 ) );
+    assertEquals( 2L, cache.lookupTechnicalKey( key, D3 ) );
+    assertEquals( -1L, cache.lookupTechnicalKey( key, D4 ) );
+  }
+
+  @Test
+  public void testManyVersionsOfAKey() throws Exception {
+    // Added latest first, every version moves the others up
+    for ( long i = 99; i >= 0; i-- ) {
+      cache.addRow( new Object[] { i, "a", BigDecimal.ONE, new Date( D1.getTime() + i * 1000L ),
+        new Date( D1.getTime() + ( i + 1 ) * 1000L ) } );
+      cache.addRow( new Object[] { 100L + i, "k" + i, BigDecimal.ONE, null, null } );
+    }
+    assertEquals( 200, cache.size() );
+    assertEquals( 101, cache.getNrKeys() );
+
+    Object[] key = { "a", BigDecimal.ONE };
+    for ( long i = 0; i < 100; i++ ) {
+      Date date = new Date( D1.getTime() + i * 1000L + 500L );
+      assertEquals( i, cache.lookupTechnicalKey( key, date ) );
+      assertEquals( i, cache.lookupRow( key, date )[ 0 ] );
+      assertEquals( 100L + i, cache.lookupTechnicalKey( new Object[] { "k" + i, BigDecimal.ONE }, date ) );
+    }
+    assertEquals( -1L, cache.lookupTechnicalKey( key, new Date( D1.getTime() + 100000L ) ) );
+  }
+
+  @Test
+  public void testBigNumberScaleIsIgnored() throws Exception {
+    cache.addRow( new Object[] { 1L, "a", new BigDecimal( "1.00" ), null, null } );
+
+    assertEquals( 1L, cache.lookupTechnicalKey( new Object[] { "a", BigDecimal.ONE }, D1 ) );
+  }
+}
@@ -0,0 +1,145 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.filterrows;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.Condition;
+import org.pentaho.di.core.row.ColumnarRowBatch;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaAndData;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ColumnarConditionTest {
+  private static final int[] FUNCTIONS = {
+    Condition.FUNC_EQUAL, Condition.FUNC_NOT_EQUAL, Condition.FUNC_SMALLER, Condition.FUNC_SMALLER_EQUAL,
+    Condition.FUNC_LARGER, Condition.FUNC_LARGER_EQUAL, Condition.FUNC_NULL, Condition.FUNC_NOT_NULL };
+
+  private RowMetaInterface rowMeta;
+  private Object[][] rows;
+
+  @Before
+  public void setUp() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "a" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "b" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "x" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "s" ) );
+
+    Random random = new Random( 42 );
+    rows = new Object[ 200 ][];
+    for ( int r = 0; r < rows.length; r++ ) {
+      rows[ r ] = new Object[] {
+        random.nextInt( 10 ) == 0 ? null : Long.valueOf( random.nextInt( 10 ) ),
+        random.nextInt( 10 ) == 0 ? null : Long.valueOf( random.nextInt( 10 ) ),
+        random.nextInt( 10 ) == 0 ? null : Double.valueOf( random.nextInt( 10 ) / 2.0 ),
+        "row" + r };
+    }
+  }
+
+  @Test
+  public void testComparisonsWithConstants() {
+    for ( int function : FUNCTIONS ) {
+      for ( boolean negate : new boolean[] { false, true } ) {
+        assertSameResults( new Condition( negate, "a", function, null,
+          new ValueMetaAndData( new ValueMetaInteger( "constant" ), 5L ) ) );
+        assertSameResults( new Condition( negate, "x", function, null,
+          new ValueMetaAndData( new ValueMetaNumber( "constant" ), 2.5 ) ) );
+      }
+    }
+  }
+
+  @Test
+  public void testComparisonsOfFields() {
+    for ( int function : FUNCTIONS ) {
+      assertSameResults( new Condition( "a", function, "b", null ) );
+    }
+  }
+
+  @Test
+  public void testNullsAreNotSmallerWhenConfigured() {
+    String old = System.getProperty( "KETTLE_FILTER_TREAT_NULLS_AS_NOT_ZERO" );
+    System.setProperty( "KETTLE_FILTER_TREAT_NULLS_AS_NOT_ZERO", "Y" );
+    try {
+      assertSameResults( new Condition( "a", Condition.FUNC_SMALLER, null,
+        new ValueMetaAndData( new ValueMetaInteger( "constant" ), 5L ) ) );
+      assertSameResults( new Condition( "a", Condition.FUNC_SMALLER_EQUAL, "b", null ) );
+    } finally {
+      if ( old == null ) {
+        System.clearProperty( "KETTLE_FILTER_TREAT_NULLS_AS_NOT_ZERO" );
+      } else {
+        System.setProperty( "KETTLE_FILTER_TREAT_NULLS_AS_NOT_ZERO", old );
+      }
+    }
+  }
+
+  @Test
+  public void testCompositeConditions() {
+    int[] operators = { Condition.OPERATOR_AND, Condition.OPERATOR_OR, Condition.OPERATOR_AND_NOT,
+      Condition.OPERATOR_OR_NOT, Condition.OPERATOR_XOR };
+    for ( int operator : operators ) {
+      Condition condition = new Condition();
+      condition.addCondition( new Condition( "a", Condition.FUNC_LARGER, null,
+        new ValueMetaAndData( new ValueMetaInteger( "constant" ), 3L ) ) );
+      condition.addCondition( new Condition( operator, "x", Condition.FUNC_SMALLER_EQUAL, null,
+        new ValueMetaAndData( new ValueMetaNumber( "constant" ), 2.0 ) ) );
+      assertSameResults( condition );
+
+      condition.setNegated( true );
+      assertSameResults( condition );
+    }
+  }
+
+  @Test
+  public void testUnsupportedConditionsAreNotCompiled() {
+    // Strings
+    assertNull( ColumnarCondition.compile( new Condition( "s", Condition.FUNC_EQUAL, null,
+      new ValueMetaAndData( new ValueMetaString( "constant" ), "row1" ) ), rowMeta ) );
+    // Different data types
+    assertNull( ColumnarCondition.compile( new Condition( "a", Condition.FUNC_EQUAL, null,
+      new ValueMetaAndData( new ValueMetaNumber( "constant" ), 1.0 ) ), rowMeta ) );
+    assertNull( ColumnarCondition.compile( new Condition( "a", Condition.FUNC_EQUAL, "x", null ), rowMeta ) );
+    // Other functions
+    assertNull( ColumnarCondition.compile( new Condition( "a", Condition.FUNC_IN_LIST, null,
+      new ValueMetaAndData( new ValueMetaString( "constant" ), "1;2" ) ), rowMeta ) );
+    // One unsupported part is enough
+    Condition condition = new Condition();
+    condition.addCondition( new Condition( "a", Condition.FUNC_LARGER, "b", null ) );
+    condition.addCondition( new Condition( Condition.OPERATOR_AND, "s", Condition.FUNC_NOT_NULL, null, null ) );
+    assertNull( ColumnarCondition.compile( condition, rowMeta ) );
+  }
+
+  private void assertSameResults( Condition condition ) {
+    ColumnarCondition columnar = ColumnarCondition.compile( condition, rowMeta );
+    assertNotNull( condition.toString(), columnar );
+
+    ColumnarRowBatch batch = new ColumnarRowBatch( rowMeta, rows.length );
+    batch.load( rows, rows.length, columnar.getFieldIndexes() );
+    boolean[] result = new boolean[ rows.length ];
+    columnar.evaluate( batch, result );
+
+    for ( int r = 0; r < rows.length; r++ ) {
+      assertEquals( condition + " on row " + r, condition.evaluate( rowMeta, rows[ r ] ), result[ r ] );
+    }
+  }
+}
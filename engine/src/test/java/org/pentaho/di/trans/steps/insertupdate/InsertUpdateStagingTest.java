@@ -0,0 +1,94 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.insertupdate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.StagingTable;
+import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.trans.steps.mock.StepMockHelper;
+
+import java.sql.PreparedStatement;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class InsertUpdateStagingTest {
+  StepMockHelper<InsertUpdateMeta, InsertUpdateData> smh;
+
+  @Before
+  public void setUp() {
+    smh = new StepMockHelper<>( "insertUpdate", InsertUpdateMeta.class, InsertUpdateData.class );
+    when( smh.logChannelInterfaceFactory.create( any(), any( LoggingObjectInterface.class ) ) ).thenReturn(
+      smh.logChannelInterface );
+    when( smh.trans.isRunning() ).thenReturn( true );
+  }
+
+  @After
+  public void cleanUp() {
+    smh.cleanUp();
+  }
+
+  @Test
+  public void testRowsWithANullKeyAreNotMerged() throws Exception {
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    inputRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    RowMeta keyRowMeta = new RowMeta();
+    keyRowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    // "id = NULL" never finds a row: every row with a null key is inserted
+    //
+    Database db = mock( Database.class );
+    when( db.getLookup( any( PreparedStatement.class ) ) ).thenReturn( null );
+    StagingTable stagingTable = mock( StagingTable.class );
+
+    InsertUpdateData stepData = smh.processRowsStepDataInterface;
+    stepData.db = db;
+    stepData.keynrs = new int[] { 0 };
+    stepData.keynrs2 = new int[] { -1 };
+    stepData.valuenrs = new int[] { 0, 1 };
+    stepData.lookupParameterRowMeta = keyRowMeta;
+    stepData.insertRowMeta = inputRowMeta;
+    stepData.outputRowMeta = inputRowMeta;
+    stepData.prepStatementLookup = mock( PreparedStatement.class );
+    stepData.stagingTable = stagingTable;
+    stepData.stagingSize = 10;
+
+    InsertUpdate step = new InsertUpdate( smh.stepMeta, smh.stepDataInterface, 0, smh.transMeta, smh.trans );
+    step.setInputRowMeta( inputRowMeta );
+    step.addRowSetToInputRowSets( smh.getMockInputRowSet( new Object[] { null, "a" }, new Object[] { 1L, "b" },
+      new Object[] { null, "c" }, new Object[] { null, "c" } ) );
+    step.init( smh.initStepMetaInterface, smh.initStepDataInterface );
+    step.first = false;
+    for ( int i = 0; i < 4; i++ ) {
+      step.processRow( smh.processRowsStepMetaInterface, stepData );
+    }
+
+    verify( stagingTable ).addRow( new Object[] { 1L, "b" } );
+    verify( stagingTable, times( 1 ) ).addRow( any() );
+    verify( db ).setValuesInsert( inputRowMeta, new Object[] { null, "a" } );
+    verify( db, times( 2 ) ).setValuesInsert( inputRowMeta, new Object[] { null, "c" } );
+    verify( db, times( 3 ) ).insertRow();
+  }
+}
@@ -0,0 +1,72 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.memgroupby;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+public class HyperLogLogTest {
+
+  @Test
+  public void testSmallCountsAreExact() {
+    HyperLogLog sketch = new HyperLogLog();
+    for ( int i = 0; i < 300; i++ ) {
+      sketch.add( "value" + ( i % 100 ) );
+      sketch.add( (long) ( i % 50 ) );
+      sketch.add( null );
+    }
+    sketch.add( new Date( 1000000L ) );
+    sketch.add( 1.5 );
+    assertEquals( 152, sketch.estimate() );
+  }
+
+  @Test
+  public void testLargeCountsAreEstimated() {
+    HyperLogLog sketch = new HyperLogLog();
+    for ( long i = 0; i < 100000; i++ ) {
+      sketch.add( i );
+      sketch.add( i );
+    }
+    assertEquals( 100000, sketch.estimate(), 5000 );
+  }
+
+  @Test
+  public void testMerge() {
+    HyperLogLog sparse1 = new HyperLogLog();
+    HyperLogLog sparse2 = new HyperLogLog();
+    HyperLogLog dense = new HyperLogLog();
+    for ( long i = 0; i < 200; i++ ) {
+      sparse1.add( i );
+      sparse2.add( i + 100 );
+    }
+    for ( long i = 0; i < 50000; i++ ) {
+      dense.add( i );
+    }
+
+    HyperLogLog merged = HyperLogLog.fromBytes( sparse1.toBytes() );
+    merged.merge( HyperLogLog.fromBytes( sparse2.toBytes() ) );
+    assertEquals( 300, merged.estimate() );
+
+    merged.merge( HyperLogLog.fromBytes( dense.toBytes() ) );
+    assertEquals( 50000, merged.estimate(), 2500 );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testFromInvalidBytes() {
+    HyperLogLog.fromBytes( new byte[] { 1, 2, 3 } );
+  }
+}
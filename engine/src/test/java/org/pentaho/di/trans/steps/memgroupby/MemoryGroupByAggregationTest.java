@@ -18,6 +18,7 @@ import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -26,17 +27,23 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.bowl.DefaultBowl;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMeta;
@@ -71,6 +78,7 @@ import com.google.common.collect.TreeBasedTable;
 
 public class MemoryGroupByAggregationTest {
   @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
 
   private Variables variables;
   private Map<String, Integer> aggregates;
@@ -314,6 +322,153 @@ public class MemoryGroupByAggregationTest {
     assertThat( output.getInteger( "value_count_distinct" ), is( 3L ) );
   }
 
+  @Test
+  public void testSpillToDisk() throws Exception {
+    rowMeta.addValueMeta( new ValueMetaInteger( "grp" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "number" ) );
+
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.allocate( 1, 4 );
+    meta.getGroupField()[0] = "grp";
+    meta.getAggregateField()[0] = "value_sum";
+    meta.getSubjectField()[0] = "value";
+    meta.getAggregateType()[0] = MemoryGroupByMeta.TYPE_GROUP_SUM;
+    meta.getAggregateField()[1] = "value_count";
+    meta.getSubjectField()[1] = "value";
+    meta.getAggregateType()[1] = MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL;
+    meta.getAggregateField()[2] = "value_last";
+    meta.getSubjectField()[2] = "value";
+    meta.getAggregateType()[2] = MemoryGroupByMeta.TYPE_GROUP_LAST;
+    meta.getAggregateField()[3] = "number_ave";
+    meta.getSubjectField()[3] = "number";
+    meta.getAggregateType()[3] = MemoryGroupByMeta.TYPE_GROUP_AVERAGE;
+    meta.setDirectory( tempFolder.getRoot().getAbsolutePath() );
+    meta.setMaxGroupsInMemory( "10" );
+
+    // 1000 groups with 5 rows each, only 10 of them fit in memory
+    //
+    List<Object[]> rows = new ArrayList<>();
+    for ( long i = 0; i < 5000; i++ ) {
+      rows.add( new Object[] { i % 1000, i, i / 2.0 } );
+    }
+    List<RowMetaAndData> result = runGroupBy( meta, rowMeta, rows );
+    assertThat( result.size(), is( 1000 ) );
+
+    Map<Long, RowMetaAndData> output = new HashMap<>();
+    for ( RowMetaAndData row : result ) {
+      output.put( row.getInteger( "grp" ), row );
+    }
+    assertThat( output.size(), is( 1000 ) );
+    for ( long grp = 0; grp < 1000; grp++ ) {
+      RowMetaAndData row = output.get( grp );
+      assertThat( row.getInteger( "value_sum" ), is( 5 * grp + 10000L ) );
+      assertThat( row.getInteger( "value_count" ), is( 5L ) );
+      assertThat( row.getInteger( "value_last" ), is( grp + 4000L ) );
+      assertEquals( ( grp + 2000.0 ) / 2.0, row.getNumber( "number_ave", Double.NaN ), 0.000001 );
+    }
+
+    // All the temporary files are gone
+    //
+    assertThat( tempFolder.getRoot().listFiles( File::isFile ).length, is( 0 ) );
+  }
+
+  @Test
+  public void testPartialAndMerge() throws Exception {
+    rowMeta.addValueMeta( new ValueMetaInteger( "grp" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "number" ) );
+
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.setDefault();
+    meta.setGroupField( new String[] { "grp" } );
+    meta.setAggregateField( new String[] { "sum", "ave", "min", "max", "count", "count_distinct", "stddev" } );
+    meta.setSubjectField( new String[] { "value", "value", "value", "value", "value", "value", "number" } );
+    meta.setAggregateType( new int[] { MemoryGroupByMeta.TYPE_GROUP_SUM, MemoryGroupByMeta.TYPE_GROUP_AVERAGE,
+      MemoryGroupByMeta.TYPE_GROUP_MIN, MemoryGroupByMeta.TYPE_GROUP_MAX, MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL,
+      MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT, MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION } );
+    meta.setValueField( new String[ 7 ] );
+
+    // Every 7th value is null, the distinct values repeat every 37 rows
+    //
+    List<List<Object[]>> copies = ImmutableList.of( new ArrayList<>(), new ArrayList<>(), new ArrayList<>() );
+    List<Object[]> rows = new ArrayList<>();
+    for ( long i = 0; i < 1000; i++ ) {
+      Object[] row = new Object[] { i % 10, i % 7 == 0 ? null : i % 37, i / 4.0 };
+      rows.add( row );
+      copies.get( (int) ( i % 3 ) ).add( row );
+    }
+    Map<Long, RowMetaAndData> expected = new HashMap<>();
+    for ( RowMetaAndData row : runGroupBy( meta, rowMeta, rows ) ) {
+      expected.put( row.getInteger( "grp" ), row );
+    }
+
+    // Every copy aggregates its own rows, the merge step combines them
+    //
+    meta.setAggregationMode( MemoryGroupByMeta.AGGREGATION_MODE_PARTIAL );
+    RowMetaInterface partialRowMeta = null;
+    List<Object[]> partialRows = new ArrayList<>();
+    for ( List<Object[]> copy : copies ) {
+      for ( RowMetaAndData row : runGroupBy( meta, rowMeta, copy ) ) {
+        partialRowMeta = row.getRowMeta();
+        partialRows.add( row.getData() );
+      }
+    }
+    assertThat( partialRows.size(), is( 30 ) );
+
+    meta.setAggregationMode( MemoryGroupByMeta.AGGREGATION_MODE_MERGE );
+    List<RowMetaAndData> merged = runGroupBy( meta, partialRowMeta, partialRows );
+    assertThat( merged.size(), is( 10 ) );
+    for ( RowMetaAndData row : merged ) {
+      RowMetaAndData expectedRow = expected.get( row.getInteger( "grp" ) );
+      assertThat( row.getInteger( "sum" ), is( expectedRow.getInteger( "sum" ) ) );
+      assertThat( row.getInteger( "ave" ), is( expectedRow.getInteger( "ave" ) ) );
+      assertThat( row.getInteger( "min" ), is( expectedRow.getInteger( "min" ) ) );
+      assertThat( row.getInteger( "max" ), is( expectedRow.getInteger( "max" ) ) );
+      assertThat( row.getInteger( "count" ), is( expectedRow.getInteger( "count" ) ) );
+      assertThat( row.getInteger( "count_distinct" ), is( expectedRow.getInteger( "count_distinct" ) ) );
+      assertEquals( expectedRow.getNumber( "stddev", Double.NaN ), row.getNumber( "stddev", Double.NaN ), 0.000001 );
+    }
+  }
+
+  /**
+   * Runs a group by step over the given rows and returns all the output rows.
+   */
+  private List<RowMetaAndData> runGroupBy( MemoryGroupByMeta meta, RowMetaInterface inputRowMeta,
+    List<Object[]> rows ) throws KettleException {
+    MemoryGroupByData data = new MemoryGroupByData();
+    data.map = Maps.newHashMap();
+
+    TransMeta transMeta = mock( TransMeta.class );
+    when( transMeta.getBowl() ).thenReturn( DefaultBowl.getInstance() );
+    StepMeta stepMeta = new StepMeta( STEP_NAME, meta );
+    when( transMeta.findStep( STEP_NAME ) ).thenReturn( stepMeta );
+
+    MemoryGroupBy step = spy( new MemoryGroupBy( stepMeta, data, 0, transMeta, mock( Trans.class ) ) );
+    step.copyVariablesFrom( variables );
+    doNothing().when( step ).putRow( any(), any() );
+    doNothing().when( step ).setOutputDone();
+
+    doReturn( inputRowMeta ).when( step ).getInputRowMeta();
+    for ( Object[] row : rows ) {
+      doReturn( row ).when( step ).getRow();
+      assertThat( step.processRow( meta, data ), is( true ) );
+    }
+    doReturn( null ).when( step ).getRow();
+    assertThat( step.processRow( meta, data ), is( false ) );
+    verify( step ).setOutputDone();
+
+    ArgumentCaptor<RowMetaInterface> rowMetaCaptor = ArgumentCaptor.forClass( RowMetaInterface.class );
+    ArgumentCaptor<Object[]> rowCaptor = ArgumentCaptor.forClass( Object[].class );
+    verify( step, atLeast( 0 ) ).putRow( rowMetaCaptor.capture(), rowCaptor.capture() );
+
+    List<RowMetaAndData> output = new ArrayList<>();
+    for ( int i = 0; i < rowCaptor.getAllValues().size(); i++ ) {
+      output.add( new RowMetaAndData( rowMetaCaptor.getAllValues().get( i ), rowCaptor.getAllValues().get( i ) ) );
+    }
+    return output;
+  }
+
   private RowMetaAndData runStep() throws KettleException {
     // Allocate meta
     List<String> aggKeys = ImmutableList.copyOf( aggregates.keySet() );
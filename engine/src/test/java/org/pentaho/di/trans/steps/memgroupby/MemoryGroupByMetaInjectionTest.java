@@ -63,5 +63,29 @@ public class MemoryGroupByMetaInjectionTest extends BaseMetadataInjectionTest<Me
           return meta.isAlwaysGivingBackOneRow();
         }
       } );
+    check( "SPILL_DIRECTORY", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getDirectory();
+      }
+    } );
+    check( "MAX_GROUPS_IN_MEMORY", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getMaxGroupsInMemory();
+      }
+    } );
+    check( "FREE_MEMORY_LIMIT", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getFreeMemoryLimit();
+      }
+    } );
+    check( "AGGREGATION_MODE", new IntGetter() {
+      @Override
+      public int get() {
+        return meta.getAggregationMode();
+      }
+    } );
   }
 }
@@ -63,7 +63,8 @@ public class MemoryGroupByMetaTest implements InitializerInterface<MemoryGroupBy
     KettleEnvironment.init();
     PluginRegistry.init( false );
     List<String> attributes =
-        Arrays.asList( "alwaysGivingBackOneRow", "groupField", "aggregateField", "subjectField", "aggregateType", "valueField" );
+        Arrays.asList( "alwaysGivingBackOneRow", "groupField", "aggregateField", "subjectField", "aggregateType", "valueField",
+          "directory", "maxGroupsInMemory", "freeMemoryLimit", "aggregationMode" );
 
     FieldLoadSaveValidator<String[]> stringArrayLoadSaveValidator =
         new ArrayLoadSaveValidator<String>( new StringLoadSaveValidator(), 5 );
@@ -75,6 +76,8 @@ public class MemoryGroupByMetaTest implements InitializerInterface<MemoryGroupBy
     attrValidatorMap.put( "valueField", stringArrayLoadSaveValidator );
     attrValidatorMap.put( "aggregateType", new PrimitiveIntArrayLoadSaveValidator(
         new IntLoadSaveValidator( MemoryGroupByMeta.typeGroupCode.length ), 5 ) );
+    attrValidatorMap.put( "aggregationMode",
+        new IntLoadSaveValidator( MemoryGroupByMeta.aggregationModeCode.length ) );
 
     Map<String, FieldLoadSaveValidator<?>> typeValidatorMap = new HashMap<String, FieldLoadSaveValidator<?>>();
 
@@ -322,6 +325,36 @@ public class MemoryGroupByMetaTest implements InitializerInterface<MemoryGroupBy
     assertEquals( ValueMetaInterface.TYPE_NUMBER, rm.getValueMeta( rm.indexOfValue( "Average(Integer)" ) ).getType() );
   }
 
+  @Test
+  public void testGetFieldsPartialAndMerge() {
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.setDefault();
+    meta.setGroupField( new String[] { "myGroupField1" } );
+    meta.setSubjectField( new String[] { "myInteger", "myNumber", "myString" } );
+    meta.setAggregateField( new String[] { "ave", "stddev", "distinct" } );
+    meta.setAggregateType( new int[] { MemoryGroupByMeta.TYPE_GROUP_AVERAGE,
+      MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION, MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT } );
+    meta.setValueField( new String[3] );
+    meta.setAggregationMode( MemoryGroupByMeta.AGGREGATION_MODE_PARTIAL );
+
+    RowMetaInterface rm = getInputRowMeta();
+    meta.getFields( DefaultBowl.getInstance(), rm, "partial", null, null, new Variables(), null, null );
+    assertEquals( Arrays.asList( "myGroupField1", "ave", "ave_count", "stddev", "stddev_count", "stddev_mean",
+      "distinct" ), Arrays.asList( rm.getFieldNames() ) );
+    assertEquals( ValueMetaInterface.TYPE_INTEGER, rm.getValueMeta( 1 ).getType() );
+    assertEquals( ValueMetaInterface.TYPE_INTEGER, rm.getValueMeta( 2 ).getType() );
+    assertEquals( ValueMetaInterface.TYPE_NUMBER, rm.getValueMeta( 5 ).getType() );
+    assertEquals( ValueMetaInterface.TYPE_BINARY, rm.getValueMeta( 6 ).getType() );
+
+    // Merging the partial results gives the regular output
+    meta.setAggregationMode( MemoryGroupByMeta.AGGREGATION_MODE_MERGE );
+    meta.getFields( DefaultBowl.getInstance(), rm, "merge", null, null, new Variables(), null, null );
+    assertEquals( Arrays.asList( "myGroupField1", "ave", "stddev", "distinct" ), Arrays.asList( rm.getFieldNames() ) );
+    assertEquals( ValueMetaInterface.TYPE_INTEGER, rm.getValueMeta( 1 ).getType() );
+    assertEquals( ValueMetaInterface.TYPE_NUMBER, rm.getValueMeta( 2 ).getType() );
+    assertEquals( ValueMetaInterface.TYPE_INTEGER, rm.getValueMeta( 3 ).getType() );
+  }
+
   @Test
   public void testPDI16559() throws Exception {
     MemoryGroupByMeta memoryGroupBy = new MemoryGroupByMeta();
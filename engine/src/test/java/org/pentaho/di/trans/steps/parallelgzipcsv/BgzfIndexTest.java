@@ -0,0 +1,158 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.steps.parallelgzipcsv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+public class BgzfIndexTest {
+
+  /**
+   * Compress each chunk into a BGZF block, followed by the empty end of file block, the way bgzip does.
+   */
+  private static byte[] bgzip( byte[]... chunks ) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for ( byte[] chunk : chunks ) {
+      writeBlock( out, chunk );
+    }
+    writeBlock( out, new byte[ 0 ] );
+    return out.toByteArray();
+  }
+
+  private static void writeBlock( ByteArrayOutputStream out, byte[] data ) {
+    Deflater deflater = new Deflater( Deflater.DEFAULT_COMPRESSION, true );
+    deflater.setInput( data );
+    deflater.finish();
+    byte[] compressed = new byte[ data.length + 1024 ];
+    int length = deflater.deflate( compressed );
+    deflater.end();
+
+    int blockSize = 18 + length + 8;
+    out.write( new byte[] { 31, (byte) 139, 8, 4, 0, 0, 0, 0, 0, (byte) 255, 6, 0, 'B', 'C', 2, 0,
+      (byte) ( blockSize - 1 ), (byte) ( ( blockSize - 1 ) >> 8 ) }, 0, 18 );
+    out.write( compressed, 0, length );
+    CRC32 crc = new CRC32();
+    crc.update( data );
+    writeInt( out, (int) crc.getValue() );
+    writeInt( out, data.length );
+  }
+
+  private static void writeInt( ByteArrayOutputStream out, int value ) {
+    for ( int i = 0; i < 4; i++ ) {
+      out.write( value >>> ( 8 * i ) );
+    }
+  }
+
+  private static byte[] chunk( char c, int length ) {
+    byte[] data = new byte[ length ];
+    Arrays.fill( data, (byte) c );
+    return data;
+  }
+
+  @Test
+  public void testBuild() throws Exception {
+    byte[] file = bgzip( chunk( 'a', 1000 ), chunk( 'b', 2000 ), chunk( 'c', 500 ) );
+    BgzfIndex index = BgzfIndex.build( new ByteArrayInputStream( file ) );
+
+    // Three blocks of data and the end of file block
+    assertEquals( 4, index.size() );
+    assertEquals( 0L, index.getUncompressedOffset( 0 ) );
+    assertEquals( 1000L, index.getUncompressedOffset( 1 ) );
+    assertEquals( 3000L, index.getUncompressedOffset( 2 ) );
+    assertEquals( 3500L, index.getUncompressedOffset( 3 ) );
+
+    assertEquals( 0, index.findBlock( 0L ) );
+    assertEquals( 0, index.findBlock( 999L ) );
+    assertEquals( 1, index.findBlock( 1000L ) );
+    assertEquals( 2, index.findBlock( 3499L ) );
+
+    // Inflating from a block gives the data from its position on
+    int block = index.findBlock( 2500L );
+    try ( GZIPInputStream in = new GZIPInputStream( new ByteArrayInputStream( file,
+      (int) index.getCompressedOffset( block ), file.length ) ) ) {
+      assertEquals( 1500L, in.skip( 2500L - index.getUncompressedOffset( block ) ) );
+      byte[] data = new byte[ 501 ];
+      assertEquals( 500, in.read( data, 0, 500 ) );
+      assertEquals( 'b', data[ 499 ] );
+      assertEquals( 'c', in.read() );
+    }
+  }
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    byte[] file = bgzip( chunk( 'a', 100 ), chunk( 'b', 200 ) );
+    BgzfIndex index = BgzfIndex.build( new ByteArrayInputStream( file ) );
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    index.write( out );
+    // The number of entries and two offsets for every block but the first
+    assertEquals( 8 + 2 * 16, out.size() );
+
+    BgzfIndex read = BgzfIndex.read( new ByteArrayInputStream( out.toByteArray() ) );
+    assertEquals( index.size(), read.size() );
+    for ( int i = 0; i < index.size(); i++ ) {
+      assertEquals( index.getCompressedOffset( i ), read.getCompressedOffset( i ) );
+      assertEquals( index.getUncompressedOffset( i ), read.getUncompressedOffset( i ) );
+    }
+  }
+
+  @Test( expected = IOException.class )
+  public void testReadTruncated() throws Exception {
+    byte[] file = bgzip( chunk( 'a', 100 ), chunk( 'b', 200 ) );
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BgzfIndex.build( new ByteArrayInputStream( file ) ).write( out );
+    BgzfIndex.read( new ByteArrayInputStream( out.toByteArray(), 0, out.size() - 1 ) );
+  }
+
+  @Test
+  public void testPlainGzipIsNotIndexed() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( GZIPOutputStream gzos = new GZIPOutputStream( out ) ) {
+      gzos.write( "a,b\n1,2\n".getBytes( StandardCharsets.UTF_8 ) );
+    }
+    assertNull( BgzfIndex.build( new ByteArrayInputStream( out.toByteArray() ) ) );
+    assertNull( BgzfIndex.build( new ByteArrayInputStream( new byte[ 0 ] ) ) );
+  }
+
+  @Test
+  public void testConcatenatedBlocksInflateAsOneFile() throws Exception {
+    byte[] file = bgzip( chunk( 'a', 10 ), chunk( 'b', 10 ) );
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( GZIPInputStream in = new GZIPInputStream( new ByteArrayInputStream( file ) ) ) {
+      byte[] buffer = new byte[ 64 ];
+      for ( int n = in.read( buffer ); n >= 0; n = in.read( buffer ) ) {
+        out.write( buffer, 0, n );
+      }
+    }
+    byte[] expected = new byte[ 20 ];
+    System.arraycopy( chunk( 'a', 10 ), 0, expected, 0, 10 );
+    System.arraycopy( chunk( 'b', 10 ), 0, expected, 10, 10 );
+    assertArrayEquals( expected, out.toByteArray() );
+  }
+}
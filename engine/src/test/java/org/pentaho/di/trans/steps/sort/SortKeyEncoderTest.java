@@ -0,0 +1,109 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import java.util.Date;
+import java.util.Random;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class SortKeyEncoderTest {
+  private static final String[] STRINGS = { "", "a", "ab", "a\u0000", "a\u0000b", "b", "Ā", "ÿ", "Z" };
+  private static final double[] NUMBERS =
+    { -Double.MAX_VALUE, -1.5, -0.0, 0.0, Double.MIN_VALUE, 2.25, Double.POSITIVE_INFINITY, Double.NaN };
+
+  private RowMetaInterface createRowMeta( boolean descending ) {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "number" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "boolean" ) );
+    for ( ValueMetaInterface valueMeta : rowMeta.getValueMetaList() ) {
+      valueMeta.setCollatorDisabled( true );
+      valueMeta.setCaseInsensitive( false );
+      valueMeta.setSortedDescending( descending );
+    }
+    return rowMeta;
+  }
+
+  private Object[] randomRow( Random random ) {
+    return new Object[] {
+      random.nextInt( 8 ) == 0 ? null : STRINGS[ random.nextInt( STRINGS.length ) ],
+      random.nextInt( 8 ) == 0 ? null : Long.valueOf( random.nextInt( 5 ) - 2 ) * Long.MAX_VALUE / 2,
+      random.nextInt( 8 ) == 0 ? null : Double.valueOf( NUMBERS[ random.nextInt( NUMBERS.length ) ] ),
+      random.nextInt( 8 ) == 0 ? null : new Date( random.nextInt( 3 ) - 1L ),
+      random.nextInt( 8 ) == 0 ? null : Boolean.valueOf( random.nextBoolean() ) };
+  }
+
+  @Test
+  public void testKeysSortLikeRowMetaAscending() throws Exception {
+    assertSameOrder( createRowMeta( false ) );
+  }
+
+  @Test
+  public void testKeysSortLikeRowMetaDescending() throws Exception {
+    assertSameOrder( createRowMeta( true ) );
+  }
+
+  @Test
+  public void testMixedDirections() throws Exception {
+    RowMetaInterface rowMeta = createRowMeta( false );
+    rowMeta.getValueMeta( 0 ).setSortedDescending( true );
+    rowMeta.getValueMeta( 2 ).setSortedDescending( true );
+    assertSameOrder( rowMeta );
+  }
+
+  @Test
+  public void testUnsupportedFieldsAreNotEncoded() {
+    RowMetaInterface rowMeta = createRowMeta( false );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "bignumber" ) );
+    assertNull( SortKeyEncoder.create( rowMeta, new int[] { 0, 5 } ) );
+
+    rowMeta.getValueMeta( 0 ).setCaseInsensitive( true );
+    assertNull( SortKeyEncoder.create( rowMeta, new int[] { 0 } ) );
+
+    rowMeta.getValueMeta( 0 ).setCaseInsensitive( false );
+    rowMeta.getValueMeta( 0 ).setCollatorDisabled( false );
+    assertNull( SortKeyEncoder.create( rowMeta, new int[] { 0 } ) );
+  }
+
+  private void assertSameOrder( RowMetaInterface rowMeta ) throws Exception {
+    int[] fieldnrs = { 0, 1, 2, 3, 4 };
+    SortKeyEncoder encoder = SortKeyEncoder.create( rowMeta, fieldnrs );
+    assertNotNull( encoder );
+
+    Random random = new Random( 123 );
+    for ( int i = 0; i < 20000; i++ ) {
+      Object[] row1 = randomRow( random );
+      Object[] row2 = random.nextInt( 4 ) == 0 ? row1.clone() : randomRow( random );
+      int expected = Integer.signum( rowMeta.compare( row1, row2, fieldnrs ) );
+      int actual = Integer.signum( SortKeyEncoder.compare( encoder.encode( row1 ), encoder.encode( row2 ) ) );
+      assertEquals( rowMeta.getString( row1 ) + " <> " + rowMeta.getString( row2 ), expected, actual );
+    }
+  }
+}
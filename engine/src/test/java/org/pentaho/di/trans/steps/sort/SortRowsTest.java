@@ -0,0 +1,124 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransTestFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SortRowsTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEPNAME = "sort";
+
+  @BeforeClass
+  public static void before() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  private List<RowMetaAndData> createInput( int nrRows ) {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "seq" ) );
+
+    Random random = new Random( 7 );
+    List<RowMetaAndData> input = new ArrayList<>();
+    for ( int i = 0; i < nrRows; i++ ) {
+      input.add( new RowMetaAndData( rowMeta, "key" + random.nextInt( 50 ), Long.valueOf( i ) ) );
+    }
+    return input;
+  }
+
+  private SortRowsMeta createMeta( boolean compress ) {
+    SortRowsMeta meta = new SortRowsMeta();
+    meta.setDefault();
+    meta.allocate( 1 );
+    meta.setFieldName( new String[] { "key" } );
+    meta.setAscending( new boolean[] { true } );
+    meta.setCaseSensitive( new boolean[] { true } );
+    meta.setCollatorEnabled( new boolean[] { false } );
+    meta.setCollatorStrength( new int[] { 0 } );
+    meta.setPreSortedField( new boolean[] { false } );
+    meta.setSortSize( "10" );
+    meta.setCompressFiles( compress );
+    return meta;
+  }
+
+  private void assertSortedAndStable( List<RowMetaAndData> input, List<RowMetaAndData> output ) throws Exception {
+    assertEquals( input.size(), output.size() );
+    for ( int i = 1; i < output.size(); i++ ) {
+      String previousKey = output.get( i - 1 ).getString( "key", null );
+      String key = output.get( i ).getString( "key", null );
+      int cmp = previousKey.compareTo( key );
+      assertTrue( "Row " + i + " is out of order", cmp <= 0 );
+      if ( cmp == 0 ) {
+        assertTrue( "Rows with equal keys changed order at row " + i,
+          output.get( i - 1 ).getInteger( "seq", -1L ) < output.get( i ).getInteger( "seq", -1L ) );
+      }
+    }
+  }
+
+  private List<RowMetaAndData> sort( SortRowsMeta meta, List<RowMetaAndData> input, String fanIn ) throws Exception {
+    TransMeta transMeta = TransTestFactory.generateTestTransformation( null, meta, STEPNAME );
+    Variables variables = new Variables();
+    variables.setVariable( Const.KETTLE_SORT_MERGE_FAN_IN, fanIn );
+    return TransTestFactory.executeTestTransformation( transMeta, TransTestFactory.INJECTOR_STEPNAME, STEPNAME,
+      TransTestFactory.DUMMY_STEPNAME, input, variables, null );
+  }
+
+  @Test
+  public void testExternalSortWithSingleMergePass() throws Exception {
+    List<RowMetaAndData> input = createInput( 500 );
+    assertSortedAndStable( input, sort( createMeta( false ), input, "128" ) );
+  }
+
+  @Test
+  public void testExternalSortWithMultipleMergePasses() throws Exception {
+    List<RowMetaAndData> input = createInput( 500 );
+    assertSortedAndStable( input, sort( createMeta( false ), input, "3" ) );
+  }
+
+  @Test
+  public void testExternalSortWithCompressedFiles() throws Exception {
+    List<RowMetaAndData> input = createInput( 500 );
+    assertSortedAndStable( input, sort( createMeta( true ), input, "4" ) );
+  }
+
+  @Test
+  public void testInMemorySort() throws Exception {
+    List<RowMetaAndData> input = createInput( 500 );
+    SortRowsMeta meta = createMeta( false );
+    meta.setSortSize( "1000" );
+    assertSortedAndStable( input, sort( meta, input, "128" ) );
+  }
+}
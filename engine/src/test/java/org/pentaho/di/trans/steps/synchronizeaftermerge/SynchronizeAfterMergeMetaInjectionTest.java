@@ -124,6 +124,12 @@ public class SynchronizeAfterMergeMetaInjectionTest extends BaseMetadataInjectio
         return meta.isPerformLookup();
       }
     } );
+    check( "USE_STAGING_TABLE", new BooleanGetter() {
+      @Override
+      public boolean get() {
+        return meta.isUseStagingTable();
+      }
+    } );
     check( "ORDER_INSERT", new StringGetter() {
       @Override
       public String get() {
@@ -153,7 +159,7 @@ public class SynchronizeAfterMergeMetaInjectionTest extends BaseMetadataInjectio
   public void getXML() throws KettleException {
     skipProperties( "CONNECTION_NAME", "TABLE_NAME", "STREAM_FIELD2", "PERFORM_LOOKUP", "COMPARATOR",
         "OPERATION_ORDER_FIELD", "ORDER_DELETE", "SHEMA_NAME", "TABLE_NAME_IN_FIELD", "ORDER_UPDATE", "ORDER_INSERT",
-        "USE_BATCH_UPDATE", "STREAM_FIELD", "TABLE_FIELD", "COMMIT_SIZE", "TABLE_NAME_FIELD" );
+        "USE_BATCH_UPDATE", "STREAM_FIELD", "TABLE_FIELD", "COMMIT_SIZE", "TABLE_NAME_FIELD", "USE_STAGING_TABLE" );
     meta.setDefault();
     check( "STREAM_FIELD1", new StringGetter() {
       @Override
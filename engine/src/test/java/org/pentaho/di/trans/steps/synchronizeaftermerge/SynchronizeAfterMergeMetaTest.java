@@ -45,8 +45,9 @@ public class SynchronizeAfterMergeMetaTest implements InitializerInterface<StepM
     PluginRegistry.init( false );
     List<String> attributes =
         Arrays.asList( "schemaName", "tableName", "databaseMeta", "commitSize", "tableNameInField", "tablenameField",
-            "operationOrderField", "useBatchUpdate", "performLookup", "OrderInsert", "OrderUpdate", "OrderDelete",
-            "keyStream", "keyLookup", "keyCondition", "keyStream2", "updateLookup", "updateStream", "update" );
+            "operationOrderField", "useBatchUpdate", "performLookup", "useStagingTable", "OrderInsert", "OrderUpdate",
+            "OrderDelete", "keyStream", "keyLookup", "keyCondition", "keyStream2", "updateLookup", "updateStream",
+            "update" );
 
     Map<String, String> getterMap = new HashMap<String, String>() {
       {
@@ -0,0 +1,83 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.steps.tableinput;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+
+public class ResultSetPrefetcherTest {
+
+  @Test
+  public void testRowsAreReadInOrder() throws Exception {
+    Database db = mock( Database.class );
+    ResultSet rs = mock( ResultSet.class );
+    Object[] r1 = { 1L };
+    Object[] r2 = { 2L };
+    Object[] r3 = { 3L };
+    when( db.getRow( rs, false ) ).thenReturn( r1, r2, r3, null );
+
+    // Blocks of 2 rows, at most one waiting
+    ResultSetPrefetcher prefetcher = new ResultSetPrefetcher( db, rs, false, 2, 1 );
+    prefetcher.start( "test" );
+    assertArrayEquals( r1, prefetcher.getRow() );
+    assertArrayEquals( r2, prefetcher.getRow() );
+    assertArrayEquals( r3, prefetcher.getRow() );
+    assertNull( prefetcher.getRow() );
+    assertNull( prefetcher.getRow() );
+    prefetcher.close();
+  }
+
+  @Test
+  public void testErrorIsThrownAfterTheRowsReadBefore() throws Exception {
+    Database db = mock( Database.class );
+    ResultSet rs = mock( ResultSet.class );
+    Object[] r1 = { 1L };
+    when( db.getRow( rs, true ) ).thenReturn( r1 ).thenThrow( new KettleDatabaseException( "lost connection" ) );
+
+    ResultSetPrefetcher prefetcher = new ResultSetPrefetcher( db, rs, true, 1, 2 );
+    prefetcher.start( "test" );
+    assertArrayEquals( r1, prefetcher.getRow() );
+    try {
+      prefetcher.getRow();
+      fail( "The error of the reader should be thrown" );
+    } catch ( KettleDatabaseException e ) {
+      // expected
+    }
+    prefetcher.close();
+  }
+
+  @Test
+  public void testCloseStopsAWaitingReader() throws Exception {
+    Database db = mock( Database.class );
+    ResultSet rs = mock( ResultSet.class );
+    when( db.getRow( rs, false ) ).thenReturn( new Object[] { 1L } );
+
+    // The reader fills the queue and waits for room
+    ResultSetPrefetcher prefetcher = new ResultSetPrefetcher( db, rs, false, 1, 1 );
+    prefetcher.start( "test" );
+    prefetcher.getRow();
+    prefetcher.close();
+  }
+}
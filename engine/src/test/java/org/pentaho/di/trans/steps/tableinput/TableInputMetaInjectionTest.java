@@ -59,6 +59,16 @@ public class TableInputMetaInjectionTest extends BaseMetadataInjectionTest<Table
         return meta.isCachedRowMetaActive();
       }
     } );
+    check( "PARTITION_COLUMN", new StringGetter() {
+      public String get() {
+        return meta.getPartitionColumn();
+      }
+    } );
+    check( "PREFETCH_BLOCKS", new StringGetter() {
+      public String get() {
+        return meta.getPrefetchBlocks();
+      }
+    } );
     skipPropertyTest( "CONNECTIONNAME" );
   }
 }
@@ -16,7 +16,11 @@ package org.pentaho.di.trans.steps.tableinput;
 import org.junit.Before;
 import org.junit.Test;
 import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.StepMeta;
@@ -25,18 +29,23 @@ import org.pentaho.di.trans.step.StepPartitioningMeta;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockConstruction;
@@ -138,4 +147,58 @@ public class TableInputTest {
     verify( mockStepDataInterface.db, times( 0 ) ).cancelStatement( any( PreparedStatement.class ) );
     assertFalse( mockStepDataInterface.isCanceled );
   }
+
+  @Test
+  public void testRowsReadBeforeCancelAreWritten() throws KettleException {
+    doReturn( false ).when( mockStepDataInterface ).isDisposed();
+    doReturn( false ).when( mockTableInput ).isStopped();
+    mockTableInput.stopRunning( mockStepMetaInterface, mockStepDataInterface );
+    mockTableInput.first = false;
+
+    Object[] row1 = new Object[] { 1L };
+    Object[] row2 = new Object[] { 2L };
+    Object[] row3 = new Object[] { 3L };
+    mockStepDataInterface.thisrow = row1;
+    when( mockStepDataInterface.db.getRow( any(), anyBoolean() ) ).thenReturn( row2, row3 )
+      .thenThrow( new KettleDatabaseException( new SQLException( "cancelled" ) ) );
+    // Stopped while reading the third row
+    doReturn( false, false, true ).when( mockTableInput ).isStopped();
+    List<Object[]> written = new ArrayList<>();
+    doAnswer( invocation -> {
+      Object[][] rows = invocation.getArgument( 1 );
+      int count = invocation.getArgument( 2 );
+      for ( int i = 0; i < count; i++ ) {
+        written.add( rows[ i ] );
+      }
+      return null;
+    } ).when( mockTableInput ).putRows( any(), any(), anyInt() );
+
+    assertFalse( mockTableInput.processRow( mockStepMetaInterface, mockStepDataInterface ) );
+    assertEquals( 2, written.size() );
+    assertArrayEquals( row1, written.get( 0 ) );
+    assertArrayEquals( row2, written.get( 1 ) );
+  }
+
+  @Test
+  public void testIntegerPartitionBounds() throws KettleException {
+    Object[] bounds = TableInput.getPartitionBounds( new ValueMetaInteger( "id" ), 1L, 100L, 4 );
+    assertArrayEquals( new Object[] { 1L, 25L, 50L, 75L, 100L }, bounds );
+
+    // Fewer values than copies gives empty ranges, not overlapping ones
+    bounds = TableInput.getPartitionBounds( new ValueMetaInteger( "id" ), 5L, 6L, 4 );
+    assertArrayEquals( new Object[] { 5L, 5L, 5L, 5L, 6L }, bounds );
+  }
+
+  @Test
+  public void testDatePartitionBounds() throws KettleException {
+    Object[] bounds =
+      TableInput.getPartitionBounds( new ValueMetaDate( "date" ), new Date( 0L ), new Date( 3000L ), 3 );
+    assertArrayEquals( new Object[] { new Date( 0L ), new Date( 1000L ), new Date( 2000L ), new Date( 3000L ) },
+      bounds );
+  }
+
+  @Test( expected = KettleException.class )
+  public void testStringPartitionColumnIsRejected() throws KettleException {
+    TableInput.getPartitionBounds( new ValueMetaString( "name" ), "a", "z", 2 );
+  }
 }
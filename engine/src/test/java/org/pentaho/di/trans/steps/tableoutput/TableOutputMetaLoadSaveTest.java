@@ -42,7 +42,8 @@ public class TableOutputMetaLoadSaveTest implements InitializerInterface<StepMet
     KettleEnvironment.init();
     PluginRegistry.init( false );
     List<String> attributes =
-        Arrays.asList( "databaseMeta", "schemaName", "tableName", "commitSize", "truncateTable", "ignoreErrors", "useBatchUpdate",
+        Arrays.asList( "databaseMeta", "schemaName", "tableName", "commitSize", "nrWriters", "truncateTable", "ignoreErrors",
+            "useBatchUpdate", "useBulkLoad",
             "partitioningEnabled", "partitioningField", "partitioningDaily", "partitioningMonthly", "tableNameInField", "tableNameField",
             "tableNameInTable", "returningGeneratedKeys", "generatedKeyField", "specifyFields", "fieldStream", "fieldDatabase" );
 
@@ -153,9 +153,11 @@ public class TableOutputMetaTest {
       + "    <schema>public</schema>\n"
       + "    <table>sales_csv</table>\n"
       + "    <commit>1000</commit>\n"
+      + "    <nr_writers>1</nr_writers>\n"
       + "    <truncate>Y</truncate>\n"
       + "    <ignore_errors>N</ignore_errors>\n"
       + "    <use_batch>Y</use_batch>\n"
+      + "    <use_bulk_load>N</use_bulk_load>\n"
       + "    <specify_fields>Y</specify_fields>\n"
       + "    <partitioning_enabled>N</partitioning_enabled>\n"
       + "    <partitioning_field/>\n"
@@ -196,9 +198,11 @@ public class TableOutputMetaTest {
     verify( rep ).saveStepAttribute( id_transformation, id_step, "schema", "public" );
     verify( rep ).saveStepAttribute( id_transformation, id_step, "table", "sales_csv" );
     verify( rep ).saveStepAttribute( id_transformation, id_step, "commit", "1000" );
+    verify( rep ).saveStepAttribute( id_transformation, id_step, "nr_writers", "1" );
     verify( rep ).saveStepAttribute( id_transformation, id_step, "truncate", true );
     verify( rep ).saveStepAttribute( id_transformation, id_step, "ignore_errors", false );
     verify( rep ).saveStepAttribute( id_transformation, id_step, "use_batch", true );
+    verify( rep ).saveStepAttribute( id_transformation, id_step, "use_bulk_load", false );
     verify( rep ).saveStepAttribute( id_transformation, id_step, "specify_fields", true );
 
     verify( rep ).saveStepAttribute( id_transformation, id_step, "partitioning_enabled", false );
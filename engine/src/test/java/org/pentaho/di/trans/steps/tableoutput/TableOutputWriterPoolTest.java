@@ -0,0 +1,210 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.variables.Variables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TableOutputWriterPoolTest {
+
+  private LoggingObjectInterface parent;
+  private RowMetaInterface rowMeta;
+  private List<Database> databases;
+  private List<PreparedStatement> statements;
+  private Iterator<Database> newDatabases;
+
+  @Before
+  public void setUp() throws Exception {
+    parent = mock( LoggingObjectInterface.class );
+    when( parent.getObjectName() ).thenReturn( "Table output" );
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    databases = new ArrayList<>();
+    statements = new ArrayList<>();
+  }
+
+  private TableOutputWriterPool createPool( int nrWriters ) throws KettleDatabaseException {
+    for ( int i = 0; i < nrWriters; i++ ) {
+      Database db = mock( Database.class );
+      PreparedStatement statement = mock( PreparedStatement.class );
+      when( db.prepareSQL( anyString() ) ).thenReturn( statement );
+      databases.add( db );
+      statements.add( statement );
+    }
+    newDatabases = databases.iterator();
+    return new TableOutputWriterPool( parent, new Variables(), mock( DatabaseMeta.class ), null, nrWriters,
+      "INSERT INTO T ( id ) VALUES ( ? )", rowMeta ) {
+      @Override
+      Database createDatabase( LoggingObjectInterface parent, DatabaseMeta databaseMeta ) {
+        return newDatabases.next();
+      }
+    };
+  }
+
+  private static List<Object[]> rows( long... ids ) {
+    List<Object[]> rows = new ArrayList<>();
+    for ( long id : ids ) {
+      rows.add( new Object[] { id } );
+    }
+    return rows;
+  }
+
+  @Test
+  public void testBatchesAreSpreadOverTheWriters() throws Exception {
+    TableOutputWriterPool pool = createPool( 2 );
+    assertEquals( 2, pool.size() );
+    for ( Database db : databases ) {
+      verify( db ).connect( null );
+      verify( db ).setAutoCommit( false );
+    }
+
+    List<Object[]> first = rows( 1L, 2L );
+    List<Object[]> second = rows( 3L );
+    pool.submit( first );
+    assertFalse( pool.isGroupComplete() );
+    pool.submit( second );
+    assertTrue( pool.isGroupComplete() );
+    pool.commit();
+    assertFalse( pool.isGroupComplete() );
+
+    verify( databases.get( 0 ) ).setValues( rowMeta, first.get( 0 ), statements.get( 0 ) );
+    verify( databases.get( 0 ) ).setValues( rowMeta, first.get( 1 ), statements.get( 0 ) );
+    verify( databases.get( 1 ) ).setValues( rowMeta, second.get( 0 ), statements.get( 1 ) );
+    for ( int i = 0; i < 2; i++ ) {
+      verify( statements.get( i ) ).executeBatch();
+      verify( databases.get( i ) ).commit( true );
+    }
+
+    // The next group starts again with the first writer
+    List<Object[]> third = rows( 4L );
+    pool.submit( third );
+    pool.commit();
+    verify( databases.get( 0 ) ).setValues( rowMeta, third.get( 0 ), statements.get( 0 ) );
+    pool.close();
+  }
+
+  @Test
+  public void testBatchErrorPreventsTheCommit() throws Exception {
+    TableOutputWriterPool pool = createPool( 2 );
+    when( statements.get( 1 ).executeBatch() ).thenThrow( new SQLException( "duplicate key" ) );
+
+    pool.submit( rows( 1L ) );
+    pool.submit( rows( 2L ) );
+    try {
+      pool.commit();
+      fail( "The batch error should be passed on" );
+    } catch ( KettleDatabaseException e ) {
+      // expected
+    }
+    for ( Database db : databases ) {
+      verify( db, never() ).commit( true );
+    }
+
+    pool.rollback();
+    for ( Database db : databases ) {
+      verify( db ).rollback( true );
+    }
+    assertFalse( pool.isGroupComplete() );
+    pool.close();
+  }
+
+  @Test
+  public void testFailingCommitRollsBackTheWritersAfterIt() throws Exception {
+    TableOutputWriterPool pool = createPool( 3 );
+    doThrow( new KettleDatabaseException( "connection lost" ) ).when( databases.get( 1 ) ).commit( true );
+
+    pool.submit( rows( 1L ) );
+    pool.submit( rows( 2L ) );
+    pool.submit( rows( 3L ) );
+    try {
+      pool.commit();
+      fail( "The commit error should be passed on" );
+    } catch ( KettleDatabaseException e ) {
+      assertTrue( e.getMessage(), e.getMessage().contains( "writer connection 2 of 3" ) );
+    }
+
+    // The first writer committed before the failure, the commit is not atomic
+    verify( databases.get( 0 ) ).commit( true );
+    verify( databases.get( 2 ), never() ).commit( true );
+    verify( databases.get( 1 ) ).rollback( true );
+    verify( databases.get( 2 ) ).rollback( true );
+    assertFalse( pool.isGroupComplete() );
+    pool.close();
+  }
+
+  @Test
+  public void testCloseDisconnectsAllWriters() throws Exception {
+    TableOutputWriterPool pool = createPool( 2 );
+    doThrow( new KettleDatabaseException( "already closed" ) ).when( databases.get( 0 ) )
+      .closePreparedStatement( statements.get( 0 ) );
+    pool.submit( rows( 1L ) );
+
+    pool.close();
+
+    for ( int i = 0; i < 2; i++ ) {
+      verify( databases.get( i ) ).closePreparedStatement( statements.get( i ) );
+      verify( databases.get( i ) ).disconnect();
+      verify( databases.get( i ), never() ).commit( true );
+    }
+  }
+
+  @Test
+  public void testFailingConnectDisconnectsTheOtherWriters() throws Exception {
+    Database connected = mock( Database.class );
+    Database failing = mock( Database.class );
+    doThrow( new KettleDatabaseException( "no connection" ) ).when( failing ).connect( null );
+    newDatabases = Arrays.asList( connected, failing ).iterator();
+    try {
+      new TableOutputWriterPool( parent, new Variables(), mock( DatabaseMeta.class ), null, 3,
+        "INSERT INTO T ( id ) VALUES ( ? )", rowMeta ) {
+        @Override
+        Database createDatabase( LoggingObjectInterface parent, DatabaseMeta databaseMeta ) {
+          return newDatabases.next();
+        }
+      };
+      fail( "The connection error should be passed on" );
+    } catch ( KettleDatabaseException e ) {
+      // expected
+    }
+    verify( connected ).disconnect();
+    verify( failing ).disconnect();
+  }
+}
@@ -0,0 +1,178 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.steps.textfileoutput;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.compress.gzip.GZIPCompressionProvider;
+
+public class BlockOutputStreamTest {
+
+  private ExecutorService writer;
+  private ExecutorService compressors;
+
+  @Before
+  public void setUp() {
+    writer = Executors.newSingleThreadExecutor();
+    compressors = Executors.newFixedThreadPool( 3 );
+  }
+
+  @After
+  public void tearDown() {
+    writer.shutdownNow();
+    compressors.shutdownNow();
+  }
+
+  private static byte[] getRows( int nrRows ) {
+    StringBuilder rows = new StringBuilder();
+    for ( int i = 0; i < nrRows; i++ ) {
+      rows.append( i ).append( ";row number " ).append( i ).append( '\n' );
+    }
+    return rows.toString().getBytes( StandardCharsets.UTF_8 );
+  }
+
+  private static byte[] gunzip( byte[] data ) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( InputStream in = new GZIPInputStream( new ByteArrayInputStream( data ) ) ) {
+      byte[] buffer = new byte[ 4096 ];
+      for ( int n = in.read( buffer ); n >= 0; n = in.read( buffer ) ) {
+        out.write( buffer, 0, n );
+      }
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testBlocksAreWrittenInOrder() throws Exception {
+    byte[] rows = getRows( 1000 );
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    BlockOutputStream out = new BlockOutputStream( target, writer, null, null, 100, 3 );
+    for ( int i = 0; i < rows.length; i += 7 ) {
+      out.write( rows, i, Math.min( 7, rows.length - i ) );
+    }
+    out.write( 'x' );
+    out.flush();
+
+    byte[] expected = new byte[ rows.length + 1 ];
+    System.arraycopy( rows, 0, expected, 0, rows.length );
+    expected[ rows.length ] = 'x';
+    assertArrayEquals( expected, target.toByteArray() );
+  }
+
+  @Test
+  public void testBlocksAreCompressedInParallel() throws Exception {
+    byte[] rows = getRows( 10000 );
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    BlockOutputStream out =
+      new BlockOutputStream( target, writer, compressors, new GZIPCompressionProvider(), 4096, 8 );
+    out.write( rows );
+    out.flush();
+    // More data after a flush is another gzip member
+    out.write( rows, 0, 10 );
+    out.flush();
+
+    byte[] expected = new byte[ rows.length + 10 ];
+    System.arraycopy( rows, 0, expected, 0, rows.length );
+    System.arraycopy( rows, 0, expected, rows.length, 10 );
+    assertArrayEquals( expected, gunzip( target.toByteArray() ) );
+  }
+
+  @Test
+  public void testEmptyOutputIsValidGzip() throws Exception {
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    BlockOutputStream out =
+      new BlockOutputStream( target, writer, compressors, new GZIPCompressionProvider(), 4096, 8 );
+    out.flush();
+    out.flush();
+    assertEquals( 0, gunzip( target.toByteArray() ).length );
+  }
+
+  @Test( expected = IOException.class )
+  public void testWriteErrorIsThrown() throws Exception {
+    OutputStream target = new OutputStream() {
+      @Override
+      public void write( int b ) throws IOException {
+        throw new IOException( "Disk full" );
+      }
+    };
+    BlockOutputStream out = new BlockOutputStream( target, writer, null, null, 10, 2 );
+    out.write( getRows( 10 ) );
+    out.flush();
+  }
+
+  @Test
+  public void testCloseWaitsForTheWriterAfterAnError() throws Exception {
+    final AtomicBoolean writing = new AtomicBoolean();
+    final AtomicBoolean closedWhileWriting = new AtomicBoolean();
+    OutputStream target = new OutputStream() {
+      @Override
+      public void write( int b ) throws IOException {
+        write( new byte[] { (byte) b }, 0, 1 );
+      }
+
+      @Override
+      public void write( byte[] b, int off, int len ) throws IOException {
+        writing.set( true );
+        try {
+          Thread.sleep( 20 );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+        }
+        writing.set( false );
+        throw new IOException( "Disk full" );
+      }
+
+      @Override
+      public void close() {
+        closedWhileWriting.set( writing.get() );
+      }
+    };
+    BlockOutputStream out = new BlockOutputStream( target, writer, null, null, 10, 2 );
+    try {
+      out.write( getRows( 10 ) );
+    } catch ( IOException e ) {
+      // The writer may have failed already
+    }
+    try {
+      out.close();
+      fail( "The write error should be thrown" );
+    } catch ( IOException e ) {
+      assertEquals( "Disk full", e.getMessage() );
+    }
+    assertFalse( closedWhileWriting.get() );
+    writer.shutdown();
+    assertTrue( writer.awaitTermination( 10, TimeUnit.SECONDS ) );
+  }
+}
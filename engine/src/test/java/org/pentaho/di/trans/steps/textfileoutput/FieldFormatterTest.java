@@ -0,0 +1,139 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.trans.steps.textfileoutput;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class FieldFormatterTest {
+
+  private static final long[] INTEGERS =
+    { 0L, 1L, -1L, 7L, 999L, 1000L, -123456789L, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE };
+
+  private static final Date[] DATES = { new Date( 0L ), new Date( -1L ), new Date( 1234567890123L ),
+    new Date( 951782400000L ), new Date( 4102444799999L ), new Date( -62135769600000L ) };
+
+  private static void assertFormatted( ValueMetaInterface v, Object value ) throws Exception {
+    FieldFormatter formatter = FieldFormatter.compile( v, "UTF-8" );
+    assertNotNull( v.getFormatMask(), formatter );
+    assertTrue( formatter.format( value ) );
+    assertArrayEquals( v.getFormatMask() + " " + value, v.getBinaryString( value ),
+      Arrays.copyOf( formatter.getBuffer(), formatter.getLength() ) );
+  }
+
+  private static ValueMetaInterface getInteger( String mask ) {
+    ValueMetaInterface v = new ValueMetaInteger( "integer" );
+    v.setConversionMask( mask );
+    v.setGroupingSymbol( "," );
+    return v;
+  }
+
+  private static ValueMetaInterface getDate( String mask ) {
+    ValueMetaInterface v = new ValueMetaDate( "date" );
+    v.setConversionMask( mask );
+    v.setDateFormatTimeZone( TimeZone.getTimeZone( "Europe/Brussels" ) );
+    return v;
+  }
+
+  @Test
+  public void testIntegers() throws Exception {
+    String[] masks = { null, "####0;-####0", " 000;-000", "#,##0", "000000", "#", "0", "$ #,##0.###", "#;(#)",
+      "#,###,##0 'units'" };
+    for ( String mask : masks ) {
+      ValueMetaInterface v = getInteger( mask );
+      for ( long integer : INTEGERS ) {
+        assertFormatted( v, integer );
+      }
+    }
+
+    ValueMetaInterface v = getInteger( "#,##0" );
+    v.setGroupingSymbol( "." );
+    for ( long integer : INTEGERS ) {
+      assertFormatted( v, integer );
+    }
+  }
+
+  @Test
+  public void testUnsupportedIntegerMasks() {
+    for ( String mask : new String[] { "0.00", "#%", "0.###E0", "#,##0 €" } ) {
+      assertNull( mask, FieldFormatter.compile( getInteger( mask ), "UTF-8" ) );
+    }
+  }
+
+  @Test
+  public void testDates() throws Exception {
+    String[] masks = { null, "yyyy/MM/dd HH:mm:ss.SSS", "yyyyMMdd", "yy-M-d h:mm 'o''clock'", "dd.MM.yyyy'T'HH:mm",
+      "k:K:H:h", "y S" };
+    for ( String mask : masks ) {
+      ValueMetaInterface v = getDate( mask );
+      for ( Date date : DATES ) {
+        assertFormatted( v, date );
+      }
+    }
+  }
+
+  @Test
+  public void testUnsupportedDateMasks() {
+    for ( String mask : new String[] { "MMM yyyy", "EEE dd", "yyyy-MM-dd'T'HH:mm:ssXXX", "hh:mm a", "dd'é'" } ) {
+      assertNull( mask, FieldFormatter.compile( getDate( mask ), "UTF-8" ) );
+    }
+  }
+
+  @Test
+  public void testStrings() throws Exception {
+    ValueMetaInterface v = new ValueMetaString( "string" );
+    FieldFormatter formatter = FieldFormatter.compile( v, "UTF-8" );
+    for ( String string : new String[] { "", "plain text", "a;b \"c\"", new String( new char[ 1000 ] ) } ) {
+      assertTrue( formatter.format( string ) );
+      assertArrayEquals( string.getBytes( "UTF-8" ), Arrays.copyOf( formatter.getBuffer(), formatter.getLength() ) );
+    }
+    assertFalse( formatter.format( "Öl" ) );
+
+    v.setLength( 10 );
+    assertNull( FieldFormatter.compile( v, "UTF-8" ) );
+    v.setLength( -1 );
+    v.setTrimType( ValueMetaInterface.TRIM_TYPE_BOTH );
+    assertNull( FieldFormatter.compile( v, "UTF-8" ) );
+  }
+
+  @Test
+  public void testUnsupportedFields() {
+    assertNull( FieldFormatter.compile( new ValueMetaString( "string" ), "UTF-16" ) );
+    assertNull( FieldFormatter.compile( new ValueMetaNumber( "number" ), "UTF-8" ) );
+
+    ValueMetaInterface v = getInteger( null );
+    v.setStringEncoding( "UTF-16" );
+    assertNull( FieldFormatter.compile( v, "UTF-8" ) );
+
+    v = getInteger( null );
+    v.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+    assertNull( FieldFormatter.compile( v, "UTF-8" ) );
+  }
+}
@@ -132,6 +132,11 @@ public class TextFileOutputMetaInjectionTest extends BaseMetadataInjectionTest<T
         return meta.isFastDump();
       }
     } );
+    check( "COMPRESSION_THREADS", new StringGetter() {
+      public String get() {
+        return meta.getCompressionThreads();
+      }
+    } );
     check( "ENCODING", new StringGetter() {
       public String get() {
         return meta.getEncoding();
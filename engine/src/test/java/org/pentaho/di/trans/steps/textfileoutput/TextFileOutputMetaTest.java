@@ -48,7 +48,7 @@ public class TextFileOutputMetaTest {
       "format", "compression", "encoding", "endedLine", "fileNameInField", "fileNameField",
       "create_parent_folder", "fileName", "servlet_output", "do_not_open_new_file_init",
       "extention", "append", "split", "haspartno", "add_date", "add_time", "SpecifyFormat", "date_time_format",
-      "add_to_result_filenames", "pad", "fast_dump", "splitevery", "OutputFields" );
+      "add_to_result_filenames", "pad", "fast_dump", "splitevery", "compression_threads", "OutputFields" );
   }
 
   public static Map<String, String> getGetterMap() {
@@ -81,6 +81,7 @@ public class TextFileOutputMetaTest {
     getterMap.put( "pad", "isPadded" );
     getterMap.put( "fast_dump", "isFastDump" );
     getterMap.put( "splitevery", "getSplitEvery" );
+    getterMap.put( "compression_threads", "getCompressionThreads" );
     getterMap.put( "OutputFields", "getOutputFields" );
     return getterMap;
   }
@@ -115,6 +116,7 @@ public class TextFileOutputMetaTest {
     setterMap.put( "pad", "setPadded" );
     setterMap.put( "fast_dump", "setFastDump" );
     setterMap.put( "splitevery", "setSplitEvery" );
+    setterMap.put( "compression_threads", "setCompressionThreads" );
     setterMap.put( "OutputFields", "setOutputFields" );
     return setterMap;
   }
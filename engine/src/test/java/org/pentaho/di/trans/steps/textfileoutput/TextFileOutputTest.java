@@ -69,6 +69,7 @@ import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaBase;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
@@ -639,6 +640,38 @@ public class TextFileOutputTest {
     verify( textFileOutput.data.writer ).write( testString.getBytes( outputEncode ) );
   }
 
+  @Test
+  public void testWriteRowWithFieldFormatters() throws Exception {
+    textFileOutput =
+      new TextFileOutputTestHandler( stepMockHelper.stepMeta, stepMockHelper.stepDataInterface, 0,
+        stepMockHelper.transMeta,
+        stepMockHelper.trans );
+    textFileOutput.meta = stepMockHelper.processRowsStepMetaInterface;
+    doReturn( StandardCharsets.UTF_8.name() ).when( stepMockHelper.processRowsStepMetaInterface ).getEncoding();
+
+    TextFileOutputData data = new TextFileOutputData();
+    data.binarySeparator = ";".getBytes();
+    data.binaryEnclosure = "\"".getBytes();
+    data.binaryNewline = "\n".getBytes();
+    data.writer = new ByteArrayOutputStream();
+    textFileOutput.data = data;
+
+    RowMeta rowMeta = new RowMeta();
+    ValueMetaInteger integerMeta = new ValueMetaInteger( "integer" );
+    integerMeta.setConversionMask( "#,##0" );
+    integerMeta.setGroupingSymbol( "," );
+    rowMeta.addValueMeta( integerMeta );
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+
+    textFileOutput.writeRow( rowMeta, new Object[] { 1234L, "a;b" } );
+    textFileOutput.writeRow( rowMeta, new Object[] { -5L, "say \"hi\"" } );
+    textFileOutput.writeRow( rowMeta, new Object[] { null, "Öl" } );
+
+    assertNotNull( data.fieldFormatters[ 0 ] );
+    assertEquals( "1,234;\"a;b\"\n-5;\"say \"\"hi\"\"\"\n;Öl\n",
+      ( (ByteArrayOutputStream) data.writer ).toString( StandardCharsets.UTF_8.name() ) );
+  }
+
   /**
    * Test for writeRowToFile not to call #initFileStreamWriter() if a variable is set.
    * Performance issue discovered, that previous implementation called #initFileStreamWriter() for every invocation of
@@ -48,6 +48,11 @@ public class UpdateMetaInjectionTest extends BaseMetadataInjectionTest<UpdateMet
         return meta.useBatchUpdate();
       }
     } );
+    check( "USE_STAGING_TABLE", new BooleanGetter() {
+      public boolean get() {
+        return meta.isUseStagingTable();
+      }
+    } );
     check( "SKIP_LOOKUP", new BooleanGetter() {
       public boolean get() {
         return meta.isSkipLookup();
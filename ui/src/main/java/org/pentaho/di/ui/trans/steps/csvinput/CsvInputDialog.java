@@ -119,6 +119,8 @@ public class CsvInputDialog extends BaseStepDialog implements StepDialogInterfac
   private boolean isReceivingInput;
   private Button wRunningInParallel;
   private Button wNewlinePossible;
+  private Label wlMemoryMapped;
+  private Button wMemoryMapped;
   private ComboVar wEncoding;
   private CCombo wFormat;
 
@@ -331,6 +333,11 @@ public class CsvInputDialog extends BaseStepDialog implements StepDialogInterfac
     fdEnclosure.right = new FormAttachment( 100, 0 );
     wEnclosure.setLayoutData( fdEnclosure );
     wEnclosure.addModifyListener( lsContent );
+    wEnclosure.addModifyListener( new ModifyListener() {
+      public void modifyText( ModifyEvent e ) {
+        setFlags();
+      }
+    } );
     lastControl = wEnclosure;
 
     // bufferSize
@@ -480,6 +487,26 @@ public class CsvInputDialog extends BaseStepDialog implements StepDialogInterfac
     } );
     lastControl = wNewlinePossible;
 
+    // Scan the files memory-mapped?
+    //
+    wlMemoryMapped = new Label( shell, SWT.RIGHT );
+    wlMemoryMapped.setText( BaseMessages.getString( PKG, inputMeta.getDescription( "MEMORY_MAPPED" ) ) );
+    wlMemoryMapped.setToolTipText( BaseMessages.getString( PKG, inputMeta.getTooltip( "MEMORY_MAPPED" ) ) );
+    props.setLook( wlMemoryMapped );
+    FormData fdlMemoryMapped = new FormData();
+    fdlMemoryMapped.top = new FormAttachment( lastControl, margin );
+    fdlMemoryMapped.left = new FormAttachment( 0, 0 );
+    fdlMemoryMapped.right = new FormAttachment( middle, -margin );
+    wlMemoryMapped.setLayoutData( fdlMemoryMapped );
+    wMemoryMapped = new Button( shell, SWT.CHECK );
+    wMemoryMapped.setToolTipText( BaseMessages.getString( PKG, inputMeta.getTooltip( "MEMORY_MAPPED" ) ) );
+    props.setLook( wMemoryMapped );
+    FormData fdMemoryMapped = new FormData();
+    fdMemoryMapped.top = new FormAttachment( lastControl, margin );
+    fdMemoryMapped.left = new FormAttachment( middle, 0 );
+    wMemoryMapped.setLayoutData( fdMemoryMapped );
+    lastControl = wMemoryMapped;
+
     // Format
     Label wlFormat = new Label( shell, SWT.RIGHT );
     wlFormat.setText( BaseMessages.getString( PKG, inputMeta.getDescription( "FORMAT" ) ) );
@@ -707,14 +734,23 @@ public class CsvInputDialog extends BaseStepDialog implements StepDialogInterfac
   }
 
   protected void setFlags() {
-    // In case there are newlines in fields, we can't load data in parallel
+    // In case there are newlines in fields, we can only load data in parallel when they are enclosed
     //
-    boolean parallelPossible = !wNewlinePossible.getSelection();
+    boolean newlinePossible = wNewlinePossible.getSelection();
+    boolean parallelPossible = !newlinePossible || !Utils.isEmpty( wEnclosure.getText() );
     wlRunningInParallel.setEnabled( parallelPossible );
     wRunningInParallel.setEnabled( parallelPossible );
     if ( !parallelPossible ) {
       wRunningInParallel.setSelection( false );
     }
+
+    // The memory-mapped scanner doesn't handle new lines in fields
+    //
+    wlMemoryMapped.setEnabled( !newlinePossible );
+    wMemoryMapped.setEnabled( !newlinePossible );
+    if ( newlinePossible ) {
+      wMemoryMapped.setSelection( false );
+    }
   }
 
   private void setEncodings() {
@@ -778,6 +814,7 @@ public class CsvInputDialog extends BaseStepDialog implements StepDialogInterfac
     wHeaderPresent.setSelection( inputMeta.isHeaderPresent() );
     wRunningInParallel.setSelection( inputMeta.isRunningInParallel() );
     wNewlinePossible.setSelection( inputMeta.isNewlinePossibleInFields() );
+    wMemoryMapped.setSelection( inputMeta.isMemoryMapped() );
     wRowNumField.setText( Const.NVL( inputMeta.getRowNumField(), "" ) );
     wAddResult.setSelection( inputMeta.isAddResultFile() );
     wFormat.setText( Const.NVL( inputMeta.getFileFormat(), "" ) );
@@ -837,6 +874,7 @@ public class CsvInputDialog extends BaseStepDialog implements StepDialogInterfac
     inputMeta.setAddResultFile( wAddResult.getSelection() );
     inputMeta.setRunningInParallel( wRunningInParallel.getSelection() );
     inputMeta.setNewlinePossibleInFields( wNewlinePossible.getSelection() );
+    inputMeta.setMemoryMapped( wMemoryMapped.getSelection() );
     inputMeta.setFileFormat( wFormat.getText() );
     inputMeta.setEncoding( wEncoding.getText() );
 
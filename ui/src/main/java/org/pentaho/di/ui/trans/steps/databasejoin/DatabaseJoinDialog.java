@@ -89,6 +89,18 @@ public class DatabaseJoinDialog extends BaseStepDialog implements StepDialogInte
   private Button wuseVars;
   private FormData fdluseVars, fduseVars;
 
+  private Label wlCache;
+  private Button wCache;
+
+  private Label wlCacheSize;
+  private Text wCacheSize;
+
+  private Label wlCacheTtl;
+  private Text wCacheTtl;
+
+  private Label wlBatchSize;
+  private Text wBatchSize;
+
   private Button wGet;
   private Listener lsGet;
 
@@ -292,6 +304,90 @@ public class DatabaseJoinDialog extends BaseStepDialog implements StepDialogInte
       }
     } );
 
+    // Cache the results?
+    wlCache = new Label( shell, SWT.RIGHT );
+    wlCache.setText( BaseMessages.getString( PKG, "DatabaseJoinDialog.Cache.Label" ) );
+    wlCache.setToolTipText( BaseMessages.getString( PKG, "DatabaseJoinDialog.Cache.Tooltip" ) );
+    props.setLook( wlCache );
+    FormData fdlCache = new FormData();
+    fdlCache.left = new FormAttachment( 0, 0 );
+    fdlCache.right = new FormAttachment( middle, -margin );
+    fdlCache.top = new FormAttachment( wuseVars, margin );
+    wlCache.setLayoutData( fdlCache );
+    wCache = new Button( shell, SWT.CHECK );
+    props.setLook( wCache );
+    wCache.setToolTipText( wlCache.getToolTipText() );
+    FormData fdCache = new FormData();
+    fdCache.left = new FormAttachment( middle, 0 );
+    fdCache.top = new FormAttachment( wuseVars, margin );
+    wCache.setLayoutData( fdCache );
+    wCache.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+        enableFields();
+      }
+    } );
+
+    // Cache size
+    wlCacheSize = new Label( shell, SWT.RIGHT );
+    wlCacheSize.setText( BaseMessages.getString( PKG, "DatabaseJoinDialog.CacheSize.Label" ) );
+    wlCacheSize.setToolTipText( BaseMessages.getString( PKG, "DatabaseJoinDialog.CacheSize.Tooltip" ) );
+    props.setLook( wlCacheSize );
+    FormData fdlCacheSize = new FormData();
+    fdlCacheSize.left = new FormAttachment( 0, 0 );
+    fdlCacheSize.right = new FormAttachment( middle, -margin );
+    fdlCacheSize.top = new FormAttachment( wCache, margin );
+    wlCacheSize.setLayoutData( fdlCacheSize );
+    wCacheSize = new Text( shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wCacheSize );
+    wCacheSize.setToolTipText( wlCacheSize.getToolTipText() );
+    wCacheSize.addModifyListener( lsMod );
+    FormData fdCacheSize = new FormData();
+    fdCacheSize.left = new FormAttachment( middle, 0 );
+    fdCacheSize.right = new FormAttachment( 100, 0 );
+    fdCacheSize.top = new FormAttachment( wCache, margin );
+    wCacheSize.setLayoutData( fdCacheSize );
+
+    // Cache time to live
+    wlCacheTtl = new Label( shell, SWT.RIGHT );
+    wlCacheTtl.setText( BaseMessages.getString( PKG, "DatabaseJoinDialog.CacheTimeToLive.Label" ) );
+    wlCacheTtl.setToolTipText( BaseMessages.getString( PKG, "DatabaseJoinDialog.CacheTimeToLive.Tooltip" ) );
+    props.setLook( wlCacheTtl );
+    FormData fdlCacheTtl = new FormData();
+    fdlCacheTtl.left = new FormAttachment( 0, 0 );
+    fdlCacheTtl.right = new FormAttachment( middle, -margin );
+    fdlCacheTtl.top = new FormAttachment( wCacheSize, margin );
+    wlCacheTtl.setLayoutData( fdlCacheTtl );
+    wCacheTtl = new Text( shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wCacheTtl );
+    wCacheTtl.setToolTipText( wlCacheTtl.getToolTipText() );
+    wCacheTtl.addModifyListener( lsMod );
+    FormData fdCacheTtl = new FormData();
+    fdCacheTtl.left = new FormAttachment( middle, 0 );
+    fdCacheTtl.right = new FormAttachment( 100, 0 );
+    fdCacheTtl.top = new FormAttachment( wCacheSize, margin );
+    wCacheTtl.setLayoutData( fdCacheTtl );
+
+    // Batch size
+    wlBatchSize = new Label( shell, SWT.RIGHT );
+    wlBatchSize.setText( BaseMessages.getString( PKG, "DatabaseJoinDialog.BatchSize.Label" ) );
+    wlBatchSize.setToolTipText( BaseMessages.getString( PKG, "DatabaseJoinDialog.BatchSize.Tooltip" ) );
+    props.setLook( wlBatchSize );
+    FormData fdlBatchSize = new FormData();
+    fdlBatchSize.left = new FormAttachment( 0, 0 );
+    fdlBatchSize.right = new FormAttachment( middle, -margin );
+    fdlBatchSize.top = new FormAttachment( wCacheTtl, margin );
+    wlBatchSize.setLayoutData( fdlBatchSize );
+    wBatchSize = new Text( shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wBatchSize );
+    wBatchSize.setToolTipText( wlBatchSize.getToolTipText() );
+    wBatchSize.addModifyListener( lsMod );
+    FormData fdBatchSize = new FormData();
+    fdBatchSize.left = new FormAttachment( middle, 0 );
+    fdBatchSize.right = new FormAttachment( 100, 0 );
+    fdBatchSize.top = new FormAttachment( wCacheTtl, margin );
+    wBatchSize.setLayoutData( fdBatchSize );
+
     // THE BUTTONS
     wOK = new Button( shell, SWT.PUSH );
     wOK.setText( BaseMessages.getString( PKG, "System.Button.OK" ) );
@@ -308,7 +404,7 @@ public class DatabaseJoinDialog extends BaseStepDialog implements StepDialogInte
     props.setLook( wlParam );
     fdlParam = new FormData();
     fdlParam.left = new FormAttachment( 0, 0 );
-    fdlParam.top = new FormAttachment( wuseVars, margin );
+    fdlParam.top = new FormAttachment( wBatchSize, margin );
     wlParam.setLayoutData( fdlParam );
 
     int nrKeyCols = 2;
@@ -388,6 +484,9 @@ public class DatabaseJoinDialog extends BaseStepDialog implements StepDialogInte
 
     wStepname.addSelectionListener( lsDef );
     wLimit.addSelectionListener( lsDef );
+    wCacheSize.addSelectionListener( lsDef );
+    wCacheTtl.addSelectionListener( lsDef );
+    wBatchSize.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
     shell.addShellListener( new ShellAdapter() {
@@ -456,6 +555,11 @@ public class DatabaseJoinDialog extends BaseStepDialog implements StepDialogInte
     wLimit.setText( "" + input.getRowLimit() );
     wOuter.setSelection( input.isOuterJoin() );
     wuseVars.setSelection( input.isVariableReplace() );
+    wCache.setSelection( input.isCached() );
+    wCacheSize.setText( "" + input.getCacheSize() );
+    wCacheTtl.setText( "" + input.getCacheTimeToLive() );
+    wBatchSize.setText( "" + input.getBatchSize() );
+    enableFields();
     if ( input.getParameterField() != null ) {
       for ( int i = 0; i < input.getParameterField().length; i++ ) {
         TableItem item = wParam.table.getItem( i );
@@ -481,6 +585,13 @@ public class DatabaseJoinDialog extends BaseStepDialog implements StepDialogInte
     wStepname.setFocus();
   }
 
+  private void enableFields() {
+    wlCacheSize.setEnabled( wCache.getSelection() );
+    wCacheSize.setEnabled( wCache.getSelection() );
+    wlCacheTtl.setEnabled( wCache.getSelection() );
+    wCacheTtl.setEnabled( wCache.getSelection() );
+  }
+
   private void cancel() {
     stepname = null;
     input.setChanged( backupChanged );
@@ -501,6 +612,10 @@ public class DatabaseJoinDialog extends BaseStepDialog implements StepDialogInte
 
     input.setOuterJoin( wOuter.getSelection() );
     input.setVariableReplace( wuseVars.getSelection() );
+    input.setCached( wCache.getSelection() );
+    input.setCacheSize( Const.toInt( wCacheSize.getText(), 0 ) );
+    input.setCacheTimeToLive( Const.toInt( wCacheTtl.getText(), 0 ) );
+    input.setBatchSize( Const.toInt( wBatchSize.getText(), 1 ) );
     logDebug( BaseMessages.getString( PKG, "DatabaseJoinDialog.Log.ParametersFound" ) + nrparam + " parameters" );
     //CHECKSTYLE:Indentation:OFF
     for ( int i = 0; i < nrparam; i++ ) {
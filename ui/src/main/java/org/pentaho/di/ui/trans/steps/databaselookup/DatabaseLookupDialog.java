@@ -78,6 +78,14 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
   private Text wCachesize;
   private FormData fdlCachesize, fdCachesize;
 
+  private Label wlCacheEviction;
+  private CCombo wCacheEviction;
+  private FormData fdlCacheEviction, fdCacheEviction;
+
+  private Label wlLookupBatchSize;
+  private Text wLookupBatchSize;
+  private FormData fdlLookupBatchSize, fdLookupBatchSize;
+
   private Label wlKey;
   private TableView wKey;
   private FormData fdlKey, fdKey;
@@ -302,6 +310,26 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
     fdCachesize.top = new FormAttachment( wCache, margin );
     wCachesize.setLayoutData( fdCachesize );
 
+    // Cache eviction line
+    wlCacheEviction = new Label( shell, SWT.RIGHT );
+    wlCacheEviction.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.CacheEviction.Label" ) );
+    props.setLook( wlCacheEviction );
+    fdlCacheEviction = new FormData();
+    fdlCacheEviction.left = new FormAttachment( 0, 0 );
+    fdlCacheEviction.right = new FormAttachment( middle, -margin );
+    fdlCacheEviction.top = new FormAttachment( wCachesize, margin );
+    wlCacheEviction.setLayoutData( fdlCacheEviction );
+    wCacheEviction = new CCombo( shell, SWT.SINGLE | SWT.READ_ONLY | SWT.BORDER );
+    wCacheEviction.setItems( DatabaseLookupMeta.cacheEvictionDescs );
+    wCacheEviction.setToolTipText( BaseMessages.getString( PKG, "DatabaseLookupDialog.CacheEviction.Tooltip" ) );
+    props.setLook( wCacheEviction );
+    wCacheEviction.addModifyListener( lsMod );
+    fdCacheEviction = new FormData();
+    fdCacheEviction.left = new FormAttachment( middle, 0 );
+    fdCacheEviction.right = new FormAttachment( 100, 0 );
+    fdCacheEviction.top = new FormAttachment( wCachesize, margin );
+    wCacheEviction.setLayoutData( fdCacheEviction );
+
     // Cache : Load all?
     wlCacheLoadAll = new Label( shell, SWT.RIGHT );
     wlCacheLoadAll.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.CacheLoadAll.Label" ) );
@@ -309,13 +337,13 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
     fdlCacheLoadAll = new FormData();
     fdlCacheLoadAll.left = new FormAttachment( 0, 0 );
     fdlCacheLoadAll.right = new FormAttachment( middle, -margin );
-    fdlCacheLoadAll.top = new FormAttachment( wCachesize, margin );
+    fdlCacheLoadAll.top = new FormAttachment( wCacheEviction, margin );
     wlCacheLoadAll.setLayoutData( fdlCacheLoadAll );
     wCacheLoadAll = new Button( shell, SWT.CHECK );
     props.setLook( wCacheLoadAll );
     fdCacheLoadAll = new FormData();
     fdCacheLoadAll.left = new FormAttachment( middle, 0 );
-    fdCacheLoadAll.top = new FormAttachment( wCachesize, margin );
+    fdCacheLoadAll.top = new FormAttachment( wCacheEviction, margin );
     wCacheLoadAll.setLayoutData( fdCacheLoadAll );
     wCacheLoadAll.addSelectionListener( new SelectionAdapter() {
       public void widgetSelected( SelectionEvent e ) {
@@ -324,12 +352,31 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
       }
     } );
 
+    // Lookup batch size line
+    wlLookupBatchSize = new Label( shell, SWT.RIGHT );
+    wlLookupBatchSize.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.LookupBatchSize.Label" ) );
+    props.setLook( wlLookupBatchSize );
+    fdlLookupBatchSize = new FormData();
+    fdlLookupBatchSize.left = new FormAttachment( 0, 0 );
+    fdlLookupBatchSize.right = new FormAttachment( middle, -margin );
+    fdlLookupBatchSize.top = new FormAttachment( wCacheLoadAll, margin );
+    wlLookupBatchSize.setLayoutData( fdlLookupBatchSize );
+    wLookupBatchSize = new Text( shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wLookupBatchSize.setToolTipText( BaseMessages.getString( PKG, "DatabaseLookupDialog.LookupBatchSize.Tooltip" ) );
+    props.setLook( wLookupBatchSize );
+    wLookupBatchSize.addModifyListener( lsMod );
+    fdLookupBatchSize = new FormData();
+    fdLookupBatchSize.left = new FormAttachment( middle, 0 );
+    fdLookupBatchSize.right = new FormAttachment( 100, 0 );
+    fdLookupBatchSize.top = new FormAttachment( wCacheLoadAll, margin );
+    wLookupBatchSize.setLayoutData( fdLookupBatchSize );
+
     wlKey = new Label( shell, SWT.NONE );
     wlKey.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.Keys.Label" ) );
     props.setLook( wlKey );
     fdlKey = new FormData();
     fdlKey.left = new FormAttachment( 0, 0 );
-    fdlKey.top = new FormAttachment( wCacheLoadAll, margin );
+    fdlKey.top = new FormAttachment( wLookupBatchSize, margin );
     wlKey.setLayoutData( fdlKey );
 
     int nrKeyCols = 4;
@@ -521,6 +568,7 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
     wTable.addSelectionListener( lsDef );
     wOrderBy.addSelectionListener( lsDef );
     wCachesize.addSelectionListener( lsDef );
+    wLookupBatchSize.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
     shell.addShellListener( new ShellAdapter() {
@@ -632,8 +680,12 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
 
     wCachesize.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
     wlCachesize.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
+    wCacheEviction.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
+    wlCacheEviction.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
     wCacheLoadAll.setEnabled( wCache.getSelection() );
     wlCacheLoadAll.setEnabled( wCache.getSelection() );
+    wLookupBatchSize.setEnabled( !( wCache.getSelection() && wCacheLoadAll.getSelection() ) );
+    wlLookupBatchSize.setEnabled( !( wCache.getSelection() && wCacheLoadAll.getSelection() ) );
     wFailMultiple.setEnabled( !wCache.getSelection() );
     wlFailMultiple.setEnabled( !wCache.getSelection() );
   }
@@ -646,7 +698,9 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
 
     wCache.setSelection( input.isCached() );
     wCachesize.setText( "" + input.getCacheSize() );
+    wCacheEviction.select( input.getCacheEviction() );
     wCacheLoadAll.setSelection( input.isLoadingAllDataInCache() );
+    wLookupBatchSize.setText( "" + input.getLookupBatchSize() );
 
     if ( input.getStreamKeyField1() != null ) {
       for ( int i = 0; i < input.getStreamKeyField1().length; i++ ) {
@@ -730,7 +784,9 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
 
     input.setCached( wCache.getSelection() );
     input.setCacheSize( Const.toInt( wCachesize.getText(), 0 ) );
+    input.setCacheEviction( Math.max( wCacheEviction.getSelectionIndex(), DatabaseLookupMeta.CACHE_EVICTION_LRU ) );
     input.setLoadingAllDataInCache( wCacheLoadAll.getSelection() );
+    input.setLookupBatchSize( Const.toInt( wLookupBatchSize.getText(), 0 ) );
 
     logDebug( BaseMessages.getString( PKG, "DatabaseLookupDialog.Log.FoundKeys", String.valueOf( nrkeys ) ) );
     //CHECKSTYLE:Indentation:OFF
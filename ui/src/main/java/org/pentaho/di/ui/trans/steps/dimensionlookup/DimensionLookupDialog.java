@@ -443,6 +443,8 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
     wlPreloadCache.setLayoutData( fdlPreloadCache );
     wPreloadCache = new Button( comp, SWT.CHECK );
     props.setLook( wPreloadCache );
+    wPreloadCache.setToolTipText( BaseMessages.getString( PKG, "DimensionLookupDialog.PreloadCache.Tooltip",
+      Const.CR ) );
     wPreloadCache.addSelectionListener( new SelectionAdapter() {
       public void widgetSelected( SelectionEvent arg0 ) {
         setFlags();
@@ -1148,6 +1150,8 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
     wVersion.setEnabled( update );
     wlTkRename.setEnabled( !update );
     wTkRename.setEnabled( !update );
+    wlPreloadCache.setEnabled( !update );
+    wPreloadCache.setEnabled( !update );
 
     wCreate.setEnabled( update );
 
@@ -102,6 +102,10 @@ public class InsertUpdateDialog extends BaseStepDialog implements StepDialogInte
   private Button wUpdateBypassed;
   private FormData fdlUpdateBypassed, fdUpdateBypassed;
 
+  private Label wlUseStagingTable;
+  private Button wUseStagingTable;
+  private FormData fdlUseStagingTable, fdUseStagingTable;
+
   private Button wGetLU;
   private FormData fdGetLU;
   private Listener lsGetLU;
@@ -282,12 +286,32 @@ public class InsertUpdateDialog extends BaseStepDialog implements StepDialogInte
     wUpdateBypassed.setLayoutData( fdUpdateBypassed );
     wUpdateBypassed.addSelectionListener( new ComponentSelectionListener( input ) );
 
+    // UseStagingTable line
+    wlUseStagingTable = new Label( shell, SWT.RIGHT );
+    wlUseStagingTable.setText( BaseMessages.getString( PKG, "InsertUpdateDialog.UseStagingTable.Label" ) );
+    wlUseStagingTable.setToolTipText( BaseMessages.getString( PKG, "InsertUpdateDialog.UseStagingTable.Tooltip" ) );
+    props.setLook( wlUseStagingTable );
+    fdlUseStagingTable = new FormData();
+    fdlUseStagingTable.left = new FormAttachment( 0, 0 );
+    fdlUseStagingTable.top = new FormAttachment( wUpdateBypassed, margin );
+    fdlUseStagingTable.right = new FormAttachment( middle, -margin );
+    wlUseStagingTable.setLayoutData( fdlUseStagingTable );
+    wUseStagingTable = new Button( shell, SWT.CHECK );
+    wUseStagingTable.setToolTipText( BaseMessages.getString( PKG, "InsertUpdateDialog.UseStagingTable.Tooltip" ) );
+    props.setLook( wUseStagingTable );
+    fdUseStagingTable = new FormData();
+    fdUseStagingTable.left = new FormAttachment( middle, 0 );
+    fdUseStagingTable.top = new FormAttachment( wUpdateBypassed, margin );
+    fdUseStagingTable.right = new FormAttachment( 100, 0 );
+    wUseStagingTable.setLayoutData( fdUseStagingTable );
+    wUseStagingTable.addSelectionListener( new ComponentSelectionListener( input ) );
+
     wlKey = new Label( shell, SWT.NONE );
     wlKey.setText( BaseMessages.getString( PKG, "InsertUpdateDialog.Keys.Label" ) );
     props.setLook( wlKey );
     fdlKey = new FormData();
     fdlKey.left = new FormAttachment( 0, 0 );
-    fdlKey.top = new FormAttachment( wUpdateBypassed, margin );
+    fdlKey.top = new FormAttachment( wUseStagingTable, margin );
     wlKey.setLayoutData( fdlKey );
 
     int nrKeyCols = 4;
@@ -656,6 +680,7 @@ public class InsertUpdateDialog extends BaseStepDialog implements StepDialogInte
 
     wCommit.setText( input.getCommitSizeVar() );
     wUpdateBypassed.setSelection( input.isUpdateBypassed() );
+    wUseStagingTable.setSelection( input.isUseStagingTable() );
 
     if ( input.getKeyFields() != null ) {
       for ( int i = 0; i < input.getKeyFields().length; i++ ) {
@@ -728,6 +753,7 @@ public class InsertUpdateDialog extends BaseStepDialog implements StepDialogInte
 
     inf.setCommitSize( wCommit.getText() );
     inf.setUpdateBypassed( wUpdateBypassed.getSelection() );
+    inf.setUseStagingTable( wUseStagingTable.getSelection() );
 
     if ( log.isDebug() ) {
       logDebug( BaseMessages.getString( PKG, "InsertUpdateDialog.Log.FoundKeys", nrkeys + "" ) );
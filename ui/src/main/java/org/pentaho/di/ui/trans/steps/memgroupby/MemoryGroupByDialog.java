@@ -20,6 +20,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.CCombo;
 import org.eclipse.swt.events.ModifyEvent;
 import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.SelectionAdapter;
@@ -49,8 +50,12 @@ import org.pentaho.di.trans.step.StepDialogInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByMeta;
 import org.pentaho.di.ui.core.dialog.ErrorDialog;
+import org.pentaho.di.ui.core.events.dialog.SelectionAdapterFileDialogTextVar;
+import org.pentaho.di.ui.core.events.dialog.SelectionAdapterOptions;
+import org.pentaho.di.ui.core.events.dialog.SelectionOperation;
 import org.pentaho.di.ui.core.widget.ColumnInfo;
 import org.pentaho.di.ui.core.widget.TableView;
+import org.pentaho.di.ui.core.widget.TextVar;
 import org.pentaho.di.ui.trans.step.BaseStepDialog;
 
 public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInterface {
@@ -68,6 +73,23 @@ public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInt
   private Button wAlwaysAddResult;
   private FormData fdlAlwaysAddResult, fdAlwaysAddResult;
 
+  private Label wlAggregationMode;
+  private CCombo wAggregationMode;
+  private FormData fdlAggregationMode, fdAggregationMode;
+
+  private Label wlTempDir;
+  private Button wbTempDir;
+  private TextVar wTempDir;
+  private FormData fdlTempDir, fdbTempDir, fdTempDir;
+
+  private Label wlMaxGroups;
+  private TextVar wMaxGroups;
+  private FormData fdlMaxGroups, fdMaxGroups;
+
+  private Label wlFreeMemory;
+  private TextVar wFreeMemory;
+  private FormData fdlFreeMemory, fdFreeMemory;
+
   private Button wGet, wGetAgg;
   private FormData fdGet, fdGetAgg;
   private Listener lsGet, lsGetAgg;
@@ -159,12 +181,113 @@ public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInt
     wAlwaysAddResult.setLayoutData( fdAlwaysAddResult );
     wAlwaysAddResult.addSelectionListener( lsSel );
 
+    // Normal, partial or merge aggregation
+    wlAggregationMode = new Label( shell, SWT.RIGHT );
+    wlAggregationMode.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.AggregationMode.Label" ) );
+    wlAggregationMode
+      .setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.AggregationMode.ToolTip" ) );
+    props.setLook( wlAggregationMode );
+    fdlAggregationMode = new FormData();
+    fdlAggregationMode.left = new FormAttachment( 0, 0 );
+    fdlAggregationMode.top = new FormAttachment( wAlwaysAddResult, margin );
+    fdlAggregationMode.right = new FormAttachment( middle, -margin );
+    wlAggregationMode.setLayoutData( fdlAggregationMode );
+    wAggregationMode = new CCombo( shell, SWT.BORDER | SWT.READ_ONLY );
+    wAggregationMode
+      .setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.AggregationMode.ToolTip" ) );
+    props.setLook( wAggregationMode );
+    wAggregationMode.setItems( MemoryGroupByMeta.aggregationModeDesc );
+    wAggregationMode.addModifyListener( lsMod );
+    fdAggregationMode = new FormData();
+    fdAggregationMode.left = new FormAttachment( middle, 0 );
+    fdAggregationMode.top = new FormAttachment( wAlwaysAddResult, margin );
+    fdAggregationMode.right = new FormAttachment( 100, 0 );
+    wAggregationMode.setLayoutData( fdAggregationMode );
+
+    // Temp directory for the groups that don't fit in memory
+    wlTempDir = new Label( shell, SWT.RIGHT );
+    wlTempDir.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.TempDir.Label" ) );
+    props.setLook( wlTempDir );
+    fdlTempDir = new FormData();
+    fdlTempDir.left = new FormAttachment( 0, 0 );
+    fdlTempDir.right = new FormAttachment( middle, -margin );
+    fdlTempDir.top = new FormAttachment( wAggregationMode, margin );
+    wlTempDir.setLayoutData( fdlTempDir );
+
+    wbTempDir = new Button( shell, SWT.PUSH | SWT.CENTER );
+    props.setLook( wbTempDir );
+    wbTempDir.setText( BaseMessages.getString( PKG, "System.Button.Browse" ) );
+    fdbTempDir = new FormData();
+    fdbTempDir.right = new FormAttachment( 100, 0 );
+    fdbTempDir.top = new FormAttachment( wAggregationMode, margin );
+    wbTempDir.setLayoutData( fdbTempDir );
+
+    wTempDir = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wTempDir );
+    wTempDir.addModifyListener( lsMod );
+    fdTempDir = new FormData();
+    fdTempDir.left = new FormAttachment( middle, 0 );
+    fdTempDir.top = new FormAttachment( wAggregationMode, margin );
+    fdTempDir.right = new FormAttachment( wbTempDir, -margin );
+    wTempDir.setLayoutData( fdTempDir );
+
+    wbTempDir.addSelectionListener( new SelectionAdapterFileDialogTextVar( log, wTempDir, transMeta,
+      new SelectionAdapterOptions( transMeta.getBowl(), SelectionOperation.FOLDER ) ) );
+
+    // Whenever something changes, set the tooltip to the expanded version:
+    wTempDir.addModifyListener( new ModifyListener() {
+      @Override
+      public void modifyText( ModifyEvent e ) {
+        wTempDir.setToolTipText( transMeta.environmentSubstitute( wTempDir.getText() ) );
+      }
+    } );
+
+    // Maximum number of groups to keep in memory before using temporary files
+    wlMaxGroups = new Label( shell, SWT.RIGHT );
+    wlMaxGroups.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MaxGroups.Label" ) );
+    wlMaxGroups.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MaxGroups.ToolTip" ) );
+    props.setLook( wlMaxGroups );
+    fdlMaxGroups = new FormData();
+    fdlMaxGroups.left = new FormAttachment( 0, 0 );
+    fdlMaxGroups.right = new FormAttachment( middle, -margin );
+    fdlMaxGroups.top = new FormAttachment( wbTempDir, margin );
+    wlMaxGroups.setLayoutData( fdlMaxGroups );
+    wMaxGroups = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wMaxGroups.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MaxGroups.ToolTip" ) );
+    props.setLook( wMaxGroups );
+    wMaxGroups.addModifyListener( lsMod );
+    fdMaxGroups = new FormData();
+    fdMaxGroups.left = new FormAttachment( middle, 0 );
+    fdMaxGroups.top = new FormAttachment( wbTempDir, margin );
+    fdMaxGroups.right = new FormAttachment( 100, 0 );
+    wMaxGroups.setLayoutData( fdMaxGroups );
+
+    // Free memory to keep
+    wlFreeMemory = new Label( shell, SWT.RIGHT );
+    wlFreeMemory.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.FreeMemory.Label" ) );
+    wlFreeMemory.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.FreeMemory.ToolTip" ) );
+    props.setLook( wlFreeMemory );
+    fdlFreeMemory = new FormData();
+    fdlFreeMemory.left = new FormAttachment( 0, 0 );
+    fdlFreeMemory.right = new FormAttachment( middle, -margin );
+    fdlFreeMemory.top = new FormAttachment( wMaxGroups, margin );
+    wlFreeMemory.setLayoutData( fdlFreeMemory );
+    wFreeMemory = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wFreeMemory.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.FreeMemory.ToolTip" ) );
+    props.setLook( wFreeMemory );
+    wFreeMemory.addModifyListener( lsMod );
+    fdFreeMemory = new FormData();
+    fdFreeMemory.left = new FormAttachment( middle, 0 );
+    fdFreeMemory.top = new FormAttachment( wMaxGroups, margin );
+    fdFreeMemory.right = new FormAttachment( 100, 0 );
+    wFreeMemory.setLayoutData( fdFreeMemory );
+
     wlGroup = new Label( shell, SWT.NONE );
     wlGroup.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.Group.Label" ) );
     props.setLook( wlGroup );
     fdlGroup = new FormData();
     fdlGroup.left = new FormAttachment( 0, 0 );
-    fdlGroup.top = new FormAttachment( wAlwaysAddResult, margin );
+    fdlGroup.top = new FormAttachment( wFreeMemory, margin );
     wlGroup.setLayoutData( fdlGroup );
 
     int nrKeyCols = 1;
@@ -366,6 +489,10 @@ public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInt
     logDebug( BaseMessages.getString( PKG, "MemoryGroupByDialog.Log.GettingKeyInfo" ) );
 
     wAlwaysAddResult.setSelection( input.isAlwaysGivingBackOneRow() );
+    wAggregationMode.select( input.getAggregationMode() );
+    wTempDir.setText( Const.NVL( input.getDirectory(), "" ) );
+    wMaxGroups.setText( Const.NVL( input.getMaxGroupsInMemory(), "" ) );
+    wFreeMemory.setText( Const.NVL( input.getFreeMemoryLimit(), "" ) );
 
     if ( input.getGroupField() != null ) {
       for ( int i = 0; i < input.getGroupField().length; i++ ) {
@@ -416,6 +543,10 @@ public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInt
     int nrfields = wAgg.nrNonEmpty();
 
     input.setAlwaysGivingBackOneRow( wAlwaysAddResult.getSelection() );
+    input.setAggregationMode( Math.max( 0, wAggregationMode.getSelectionIndex() ) );
+    input.setDirectory( wTempDir.getText() );
+    input.setMaxGroupsInMemory( wMaxGroups.getText() );
+    input.setFreeMemoryLimit( wFreeMemory.getText() );
 
     input.allocate( sizegroup, nrfields );
 
@@ -124,6 +124,10 @@ public class SynchronizeAfterMergeDialog extends BaseStepDialog implements StepD
   private Button wPerformLookup;
   private FormData fdlPerformLookup, fdPerformLookup;
 
+  private Label wlUseStagingTable;
+  private Button wUseStagingTable;
+  private FormData fdlUseStagingTable, fdUseStagingTable;
+
   private Group wOperationOrder;
   private FormData fdOperationOrder;
 
@@ -733,6 +737,25 @@ public class SynchronizeAfterMergeDialog extends BaseStepDialog implements StepD
     fdPerformLookup.right = new FormAttachment( 100, 0 );
     wPerformLookup.setLayoutData( fdPerformLookup );
 
+    wlUseStagingTable = new Label( wOperationOrder, SWT.RIGHT );
+    wlUseStagingTable.setText( BaseMessages.getString( PKG, "SynchronizeAfterMergeDialog.UseStagingTable.Label" ) );
+    props.setLook( wlUseStagingTable );
+    fdlUseStagingTable = new FormData();
+    fdlUseStagingTable.left = new FormAttachment( 0, 0 );
+    fdlUseStagingTable.top = new FormAttachment( wPerformLookup, margin );
+    fdlUseStagingTable.right = new FormAttachment( middle, -margin );
+    wlUseStagingTable.setLayoutData( fdlUseStagingTable );
+    wUseStagingTable = new Button( wOperationOrder, SWT.CHECK );
+    wUseStagingTable.setToolTipText( BaseMessages.getString(
+      PKG, "SynchronizeAfterMergeDialog.UseStagingTable.Tooltip" ) );
+    wUseStagingTable.addSelectionListener( lsSimpleSelection );
+    props.setLook( wUseStagingTable );
+    fdUseStagingTable = new FormData();
+    fdUseStagingTable.left = new FormAttachment( middle, 0 );
+    fdUseStagingTable.top = new FormAttachment( wPerformLookup, margin );
+    fdUseStagingTable.right = new FormAttachment( 100, 0 );
+    wUseStagingTable.setLayoutData( fdUseStagingTable );
+
     fdOperationOrder = new FormData();
     fdOperationOrder.left = new FormAttachment( 0, margin );
     fdOperationOrder.top = new FormAttachment( wStepname, margin );
@@ -1075,6 +1098,7 @@ public class SynchronizeAfterMergeDialog extends BaseStepDialog implements StepD
       wOrderDelete.setText( input.getOrderDelete() );
     }
     wPerformLookup.setSelection( input.isPerformLookup() );
+    wUseStagingTable.setSelection( input.isUseStagingTable() );
 
     if ( input.getKeyStream() != null ) {
       for ( int i = 0; i < input.getKeyStream().length; i++ ) {
@@ -1150,6 +1174,7 @@ public class SynchronizeAfterMergeDialog extends BaseStepDialog implements StepD
     inf.settablenameField( wTableField.getText() );
     inf.setUseBatchUpdate( wBatch.getSelection() );
     inf.setPerformLookup( wPerformLookup.getSelection() );
+    inf.setUseStagingTable( wUseStagingTable.getSelection() );
 
     inf.setOperationOrderField( wOperationField.getText() );
     inf.setOrderInsert( wOrderInsert.getText() );
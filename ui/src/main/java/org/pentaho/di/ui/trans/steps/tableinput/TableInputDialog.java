@@ -85,6 +85,14 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
   private TextVar wLimit;
   private FormData fdlLimit, fdLimit;
 
+  private Label wlPrefetchBlocks;
+  private TextVar wPrefetchBlocks;
+  private FormData fdlPrefetchBlocks, fdPrefetchBlocks;
+
+  private Label wlPartitionColumn;
+  private TextVar wPartitionColumn;
+  private FormData fdlPartitionColumn, fdPartitionColumn;
+
   private Label wlEachRow;
   private Button wEachRow;
   private FormData fdlEachRow, fdEachRow;
@@ -179,6 +187,46 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
 
     setButtonPositions( new Button[] { wOK, wPreview, wCancel }, margin, null );
 
+    // Prefetch blocks ...
+    wlPrefetchBlocks = new Label( shell, SWT.RIGHT );
+    wlPrefetchBlocks.setText( BaseMessages.getString( PKG, "TableInputDialog.PrefetchBlocks" ) );
+    wlPrefetchBlocks.setToolTipText( BaseMessages.getString( PKG, "TableInputDialog.PrefetchBlocks.Tooltip" ) );
+    props.setLook( wlPrefetchBlocks );
+    fdlPrefetchBlocks = new FormData();
+    fdlPrefetchBlocks.left = new FormAttachment( 0, 0 );
+    fdlPrefetchBlocks.right = new FormAttachment( middle, -margin );
+    fdlPrefetchBlocks.bottom = new FormAttachment( wOK, -2 * margin );
+    wlPrefetchBlocks.setLayoutData( fdlPrefetchBlocks );
+    wPrefetchBlocks = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wPrefetchBlocks.setToolTipText( BaseMessages.getString( PKG, "TableInputDialog.PrefetchBlocks.Tooltip" ) );
+    props.setLook( wPrefetchBlocks );
+    wPrefetchBlocks.addModifyListener( lsMod );
+    fdPrefetchBlocks = new FormData();
+    fdPrefetchBlocks.left = new FormAttachment( middle, 0 );
+    fdPrefetchBlocks.right = new FormAttachment( 100, 0 );
+    fdPrefetchBlocks.bottom = new FormAttachment( wOK, -2 * margin );
+    wPrefetchBlocks.setLayoutData( fdPrefetchBlocks );
+
+    // Partition column ...
+    wlPartitionColumn = new Label( shell, SWT.RIGHT );
+    wlPartitionColumn.setText( BaseMessages.getString( PKG, "TableInputDialog.PartitionColumn" ) );
+    wlPartitionColumn.setToolTipText( BaseMessages.getString( PKG, "TableInputDialog.PartitionColumn.Tooltip" ) );
+    props.setLook( wlPartitionColumn );
+    fdlPartitionColumn = new FormData();
+    fdlPartitionColumn.left = new FormAttachment( 0, 0 );
+    fdlPartitionColumn.right = new FormAttachment( middle, -margin );
+    fdlPartitionColumn.bottom = new FormAttachment( wPrefetchBlocks, -margin );
+    wlPartitionColumn.setLayoutData( fdlPartitionColumn );
+    wPartitionColumn = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wPartitionColumn.setToolTipText( BaseMessages.getString( PKG, "TableInputDialog.PartitionColumn.Tooltip" ) );
+    props.setLook( wPartitionColumn );
+    wPartitionColumn.addModifyListener( lsMod );
+    fdPartitionColumn = new FormData();
+    fdPartitionColumn.left = new FormAttachment( middle, 0 );
+    fdPartitionColumn.right = new FormAttachment( 100, 0 );
+    fdPartitionColumn.bottom = new FormAttachment( wPrefetchBlocks, -margin );
+    wPartitionColumn.setLayoutData( fdPartitionColumn );
+
     // Limit input ...
     wlLimit = new Label( shell, SWT.RIGHT );
     wlLimit.setText( BaseMessages.getString( PKG, "TableInputDialog.LimitSize" ) );
@@ -186,7 +234,7 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
     fdlLimit = new FormData();
     fdlLimit.left = new FormAttachment( 0, 0 );
     fdlLimit.right = new FormAttachment( middle, -margin );
-    fdlLimit.bottom = new FormAttachment( wOK, -2 * margin );
+    fdlLimit.bottom = new FormAttachment( wPartitionColumn, -margin );
     wlLimit.setLayoutData( fdlLimit );
     wLimit = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
     props.setLook( wLimit );
@@ -194,7 +242,7 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
     fdLimit = new FormData();
     fdLimit.left = new FormAttachment( middle, 0 );
     fdLimit.right = new FormAttachment( 100, 0 );
-    fdLimit.bottom = new FormAttachment( wOK, -2 * margin );
+    fdLimit.bottom = new FormAttachment( wPartitionColumn, -margin );
     wLimit.setLayoutData( fdLimit );
 
     // Execute for each row?
@@ -434,6 +482,8 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
 
     wStepname.addSelectionListener( lsDef );
     wLimit.addSelectionListener( lsDef );
+    wPartitionColumn.addSelectionListener( lsDef );
+    wPrefetchBlocks.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
     shell.addShellListener( new ShellAdapter() {
@@ -491,6 +541,8 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
       wConnection.setText( input.getDatabaseMeta().getName() );
     }
     wLimit.setText( Const.NVL( input.getRowLimit(), "" ) );
+    wPartitionColumn.setText( Const.NVL( input.getPartitionColumn(), "" ) );
+    wPrefetchBlocks.setText( Const.NVL( input.getPrefetchBlocks(), "" ) );
 
     StreamInterface infoStream = input.getStepIOMeta().getInfoStreams().get( 0 );
     if ( infoStream.getStepMeta() != null ) {
@@ -537,6 +589,8 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
     meta.setSQL( preview && !Utils.isEmpty( wSQL.getSelectionText() ) ? wSQL.getSelectionText() : wSQL.getText() );
     meta.setDatabaseMeta( transMeta.findDatabase( wConnection.getText() ) );
     meta.setRowLimit( wLimit.getText() );
+    meta.setPartitionColumn( wPartitionColumn.getText() );
+    meta.setPrefetchBlocks( wPrefetchBlocks.getText() );
     StreamInterface infoStream = input.getStepIOMeta().getInfoStreams().get( 0 );
     infoStream.setStepMeta( transMeta.findStep( wDatefrom.getText() ) );
     meta.setExecuteEachInputRow( wEachRow.getSelection() );
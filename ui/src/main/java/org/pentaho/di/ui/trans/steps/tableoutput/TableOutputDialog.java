@@ -110,6 +110,9 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
   private TextVar wCommit;
   private FormData fdlCommit, fdCommit;
 
+  private Label wlNrWriters;
+  private TextVar wNrWriters;
+
   private Label wlTruncate;
   private Button wTruncate;
   private FormData fdlTruncate, fdTruncate;
@@ -124,6 +127,9 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
 
   private Label wlBatch;
   private Button wBatch;
+
+  private Label wlBulkLoad;
+  private Button wBulkLoad;
   private FormData fdlBatch, fdBatch;
 
   private Label wlUsePart;
@@ -338,20 +344,39 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
     fdCommit.right = new FormAttachment( 100, 0 );
     wCommit.setLayoutData( fdCommit );
 
+    // Number of writer connections ...
+    wlNrWriters = new Label( shell, SWT.RIGHT );
+    wlNrWriters.setText( BaseMessages.getString( PKG, "TableOutputDialog.NrWriters.Label" ) );
+    wlNrWriters.setToolTipText( BaseMessages.getString( PKG, "TableOutputDialog.NrWriters.Tooltip" ) );
+    props.setLook( wlNrWriters );
+    FormData fdlNrWriters = new FormData();
+    fdlNrWriters.left = new FormAttachment( 0, 0 );
+    fdlNrWriters.right = new FormAttachment( middle, -margin );
+    fdlNrWriters.top = new FormAttachment( wCommit, margin );
+    wlNrWriters.setLayoutData( fdlNrWriters );
+    wNrWriters = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wNrWriters );
+    wNrWriters.addModifyListener( lsMod );
+    FormData fdNrWriters = new FormData();
+    fdNrWriters.left = new FormAttachment( middle, 0 );
+    fdNrWriters.top = new FormAttachment( wCommit, margin );
+    fdNrWriters.right = new FormAttachment( 100, 0 );
+    wNrWriters.setLayoutData( fdNrWriters );
+
     // Truncate table
     wlTruncate = new Label( shell, SWT.RIGHT );
     wlTruncate.setText( BaseMessages.getString( PKG, "TableOutputDialog.TruncateTable.Label" ) );
     props.setLook( wlTruncate );
     fdlTruncate = new FormData();
     fdlTruncate.left = new FormAttachment( 0, 0 );
-    fdlTruncate.top = new FormAttachment( wCommit, margin );
+    fdlTruncate.top = new FormAttachment( wNrWriters, margin );
     fdlTruncate.right = new FormAttachment( middle, -margin );
     wlTruncate.setLayoutData( fdlTruncate );
     wTruncate = new Button( shell, SWT.CHECK );
     props.setLook( wTruncate );
     fdTruncate = new FormData();
     fdTruncate.left = new FormAttachment( middle, 0 );
-    fdTruncate.top = new FormAttachment( wCommit, margin );
+    fdTruncate.top = new FormAttachment( wNrWriters, margin );
     fdTruncate.right = new FormAttachment( 100, 0 );
     wTruncate.setLayoutData( fdTruncate );
     SelectionAdapter lsSelMod = new SelectionAdapter() {
@@ -557,20 +582,40 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
       }
     } );
 
+    // Bulk load
+    wlBulkLoad = new Label( wMainComp, SWT.RIGHT );
+    wlBulkLoad.setText( BaseMessages.getString( PKG, "TableOutputDialog.BulkLoad.Label" ) );
+    wlBulkLoad.setToolTipText( BaseMessages.getString( PKG, "TableOutputDialog.BulkLoad.Tooltip" ) );
+    props.setLook( wlBulkLoad );
+    FormData fdlBulkLoad = new FormData();
+    fdlBulkLoad.left = new FormAttachment( 0, 0 );
+    fdlBulkLoad.top = new FormAttachment( wBatch, margin );
+    fdlBulkLoad.right = new FormAttachment( middle, -margin );
+    wlBulkLoad.setLayoutData( fdlBulkLoad );
+    wBulkLoad = new Button( wMainComp, SWT.CHECK );
+    wBulkLoad.setToolTipText( BaseMessages.getString( PKG, "TableOutputDialog.BulkLoad.Tooltip" ) );
+    props.setLook( wBulkLoad );
+    FormData fdBulkLoad = new FormData();
+    fdBulkLoad.left = new FormAttachment( middle, 0 );
+    fdBulkLoad.top = new FormAttachment( wBatch, margin );
+    fdBulkLoad.right = new FormAttachment( 100, 0 );
+    wBulkLoad.setLayoutData( fdBulkLoad );
+    wBulkLoad.addSelectionListener( lsSelMod );
+
     // NameInField
     wlNameInField = new Label( wMainComp, SWT.RIGHT );
     wlNameInField.setText( BaseMessages.getString( PKG, "TableOutputDialog.NameInField.Label" ) );
     props.setLook( wlNameInField );
     fdlNameInField = new FormData();
     fdlNameInField.left = new FormAttachment( 0, 0 );
-    fdlNameInField.top = new FormAttachment( wBatch, margin * 5 );
+    fdlNameInField.top = new FormAttachment( wBulkLoad, margin * 5 );
     fdlNameInField.right = new FormAttachment( middle, -margin );
     wlNameInField.setLayoutData( fdlNameInField );
     wNameInField = new Button( wMainComp, SWT.CHECK );
     props.setLook( wNameInField );
     fdNameInField = new FormData();
     fdNameInField.left = new FormAttachment( middle, 0 );
-    fdNameInField.top = new FormAttachment( wBatch, margin * 5 );
+    fdNameInField.top = new FormAttachment( wBulkLoad, margin * 5 );
     fdNameInField.right = new FormAttachment( 100, 0 );
     wNameInField.setLayoutData( fdNameInField );
     wNameInField.addSelectionListener( new SelectionAdapter() {
@@ -842,6 +887,7 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
 
     wStepname.addSelectionListener( lsDef );
     wCommit.addSelectionListener( lsDef );
+    wNrWriters.addSelectionListener( lsDef );
     wSchema.addSelectionListener( lsDef );
     wTable.addSelectionListener( lsDef );
     wPartField.addSelectionListener( lsDef );
@@ -1235,6 +1281,16 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
     wlBatch.setEnabled( enableBatch );
     wBatch.setEnabled( enableBatch );
 
+    // The bulk load streams the rows of a single table and can't return keys
+    boolean enableBulkLoad = !returnKeys && !usePartitioning && !isTableNameInField;
+    wlBulkLoad.setEnabled( enableBulkLoad );
+    wBulkLoad.setEnabled( enableBulkLoad );
+
+    // The writer connections insert the batches of a single table
+    boolean enableNrWriters = useBatch && !usePartitioning && !isTableNameInField;
+    wlNrWriters.setEnabled( enableNrWriters );
+    wNrWriters.setEnabled( enableNrWriters );
+
     boolean specifyFields = wSpecifyFields.getSelection();
     wFields.setEnabled( specifyFields );
     wGetFields.setEnabled( specifyFields );
@@ -1280,8 +1336,10 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
     wTruncate.setSelection( input.truncateTable() );
     wIgnore.setSelection( input.ignoreErrors() );
     wBatch.setSelection( input.useBatchUpdate() );
+    wBulkLoad.setSelection( input.isUseBulkLoad() );
 
     wCommit.setText( input.getCommitSize() );
+    wNrWriters.setText( Const.NVL( input.getNrWriters(), "1" ) );
 
     wUsePart.setSelection( input.isPartitioningEnabled() );
     wPartDaily.setSelection( input.isPartitioningDaily() );
@@ -1330,9 +1388,11 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
     info.setTableName( wTable.getText() );
     info.setDatabaseMeta( transMeta.findDatabase( wConnection.getText() ) );
     info.setCommitSize( wCommit.getText() );
+    info.setNrWriters( wNrWriters.getText() );
     info.setTruncateTable( wTruncate.getSelection() );
     info.setIgnoreErrors( wIgnore.getSelection() );
     info.setUseBatchUpdate( wBatch.getSelection() );
+    info.setUseBulkLoad( wBulkLoad.getSelection() );
     info.setPartitioningEnabled( wUsePart.getSelection() );
     info.setPartitioningField( wPartField.getText() );
     info.setPartitioningDaily( wPartDaily.getSelection() );
@@ -167,6 +167,8 @@ public class TextFileOutputDialog extends BaseStepDialog implements StepDialogIn
 
   private Label wlCompression;
   private CCombo wCompression;
+
+  private TextVar wCompressionThreads;
   private FormData fdlCompression, fdCompression;
 
   private Label wlEncoding;
@@ -886,12 +888,31 @@ public class TextFileOutputDialog extends BaseStepDialog implements StepDialogIn
     fdCompression.right = new FormAttachment( 100, 0 );
     wCompression.setLayoutData( fdCompression );
 
+    Label wlCompressionThreads = new Label( wContentComp, SWT.RIGHT );
+    wlCompressionThreads.setText( BaseMessages.getString( PKG, "TextFileOutputDialog.CompressionThreads.Label" ) );
+    props.setLook( wlCompressionThreads );
+    FormData fdlCompressionThreads = new FormData();
+    fdlCompressionThreads.left = new FormAttachment( 0, 0 );
+    fdlCompressionThreads.top = new FormAttachment( wCompression, margin );
+    fdlCompressionThreads.right = new FormAttachment( middle, -margin );
+    wlCompressionThreads.setLayoutData( fdlCompressionThreads );
+    wCompressionThreads = new TextVar( transMeta, wContentComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wCompressionThreads.setToolTipText(
+      BaseMessages.getString( PKG, "TextFileOutputDialog.CompressionThreads.Tooltip" ) );
+    props.setLook( wCompressionThreads );
+    wCompressionThreads.addModifyListener( lsMod );
+    FormData fdCompressionThreads = new FormData();
+    fdCompressionThreads.left = new FormAttachment( middle, 0 );
+    fdCompressionThreads.top = new FormAttachment( wCompression, margin );
+    fdCompressionThreads.right = new FormAttachment( 100, 0 );
+    wCompressionThreads.setLayoutData( fdCompressionThreads );
+
     wlEncoding = new Label( wContentComp, SWT.RIGHT );
     wlEncoding.setText( BaseMessages.getString( PKG, "TextFileOutputDialog.Encoding.Label" ) );
     props.setLook( wlEncoding );
     fdlEncoding = new FormData();
     fdlEncoding.left = new FormAttachment( 0, 0 );
-    fdlEncoding.top = new FormAttachment( wCompression, margin );
+    fdlEncoding.top = new FormAttachment( wCompressionThreads, margin );
     fdlEncoding.right = new FormAttachment( middle, -margin );
     wlEncoding.setLayoutData( fdlEncoding );
     wEncoding = new CCombo( wContentComp, SWT.BORDER | SWT.READ_ONLY );
@@ -900,7 +921,7 @@ public class TextFileOutputDialog extends BaseStepDialog implements StepDialogIn
     wEncoding.addModifyListener( lsMod );
     fdEncoding = new FormData();
     fdEncoding.left = new FormAttachment( middle, 0 );
-    fdEncoding.top = new FormAttachment( wCompression, margin );
+    fdEncoding.top = new FormAttachment( wCompressionThreads, margin );
     fdEncoding.right = new FormAttachment( 100, 0 );
     wEncoding.setLayoutData( fdEncoding );
     wEncoding.addFocusListener( new FocusListener() {
@@ -1429,6 +1450,7 @@ public class TextFileOutputDialog extends BaseStepDialog implements StepDialogIn
     }
 
     wSplitEvery.setText( Const.NVL( input.getSplitEveryRows(), "" ) );
+    wCompressionThreads.setText( Const.NVL( input.getCompressionThreads(), "" ) );
 
     wEnclForced.setSelection( input.isEnclosureForced() );
     wDisableEnclosureFix.setSelection( input.isEnclosureFixDisabled() );
@@ -1509,6 +1531,7 @@ public class TextFileOutputDialog extends BaseStepDialog implements StepDialogIn
     tfoi.setEnclosure( wEnclosure.getText() );
     tfoi.setExtension( wExtension.getText() );
     tfoi.setSplitEveryRows( wSplitEvery.getText() );
+    tfoi.setCompressionThreads( wCompressionThreads.getText() );
     tfoi.setEndedLine( wEndedLine.getText() );
 
     tfoi.setFileNameField( wFileNameField.getText() );
@@ -96,6 +96,10 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
   private Button wBatch;
   private FormData fdlBatch, fdBatch;
 
+  private Label wlUseStagingTable;
+  private Button wUseStagingTable;
+  private FormData fdlUseStagingTable, fdUseStagingTable;
+
   private Label wlErrorIgnored;
   private Button wErrorIgnored;
   private FormData fdlErrorIgnored, fdErrorIgnored;
@@ -290,13 +294,36 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
       }
     } );
 
+    // Staging table
+    wlUseStagingTable = new Label( shell, SWT.RIGHT );
+    wlUseStagingTable.setText( BaseMessages.getString( PKG, "UpdateDialog.UseStagingTable.Label" ) );
+    props.setLook( wlUseStagingTable );
+    fdlUseStagingTable = new FormData();
+    fdlUseStagingTable.left = new FormAttachment( 0, 0 );
+    fdlUseStagingTable.top = new FormAttachment( wBatch, margin );
+    fdlUseStagingTable.right = new FormAttachment( middle, -margin );
+    wlUseStagingTable.setLayoutData( fdlUseStagingTable );
+    wUseStagingTable = new Button( shell, SWT.CHECK );
+    wUseStagingTable.setToolTipText( BaseMessages.getString( PKG, "UpdateDialog.UseStagingTable.Tooltip" ) );
+    props.setLook( wUseStagingTable );
+    fdUseStagingTable = new FormData();
+    fdUseStagingTable.left = new FormAttachment( middle, 0 );
+    fdUseStagingTable.top = new FormAttachment( wBatch, margin );
+    fdUseStagingTable.right = new FormAttachment( 100, 0 );
+    wUseStagingTable.setLayoutData( fdUseStagingTable );
+    wUseStagingTable.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+      }
+    } );
+
     // UsePart update
     wlSkipLookup = new Label( shell, SWT.RIGHT );
     wlSkipLookup.setText( BaseMessages.getString( PKG, "UpdateDialog.SkipLookup.Label" ) );
     props.setLook( wlSkipLookup );
     fdlSkipLookup = new FormData();
     fdlSkipLookup.left = new FormAttachment( 0, 0 );
-    fdlSkipLookup.top = new FormAttachment( wBatch, margin );
+    fdlSkipLookup.top = new FormAttachment( wUseStagingTable, margin );
     fdlSkipLookup.right = new FormAttachment( middle, -margin );
     wlSkipLookup.setLayoutData( fdlSkipLookup );
     wSkipLookup = new Button( shell, SWT.CHECK );
@@ -304,7 +331,7 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
     props.setLook( wSkipLookup );
     fdSkipLookup = new FormData();
     fdSkipLookup.left = new FormAttachment( middle, 0 );
-    fdSkipLookup.top = new FormAttachment( wBatch, margin );
+    fdSkipLookup.top = new FormAttachment( wUseStagingTable, margin );
     fdSkipLookup.right = new FormAttachment( 100, 0 );
     wSkipLookup.setLayoutData( fdSkipLookup );
     wSkipLookup.addSelectionListener( new SelectionAdapter() {
@@ -669,6 +696,7 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
 
     wCommit.setText( input.getCommitSizeVar() );
     wBatch.setSelection( input.useBatchUpdate() );
+    wUseStagingTable.setSelection( input.isUseStagingTable() );
     wSkipLookup.setSelection( input.isSkipLookup() );
     wErrorIgnored.setSelection( input.isErrorIgnored() );
     if ( input.getIgnoreFlagField() != null ) {
@@ -743,6 +771,7 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
 
     inf.setCommitSize(  wCommit.getText() );
     inf.setUseBatchUpdate( wBatch.getSelection() );
+    inf.setUseStagingTable( wUseStagingTable.getSelection() );
     inf.setSkipLookup( wSkipLookup.getSelection() );
 
     if ( log.isDebug() ) {